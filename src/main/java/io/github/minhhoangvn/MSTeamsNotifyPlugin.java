@@ -1,8 +1,19 @@
 package io.github.minhhoangvn;
 
+import io.github.minhhoangvn.audit.AuditJournal;
+import io.github.minhhoangvn.dispatch.NotificationDispatcher;
+import io.github.minhhoangvn.extension.EndpointHealthProber;
+import io.github.minhhoangvn.extension.MSTeamsConnectionWarmer;
+import io.github.minhhoangvn.extension.MSTeamsNotifierService;
 import io.github.minhhoangvn.extension.MSTeamsPreProjectAnalysisTask;
 import io.github.minhhoangvn.extension.MSTeamsPostProjectAnalysisTask;
+import io.github.minhhoangvn.extension.QualitySummaryService;
+import io.github.minhhoangvn.filter.FlapDetector;
+import io.github.minhhoangvn.metrics.NotifierMetrics;
 import io.github.minhhoangvn.settings.MSTeamsNotifyProperties;
+import io.github.minhhoangvn.settings.NotifierSettings;
+import io.github.minhhoangvn.summary.QualitySummaryAggregator;
+import io.github.minhhoangvn.transition.TransitionTracker;
 import org.sonar.api.Plugin;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
@@ -15,13 +26,43 @@ public class MSTeamsNotifyPlugin implements Plugin {
     public void define(Context context) {
         LOGGER.info("MS Teams Plugin: Registering extensions...");
         
-        // Register the pre-analysis configuration validator first
+        // Register the settings component and the pre-analysis configuration validator first
+        context.addExtension(NotifierSettings.class);
         context.addExtension(MSTeamsPreProjectAnalysisTask.class);
         LOGGER.info("MS Teams Plugin: Registered MSTeamsPreProjectAnalysisTask");
         
+        // Register the notifier counters, the delivery audit journal and the dispatcher that delivers notifications off the Compute Engine thread
+        context.addExtension(NotifierMetrics.class);
+        context.addExtension(AuditJournal.class);
+        context.addExtension(NotificationDispatcher.class);
+        LOGGER.info("MS Teams Plugin: Registered NotificationDispatcher");
+
+        // Register the service that drains the dispatcher on shutdown and requeues saved notifications on startup
+        context.addExtension(MSTeamsNotifierService.class);
+        LOGGER.info("MS Teams Plugin: Registered MSTeamsNotifierService");
+
+        // Register the quality summary accumulators and the service that sends them on schedule
+        context.addExtension(QualitySummaryAggregator.class);
+        context.addExtension(QualitySummaryService.class);
+        LOGGER.info("MS Teams Plugin: Registered QualitySummaryService");
+
+        // Register the detector of projects flipping between passed and failed quality gates
+        context.addExtension(FlapDetector.class);
+
+        // Register the tracker of quality gate transitions, used when triggers are set
+        context.addExtension(TransitionTracker.class);
+
         // Register the post-analysis notification task
         context.addExtension(MSTeamsPostProjectAnalysisTask.class);
         LOGGER.info("MS Teams Plugin: Registered MSTeamsPostProjectAnalysisTask");
+
+        // Register the connection warmer that pre-resolves and pre-connects to webhook hosts
+        context.addExtension(MSTeamsConnectionWarmer.class);
+        LOGGER.info("MS Teams Plugin: Registered MSTeamsConnectionWarmer");
+
+        // Register the prober that releases held notifications as soon as an unavailable webhook answers again
+        context.addExtension(EndpointHealthProber.class);
+        LOGGER.info("MS Teams Plugin: Registered EndpointHealthProber");
         
         // Register the property definitions to make them visible in SonarQube admin
         MSTeamsNotifyProperties.getProperties().forEach(propertyDefinition -> {
@@ -0,0 +1,192 @@
+package io.github.minhhoangvn.audit;
+
+import io.github.minhhoangvn.metrics.NotifierMetrics;
+import io.github.minhhoangvn.utils.Constants;
+import org.sonar.api.Startable;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Journal of every notification outcome, for compliance, written as newline-delimited JSON to
+ * rolling files when {@code sonar.msteams.audit.enable} is set.
+ * <p>
+ * Recording never blocks: records go on a lock-free queue and a single writer thread formats and
+ * appends them in batches, every {@code sonar.msteams.audit.flush.ms} or as soon as a batch is
+ * full. When the disk cannot keep up and the queue is full, records are dropped and counted
+ * rather than slowing deliveries down.
+ */
+@ComputeEngineSide
+public class AuditJournal implements Startable {
+
+    private static final Logger LOGGER = Loggers.get(AuditJournal.class);
+    private static final String BASE_NAME = "msteams-audit";
+    private static final int BATCH_SIZE = 256;
+    private static final long STOP_JOIN_MILLIS = 5_000;
+
+    private final RollingAuditFile file;
+    private final NotifierMetrics metrics;
+    private final int capacity;
+    private final long flushIntervalMillis;
+    private final ConcurrentLinkedQueue<AuditRecord> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final StringBuilder lines = new StringBuilder(BATCH_SIZE * 256);
+    private volatile Thread writer;
+    private volatile boolean stopped;
+
+    public AuditJournal(Configuration configuration, NotifierMetrics metrics) {
+        this(configuration.getBoolean(Constants.AUDIT_ENABLE).orElse(Constants.DEFAULT_AUDIT_ENABLE)
+                        ? new RollingAuditFile(
+                                auditDirectory(configuration),
+                                BASE_NAME,
+                                configuration.getLong(Constants.AUDIT_MAX_FILE_BYTES).orElse(Constants.DEFAULT_AUDIT_MAX_FILE_BYTES),
+                                configuration.getLong(Constants.AUDIT_ROLL_INTERVAL_MS).orElse(Constants.DEFAULT_AUDIT_ROLL_INTERVAL_MS),
+                                TimeUnit.DAYS.toMillis(configuration.getInt(Constants.AUDIT_RETENTION_DAYS).orElse(Constants.DEFAULT_AUDIT_RETENTION_DAYS)),
+                                System::currentTimeMillis)
+                        : null,
+                metrics,
+                configuration.getInt(Constants.AUDIT_QUEUE_CAPACITY).orElse(Constants.DEFAULT_AUDIT_QUEUE_CAPACITY),
+                configuration.getLong(Constants.AUDIT_FLUSH_MS).orElse(Constants.DEFAULT_AUDIT_FLUSH_MS));
+    }
+
+    AuditJournal(RollingAuditFile file, NotifierMetrics metrics, int capacity, long flushIntervalMillis) {
+        this.file = file;
+        this.metrics = metrics;
+        this.capacity = Math.max(1, capacity);
+        this.flushIntervalMillis = Math.max(1, flushIntervalMillis);
+    }
+
+    /** A journal that records nothing. */
+    public static AuditJournal disabled() {
+        return new AuditJournal(null, new NotifierMetrics(), 1, 1);
+    }
+
+    static Path auditDirectory(Configuration configuration) {
+        return configuration.get(Constants.AUDIT_DIR)
+                .map(Paths::get)
+                .orElseGet(() -> Paths.get(configuration.get(Constants.SONAR_PATH_LOGS)
+                        .orElseGet(() -> System.getProperty("java.io.tmpdir"))));
+    }
+
+    /** Whether records are kept; callers can skip building them otherwise. */
+    public boolean isEnabled() {
+        return file != null && !stopped;
+    }
+
+    /**
+     * Queues the record for the writer thread, or drops it when the queue is full. Never blocks.
+     */
+    public void record(AuditRecord record) {
+        if (!isEnabled()) {
+            return;
+        }
+        int size = queued.incrementAndGet();
+        if (size > capacity) {
+            queued.decrementAndGet();
+            metrics.increment(NotifierMetrics.AUDIT_DROPPED);
+            return;
+        }
+        queue.offer(record);
+        Thread running = writer;
+        if (size == BATCH_SIZE && running != null) {
+            LockSupport.unpark(running);
+        }
+    }
+
+    /** Records waiting for the writer. */
+    public int pending() {
+        return queued.get();
+    }
+
+    @Override
+    public synchronized void start() {
+        if (file == null || writer != null || stopped) {
+            return;
+        }
+        Thread thread = new Thread(this::runWriter, "msteams-audit-writer");
+        thread.setDaemon(true);
+        writer = thread;
+        thread.start();
+        LOGGER.info("MS Teams Plugin: Writing the delivery audit journal to {}", file.getActiveFile());
+    }
+
+    private void runWriter() {
+        while (!stopped) {
+            if (flush() < BATCH_SIZE) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis));
+            }
+        }
+    }
+
+    /**
+     * Writes one batch of queued records. Called by the writer thread, and directly once it has
+     * stopped or in tests.
+     *
+     * @return the number of records taken off the queue
+     */
+    int flush() {
+        if (file == null) {
+            return 0;
+        }
+        lines.setLength(0);
+        int count = 0;
+        AuditRecord record;
+        while (count < BATCH_SIZE && (record = queue.poll()) != null) {
+            record.appendJson(lines);
+            count++;
+        }
+        if (count == 0) {
+            return 0;
+        }
+        queued.addAndGet(-count);
+        try {
+            file.write(lines.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException | RuntimeException e) {
+            metrics.add(NotifierMetrics.AUDIT_WRITE_FAILED, count);
+            LOGGER.warn("MS Teams Plugin: Could not write {} audit records to {}: {}", count, file.getActiveFile(), e.getMessage());
+        }
+        return count;
+    }
+
+    /** Stops the writer, then writes what is still queued and closes the file. */
+    @Override
+    public synchronized void stop() {
+        stopped = true;
+        Thread running = writer;
+        writer = null;
+        if (running != null) {
+            LockSupport.unpark(running);
+            try {
+                running.join(STOP_JOIN_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (running.isAlive()) {
+                // Stuck on a slow disk; a second writer would interleave the file
+                LOGGER.warn("MS Teams Plugin: Audit writer did not stop, {} records were not written", queued.get());
+                return;
+            }
+        }
+        if (file == null) {
+            return;
+        }
+        while (flush() > 0) {
+            // Drain the rest
+        }
+        try {
+            file.close();
+        } catch (IOException e) {
+            LOGGER.debug("MS Teams Plugin: Could not close the audit journal: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package io.github.minhhoangvn.audit;
+
+import io.github.minhhoangvn.utils.AdaptiveCardsFormat;
+
+import java.time.Instant;
+
+/**
+ * Outcome of one notification, as written to the audit journal. Built on the delivery path with
+ * no formatting; the JSON line is produced by the journal writer.
+ */
+public final class AuditRecord {
+
+    public static final String DELIVERED = "delivered";
+    public static final String FAILED = "failed";
+    public static final String DEDUPLICATED = "deduplicated";
+    public static final String DROPPED = "dropped";
+
+    private final long timestampMillis;
+    private final String ceTaskId;
+    private final String projectKey;
+    private final String branch;
+    private final String destinationHash;
+    private final String status;
+    private final long latencyMillis;
+    private final long ageMillis;
+    private final int attempts;
+    private final String notificationId;
+
+    /**
+     * @param destinationHash hash of the webhook URL, which carries its secret and is never written
+     * @param status          one of the constants of this class, or {@code shed.<reason>} for a shed notification
+     * @param latencyMillis   duration of the webhook call, or {@code -1} when there was none
+     * @param ageMillis       time since the notification was created
+     */
+    public AuditRecord(long timestampMillis, String ceTaskId, String projectKey, String branch, String destinationHash,
+                       String status, long latencyMillis, long ageMillis, int attempts) {
+        this(timestampMillis, ceTaskId, projectKey, branch, destinationHash, status, latencyMillis, ageMillis, attempts, null);
+    }
+
+    /**
+     * @param notificationId correlation id of the notification, or {@code null} for synthetic ones
+     */
+    public AuditRecord(long timestampMillis, String ceTaskId, String projectKey, String branch, String destinationHash,
+                       String status, long latencyMillis, long ageMillis, int attempts, String notificationId) {
+        this.timestampMillis = timestampMillis;
+        this.ceTaskId = ceTaskId;
+        this.projectKey = projectKey;
+        this.branch = branch;
+        this.destinationHash = destinationHash;
+        this.status = status;
+        this.latencyMillis = latencyMillis;
+        this.ageMillis = ageMillis;
+        this.attempts = attempts;
+        this.notificationId = notificationId;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    /** Appends the record as one line of JSON, newline included. */
+    void appendJson(StringBuilder out) {
+        out.append("{\"ts\":\"").append(Instant.ofEpochMilli(timestampMillis)).append('"');
+        appendString(out, "notificationId", notificationId);
+        appendString(out, "ceTaskId", ceTaskId);
+        appendString(out, "project", projectKey);
+        appendString(out, "branch", branch);
+        appendString(out, "destination", destinationHash);
+        appendString(out, "status", status);
+        if (latencyMillis >= 0) {
+            out.append(",\"latencyMs\":").append(latencyMillis);
+        }
+        out.append(",\"ageMs\":").append(ageMillis)
+                .append(",\"attempts\":").append(attempts)
+                .append("}\n");
+    }
+
+    private static void appendString(StringBuilder out, String name, String value) {
+        if (value != null) {
+            out.append(",\"").append(name).append("\":\"").append(AdaptiveCardsFormat.escapeJson(value)).append('"');
+        }
+    }
+}
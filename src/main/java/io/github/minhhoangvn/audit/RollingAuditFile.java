@@ -0,0 +1,131 @@
+package io.github.minhhoangvn.audit;
+
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.function.LongSupplier;
+
+/**
+ * The audit journal on disk: an active file appended to in batches, rolled over to a timestamped
+ * file once it reaches its size limit or has been open for the roll interval. Rolled files older
+ * than the retention are deleted when the next one is rolled.
+ * <p>
+ * Only the journal writer thread uses it.
+ */
+class RollingAuditFile {
+
+    private static final Logger LOGGER = Loggers.get(RollingAuditFile.class);
+    private static final String EXTENSION = ".ndjson";
+    private static final DateTimeFormatter ROLLED_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS").withZone(ZoneOffset.UTC);
+
+    private final Path directory;
+    private final String baseName;
+    private final long maxBytes;
+    private final long rollIntervalMillis;
+    private final long retentionMillis;
+    private final LongSupplier clock;
+    private FileChannel channel;
+    private long size;
+    private long openedAtMillis;
+
+    RollingAuditFile(Path directory, String baseName, long maxBytes, long rollIntervalMillis, long retentionMillis, LongSupplier clock) {
+        this.directory = directory;
+        this.baseName = baseName;
+        this.maxBytes = Math.max(1, maxBytes);
+        this.rollIntervalMillis = Math.max(1, rollIntervalMillis);
+        this.retentionMillis = retentionMillis;
+        this.clock = clock;
+    }
+
+    Path getActiveFile() {
+        return directory.resolve(baseName + EXTENSION);
+    }
+
+    /** Appends a batch of lines, rolling the active file first when it is due. */
+    void write(byte[] batch) throws IOException {
+        long now = clock.getAsLong();
+        if (channel != null && size > 0 && (size + batch.length > maxBytes || now - openedAtMillis >= rollIntervalMillis)) {
+            roll(now);
+        }
+        if (channel == null) {
+            open(now);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(batch);
+        while (buffer.hasRemaining()) {
+            size += channel.write(buffer);
+        }
+    }
+
+    private void open(long now) throws IOException {
+        Files.createDirectories(directory);
+        Path active = getActiveFile();
+        boolean created = !Files.exists(active);
+        channel = FileChannel.open(active, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (created) {
+            restrictToOwner(active);
+        }
+        size = channel.size();
+        openedAtMillis = now;
+    }
+
+    private void roll(long now) throws IOException {
+        close();
+        Path rolled = directory.resolve(baseName + "-" + ROLLED_SUFFIX.format(Instant.ofEpochMilli(now)) + EXTENSION);
+        for (int i = 1; Files.exists(rolled); i++) {
+            rolled = directory.resolve(baseName + "-" + ROLLED_SUFFIX.format(Instant.ofEpochMilli(now)) + "-" + i + EXTENSION);
+        }
+        Files.move(getActiveFile(), rolled, StandardCopyOption.ATOMIC_MOVE);
+        deleteExpired(now);
+    }
+
+    /**
+     * Deletes rolled files last written before the retention period.
+     *
+     * @return the number of files deleted
+     */
+    int deleteExpired(long now) {
+        int deleted = 0;
+        try (DirectoryStream<Path> rolled = Files.newDirectoryStream(directory, baseName + "-*" + EXTENSION)) {
+            for (Path file : rolled) {
+                if (Files.getLastModifiedTime(file).toMillis() < now - retentionMillis) {
+                    Files.deleteIfExists(file);
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("MS Teams Plugin: Could not delete expired audit files in {}: {}", directory, e.getMessage());
+        }
+        return deleted;
+    }
+
+    void close() throws IOException {
+        if (channel != null) {
+            try {
+                channel.close();
+            } finally {
+                channel = null;
+                size = 0;
+            }
+        }
+    }
+
+    private static void restrictToOwner(Path path) {
+        try {
+            Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException | IOException e) {
+            LOGGER.debug("MS Teams Plugin: Could not restrict permissions of {}: {}", path, e.getMessage());
+        }
+    }
+}
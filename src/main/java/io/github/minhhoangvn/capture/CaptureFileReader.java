@@ -0,0 +1,139 @@
+package io.github.minhhoangvn.capture;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Reads the ring file written by {@link PayloadCapture}. It depends on the JDK only, so the file
+ * can be dumped outside SonarQube with
+ * {@code java -cp <plugin jar> io.github.minhhoangvn.capture.CaptureFileReader <file>}.
+ */
+public final class CaptureFileReader {
+
+    static final int MAGIC = 0x4D535043;
+    static final int VERSION = 1;
+    // magic, version, slot count, slot size, next sequence
+    static final int HEADER_BYTES = 24;
+    static final int NEXT_SEQUENCE_OFFSET = 16;
+    // sequence, timestamp, HTTP status, latency, metadata length, payload length, original payload length
+    static final int SLOT_HEADER_BYTES = 36;
+
+    private CaptureFileReader() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Reads the payloads captured in a ring file, oldest first.
+     *
+     * @throws IOException when the file cannot be read or is not a capture file
+     */
+    public static List<CapturedPayload> read(Path file) throws IOException {
+        ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (content.remaining() < HEADER_BYTES || content.getInt(0) != MAGIC || content.getInt(4) != VERSION) {
+            throw new IOException(file + " is not a payload capture file");
+        }
+        int slots = content.getInt(8);
+        int slotBytes = content.getInt(12);
+        List<CapturedPayload> captured = new ArrayList<>(slots);
+        for (int slot = 0; slot < slots; slot++) {
+            int offset = HEADER_BYTES + slot * slotBytes;
+            if (offset + slotBytes > content.limit() || content.getLong(offset) < 0) {
+                continue;
+            }
+            int metadataLength = content.getInt(offset + 24);
+            int payloadLength = content.getInt(offset + 28);
+            captured.add(new CapturedPayload(
+                    content.getLong(offset),
+                    content.getLong(offset + 8),
+                    content.getInt(offset + 16),
+                    content.getInt(offset + 20),
+                    new String(content.array(), offset + SLOT_HEADER_BYTES, metadataLength, StandardCharsets.UTF_8),
+                    new String(content.array(), offset + SLOT_HEADER_BYTES + metadataLength, payloadLength, StandardCharsets.UTF_8),
+                    payloadLength < content.getInt(offset + 32)));
+        }
+        captured.sort(Comparator.comparingLong(CapturedPayload::getSequence));
+        return captured;
+    }
+
+    /** Prints the payloads captured in a ring file, oldest first. */
+    public static void dump(Path file, PrintStream out) throws IOException {
+        for (CapturedPayload payload : read(file)) {
+            out.println("#" + payload.getSequence() + " " + Instant.ofEpochMilli(payload.getTimestampMillis())
+                    + " HTTP " + payload.getStatusCode() + " in " + payload.getLatencyMillis() + " ms " + payload.getMetadata()
+                    + (payload.isTruncated() ? " (truncated)" : ""));
+            out.println(payload.getPayload());
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: CaptureFileReader <capture file>");
+            System.exit(2);
+        }
+        dump(Paths.get(args[0]), System.out);
+    }
+
+    /**
+     * A payload read back from a capture file.
+     */
+    public static final class CapturedPayload {
+        private final long sequence;
+        private final long timestampMillis;
+        private final int statusCode;
+        private final int latencyMillis;
+        private final String metadata;
+        private final String payload;
+        private final boolean truncated;
+
+        CapturedPayload(long sequence, long timestampMillis, int statusCode, int latencyMillis, String metadata,
+                        String payload, boolean truncated) {
+            this.sequence = sequence;
+            this.timestampMillis = timestampMillis;
+            this.statusCode = statusCode;
+            this.latencyMillis = latencyMillis;
+            this.metadata = metadata;
+            this.payload = payload;
+            this.truncated = truncated;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public long getTimestampMillis() {
+            return timestampMillis;
+        }
+
+        /** HTTP status of the response, or {@code -1} when there was none. */
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        public int getLatencyMillis() {
+            return latencyMillis;
+        }
+
+        /** Request metadata as a JSON object, with the webhook URL masked. */
+        public String getMetadata() {
+            return metadata;
+        }
+
+        public String getPayload() {
+            return payload;
+        }
+
+        /** Whether the payload was larger than a slot and only its start was kept. */
+        public boolean isTruncated() {
+            return truncated;
+        }
+    }
+}
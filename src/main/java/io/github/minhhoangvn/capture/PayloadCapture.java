@@ -0,0 +1,198 @@
+package io.github.minhhoangvn.capture;
+
+import io.github.minhhoangvn.dispatch.Notification;
+import io.github.minhhoangvn.settings.NotifierSettings;
+import io.github.minhhoangvn.utils.AdaptiveCardsFormat;
+import io.github.minhhoangvn.utils.Constants;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static io.github.minhhoangvn.capture.CaptureFileReader.HEADER_BYTES;
+import static io.github.minhhoangvn.capture.CaptureFileReader.MAGIC;
+import static io.github.minhhoangvn.capture.CaptureFileReader.NEXT_SEQUENCE_OFFSET;
+import static io.github.minhhoangvn.capture.CaptureFileReader.SLOT_HEADER_BYTES;
+import static io.github.minhhoangvn.capture.CaptureFileReader.VERSION;
+
+/**
+ * Keeps the last rendered payloads, with the request they were sent in, in a fixed-size
+ * memory-mapped ring file, to look into cards that render wrong in Teams without turning on
+ * DEBUG logging.
+ * <p>
+ * Capture is switched on and off with {@code sonar.msteams.capture.enable}; when off it costs one
+ * volatile read per notification and the file is not even opened. When on, each payload is one
+ * sequential copy into the next slot of the mapping, overwriting the oldest. Payloads larger than
+ * a slot are truncated. {@link CaptureFileReader} reads the file back.
+ */
+public class PayloadCapture {
+
+    private static final Logger LOGGER = Loggers.get(PayloadCapture.class);
+    private static final int MIN_SLOT_BYTES = 1024;
+    private static final PayloadCapture SHARED = new PayloadCapture(
+            Paths.get(System.getProperty("java.io.tmpdir"), Constants.DEFAULT_CAPTURE_FILE_NAME),
+            Constants.DEFAULT_CAPTURE_SLOTS, Constants.DEFAULT_CAPTURE_SLOT_BYTES);
+
+    private volatile boolean enabled;
+    private Path file;
+    private int slots;
+    private int slotBytes;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long nextSequence;
+
+    public PayloadCapture(Path file, int slots, int slotBytes) {
+        configure(file, slots, slotBytes);
+    }
+
+    /** Capture shared by every sender, configured when the Compute Engine starts. */
+    public static PayloadCapture shared() {
+        return SHARED;
+    }
+
+    /** Sets where and how much to capture; a file already mapped is closed first. */
+    public synchronized void configure(Path file, int slots, int slotBytes) {
+        close();
+        this.file = file;
+        this.slots = Math.max(1, slots);
+        this.slotBytes = Math.max(MIN_SLOT_BYTES, slotBytes);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        if (this.enabled != enabled) {
+            this.enabled = enabled;
+            LOGGER.info("MS Teams Plugin: Payload capture {}", enabled ? "on, writing to " + getFile() : "off");
+        }
+    }
+
+    public synchronized Path getFile() {
+        return file;
+    }
+
+    /**
+     * Captures the payload of a notification that was just sent, when capture is on.
+     *
+     * @param statusCode    HTTP status of the response, or {@code -1} when there was none
+     * @param latencyMillis duration of the webhook call
+     */
+    public void capture(Notification notification, int statusCode, long latencyMillis) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            write(System.currentTimeMillis(), metadata(notification), notification.getPayload(), statusCode, latencyMillis);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("MS Teams Plugin: Could not capture payload, turning capture off: {}", e.getMessage());
+            setEnabled(false);
+        }
+    }
+
+    private static String metadata(Notification notification) {
+        StringBuilder json = new StringBuilder(160).append('{');
+        appendField(json, "notificationId", notification.getNotificationId());
+        appendField(json, "ceTaskId", notification.getCeTaskId());
+        appendField(json, "project", notification.getProjectKey());
+        appendField(json, "branch", notification.getBranch());
+        appendField(json, "qualityGate", notification.getQualityGateStatus() != null ? notification.getQualityGateStatus().name() : null);
+        appendField(json, "destination", NotifierSettings.maskUrl(notification.getWebhookUrl()));
+        return json.append('}').toString();
+    }
+
+    private static void appendField(StringBuilder json, String name, String value) {
+        if (value == null) {
+            return;
+        }
+        if (json.length() > 1) {
+            json.append(',');
+        }
+        json.append('"').append(name).append("\":\"").append(AdaptiveCardsFormat.escapeJson(value)).append('"');
+    }
+
+    synchronized void write(long timestampMillis, String metadata, String payload, int statusCode, long latencyMillis) throws IOException {
+        if (buffer == null) {
+            map();
+        }
+        byte[] metadataBytes = metadata.getBytes(StandardCharsets.UTF_8);
+        byte[] payloadBytes = payload != null ? payload.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int metadataLength = Math.min(metadataBytes.length, slotBytes - SLOT_HEADER_BYTES);
+        int payloadLength = Math.min(payloadBytes.length, slotBytes - SLOT_HEADER_BYTES - metadataLength);
+
+        long sequence = nextSequence++;
+        int offset = HEADER_BYTES + (int) (sequence % slots) * slotBytes;
+        // Marked empty while written, so a slot torn by a crash is skipped by the dump
+        buffer.putLong(offset, -1L);
+        buffer.putLong(offset + 8, timestampMillis);
+        buffer.putInt(offset + 16, statusCode);
+        buffer.putInt(offset + 20, (int) Math.min(Integer.MAX_VALUE, latencyMillis));
+        buffer.putInt(offset + 24, metadataLength);
+        buffer.putInt(offset + 28, payloadLength);
+        buffer.putInt(offset + 32, payloadBytes.length);
+        buffer.put(offset + SLOT_HEADER_BYTES, metadataBytes, 0, metadataLength);
+        buffer.put(offset + SLOT_HEADER_BYTES + metadataLength, payloadBytes, 0, payloadLength);
+        buffer.putLong(offset, sequence);
+        buffer.putLong(NEXT_SEQUENCE_OFFSET, nextSequence);
+    }
+
+    private void map() throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        boolean created = !Files.exists(file);
+        long size = HEADER_BYTES + (long) slots * slotBytes;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (created) {
+            restrictToOwner(file);
+        }
+        boolean sameLayout = channel.size() == size;
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        if (sameLayout && buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION
+                && buffer.getInt(8) == slots && buffer.getInt(12) == slotBytes) {
+            // Carries on after the payloads captured before a restart
+            nextSequence = buffer.getLong(NEXT_SEQUENCE_OFFSET);
+            return;
+        }
+        channel.truncate(size);
+        for (int slot = 0; slot < slots; slot++) {
+            buffer.putLong(HEADER_BYTES + slot * slotBytes, -1L);
+        }
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, slots);
+        buffer.putInt(12, slotBytes);
+        buffer.putLong(NEXT_SEQUENCE_OFFSET, 0L);
+        nextSequence = 0;
+    }
+
+    /** Unmaps the file; capture maps it again on the next payload if it is still on. */
+    public synchronized void close() {
+        buffer = null;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.debug("MS Teams Plugin: Could not close the capture file: {}", e.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    private static void restrictToOwner(Path path) {
+        try {
+            Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException | IOException e) {
+            LOGGER.debug("MS Teams Plugin: Could not restrict permissions of {}: {}", path, e.getMessage());
+        }
+    }
+}
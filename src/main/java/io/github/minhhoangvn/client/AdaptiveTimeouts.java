@@ -0,0 +1,122 @@
+package io.github.minhhoangvn.client;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-endpoint call timeouts derived from the latencies observed for that endpoint.
+ * <p>
+ * Each endpoint keeps its last {@value #WINDOW_SIZE} latencies in a ring buffer; the timeout is
+ * the 99th percentile of that window times a factor, within the configured bounds. Until an
+ * endpoint has {@value #MIN_SAMPLES} samples its timeout is the upper bound. Recording is lock-free:
+ * concurrent responses write different slots, and a timeout recomputed from a slightly older
+ * window is good enough.
+ * <p>
+ * The percentile is computed when a timeout is asked for and the window changed since, not on every
+ * response. Over a window this small the 99th percentile is one of the two largest samples, so it is
+ * found in one pass over the window without copying or sorting it.
+ */
+public class AdaptiveTimeouts {
+
+    static final int WINDOW_SIZE = 128;
+    static final int MIN_SAMPLES = 20;
+    private static final double PERCENTILE = 0.99;
+    // Largest rank, counted from the top of the window, the percentile can fall on
+    private static final int MAX_RANK_FROM_TOP = maxRankFromTop();
+
+    private final Map<String, LatencyWindow> windows = new ConcurrentHashMap<>();
+    private volatile long minMillis;
+    private volatile long maxMillis;
+    private volatile double factor;
+
+    public AdaptiveTimeouts(long minMillis, long maxMillis, double factor) {
+        configure(minMillis, maxMillis, factor);
+    }
+
+    public void configure(long minMillis, long maxMillis, double factor) {
+        this.minMillis = Math.max(1, minMillis);
+        this.maxMillis = Math.max(this.minMillis, maxMillis);
+        this.factor = factor > 0 ? factor : 1;
+    }
+
+    /** Timeout to use for the next call to the endpoint. */
+    public long timeoutMillis(String endpoint) {
+        LatencyWindow window = windows.get(endpoint);
+        if (window == null || window.count.get() < MIN_SAMPLES) {
+            return maxMillis;
+        }
+        return clamp(Math.round(window.p99Millis() * factor));
+    }
+
+    /** Records how long a call to the endpoint took, including calls that failed or timed out. */
+    public void record(String endpoint, long latencyMillis) {
+        LatencyWindow window = windows.computeIfAbsent(endpoint, key -> new LatencyWindow());
+        long index = window.count.getAndIncrement();
+        window.samples.set((int) (index % WINDOW_SIZE), Math.max(0, latencyMillis));
+    }
+
+    /** 99th percentile of the recent latencies of the endpoint, or -1 when none were recorded. */
+    public long p99Millis(String endpoint) {
+        LatencyWindow window = windows.get(endpoint);
+        return window == null ? -1 : window.p99Millis();
+    }
+
+    private long clamp(long timeoutMillis) {
+        return Math.min(maxMillis, Math.max(minMillis, timeoutMillis));
+    }
+
+    /** Rank of the percentile among {@code size} samples, counted from the largest one. */
+    private static int rankFromTop(int size) {
+        return size - Math.max(1, (int) Math.ceil(PERCENTILE * size)) + 1;
+    }
+
+    private static int maxRankFromTop() {
+        int rank = 1;
+        for (int size = 1; size <= WINDOW_SIZE; size++) {
+            rank = Math.max(rank, rankFromTop(size));
+        }
+        return rank;
+    }
+
+    private static final class LatencyWindow {
+        private final AtomicLongArray samples = new AtomicLongArray(WINDOW_SIZE);
+        private final AtomicLong count = new AtomicLong();
+        // Guarded by this
+        private final long[] largest = new long[MAX_RANK_FROM_TOP];
+        private long computedAtCount = -1;
+        private long p99Millis;
+
+        synchronized long p99Millis() {
+            long recorded = count.get();
+            if (recorded != computedAtCount) {
+                computedAtCount = recorded;
+                p99Millis = percentile((int) Math.min(recorded, WINDOW_SIZE));
+            }
+            return p99Millis;
+        }
+
+        /** Keeps the {@code rank} largest samples in descending order; the smallest of them is the percentile. */
+        private long percentile(int size) {
+            if (size == 0) {
+                return 0;
+            }
+            int rank = rankFromTop(size);
+            Arrays.fill(largest, 0, rank, Long.MIN_VALUE);
+            for (int i = 0; i < size; i++) {
+                long sample = samples.get(i);
+                if (sample > largest[rank - 1]) {
+                    int j = rank - 1;
+                    while (j > 0 && largest[j - 1] < sample) {
+                        largest[j] = largest[j - 1];
+                        j--;
+                    }
+                    largest[j] = sample;
+                }
+            }
+            return largest[rank - 1];
+        }
+    }
+}
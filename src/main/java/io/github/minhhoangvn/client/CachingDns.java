@@ -0,0 +1,98 @@
+package io.github.minhhoangvn.client;
+
+import okhttp3.Dns;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * {@link Dns} implementation that keeps resolved webhook hosts in memory for a bounded time.
+ * <p>
+ * {@link InetAddress} does not expose the TTL of the underlying DNS record, so entries live for
+ * the configured TTL. When a refresh fails (slow or unreachable corporate DNS), the last known
+ * addresses are served for an additional grace period instead of failing the notification.
+ */
+public class CachingDns implements Dns {
+
+    private static final Logger LOGGER = Loggers.get(CachingDns.class);
+
+    private final Dns delegate;
+    private final LongSupplier clock;
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+    private volatile long ttlMillis;
+    private volatile long staleGraceMillis;
+
+    public CachingDns(Dns delegate, long ttl, TimeUnit unit) {
+        this(delegate, unit.toMillis(ttl), unit.toMillis(ttl), System::currentTimeMillis);
+    }
+
+    CachingDns(Dns delegate, long ttlMillis, long staleGraceMillis, LongSupplier clock) {
+        this.delegate = delegate;
+        this.ttlMillis = ttlMillis;
+        this.staleGraceMillis = staleGraceMillis;
+        this.clock = clock;
+    }
+
+    @Override
+    public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+        Entry entry = cache.get(hostname);
+        long now = clock.getAsLong();
+        if (entry != null && now < entry.expiresAt) {
+            return entry.addresses;
+        }
+        return resolve(hostname, entry, now);
+    }
+
+    /**
+     * Resolves the host again regardless of the cached entry, so the next lookup on the delivery
+     * path is served from memory.
+     */
+    public List<InetAddress> refresh(String hostname) throws UnknownHostException {
+        return resolve(hostname, cache.get(hostname), clock.getAsLong());
+    }
+
+    public void setTtl(long ttl, TimeUnit unit) {
+        this.ttlMillis = unit.toMillis(ttl);
+        this.staleGraceMillis = unit.toMillis(ttl);
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    int size() {
+        return cache.size();
+    }
+
+    private List<InetAddress> resolve(String hostname, Entry previous, long now) throws UnknownHostException {
+        try {
+            List<InetAddress> addresses = List.copyOf(delegate.lookup(hostname));
+            cache.put(hostname, new Entry(addresses, now + ttlMillis));
+            return addresses;
+        } catch (UnknownHostException e) {
+            if (previous != null && now < previous.expiresAt + staleGraceMillis) {
+                LOGGER.warn("MS Teams Plugin: DNS lookup for {} failed ({}), using cached addresses", hostname, e.getMessage());
+                return previous.addresses;
+            }
+            cache.remove(hostname);
+            throw e;
+        }
+    }
+
+    private static final class Entry {
+        private final List<InetAddress> addresses;
+        private final long expiresAt;
+
+        private Entry(List<InetAddress> addresses, long expiresAt) {
+            this.addresses = addresses;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,38 +1,250 @@
 package io.github.minhhoangvn.client;
 
+import io.github.minhhoangvn.utils.Constants;
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.Dns;
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class MSTeamsWebHookClient {
 
+    /** Header carrying the notification id, so a request can be matched with the plugin logs. */
+    public static final String CORRELATION_ID_HEADER = "X-Correlation-Id";
     private static final String APPLICATION_JSON = "application/json";
+    private static final MediaType JSON_MEDIA_TYPE = MediaType.get(APPLICATION_JSON);
+    private static final Headers JSON_HEADERS = Headers.of("Content-Type", APPLICATION_JSON, "Accept", APPLICATION_JSON);
+    private static final long DEFAULT_DNS_TTL_SECONDS = 300;
+    private static final long CONNECTION_KEEP_ALIVE_MINUTES = 5;
+    static final int MAX_RECENT_WEBHOOKS = 16;
+    static final long RECENT_WEBHOOK_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    // One DNS cache and connection pool per JVM so connections opened by the warm-up are reused by deliveries
+    private static final CachingDns SHARED_DNS = new CachingDns(Dns.SYSTEM, DEFAULT_DNS_TTL_SECONDS, TimeUnit.SECONDS);
+    private static final OkHttpClient SHARED_CLIENT = new OkHttpClient.Builder()
+            .connectTimeout(30, TimeUnit.SECONDS)
+            .writeTimeout(30, TimeUnit.SECONDS)
+            .readTimeout(30, TimeUnit.SECONDS)
+            .dns(SHARED_DNS)
+            .connectionPool(new ConnectionPool(5, CONNECTION_KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+            .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .build();
+    // The fixed timeouts above are upper bounds, each call is cut short by its endpoint's adaptive timeout
+    private static final AdaptiveTimeouts SHARED_TIMEOUTS = new AdaptiveTimeouts(Constants.DEFAULT_TIMEOUT_MIN_MS,
+            Constants.DEFAULT_TIMEOUT_MAX_MS, Constants.DEFAULT_TIMEOUT_FACTOR);
+    private static final StreamBudget SHARED_STREAMS = new StreamBudget(ProtocolMode.AUTO,
+            Constants.DEFAULT_HTTP_CONNECTIONS_PER_HOST, Constants.DEFAULT_HTTP_STREAMS_PER_CONNECTION);
+
+    // Webhook URL to when it was last posted to, least recently used first; guarded by itself
+    private static final Map<String, Long> RECENT_WEBHOOKS = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_RECENT_WEBHOOKS;
+        }
+    };
+    private static final AtomicLong LAST_ACTIVITY = new AtomicLong();
+
     private final OkHttpClient client;
+    private final AdaptiveTimeouts timeouts;
+    private final StreamBudget streams;
+    // Variants of the client offering other protocols, sharing its connection pool and threads
+    private final Map<List<Protocol>, OkHttpClient> clientsByProtocols = new ConcurrentHashMap<>();
 
     public MSTeamsWebHookClient() {
-        this.client = new OkHttpClient.Builder()
-                .connectTimeout(30, TimeUnit.SECONDS)
-                .writeTimeout(30, TimeUnit.SECONDS)
-                .readTimeout(30, TimeUnit.SECONDS)
-                .build();
+        this(SHARED_CLIENT);
+    }
+
+    public MSTeamsWebHookClient(OkHttpClient client) {
+        this(client, SHARED_TIMEOUTS);
+    }
+
+    MSTeamsWebHookClient(OkHttpClient client, AdaptiveTimeouts timeouts) {
+        this(client, timeouts, SHARED_STREAMS);
+    }
+
+    MSTeamsWebHookClient(OkHttpClient client, AdaptiveTimeouts timeouts, StreamBudget streams) {
+        this.client = client;
+        this.timeouts = timeouts;
+        this.streams = streams;
     }
 
     public Response sendNotify(String webhookUrl, String payload) throws IOException {
-        MediaType mediaType = MediaType.parse(APPLICATION_JSON);
-        RequestBody requestBody = RequestBody.create(payload, mediaType);
-        
+        return sendNotify(webhookUrl, payload, null);
+    }
+
+    /** Posts with the notification id in the {@value #CORRELATION_ID_HEADER} header, when there is one. */
+    public Response sendNotify(String webhookUrl, String payload, String notificationId) throws IOException {
+        return post(HttpUrl.get(webhookUrl), webhookUrl, payload, notificationId);
+    }
+
+    /** Posts to an already parsed webhook URL, so the URL is not parsed again for every notification. */
+    public Response sendNotify(HttpUrl webhookUrl, String payload) throws IOException {
+        return sendNotify(webhookUrl, payload, null);
+    }
+
+    public Response sendNotify(HttpUrl webhookUrl, String payload, String notificationId) throws IOException {
+        return post(webhookUrl, webhookUrl.toString(), payload, notificationId);
+    }
+
+    private Response post(HttpUrl url, String webhookUrl, String payload, String notificationId) throws IOException {
+        Request.Builder builder = new Request.Builder()
+                .url(url)
+                .headers(JSON_HEADERS)
+                .post(RequestBody.create(payload, JSON_MEDIA_TYPE));
+        if (notificationId != null) {
+            builder.header(CORRELATION_ID_HEADER, notificationId);
+        }
+        Request request = builder.build();
+
+        long now = System.currentTimeMillis();
+        rememberWebhook(webhookUrl, now);
+        LAST_ACTIVITY.set(now);
+        // Waiting for a permit and the call itself share one deadline
+        long timeoutMillis = timeouts.timeoutMillis(webhookUrl);
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        try (StreamBudget.Permit permit = streams.acquire(url.host(), timeoutMillis)) {
+            Call call = clientFor(url).newCall(request);
+            call.timeout().timeout(remainingMillis(deadlineNanos), TimeUnit.MILLISECONDS);
+            // Started after the permit, so time queued behind other calls is not taken for endpoint latency
+            long startNanos = System.nanoTime();
+            try {
+                Response response = call.execute();
+                permit.onResponse(response.protocol());
+                return response;
+            } finally {
+                // Failures count too, so a hung endpoint pushes its timeout up to the upper bound
+                timeouts.record(webhookUrl, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            }
+        }
+    }
+
+    private static long remainingMillis(long deadlineNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+    }
+
+    /**
+     * Pre-resolves the webhook host and opens a pooled connection to it (TCP and TLS) with a HEAD
+     * request, so the next {@link #sendNotify} skips connection setup. Nothing is posted to the channel.
+     */
+    public void warmUp(String webhookUrl) throws IOException {
+        HttpUrl url = HttpUrl.get(webhookUrl);
+        if (client.dns() instanceof CachingDns) {
+            ((CachingDns) client.dns()).refresh(url.host());
+        }
+        // Any status code is fine, only the connection matters
+        probe(webhookUrl);
+    }
+
+    /**
+     * Sends a HEAD request to the webhook, which posts nothing to the channel, to learn whether the
+     * endpoint answers.
+     *
+     * @return the HTTP status code of the answer
+     * @throws IOException when the endpoint cannot be reached
+     */
+    public int probe(String webhookUrl) throws IOException {
+        HttpUrl url = HttpUrl.get(webhookUrl);
         Request request = new Request.Builder()
-                .url(webhookUrl)
-                .post(requestBody)
-                .addHeader("Content-Type", APPLICATION_JSON)
-                .addHeader("Accept", APPLICATION_JSON)
+                .url(url)
+                .head()
                 .build();
-                
-        return client.newCall(request).execute();
+
+        long timeoutMillis = timeouts.timeoutMillis(webhookUrl);
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        try (StreamBudget.Permit permit = streams.acquire(url.host(), timeoutMillis)) {
+            Call call = clientFor(url).newCall(request);
+            call.timeout().timeout(remainingMillis(deadlineNanos), TimeUnit.MILLISECONDS);
+            try (Response response = call.execute()) {
+                permit.onResponse(response.protocol());
+                LAST_ACTIVITY.set(System.currentTimeMillis());
+                return response.code();
+            }
+        }
+    }
+
+    private OkHttpClient clientFor(HttpUrl url) {
+        List<Protocol> protocols = streams.getMode().protocolsFor(url);
+        if (protocols.equals(client.protocols())) {
+            return client;
+        }
+        return clientsByProtocols.computeIfAbsent(protocols, key -> client.newBuilder().protocols(key).build());
+    }
+
+    /** Closes the pooled connections and stops the HTTP dispatcher threads, on server shutdown. */
+    public static void shutdownSharedClient() {
+        SHARED_CLIENT.dispatcher().executorService().shutdown();
+        SHARED_CLIENT.connectionPool().evictAll();
+    }
+
+    public static AdaptiveTimeouts sharedTimeouts() {
+        return SHARED_TIMEOUTS;
+    }
+
+    public static StreamBudget sharedStreams() {
+        return SHARED_STREAMS;
+    }
+
+    public static CachingDns sharedDns() {
+        return SHARED_DNS;
+    }
+
+    /**
+     * Webhook URLs this JVM delivered to within the last hour, at most {@value #MAX_RECENT_WEBHOOKS}
+     * and most recently used first, used to keep their connections warm.
+     */
+    public static Set<String> recentWebhooks() {
+        return recentWebhooks(System.currentTimeMillis());
+    }
+
+    static Set<String> recentWebhooks(long nowMillis) {
+        List<String> recent = new ArrayList<>();
+        synchronized (RECENT_WEBHOOKS) {
+            Iterator<Map.Entry<String, Long>> entries = RECENT_WEBHOOKS.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<String, Long> entry = entries.next();
+                if (nowMillis - entry.getValue() >= RECENT_WEBHOOK_MILLIS) {
+                    entries.remove();
+                } else {
+                    recent.add(entry.getKey());
+                }
+            }
+        }
+        Collections.reverse(recent);
+        return new LinkedHashSet<>(recent);
+    }
+
+    static void rememberWebhook(String webhookUrl, long nowMillis) {
+        synchronized (RECENT_WEBHOOKS) {
+            RECENT_WEBHOOKS.put(webhookUrl, nowMillis);
+        }
+    }
+
+    static void forgetWebhooks() {
+        synchronized (RECENT_WEBHOOKS) {
+            RECENT_WEBHOOKS.clear();
+        }
+    }
+
+    public static long lastActivityMillis() {
+        return LAST_ACTIVITY.get();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,52 @@
+package io.github.minhhoangvn.client;
+
+import okhttp3.HttpUrl;
+import okhttp3.Protocol;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * HTTP protocols offered to webhook endpoints.
+ */
+public enum ProtocolMode {
+
+    /** HTTP/2 when the endpoint agrees to it during the TLS handshake, HTTP/1.1 otherwise. */
+    AUTO,
+    /** HTTP/1.1 only, for proxies that mishandle HTTP/2. */
+    HTTP1,
+    /**
+     * HTTP/2 without TLS on {@code http://} endpoints, with no fallback; {@code https://} endpoints
+     * are handled as in {@link #AUTO}. Meant for local stand-ins and TLS-terminating proxies.
+     */
+    H2C;
+
+    private static final List<Protocol> NEGOTIATED = List.of(Protocol.HTTP_2, Protocol.HTTP_1_1);
+    private static final List<Protocol> HTTP1_ONLY = List.of(Protocol.HTTP_1_1);
+    private static final List<Protocol> PRIOR_KNOWLEDGE = List.of(Protocol.H2_PRIOR_KNOWLEDGE);
+
+    /**
+     * Reads {@code auto}, {@code http1} or {@code h2c}, ignoring case.
+     *
+     * @throws IllegalArgumentException for any other value
+     */
+    public static ProtocolMode parse(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown HTTP protocol mode '" + value + "', expected auto, http1 or h2c", e);
+        }
+    }
+
+    /** Protocols to offer the endpoint, in order of preference. */
+    public List<Protocol> protocolsFor(HttpUrl url) {
+        switch (this) {
+            case HTTP1:
+                return HTTP1_ONLY;
+            case H2C:
+                return url.isHttps() ? NEGOTIATED : PRIOR_KNOWLEDGE;
+            default:
+                return NEGOTIATED;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package io.github.minhhoangvn.client;
+
+import okhttp3.Protocol;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds the calls in flight to each host, so a burst of deliveries is carried by a few pooled
+ * connections instead of opening one connection, and one TLS handshake, per concurrent call.
+ * <p>
+ * A host that answered over HTTP/2 multiplexes its calls as streams, so it gets
+ * {@code connectionsPerHost * streamsPerConnection} calls at once; a host speaking HTTP/1.1 gets
+ * one call per connection. OkHttp honours the maximum concurrent streams announced by the server
+ * and opens another connection when one is full; the per-connection stream count here should stay
+ * at or below what the endpoint announces, so that only happens within the connection budget.
+ * <p>
+ * A call holds its permit until its response headers are read; webhook response bodies are tiny.
+ */
+public class StreamBudget {
+
+    private static final Logger LOGGER = Loggers.get(StreamBudget.class);
+
+    private final Map<String, Host> hosts = new ConcurrentHashMap<>();
+    private volatile ProtocolMode mode;
+    private volatile int connectionsPerHost;
+    private volatile int streamsPerConnection;
+
+    public StreamBudget(ProtocolMode mode, int connectionsPerHost, int streamsPerConnection) {
+        configure(mode, connectionsPerHost, streamsPerConnection);
+    }
+
+    public void configure(ProtocolMode mode, int connectionsPerHost, int streamsPerConnection) {
+        this.mode = mode;
+        this.connectionsPerHost = Math.max(1, connectionsPerHost);
+        this.streamsPerConnection = Math.max(1, streamsPerConnection);
+        for (Host host : hosts.values()) {
+            host.wakeUp();
+        }
+    }
+
+    public ProtocolMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Waits until the host has room for another call.
+     *
+     * @throws SocketTimeoutException when no room was made within the timeout
+     * @throws InterruptedIOException when the thread is interrupted while waiting
+     */
+    public Permit acquire(String host, long timeoutMillis) throws InterruptedIOException {
+        Host state = hosts.computeIfAbsent(host, Host::new);
+        state.acquire(timeoutMillis);
+        return new Permit(state);
+    }
+
+    /** Calls the host may have in flight, given the protocol it last answered with. */
+    public int limit(String host) {
+        Host state = hosts.get(host);
+        return state == null ? connectionsPerHost : state.limit();
+    }
+
+    public int inFlight(String host) {
+        Host state = hosts.get(host);
+        return state == null ? 0 : state.inFlight();
+    }
+
+    /**
+     * A slot taken for one call, released when closed. The protocol the response came back on sets
+     * how many calls the host gets from then on.
+     */
+    public static final class Permit implements AutoCloseable {
+        private final Host host;
+        private boolean released;
+
+        private Permit(Host host) {
+            this.host = host;
+        }
+
+        public void onResponse(Protocol protocol) {
+            host.onResponse(protocol);
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                host.release();
+            }
+        }
+    }
+
+    private final class Host {
+        private final String name;
+        private int inFlight;
+        private volatile boolean multiplexed;
+
+        Host(String name) {
+            this.name = name;
+        }
+
+        int limit() {
+            return multiplexed ? connectionsPerHost * streamsPerConnection : connectionsPerHost;
+        }
+
+        synchronized int inFlight() {
+            return inFlight;
+        }
+
+        synchronized void acquire(long timeoutMillis) throws InterruptedIOException {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (inFlight >= limit()) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    throw new SocketTimeoutException("No connection to " + name + " became available within "
+                            + timeoutMillis + " ms (" + inFlight + " calls in flight)");
+                }
+                try {
+                    wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted waiting for a connection to " + name);
+                }
+            }
+            inFlight++;
+        }
+
+        synchronized void release() {
+            inFlight--;
+            notifyAll();
+        }
+
+        synchronized void wakeUp() {
+            notifyAll();
+        }
+
+        void onResponse(Protocol protocol) {
+            boolean http2 = protocol == Protocol.HTTP_2 || protocol == Protocol.H2_PRIOR_KNOWLEDGE;
+            if (http2 != multiplexed) {
+                multiplexed = http2;
+                LOGGER.debug("MS Teams Plugin: {} answers over {}, up to {} calls in flight", name, protocol, limit());
+                wakeUp();
+            }
+        }
+    }
+}
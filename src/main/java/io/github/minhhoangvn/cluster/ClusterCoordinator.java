@@ -0,0 +1,28 @@
+package io.github.minhhoangvn.cluster;
+
+/**
+ * Coordinates deliveries between the Compute Engine nodes of a cluster, so per-webhook budgets and
+ * duplicate suppression hold for the whole cluster rather than per JVM.
+ * <p>
+ * Implementations fail open: when the shared state cannot be reached, a delivery is allowed rather
+ * than lost.
+ */
+public interface ClusterCoordinator {
+
+    /**
+     * Claims the right to deliver a notification.
+     *
+     * @return {@code false} when another node, or an earlier attempt, already holds a live claim
+     */
+    boolean claimDelivery(String deliveryKey);
+
+    /** Gives a claim back after a failed delivery, so a retry can claim it again. */
+    void releaseDelivery(String deliveryKey);
+
+    /**
+     * Takes one unit of the cluster-wide budget of a webhook for the current window.
+     *
+     * @return {@code false} when the budget of the window is used up
+     */
+    boolean tryAcquire(String webhookKey);
+}
@@ -0,0 +1,92 @@
+package io.github.minhhoangvn.cluster;
+
+import io.github.minhhoangvn.utils.Constants;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+
+/**
+ * Creates the {@link ClusterCoordinator} selected by {@code sonar.msteams.cluster.mode}:
+ * {@code none} (default, in-memory), {@code file} or {@code database}.
+ */
+public final class ClusterCoordinators {
+
+    private static final Logger LOGGER = Loggers.get(ClusterCoordinators.class);
+
+    private ClusterCoordinators() {
+        // Utility class - prevent instantiation
+    }
+
+    public static ClusterCoordinator fromConfiguration(Configuration configuration) {
+        String mode = configuration.get(Constants.CLUSTER_MODE).orElse(Constants.DEFAULT_CLUSTER_MODE).trim().toLowerCase(Locale.ROOT);
+        int limit = configuration.getInt(Constants.CLUSTER_RATE_LIMIT).orElse(Constants.DEFAULT_CLUSTER_RATE_LIMIT);
+        long windowMillis = configuration.getLong(Constants.CLUSTER_RATE_WINDOW_MS).orElse(Constants.DEFAULT_CLUSTER_RATE_WINDOW_MS);
+        long claimTtlMillis = configuration.getLong(Constants.CLUSTER_CLAIM_TTL_MS).orElse(Constants.DEFAULT_CLUSTER_CLAIM_TTL_MS);
+
+        switch (mode) {
+            case "file":
+                String file = configuration.get(Constants.CLUSTER_FILE).orElse(null);
+                if (file == null) {
+                    LOGGER.warn("MS Teams Plugin: {} is 'file' but {} is not set, coordinating this node only",
+                            Constants.CLUSTER_MODE, Constants.CLUSTER_FILE);
+                    break;
+                }
+                LOGGER.info("MS Teams Plugin: Coordinating deliveries through shared file {}", file);
+                return new FileLockClusterCoordinator(Paths.get(file), limit, windowMillis, claimTtlMillis, System::currentTimeMillis);
+            case "database":
+                String url = configuration.get(Constants.CLUSTER_JDBC_URL)
+                        .orElseGet(() -> configuration.get(Constants.SONAR_JDBC_URL).orElse(null));
+                if (url == null) {
+                    LOGGER.warn("MS Teams Plugin: {} is 'database' but no JDBC URL is configured, coordinating this node only",
+                            Constants.CLUSTER_MODE);
+                    break;
+                }
+                LOGGER.info("MS Teams Plugin: Coordinating deliveries through the database");
+                return new JdbcClusterCoordinator(url,
+                        configuration.get(Constants.CLUSTER_JDBC_USERNAME)
+                                .orElseGet(() -> configuration.get(Constants.SONAR_JDBC_USERNAME).orElse(null)),
+                        configuration.get(Constants.CLUSTER_JDBC_PASSWORD)
+                                .orElseGet(() -> configuration.get(Constants.SONAR_JDBC_PASSWORD).orElse(null)),
+                        configuration.get(Constants.CLUSTER_JDBC_DRIVER).orElse(null),
+                        nodeId(), limit, windowMillis, claimTtlMillis, System::currentTimeMillis);
+            case "none":
+                break;
+            default:
+                LOGGER.warn("MS Teams Plugin: Unknown {} '{}', coordinating this node only", Constants.CLUSTER_MODE, mode);
+        }
+        return new LocalClusterCoordinator(limit, windowMillis, claimTtlMillis, System::currentTimeMillis);
+    }
+
+    /** Key of a webhook in shared state, a hash so the secret URL is never stored. */
+    public static String webhookKey(String webhookUrl) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(webhookUrl.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    static String nodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + ":" + ManagementFactory.getRuntimeMXBean().getName().split("@")[0];
+    }
+}
@@ -0,0 +1,129 @@
+package io.github.minhhoangvn.cluster;
+
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Coordinator keeping claims and budgets in one properties file on a shared file system, guarded
+ * by an exclusive file lock. Meant for tests and small clusters sharing a volume.
+ * <p>
+ * A file lock is held by the whole JVM and another attempt from the same JVM fails rather than
+ * waits, so threads of this JVM, whichever instance they go through, take turns on an in-process
+ * lock for the file before taking the file lock.
+ */
+public class FileLockClusterCoordinator implements ClusterCoordinator {
+
+    private static final Logger LOGGER = Loggers.get(FileLockClusterCoordinator.class);
+    private static final String CLAIM_PREFIX = "claim.";
+    private static final String RATE_PREFIX = "rate.";
+    private static final ConcurrentMap<Path, ReentrantLock> LOCAL_LOCKS = new ConcurrentHashMap<>();
+
+    private final Path stateFile;
+    private final ReentrantLock localLock;
+    private final int limitPerWindow;
+    private final long windowMillis;
+    private final long claimTtlMillis;
+    private final LongSupplier clock;
+
+    public FileLockClusterCoordinator(Path stateFile, int limitPerWindow, long windowMillis, long claimTtlMillis, LongSupplier clock) {
+        this.stateFile = stateFile;
+        this.localLock = LOCAL_LOCKS.computeIfAbsent(stateFile.toAbsolutePath().normalize(), path -> new ReentrantLock());
+        this.limitPerWindow = limitPerWindow;
+        this.windowMillis = windowMillis;
+        this.claimTtlMillis = claimTtlMillis;
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean claimDelivery(String deliveryKey) {
+        return update(state -> {
+            long now = clock.getAsLong();
+            state.stringPropertyNames().stream()
+                    .filter(key -> key.startsWith(CLAIM_PREFIX) && Long.parseLong(state.getProperty(key)) <= now)
+                    .forEach(state::remove);
+            if (state.containsKey(CLAIM_PREFIX + deliveryKey)) {
+                return false;
+            }
+            state.setProperty(CLAIM_PREFIX + deliveryKey, String.valueOf(now + claimTtlMillis));
+            return true;
+        });
+    }
+
+    @Override
+    public void releaseDelivery(String deliveryKey) {
+        update(state -> state.remove(CLAIM_PREFIX + deliveryKey) != null);
+    }
+
+    @Override
+    public boolean tryAcquire(String webhookKey) {
+        if (limitPerWindow <= 0) {
+            return true;
+        }
+        return update(state -> {
+            long now = clock.getAsLong();
+            long windowStart = now - now % windowMillis;
+            String[] window = state.getProperty(RATE_PREFIX + webhookKey, windowStart + ":0").split(":");
+            long used = Long.parseLong(window[0]) == windowStart ? Long.parseLong(window[1]) : 0;
+            if (used >= limitPerWindow) {
+                return false;
+            }
+            state.setProperty(RATE_PREFIX + webhookKey, windowStart + ":" + (used + 1));
+            return true;
+        });
+    }
+
+    private boolean update(Predicate<Properties> mutation) {
+        localLock.lock();
+        try (FileChannel channel = FileChannel.open(stateFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             FileLock ignored = channel.lock()) {
+            Properties state = read(channel);
+            boolean result = mutation.test(state);
+            write(channel, state);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("MS Teams Plugin: Cluster state file {} unavailable, allowing delivery: {}", stateFile, e.getMessage());
+            return true;
+        } finally {
+            localLock.unlock();
+        }
+    }
+
+    private static Properties read(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+        // A single read may return less than asked for
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0) {
+                break;
+            }
+        }
+        Properties state = new Properties();
+        state.load(new ByteArrayInputStream(buffer.array()));
+        return state;
+    }
+
+    private static void write(FileChannel channel, Properties state) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        state.store(out, null);
+        channel.truncate(0);
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, buffer.position());
+        }
+        channel.force(false);
+    }
+}
@@ -0,0 +1,341 @@
+package io.github.minhhoangvn.cluster;
+
+import io.github.minhhoangvn.utils.Constants;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.LongSupplier;
+
+/**
+ * Coordinator backed by two plugin-owned tables in a shared database, normally the SonarQube
+ * database itself. Every decision is a single conditional statement, so the database row lock is
+ * the only synchronisation between nodes.
+ * <p>
+ * The JDBC driver is loaded by class name rather than looked up through {@link DriverManager}: the
+ * plugin class loader does not see the drivers SonarQube ships, so the lookup would fail with "No
+ * suitable driver". One connection is kept open and shared by the node; it is dropped and reopened
+ * after any database error.
+ */
+public class JdbcClusterCoordinator implements ClusterCoordinator {
+
+    private static final Logger LOGGER = Loggers.get(JdbcClusterCoordinator.class);
+
+    static final String CLAIMS_TABLE = "msteams_delivery_claims";
+    static final String WINDOWS_TABLE = "msteams_rate_windows";
+    private static final String UNIQUE_VIOLATION_CLASS = "23";
+    private static final long PURGE_INTERVAL_MILLIS = 10 * 60_000L;
+    private static final Map<String, String> DRIVERS_BY_PREFIX = Map.of(
+            "jdbc:postgresql:", "org.postgresql.Driver",
+            "jdbc:sqlserver:", "com.microsoft.sqlserver.jdbc.SQLServerDriver",
+            "jdbc:oracle:", "oracle.jdbc.OracleDriver",
+            "jdbc:h2:", "org.h2.Driver");
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final String driverClass;
+    private final String nodeId;
+    private final int limitPerWindow;
+    private final long windowMillis;
+    private final long claimTtlMillis;
+    private final LongSupplier clock;
+    // Guarded by this
+    private Driver driver;
+    private Connection connection;
+    private boolean failingOpen;
+    private long nextPurgeMillis;
+
+    public JdbcClusterCoordinator(String url, String username, String password, String nodeId,
+                                  int limitPerWindow, long windowMillis, long claimTtlMillis, LongSupplier clock) {
+        this(url, username, password, null, nodeId, limitPerWindow, windowMillis, claimTtlMillis, clock);
+    }
+
+    /**
+     * @param driverClass JDBC driver class, or {@code null} to derive it from the URL
+     */
+    public JdbcClusterCoordinator(String url, String username, String password, String driverClass, String nodeId,
+                                  int limitPerWindow, long windowMillis, long claimTtlMillis, LongSupplier clock) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.driverClass = driverClass;
+        this.nodeId = nodeId;
+        this.limitPerWindow = limitPerWindow;
+        this.windowMillis = windowMillis;
+        this.claimTtlMillis = claimTtlMillis;
+        this.clock = clock;
+    }
+
+    @Override
+    public synchronized boolean claimDelivery(String deliveryKey) {
+        long now = clock.getAsLong();
+        try {
+            Connection connection = connection();
+            purgeExpiredClaims(connection, now);
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO " + CLAIMS_TABLE + " (delivery_key, node_id, expires_at) VALUES (?, ?, ?)")) {
+                insert.setString(1, deliveryKey);
+                insert.setString(2, nodeId);
+                insert.setLong(3, now + claimTtlMillis);
+                insert.executeUpdate();
+                return true;
+            } catch (SQLException e) {
+                if (!isUniqueViolation(e)) {
+                    throw e;
+                }
+            }
+            // Someone holds the key: take it over only if that claim has expired
+            try (PreparedStatement takeOver = connection.prepareStatement(
+                    "UPDATE " + CLAIMS_TABLE + " SET node_id = ?, expires_at = ? WHERE delivery_key = ? AND expires_at <= ?")) {
+                takeOver.setString(1, nodeId);
+                takeOver.setLong(2, now + claimTtlMillis);
+                takeOver.setString(3, deliveryKey);
+                takeOver.setLong(4, now);
+                return takeOver.executeUpdate() == 1;
+            }
+        } catch (SQLException e) {
+            failOpen("delivery " + deliveryKey, e);
+            return true;
+        }
+    }
+
+    @Override
+    public synchronized void releaseDelivery(String deliveryKey) {
+        try (PreparedStatement delete = connection().prepareStatement(
+                "DELETE FROM " + CLAIMS_TABLE + " WHERE delivery_key = ? AND node_id = ?")) {
+            delete.setString(1, deliveryKey);
+            delete.setString(2, nodeId);
+            delete.executeUpdate();
+        } catch (SQLException e) {
+            failOpen("release of " + deliveryKey, e);
+        }
+    }
+
+    @Override
+    public synchronized boolean tryAcquire(String webhookKey) {
+        if (limitPerWindow <= 0) {
+            return true;
+        }
+        long now = clock.getAsLong();
+        long windowStart = now - now % windowMillis;
+        try {
+            Connection connection = connection();
+            // One retry covers losing the insert race against another node
+            for (int attempt = 0; attempt < 2; attempt++) {
+                if (consumeInCurrentWindow(connection, webhookKey, windowStart)) {
+                    return true;
+                }
+                if (startNewWindow(connection, webhookKey, windowStart)) {
+                    return true;
+                }
+                if (windowExists(connection, webhookKey)) {
+                    // The current window exists and is used up
+                    return false;
+                }
+                try (PreparedStatement insert = connection.prepareStatement(
+                        "INSERT INTO " + WINDOWS_TABLE + " (webhook_hash, window_start, used) VALUES (?, ?, 1)")) {
+                    insert.setString(1, webhookKey);
+                    insert.setLong(2, windowStart);
+                    insert.executeUpdate();
+                    return true;
+                } catch (SQLException e) {
+                    if (!isUniqueViolation(e)) {
+                        throw e;
+                    }
+                }
+            }
+            return false;
+        } catch (SQLException e) {
+            failOpen("delivery without budget", e);
+            return true;
+        }
+    }
+
+    /**
+     * Drops the connection after a database error and reports the outage once, at error level,
+     * rather than on every delivery while it lasts.
+     */
+    private void failOpen(String allowed, SQLException e) {
+        closeConnection();
+        if (!failingOpen) {
+            failingOpen = true;
+            LOGGER.error("MS Teams Plugin: Cluster database unavailable, deliveries are not coordinated across nodes"
+                    + " until it is reachable again: {}", e.getMessage());
+        } else {
+            LOGGER.debug("MS Teams Plugin: Cluster database still unavailable, allowing {}: {}", allowed, e.getMessage());
+        }
+    }
+
+    private boolean consumeInCurrentWindow(Connection connection, String webhookKey, long windowStart) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE " + WINDOWS_TABLE + " SET used = used + 1 WHERE webhook_hash = ? AND window_start = ? AND used < ?")) {
+            update.setString(1, webhookKey);
+            update.setLong(2, windowStart);
+            update.setInt(3, limitPerWindow);
+            return update.executeUpdate() == 1;
+        }
+    }
+
+    private boolean startNewWindow(Connection connection, String webhookKey, long windowStart) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE " + WINDOWS_TABLE + " SET window_start = ?, used = 1 WHERE webhook_hash = ? AND window_start < ?")) {
+            update.setLong(1, windowStart);
+            update.setString(2, webhookKey);
+            update.setLong(3, windowStart);
+            return update.executeUpdate() == 1;
+        }
+    }
+
+    private boolean windowExists(Connection connection, String webhookKey) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT 1 FROM " + WINDOWS_TABLE + " WHERE webhook_hash = ?")) {
+            select.setString(1, webhookKey);
+            try (ResultSet resultSet = select.executeQuery()) {
+                return resultSet.next();
+            }
+        }
+    }
+
+    private void purgeExpiredClaims(Connection connection, long now) throws SQLException {
+        if (now < nextPurgeMillis) {
+            return;
+        }
+        nextPurgeMillis = now + PURGE_INTERVAL_MILLIS;
+        try (PreparedStatement delete = connection.prepareStatement(
+                "DELETE FROM " + CLAIMS_TABLE + " WHERE expires_at <= ?")) {
+            delete.setLong(1, now);
+            int purged = delete.executeUpdate();
+            LOGGER.debug("MS Teams Plugin: Purged {} expired delivery claims", purged);
+        }
+    }
+
+    private Connection connection() throws SQLException {
+        if (connection != null) {
+            return connection;
+        }
+        if (driver == null) {
+            driver = loadDriver(driverClass, url);
+        }
+        Properties info = new Properties();
+        if (username != null) {
+            info.setProperty("user", username);
+        }
+        if (password != null) {
+            info.setProperty("password", password);
+        }
+        Connection opened = driver.connect(url, info);
+        if (opened == null) {
+            throw new SQLException("Driver " + driver.getClass().getName() + " does not accept the configured JDBC URL");
+        }
+        try {
+            createSchema(opened);
+        } catch (SQLException e) {
+            opened.close();
+            throw e;
+        }
+        connection = opened;
+        if (failingOpen) {
+            failingOpen = false;
+            LOGGER.info("MS Teams Plugin: Cluster database reachable again, coordinating deliveries across nodes");
+        }
+        return connection;
+    }
+
+    private void closeConnection() {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            LOGGER.debug("MS Teams Plugin: Could not close cluster database connection: {}", e.getMessage());
+        }
+        connection = null;
+    }
+
+    static Driver loadDriver(String driverClass, String url) throws SQLException {
+        String className = driverClass != null ? driverClass : driverClassFor(url);
+        if (className == null) {
+            return DriverManager.getDriver(url);
+        }
+        // SonarQube puts its drivers on the application class path, outside the plugin class loader
+        ClassLoader[] loaders = {Thread.currentThread().getContextClassLoader(),
+                JdbcClusterCoordinator.class.getClassLoader(), ClassLoader.getSystemClassLoader()};
+        for (ClassLoader loader : loaders) {
+            if (loader == null) {
+                continue;
+            }
+            try {
+                return (Driver) Class.forName(className, true, loader).getDeclaredConstructor().newInstance();
+            } catch (ClassNotFoundException e) {
+                // Try the next class loader
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                throw new SQLException("Cannot load JDBC driver " + className + ": " + e.getMessage(), e);
+            }
+        }
+        throw new SQLException("JDBC driver " + className + " is not on the class path, set "
+                + Constants.CLUSTER_JDBC_DRIVER + " or use another cluster mode");
+    }
+
+    static String driverClassFor(String url) {
+        for (Map.Entry<String, String> entry : DRIVERS_BY_PREFIX.entrySet()) {
+            if (url.startsWith(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private void createSchema(Connection connection) throws SQLException {
+        createTableIfMissing(connection, CLAIMS_TABLE, "CREATE TABLE " + CLAIMS_TABLE + " ("
+                + "delivery_key VARCHAR(128) NOT NULL PRIMARY KEY, "
+                + "node_id VARCHAR(128) NOT NULL, "
+                + "expires_at NUMERIC(19) NOT NULL)");
+        createTableIfMissing(connection, WINDOWS_TABLE, "CREATE TABLE " + WINDOWS_TABLE + " ("
+                + "webhook_hash VARCHAR(128) NOT NULL PRIMARY KEY, "
+                + "window_start NUMERIC(19) NOT NULL, "
+                + "used INTEGER NOT NULL)");
+    }
+
+    private static void createTableIfMissing(Connection connection, String table, String ddl) throws SQLException {
+        if (tableExists(connection.getMetaData(), table)) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(ddl);
+            LOGGER.info("MS Teams Plugin: Created cluster coordination table {}", table);
+        } catch (SQLException e) {
+            // Another node may have created it in the meantime
+            if (!tableExists(connection.getMetaData(), table)) {
+                throw e;
+            }
+        }
+    }
+
+    private static boolean tableExists(DatabaseMetaData metaData, String table) throws SQLException {
+        // Databases differ in how they fold unquoted identifiers
+        for (String name : new String[]{table, table.toUpperCase(Locale.ROOT)}) {
+            try (ResultSet tables = metaData.getTables(null, null, name, new String[]{"TABLE"})) {
+                if (tables.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isUniqueViolation(SQLException e) {
+        return e.getSQLState() != null && e.getSQLState().startsWith(UNIQUE_VIOLATION_CLASS);
+    }
+}
@@ -0,0 +1,80 @@
+package io.github.minhhoangvn.cluster;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory coordinator for single-node installations.
+ * <p>
+ * An expired claim is replaced when its key is claimed again; the others are purged every few
+ * minutes rather than on every delivery.
+ */
+public class LocalClusterCoordinator implements ClusterCoordinator {
+
+    private static final long PURGE_INTERVAL_MILLIS = 10 * 60_000L;
+
+    private final Map<String, Long> claims = new ConcurrentHashMap<>();
+    private final Map<String, long[]> windows = new ConcurrentHashMap<>();
+    private final int limitPerWindow;
+    private final long windowMillis;
+    private final long claimTtlMillis;
+    private final LongSupplier clock;
+    private volatile long nextPurgeMillis;
+
+    public LocalClusterCoordinator(int limitPerWindow, long windowMillis, long claimTtlMillis, LongSupplier clock) {
+        this.limitPerWindow = limitPerWindow;
+        this.windowMillis = windowMillis;
+        this.claimTtlMillis = claimTtlMillis;
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean claimDelivery(String deliveryKey) {
+        long now = clock.getAsLong();
+        purgeExpiredClaims(now);
+        boolean[] claimed = {false};
+        claims.compute(deliveryKey, (key, expiresAt) -> {
+            if (expiresAt != null && expiresAt > now) {
+                return expiresAt;
+            }
+            claimed[0] = true;
+            return now + claimTtlMillis;
+        });
+        return claimed[0];
+    }
+
+    private void purgeExpiredClaims(long now) {
+        if (now < nextPurgeMillis) {
+            return;
+        }
+        nextPurgeMillis = now + PURGE_INTERVAL_MILLIS;
+        claims.values().removeIf(expiresAt -> expiresAt <= now);
+    }
+
+    @Override
+    public void releaseDelivery(String deliveryKey) {
+        claims.remove(deliveryKey);
+    }
+
+    @Override
+    public boolean tryAcquire(String webhookKey) {
+        if (limitPerWindow <= 0) {
+            return true;
+        }
+        long now = clock.getAsLong();
+        long windowStart = now - now % windowMillis;
+        long[] window = windows.computeIfAbsent(webhookKey, key -> new long[]{windowStart, 0});
+        synchronized (window) {
+            if (window[0] != windowStart) {
+                window[0] = windowStart;
+                window[1] = 0;
+            }
+            if (window[1] >= limitPerWindow) {
+                return false;
+            }
+            window[1]++;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package io.github.minhhoangvn.dispatch;
+
+import org.sonar.api.ce.posttask.QualityGate;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Predicate;
+
+/**
+ * Keeps notifications that could not be delivered before shutdown in a file until the next start.
+ * <p>
+ * Payloads are stored rendered, since the analysis they were rendered from is gone by then. They
+ * are written one record at a time in the compressed, checksummed format of {@link SegmentCodec},
+ * so a long outage with thousands of cards costs little disk, and replayed one record at a time,
+ * so the backlog is never held in memory as a whole. A save goes to a temporary file moved into
+ * place once complete; when the server died during a save, the records of the temporary file up to
+ * the first torn or corrupt one are replayed on the next start. A replay stopped early, by a
+ * shutdown during startup for instance, keeps what it did not hand over, and the next save puts it
+ * ahead of the new notifications. A backlog saved in the former properties format is still read.
+ * <p>
+ * The file holds webhook URLs, so it is written readable by its owner only where the file system
+ * supports it.
+ */
+public class BacklogStore {
+
+    private static final Logger LOGGER = Loggers.get(BacklogStore.class);
+    private static final String COUNT = "count";
+
+    private final Path file;
+    private final Path temp;
+
+    public BacklogStore(Path file) {
+        this.file = file;
+        this.temp = file.resolveSibling(file.getFileName() + ".tmp");
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public boolean exists() {
+        return Files.exists(file) || Files.exists(temp);
+    }
+
+    /**
+     * Saves the notifications, replacing any previous backlog, and completes them. Notifications a
+     * replay stopped short of are kept ahead of them.
+     *
+     * @return the number of notifications saved
+     */
+    public synchronized int save(List<Notification> notifications) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        int[] saved = {0};
+        SegmentCodec codec = new SegmentCodec();
+        try (OutputStream stream = Files.newOutputStream(temp)) {
+            restrictToOwner(temp);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            SegmentCodec.writeHeader(out);
+            if (Files.exists(file)) {
+                read(file, notification -> {
+                    if (write(codec, notification, out)) {
+                        saved[0]++;
+                    }
+                    return true;
+                });
+            }
+            for (Notification notification : notifications) {
+                if (write(codec, notification, out)) {
+                    saved[0]++;
+                }
+            }
+            out.flush();
+        } finally {
+            codec.close();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return saved[0];
+    }
+
+    private static boolean write(SegmentCodec codec, Notification notification, DataOutputStream out) throws IOException {
+        try {
+            codec.write(notification, out);
+            return true;
+        } catch (RuntimeException e) {
+            LOGGER.warn("MS Teams Plugin: Could not keep notification for project: {} ({})",
+                    notification.getProjectName(), e.getMessage());
+            return false;
+        } finally {
+            notification.complete();
+        }
+    }
+
+    /**
+     * Reads the saved notifications and deletes the file, so they are handed over only once.
+     */
+    public List<Notification> load() throws IOException {
+        List<Notification> notifications = new ArrayList<>();
+        replay(notifications::add);
+        return notifications;
+    }
+
+    /**
+     * Hands the saved notifications to the consumer one by one, in the order they were saved, so
+     * they are handed over only once. The consumer returns {@code false} to stop early, leaving the
+     * notification it was given; that one and those after it stay in the file for the next replay
+     * or save. A notification the consumer throws on is kept the same way, and the exception is
+     * rethrown once the rest is set aside. A corrupt tail is cut off at the last good record; any
+     * other read error, such as a segment of an unknown version, leaves the file untouched.
+     *
+     * @return the number of notifications handed over
+     */
+    public synchronized int replay(Predicate<Notification> consumer) throws IOException {
+        // A complete save wins over the remains of a save interrupted before it
+        Path source = Files.exists(file) ? file : temp;
+        if (!Files.exists(source)) {
+            return 0;
+        }
+        int[] replayed = {0};
+        RuntimeException[] consumerFailure = {null};
+        Remainder remainder = new Remainder(file.resolveSibling(file.getFileName() + ".rest"));
+        boolean readThrough = false;
+        try {
+            read(source, notification -> {
+                if (!remainder.isStarted()) {
+                    try {
+                        if (consumer.test(notification)) {
+                            replayed[0]++;
+                            return true;
+                        }
+                    } catch (RuntimeException e) {
+                        consumerFailure[0] = e;
+                    }
+                }
+                remainder.write(notification);
+                return true;
+            });
+            readThrough = true;
+        } finally {
+            int kept = remainder.close();
+            if (!readThrough) {
+                // Handing the rest over again beats losing it
+                Files.deleteIfExists(remainder.path);
+                LOGGER.warn("MS Teams Plugin: Keeping {} as it is after a read error, {} of its notifications were already replayed",
+                        source, replayed[0]);
+            } else if (kept > 0) {
+                Files.move(remainder.path, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Files.deleteIfExists(temp);
+                LOGGER.info("MS Teams Plugin: Keeping {} saved notifications not replayed yet in {}", kept, file);
+            } else {
+                Files.deleteIfExists(remainder.path);
+                Files.deleteIfExists(file);
+                Files.deleteIfExists(temp);
+            }
+        }
+        if (consumerFailure[0] != null) {
+            throw consumerFailure[0];
+        }
+        return replayed[0];
+    }
+
+    /** Hands the records of the file to the consumer until it returns {@code false}, up to the first corrupt one. */
+    private static void read(Path source, RecordConsumer consumer) throws IOException {
+        try (BufferedInputStream in = new BufferedInputStream(Files.newInputStream(source))) {
+            if (isSegment(in)) {
+                readSegment(source, new DataInputStream(in), consumer);
+            } else {
+                readProperties(in, consumer);
+            }
+        }
+    }
+
+    private static boolean isSegment(BufferedInputStream in) throws IOException {
+        in.mark(Integer.BYTES);
+        try {
+            return new DataInputStream(in).readInt() == SegmentCodec.MAGIC;
+        } catch (EOFException e) {
+            return false;
+        } finally {
+            in.reset();
+        }
+    }
+
+    private static void readSegment(Path source, DataInputStream in, RecordConsumer consumer) throws IOException {
+        SegmentCodec codec = new SegmentCodec();
+        try {
+            codec.readHeader(in);
+            Notification notification;
+            while ((notification = codec.read(in)) != null && consumer.accept(notification)) {
+                // Next record
+            }
+        } catch (SegmentCodec.CorruptRecordException e) {
+            LOGGER.warn("MS Teams Plugin: Truncating the corrupt tail of {} at byte {} ({})", source, codec.position(), e.getMessage());
+        } finally {
+            codec.close();
+        }
+    }
+
+    private static void readProperties(InputStream in, RecordConsumer consumer) throws IOException {
+        Properties properties = new Properties();
+        properties.load(in);
+
+        int count = Integer.parseInt(properties.getProperty(COUNT, "0"));
+        for (int i = 0; i < count; i++) {
+            String prefix = i + ".";
+            Notification notification;
+            try {
+                String status = properties.getProperty(prefix + "qualityGateStatus");
+                notification = Notification.builder()
+                        .webhookUrl(properties.getProperty(prefix + "webhookUrl"))
+                        .payload(properties.getProperty(prefix + "payload"))
+                        .ceTaskId(properties.getProperty(prefix + "ceTaskId"))
+                        .projectKey(properties.getProperty(prefix + "projectKey"))
+                        .projectName(properties.getProperty(prefix + "projectName"))
+                        .branch(properties.getProperty(prefix + "branch"))
+                        .qualityGateStatus(status != null ? QualityGate.Status.valueOf(status) : null)
+                        .createdAtMillis(Long.parseLong(properties.getProperty(prefix + "createdAtMillis")))
+                        .deadlineMillis(Long.parseLong(properties.getProperty(prefix + "deadlineMillis")))
+                        .build();
+            } catch (RuntimeException e) {
+                LOGGER.warn("MS Teams Plugin: Skipping unreadable saved notification {} ({})", i, e.getMessage());
+                continue;
+            }
+            if (!consumer.accept(notification)) {
+                break;
+            }
+        }
+    }
+
+    private static void restrictToOwner(Path path) {
+        try {
+            Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException | IOException e) {
+            LOGGER.debug("MS Teams Plugin: Could not restrict permissions of {}: {}", path, e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordConsumer {
+        /** @return {@code false} to stop reading */
+        boolean accept(Notification notification) throws IOException;
+    }
+
+    /**
+     * Notifications a replay did not hand over, written to a file of their own as they are read,
+     * which then takes the place of the backlog.
+     */
+    private static final class Remainder {
+        private final Path path;
+        private final SegmentCodec codec = new SegmentCodec();
+        private OutputStream stream;
+        private DataOutputStream out;
+        private int count;
+
+        private Remainder(Path path) {
+            this.path = path;
+        }
+
+        boolean isStarted() {
+            return stream != null;
+        }
+
+        void write(Notification notification) throws IOException {
+            if (stream == null) {
+                stream = Files.newOutputStream(path);
+                restrictToOwner(path);
+                out = new DataOutputStream(new BufferedOutputStream(stream));
+                SegmentCodec.writeHeader(out);
+            }
+            if (BacklogStore.write(codec, notification, out)) {
+                count++;
+            }
+        }
+
+        /** @return the number of notifications kept */
+        int close() throws IOException {
+            try {
+                if (out != null) {
+                    out.flush();
+                    stream.close();
+                }
+            } finally {
+                codec.close();
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package io.github.minhhoangvn.dispatch;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-destination limits on deliveries in progress and notifications queued, so a slow or
+ * failing webhook only holds up its own notifications.
+ * <p>
+ * Destinations are webhook URLs. A destination at its concurrency limit is skipped by the
+ * dispatcher workers, which serve other destinations meanwhile, and a destination using its
+ * whole share of the queue has to make room within that share.
+ */
+public class Bulkhead {
+
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final Map<String, Usage> usageByDestination = new HashMap<>();
+
+    /**
+     * @param maxConcurrent deliveries in progress per destination
+     * @param maxQueued     notifications queued per destination
+     */
+    public Bulkhead(int maxConcurrent, int maxQueued) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxQueued = Math.max(1, maxQueued);
+    }
+
+    /** Whether the destination has room for one more queued notification. */
+    public synchronized boolean hasQueueRoom(String destination) {
+        Usage usage = usageByDestination.get(destination);
+        return usage == null || usage.queued < maxQueued;
+    }
+
+    public synchronized void queued(String destination) {
+        usageByDestination.computeIfAbsent(destination, key -> new Usage()).queued++;
+    }
+
+    public synchronized void dequeued(String destination) {
+        Usage usage = usageByDestination.get(destination);
+        if (usage != null && usage.queued > 0) {
+            usage.queued--;
+            removeIfIdle(destination, usage);
+        }
+    }
+
+    /**
+     * Takes a delivery permit for the destination, moving one of its notifications from queued to
+     * in progress.
+     *
+     * @return {@code false} when the destination is at its concurrency limit
+     */
+    public synchronized boolean tryStart(String destination) {
+        Usage usage = usageByDestination.computeIfAbsent(destination, key -> new Usage());
+        if (usage.inFlight >= maxConcurrent) {
+            return false;
+        }
+        usage.inFlight++;
+        if (usage.queued > 0) {
+            usage.queued--;
+        }
+        return true;
+    }
+
+    public synchronized void finished(String destination) {
+        Usage usage = usageByDestination.get(destination);
+        if (usage != null && usage.inFlight > 0) {
+            usage.inFlight--;
+            removeIfIdle(destination, usage);
+        }
+    }
+
+    public synchronized int inFlight(String destination) {
+        Usage usage = usageByDestination.get(destination);
+        return usage == null ? 0 : usage.inFlight;
+    }
+
+    public synchronized int queuedCount(String destination) {
+        Usage usage = usageByDestination.get(destination);
+        return usage == null ? 0 : usage.queued;
+    }
+
+    private void removeIfIdle(String destination, Usage usage) {
+        if (usage.queued == 0 && usage.inFlight == 0) {
+            usageByDestination.remove(destination);
+        }
+    }
+
+    private static final class Usage {
+        private int queued;
+        private int inFlight;
+    }
+}
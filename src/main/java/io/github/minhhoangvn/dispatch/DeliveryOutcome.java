@@ -0,0 +1,21 @@
+package io.github.minhhoangvn.dispatch;
+
+/**
+ * How a delivery attempt ended, as far as the endpoint is concerned.
+ */
+public enum DeliveryOutcome {
+    /** Teams accepted the notification. */
+    DELIVERED,
+    /** Teams answered but refused the notification; sending it again would not help. */
+    REJECTED,
+    /** The endpoint could not be reached, failed or throttled; the notification can wait for it. */
+    UNAVAILABLE;
+
+    /** Outcome of an HTTP response with the given status code. */
+    public static DeliveryOutcome ofStatus(int statusCode) {
+        if (statusCode >= 200 && statusCode < 300) {
+            return DELIVERED;
+        }
+        return statusCode == 429 || statusCode >= 500 ? UNAVAILABLE : REJECTED;
+    }
+}
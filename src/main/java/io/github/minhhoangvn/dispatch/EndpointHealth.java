@@ -0,0 +1,149 @@
+package io.github.minhhoangvn.dispatch;
+
+import io.github.minhhoangvn.settings.NotifierSettings;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Which webhook endpoints are unavailable, with the notifications held for each until it is back.
+ * <p>
+ * An endpoint becomes unavailable when a delivery to it cannot get through, and available again
+ * when a probe reaches it. Meanwhile its notifications are held here rather than attempted and
+ * failed one after the other. Probes of an unavailable endpoint start at the probe interval and
+ * back off, doubling up to the maximum interval, so a long outage costs a few requests an hour.
+ * <p>
+ * Availability is read on every delivery without locking; changes are synchronized.
+ */
+public class EndpointHealth {
+
+    private static final Logger LOGGER = Loggers.get(EndpointHealth.class);
+
+    private final long probeIntervalMillis;
+    private final long maxProbeIntervalMillis;
+    private final Map<String, Outage> outages = new ConcurrentHashMap<>();
+
+    public EndpointHealth(long probeIntervalMillis, long maxProbeIntervalMillis) {
+        this.probeIntervalMillis = Math.max(1, probeIntervalMillis);
+        this.maxProbeIntervalMillis = Math.max(this.probeIntervalMillis, maxProbeIntervalMillis);
+    }
+
+    public boolean isAvailable(String destination) {
+        return outages.isEmpty() || !outages.containsKey(destination);
+    }
+
+    /** Marks the endpoint unavailable, unless it is already, with a first probe one interval from now. */
+    public synchronized void markUnavailable(String destination, long nowMillis) {
+        if (!outages.containsKey(destination)) {
+            outages.put(destination, new Outage(nowMillis, probeIntervalMillis));
+            LOGGER.warn("MS Teams Plugin: Webhook {} is unavailable, holding its notifications until it answers again",
+                    NotifierSettings.maskUrl(destination));
+        }
+    }
+
+    /**
+     * Holds the notification until the endpoint is available again.
+     *
+     * @return {@code false} when the endpoint became available meanwhile, and the notification should be queued
+     */
+    public synchronized boolean hold(String destination, Notification notification, Priority priority) {
+        Outage outage = outages.get(destination);
+        if (outage == null) {
+            return false;
+        }
+        outage.held.add(new Held(notification, priority));
+        return true;
+    }
+
+    /**
+     * Marks the endpoint available.
+     *
+     * @return the notifications held for it, in the order they were held
+     */
+    public synchronized List<Held> markAvailable(String destination) {
+        Outage outage = outages.remove(destination);
+        return outage == null ? List.of() : outage.held;
+    }
+
+    /** Unavailable endpoints whose next probe is due. */
+    public List<String> dueForProbe(long nowMillis) {
+        List<String> due = new ArrayList<>();
+        outages.forEach((destination, outage) -> {
+            if (outage.nextProbeAtMillis <= nowMillis) {
+                due.add(destination);
+            }
+        });
+        return due;
+    }
+
+    /** Backs off the next probe of an endpoint that is still unavailable. */
+    public synchronized void probeFailed(String destination, long nowMillis) {
+        Outage outage = outages.get(destination);
+        if (outage != null) {
+            outage.probeDelayMillis = Math.min(maxProbeIntervalMillis, outage.probeDelayMillis * 2);
+            outage.nextProbeAtMillis = nowMillis + outage.probeDelayMillis;
+        }
+    }
+
+    /** When the endpoint became unavailable, or -1 when it is available. */
+    public long unavailableSince(String destination) {
+        Outage outage = outages.get(destination);
+        return outage == null ? -1 : outage.sinceMillis;
+    }
+
+    public synchronized int held() {
+        int held = 0;
+        for (Outage outage : outages.values()) {
+            held += outage.held.size();
+        }
+        return held;
+    }
+
+    /** Takes every held notification, on shutdown; the endpoints stay unavailable. */
+    public synchronized List<Held> drainAll() {
+        List<Held> held = new ArrayList<>();
+        for (Outage outage : outages.values()) {
+            held.addAll(outage.held);
+            outage.held.clear();
+        }
+        return held;
+    }
+
+    /**
+     * A notification held for an unavailable endpoint, with the priority it was queued with.
+     */
+    public static final class Held {
+        private final Notification notification;
+        private final Priority priority;
+
+        private Held(Notification notification, Priority priority) {
+            this.notification = notification;
+            this.priority = priority;
+        }
+
+        public Notification getNotification() {
+            return notification;
+        }
+
+        public Priority getPriority() {
+            return priority;
+        }
+    }
+
+    private static final class Outage {
+        private final long sinceMillis;
+        private final List<Held> held = new ArrayList<>();
+        private volatile long probeDelayMillis;
+        private volatile long nextProbeAtMillis;
+
+        private Outage(long sinceMillis, long probeDelayMillis) {
+            this.sinceMillis = sinceMillis;
+            this.probeDelayMillis = probeDelayMillis;
+            this.nextProbeAtMillis = sinceMillis + probeDelayMillis;
+        }
+    }
+}
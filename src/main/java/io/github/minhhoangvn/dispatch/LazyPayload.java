@@ -0,0 +1,73 @@
+package io.github.minhhoangvn.dispatch;
+
+import java.util.function.Supplier;
+
+/**
+ * A payload rendered on first use and shared by every notification built on it.
+ * <p>
+ * The post-analysis task attaches the renderer instead of the rendered card, so nothing is
+ * rendered for notifications that end up shed, deduplicated or rate limited. The first
+ * destination cleared to send renders it, later ones reuse the result, and once every
+ * notification holding it has completed both the result and the renderer, which keeps the
+ * analysis snapshot reachable, are dropped.
+ */
+public final class LazyPayload {
+
+    private Supplier<String> renderer;
+    private String rendered;
+    private int holders;
+    private boolean released;
+
+    private LazyPayload(Supplier<String> renderer, String rendered) {
+        this.renderer = renderer;
+        this.rendered = rendered;
+    }
+
+    /** A payload rendered by the given function when first needed. */
+    public static LazyPayload of(Supplier<String> renderer) {
+        return new LazyPayload(renderer, null);
+    }
+
+    /** A payload that is already rendered. */
+    public static LazyPayload ofRendered(String payload) {
+        return new LazyPayload(null, payload);
+    }
+
+    /**
+     * Renders the payload if this is the first call, and returns it.
+     *
+     * @throws IllegalStateException when every holder has already completed
+     */
+    public synchronized String get() {
+        if (rendered == null) {
+            if (renderer == null) {
+                throw new IllegalStateException("Payload already released");
+            }
+            rendered = renderer.get();
+        }
+        return rendered;
+    }
+
+    public synchronized boolean isRendered() {
+        return rendered != null;
+    }
+
+    public synchronized boolean isReleased() {
+        return released;
+    }
+
+    synchronized void retain() {
+        if (released) {
+            throw new IllegalStateException("Payload already released");
+        }
+        holders++;
+    }
+
+    synchronized void release() {
+        if (holders > 0 && --holders == 0) {
+            renderer = null;
+            rendered = null;
+            released = true;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package io.github.minhhoangvn.dispatch;
+
+/**
+ * Decides which notifications are dropped under backlog, based on queue depth and age.
+ * <p>
+ * Failed quality gates are never shed for depth or age; they can only be refused when the queue is
+ * full of other failed gates.
+ */
+public class LoadSheddingPolicy {
+
+    private final double highWatermark;
+    private final long maxAgeMillis;
+
+    /**
+     * @param highWatermark fraction of the queue capacity above which new routine notifications are shed
+     * @param maxAgeMillis  time after {@code finished()} beyond which a non-failed notification is stale
+     */
+    public LoadSheddingPolicy(double highWatermark, long maxAgeMillis) {
+        this.highWatermark = highWatermark;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    public long deadlineFor(long createdAtMillis) {
+        return maxAgeMillis <= 0 ? Long.MAX_VALUE : createdAtMillis + maxAgeMillis;
+    }
+
+    public boolean shouldShedOnArrival(Priority priority, int depth, int capacity) {
+        return priority == Priority.ROUTINE && depth >= (long) Math.ceil(capacity * highWatermark);
+    }
+
+    public boolean isStale(Notification notification, Priority priority, long nowMillis) {
+        return priority != Priority.FAILED_GATE && nowMillis > notification.getDeadlineMillis();
+    }
+}
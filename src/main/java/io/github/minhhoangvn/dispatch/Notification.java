@@ -0,0 +1,276 @@
+package io.github.minhhoangvn.dispatch;
+
+import okhttp3.HttpUrl;
+import org.sonar.api.ce.posttask.QualityGate;
+
+/**
+ * A notification waiting to be delivered to one webhook. Its payload is rendered when the
+ * notification is sent, see {@link LazyPayload}.
+ */
+public class Notification {
+
+    private final String notificationId;
+    private final String ceTaskId;
+    private final String projectKey;
+    private final String projectName;
+    private final String branch;
+    private final QualityGate.Status qualityGateStatus;
+    private final String webhookUrl;
+    private final HttpUrl webhookHttpUrl;
+    private final LazyPayload payload;
+    private final long createdAtMillis;
+    private final long deadlineMillis;
+    private final Runnable onDelivered;
+    private final boolean summary;
+    private boolean completed;
+    // Only changed by the worker holding the notification
+    private volatile int attempts;
+
+    private Notification(Builder builder) {
+        this.notificationId = builder.notificationId;
+        this.ceTaskId = builder.ceTaskId;
+        this.projectKey = builder.projectKey;
+        this.projectName = builder.projectName;
+        this.branch = builder.branch;
+        this.qualityGateStatus = builder.qualityGateStatus;
+        this.webhookUrl = builder.webhookUrl;
+        this.webhookHttpUrl = builder.webhookHttpUrl;
+        this.payload = builder.payload;
+        this.createdAtMillis = builder.createdAtMillis;
+        this.deadlineMillis = builder.deadlineMillis;
+        this.onDelivered = builder.onDelivered;
+        this.summary = builder.summary;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Correlation id from the finished analysis to the webhook request, see
+     * {@link io.github.minhhoangvn.pipeline.NotificationId}, or {@code null} for synthetic ones.
+     */
+    public String getNotificationId() {
+        return notificationId;
+    }
+
+    /** Compute Engine task that produced this notification, or {@code null} for synthetic ones. */
+    public String getCeTaskId() {
+        return ceTaskId;
+    }
+
+    public String getProjectKey() {
+        return projectKey;
+    }
+
+    public String getProjectName() {
+        return projectName;
+    }
+
+    /** Branch name, or {@code null} when the analysis is not on a named branch. */
+    public String getBranch() {
+        return branch;
+    }
+
+    /** Quality gate status, or {@code null} when the project has no quality gate. */
+    public QualityGate.Status getQualityGateStatus() {
+        return qualityGateStatus;
+    }
+
+    public String getWebhookUrl() {
+        return webhookUrl;
+    }
+
+    /** Webhook URL parsed ahead of time, or {@code null} when it is to be parsed on delivery. */
+    public HttpUrl getWebhookHttpUrl() {
+        return webhookHttpUrl;
+    }
+
+    /**
+     * The payload, rendered on the first call across all notifications sharing it.
+     *
+     * @throws IllegalStateException when the notification has already completed
+     */
+    public String getPayload() {
+        return payload.get();
+    }
+
+    /**
+     * Tells the stage that built this notification that Teams accepted it; called before
+     * {@link #complete()}, and not for notifications restored from the backlog.
+     */
+    public void delivered() {
+        if (onDelivered != null) {
+            onDelivered.run();
+        }
+    }
+
+    /**
+     * Marks this notification as done, delivered or not, so its share of the payload can be
+     * released. Later calls have no effect.
+     */
+    public void complete() {
+        synchronized (this) {
+            if (completed) {
+                return;
+            }
+            completed = true;
+        }
+        payload.release();
+    }
+
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    /** Time after which delivering this notification is no longer useful, if it is not important. */
+    public long getDeadlineMillis() {
+        return deadlineMillis;
+    }
+
+    /**
+     * Copy of this notification due by another deadline, sharing its payload; this one is completed.
+     */
+    public Notification withDeadline(long deadlineMillis) {
+        Notification copy = builder()
+                .notificationId(notificationId)
+                .ceTaskId(ceTaskId)
+                .projectKey(projectKey)
+                .projectName(projectName)
+                .branch(branch)
+                .qualityGateStatus(qualityGateStatus)
+                .webhookUrl(webhookUrl)
+                .webhookHttpUrl(webhookHttpUrl)
+                .payload(payload)
+                .createdAtMillis(createdAtMillis)
+                .deadlineMillis(deadlineMillis)
+                .onDelivered(onDelivered)
+                .summary(summary)
+                .build();
+        complete();
+        return copy;
+    }
+
+    /** Times a worker took this notification for delivery, including attempts put back over budget. */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /** Counts one more delivery attempt. */
+    public int recordAttempt() {
+        return ++attempts;
+    }
+
+    /** Whether this is a summary of shed notifications, which is not folded into another summary when shed. */
+    public boolean isSummary() {
+        return summary;
+    }
+
+    public boolean isAnalysisFailed() {
+        return qualityGateStatus == QualityGate.Status.ERROR;
+    }
+
+    /** Key identifying the project and branch, used to track status between analyses. */
+    public String getProjectBranchKey() {
+        return branch == null ? projectKey : projectKey + ":" + branch;
+    }
+
+    public static class Builder {
+        private String notificationId;
+        private String ceTaskId;
+        private String projectKey;
+        private String projectName;
+        private String branch;
+        private QualityGate.Status qualityGateStatus;
+        private String webhookUrl;
+        private HttpUrl webhookHttpUrl;
+        private LazyPayload payload;
+        private long createdAtMillis = System.currentTimeMillis();
+        private long deadlineMillis = Long.MAX_VALUE;
+        private Runnable onDelivered;
+        private boolean summary;
+
+        private Builder() {
+        }
+
+        public Builder notificationId(String notificationId) {
+            this.notificationId = notificationId;
+            return this;
+        }
+
+        public Builder ceTaskId(String ceTaskId) {
+            this.ceTaskId = ceTaskId;
+            return this;
+        }
+
+        public Builder projectKey(String projectKey) {
+            this.projectKey = projectKey;
+            return this;
+        }
+
+        public Builder projectName(String projectName) {
+            this.projectName = projectName;
+            return this;
+        }
+
+        public Builder branch(String branch) {
+            this.branch = branch;
+            return this;
+        }
+
+        public Builder qualityGateStatus(QualityGate.Status qualityGateStatus) {
+            this.qualityGateStatus = qualityGateStatus;
+            return this;
+        }
+
+        public Builder webhookUrl(String webhookUrl) {
+            this.webhookUrl = webhookUrl;
+            return this;
+        }
+
+        public Builder webhookHttpUrl(HttpUrl webhookHttpUrl) {
+            this.webhookHttpUrl = webhookHttpUrl;
+            return this;
+        }
+
+        public Builder payload(String payload) {
+            this.payload = payload != null ? LazyPayload.ofRendered(payload) : null;
+            return this;
+        }
+
+        /** Attaches a payload rendered on demand, possibly shared with other notifications. */
+        public Builder payload(LazyPayload payload) {
+            this.payload = payload;
+            return this;
+        }
+
+        public Builder createdAtMillis(long createdAtMillis) {
+            this.createdAtMillis = createdAtMillis;
+            return this;
+        }
+
+        public Builder deadlineMillis(long deadlineMillis) {
+            this.deadlineMillis = deadlineMillis;
+            return this;
+        }
+
+        /** Action run once Teams accepted the notification, see {@link Notification#delivered()}. */
+        public Builder onDelivered(Runnable onDelivered) {
+            this.onDelivered = onDelivered;
+            return this;
+        }
+
+        public Builder summary(boolean summary) {
+            this.summary = summary;
+            return this;
+        }
+
+        public Notification build() {
+            if (webhookUrl == null || payload == null) {
+                throw new IllegalStateException("Notification requires a webhook URL and a payload");
+            }
+            payload.retain();
+            return new Notification(this);
+        }
+    }
+}
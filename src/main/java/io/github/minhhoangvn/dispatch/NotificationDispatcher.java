@@ -0,0 +1,559 @@
+package io.github.minhhoangvn.dispatch;
+
+import io.github.minhhoangvn.audit.AuditJournal;
+import io.github.minhhoangvn.audit.AuditRecord;
+import io.github.minhhoangvn.cluster.ClusterCoordinator;
+import io.github.minhhoangvn.cluster.ClusterCoordinators;
+import io.github.minhhoangvn.dispatch.PriorityDispatchQueue.QueuedNotification;
+import io.github.minhhoangvn.metrics.NotifierMetrics;
+import io.github.minhhoangvn.settings.NotifierSettings;
+import io.github.minhhoangvn.utils.AdaptiveCardsFormat;
+import io.github.minhhoangvn.utils.Constants;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Delivers notifications off the Compute Engine thread, failed quality gates first.
+ * <p>
+ * Under backlog, routine notifications are shed rather than delivered late: on arrival when the
+ * queue is above its high watermark, by eviction when a more important notification needs room,
+ * and on dequeue once past their deadline. Shed notifications are folded into one summary card
+ * per webhook, queued when the queue drains and delivered like any other notification. Worker
+ * threads are started on the first submission.
+ * <p>
+ * Each delivery is first claimed through the {@link ClusterCoordinator}, so an analysis is
+ * announced once even when several Compute Engine nodes or retries see it, and then draws on the
+ * cluster-wide budget of its webhook; over budget, it goes back to the queue. Only then is its
+ * payload rendered, and it is released as soon as the notification completes either way.
+ * <p>
+ * A {@link Bulkhead} caps deliveries in progress and queued notifications per webhook, when limits
+ * below the dispatch threads and the whole queue are set: workers skip a webhook at its
+ * concurrency limit and serve the others, and a webhook over its queue share evicts its own least
+ * important notification or sheds the new one.
+ * <p>
+ * Every outcome, delivered, failed, deduplicated or shed, is recorded in the {@link AuditJournal}
+ * with the webhook identified by its hash only.
+ * <p>
+ * Outside failed quality gates, notifications for a webhook in its {@link QuietHours} are held on a
+ * {@link TimingWheel} and queued when the quiet hours end, with a deadline counted from then.
+ * Notifications held this way or for an unavailable webhook count against the queue capacity.
+ * <p>
+ * When a delivery cannot reach its webhook, the webhook is marked unavailable in the
+ * {@link EndpointHealth} and its notifications are held there instead of being attempted, until a
+ * probe finds it reachable and {@link #endpointRecovered(String)} queues them again.
+ * <p>
+ * {@link #shutdown(long)} lets the workers drain the queue until a deadline and returns what is
+ * left, notifications held for quiet hours or unavailable webhooks included, for the caller to keep until the next start.
+ */
+@ComputeEngineSide
+public class NotificationDispatcher {
+
+    private static final Logger LOGGER = Loggers.get(NotificationDispatcher.class);
+    private static final long IDLE_POLL_MILLIS = 1_000;
+    private static final long RATE_LIMIT_BACKOFF_MILLIS = 200;
+    private static final long DRAIN_POLL_MILLIS = 50;
+    private static final long WORKER_JOIN_MILLIS = 1_000;
+    private static final long TIMER_TICK_MILLIS = 1_000;
+    // About 8.5 minutes per revolution; overnight holds wait a number of revolutions in their bucket
+    private static final int TIMER_WHEEL_SIZE = 512;
+
+    private final PriorityDispatchQueue queue;
+    private final PriorityClassifier classifier;
+    private final LoadSheddingPolicy sheddingPolicy;
+    private final NotificationSender sender;
+    private final NotifierMetrics metrics;
+    private final ClusterCoordinator coordinator;
+    private final Bulkhead bulkhead;
+    private final QuietHours quietHours;
+    private final AuditJournal auditJournal;
+    private final EndpointHealth endpointHealth;
+    private final TimingWheel<Deferred> deferred;
+    private final ShedSummary shedSummary = new ShedSummary();
+    private final LongSupplier clock;
+    private final Sleeper sleeper;
+    private final int workerCount;
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile boolean stopped;
+
+    public NotificationDispatcher(Configuration configuration, NotifierMetrics metrics) {
+        this(configuration, metrics, AuditJournal.disabled());
+    }
+
+    public NotificationDispatcher(Configuration configuration, NotifierMetrics metrics, AuditJournal auditJournal) {
+        this(configuration, metrics, auditJournal, new NotificationSender(), ClusterCoordinators.fromConfiguration(configuration),
+                System::currentTimeMillis, Thread::sleep);
+    }
+
+    /** Dispatcher tuned by the configuration, on the given clock; also used by the dispatch simulation of the tests. */
+    NotificationDispatcher(Configuration configuration, NotifierMetrics metrics, AuditJournal auditJournal, NotificationSender sender,
+                           ClusterCoordinator coordinator, LongSupplier clock, Sleeper sleeper) {
+        this(new PriorityDispatchQueue(
+                        queueCapacity(configuration),
+                        configuration.getLong(Constants.DISPATCH_STARVATION_MS).orElse(Constants.DEFAULT_DISPATCH_STARVATION_MS),
+                        clock),
+                new PriorityClassifier(),
+                new LoadSheddingPolicy(
+                        configuration.getDouble(Constants.SHED_HIGH_WATERMARK).orElse(Constants.DEFAULT_SHED_HIGH_WATERMARK),
+                        configuration.getLong(Constants.SHED_MAX_AGE_MS).orElse(Constants.DEFAULT_SHED_MAX_AGE_MS)),
+                sender,
+                metrics,
+                coordinator,
+                bulkhead(configuration),
+                QuietHours.fromConfiguration(configuration),
+                auditJournal,
+                new EndpointHealth(
+                        configuration.getLong(Constants.HEALTH_PROBE_INTERVAL_MS).orElse(Constants.DEFAULT_HEALTH_PROBE_INTERVAL_MS),
+                        configuration.getLong(Constants.HEALTH_PROBE_MAX_INTERVAL_MS).orElse(Constants.DEFAULT_HEALTH_PROBE_MAX_INTERVAL_MS)),
+                clock,
+                sleeper,
+                workerCount(configuration));
+    }
+
+    NotificationDispatcher(PriorityDispatchQueue queue, PriorityClassifier classifier, LoadSheddingPolicy sheddingPolicy,
+                           NotificationSender sender, NotifierMetrics metrics, ClusterCoordinator coordinator,
+                           Bulkhead bulkhead, QuietHours quietHours, AuditJournal auditJournal, EndpointHealth endpointHealth,
+                           LongSupplier clock, Sleeper sleeper, int workerCount) {
+        this.queue = queue;
+        this.classifier = classifier;
+        this.sheddingPolicy = sheddingPolicy;
+        this.sender = sender;
+        this.metrics = metrics;
+        this.coordinator = coordinator;
+        this.bulkhead = bulkhead;
+        this.quietHours = quietHours;
+        this.auditJournal = auditJournal;
+        this.endpointHealth = endpointHealth;
+        this.deferred = new TimingWheel<>(TIMER_TICK_MILLIS, TIMER_WHEEL_SIZE, this::release, clock, "msteams-quiet-hours");
+        this.clock = clock;
+        this.sleeper = sleeper;
+        this.workerCount = Math.max(1, workerCount);
+    }
+
+    private static int queueCapacity(Configuration configuration) {
+        return configuration.getInt(Constants.DISPATCH_QUEUE_CAPACITY).orElse(Constants.DEFAULT_DISPATCH_QUEUE_CAPACITY);
+    }
+
+    private static int workerCount(Configuration configuration) {
+        return configuration.getInt(Constants.DISPATCH_THREADS).orElse(Constants.DEFAULT_DISPATCH_THREADS);
+    }
+
+    // Unlimited by default, so a single webhook can use every worker and the whole queue
+    static Bulkhead bulkhead(Configuration configuration) {
+        int concurrency = configuration.getInt(Constants.BULKHEAD_CONCURRENCY).orElse(Constants.DEFAULT_BULKHEAD_CONCURRENCY);
+        double queueShare = configuration.getDouble(Constants.BULKHEAD_QUEUE_SHARE).orElse(Constants.DEFAULT_BULKHEAD_QUEUE_SHARE);
+        return new Bulkhead(concurrency > 0 ? concurrency : workerCount(configuration),
+                (int) Math.ceil(queueCapacity(configuration) * Math.min(1.0, queueShare)));
+    }
+
+    /** Deadline for a notification created at the given time, attached by the post-analysis task. */
+    public long deadlineFor(long createdAtMillis) {
+        return sheddingPolicy.deadlineFor(createdAtMillis);
+    }
+
+    /**
+     * Queues the notification for asynchronous delivery.
+     *
+     * @return {@code false} when the notification was shed instead of queued
+     */
+    public boolean submit(Notification notification) {
+        if (stopped) {
+            LOGGER.warn("MS Teams Plugin: [{}] Dispatcher is stopped, dropping notification for project: {}",
+                    notification.getNotificationId(), notification.getProjectName());
+            notification.complete();
+            if (auditJournal.isEnabled()) {
+                audit(notification, ClusterCoordinators.webhookKey(notification.getWebhookUrl()), AuditRecord.DROPPED, -1);
+            }
+            return false;
+        }
+        boolean queued = enqueue(notification);
+        if (queued) {
+            ensureStarted();
+        }
+        return queued;
+    }
+
+    boolean enqueue(Notification notification) {
+        metrics.increment(NotifierMetrics.SUBMITTED, notification.getNotificationId());
+        Priority priority = classifier.classify(notification);
+
+        long now = clock.getAsLong();
+        long releaseAt = quietHours.releaseTime(notification.getWebhookUrl(), priority, now);
+        if (releaseAt > now) {
+            return defer(notification, priority, releaseAt);
+        }
+        return enqueue(notification, priority);
+    }
+
+    private boolean defer(Notification notification, Priority priority, long releaseAtMillis) {
+        // Held notifications count against the queue capacity, so a long night cannot grow them without bound
+        if (heldBack() + queue.size() >= queue.capacity()) {
+            LOGGER.warn("MS Teams Plugin: [{}] Too many notifications held back, dropping {} notification for project: {}",
+                    notification.getNotificationId(), priority, notification.getProjectName());
+            shed(notification, NotifierMetrics.SHED_OVERLOAD);
+            return false;
+        }
+        // Counted from the release, or it would be stale by the time the quiet hours end
+        Notification held = notification.withDeadline(sheddingPolicy.deadlineFor(releaseAtMillis));
+        deferred.schedule(new Deferred(held, priority), releaseAtMillis);
+        metrics.increment(NotifierMetrics.DEFERRED, notification.getNotificationId());
+        LOGGER.info("MS Teams Plugin: [{}] Holding {} notification for project: {} during quiet hours {}",
+                notification.getNotificationId(), priority, notification.getProjectName(), quietHours.describe(notification.getWebhookUrl()));
+        return true;
+    }
+
+    // Notifications waiting for the end of quiet hours or for their webhook to be available again
+    private int heldBack() {
+        return deferred.pending() + endpointHealth.held();
+    }
+
+    // Runs on the wheel thread, which only runs alongside the workers
+    private void release(Deferred held) {
+        // Classified on arrival; classifying again would lose a status transition
+        enqueue(held.notification, held.priority);
+    }
+
+    private boolean enqueue(Notification notification, Priority priority) {
+        if (sheddingPolicy.shouldShedOnArrival(priority, queue.size(), queue.capacity())) {
+            shed(notification, NotifierMetrics.SHED_OVERLOAD);
+            return false;
+        }
+        String destination = notification.getWebhookUrl();
+        if (!bulkhead.hasQueueRoom(destination)) {
+            QueuedNotification evicted = queue.evictBelow(priority, queued -> destination.equals(queued.getWebhookUrl()));
+            if (evicted == null) {
+                LOGGER.warn("MS Teams Plugin: [{}] Webhook {} has used its share of the dispatch queue, dropping {} notification for project: {}",
+                        notification.getNotificationId(), NotifierSettings.maskUrl(destination), priority, notification.getProjectName());
+                shed(notification, NotifierMetrics.SHED_BULKHEAD);
+                return false;
+            }
+            bulkhead.dequeued(destination);
+            // With the queue full as well, the webhook gave up its own place rather than another webhook's
+            shed(evicted.getNotification(),
+                    queue.size() + 1 >= queue.capacity() ? NotifierMetrics.SHED_EVICTED : NotifierMetrics.SHED_BULKHEAD);
+        }
+        while (!queue.offer(notification, priority)) {
+            QueuedNotification evicted = queue.evictBelow(priority);
+            if (evicted == null) {
+                LOGGER.warn("MS Teams Plugin: [{}] Dispatch queue full, dropping {} notification for project: {}",
+                        notification.getNotificationId(), priority, notification.getProjectName());
+                shed(notification, NotifierMetrics.SHED_OVERLOAD);
+                return false;
+            }
+            bulkhead.dequeued(evicted.getNotification().getWebhookUrl());
+            shed(evicted.getNotification(), NotifierMetrics.SHED_EVICTED);
+        }
+        bulkhead.queued(destination);
+
+        LOGGER.debug("MS Teams Plugin: [{}] Queued {} notification for project: {} (pending: {})",
+                notification.getNotificationId(), priority, notification.getProjectName(), queue.size());
+        return true;
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    /** Notifications held for the end of quiet hours. */
+    public int deferred() {
+        return deferred.pending();
+    }
+
+    public EndpointHealth getEndpointHealth() {
+        return endpointHealth;
+    }
+
+    /**
+     * Marks the webhook available again and queues the notifications held while it was not, as if
+     * they had just been submitted. Called by the prober once the webhook answers.
+     *
+     * @return the number of notifications queued again
+     */
+    public int endpointRecovered(String webhookUrl) {
+        List<EndpointHealth.Held> held = endpointHealth.markAvailable(webhookUrl);
+        metrics.increment(NotifierMetrics.ENDPOINT_RECOVERED);
+        int queued = 0;
+        for (EndpointHealth.Held notification : held) {
+            if (enqueue(notification.getNotification(), notification.getPriority())) {
+                queued++;
+            }
+        }
+        // Held notifications were taken by a worker, so the workers already run
+        return queued;
+    }
+
+    /** Queues the held notifications whose quiet hours ended by now; the wheel thread does this on its own. */
+    int releaseDeferred() {
+        return deferred.advanceTo(clock.getAsLong());
+    }
+
+    /** Takes the next notification and delivers it, or flushes pending summaries when the queue is idle. */
+    void dispatchNext(long timeoutMillis) throws InterruptedException {
+        // Only takes notifications whose webhook is below its concurrency limit, and takes a permit for it
+        QueuedNotification next = queue.poll(timeoutMillis, TimeUnit.MILLISECONDS,
+                notification -> bulkhead.tryStart(notification.getWebhookUrl()));
+        if (next == null) {
+            flushSummaries();
+            return;
+        }
+        inFlight.incrementAndGet();
+        try {
+            deliver(next);
+        } finally {
+            inFlight.decrementAndGet();
+            bulkhead.finished(next.getNotification().getWebhookUrl());
+            queue.wakeUp();
+        }
+    }
+
+    private void deliver(QueuedNotification next) throws InterruptedException {
+        Notification notification = next.getNotification();
+        notification.recordAttempt();
+        if (sheddingPolicy.isStale(notification, next.getPriority(), clock.getAsLong())) {
+            shed(notification, NotifierMetrics.SHED_STALE);
+            return;
+        }
+        if (!endpointHealth.isAvailable(notification.getWebhookUrl())) {
+            hold(notification, next.getPriority());
+            return;
+        }
+
+        String webhookKey = ClusterCoordinators.webhookKey(notification.getWebhookUrl());
+        String deliveryKey = notification.getCeTaskId() == null ? null : webhookKey + ":" + notification.getCeTaskId();
+        if (deliveryKey != null && !coordinator.claimDelivery(deliveryKey)) {
+            notification.complete();
+            metrics.increment(NotifierMetrics.DEDUPLICATED, notification.getNotificationId());
+            audit(notification, webhookKey, AuditRecord.DEDUPLICATED, -1);
+            LOGGER.info("MS Teams Plugin: [{}] Notification for project: {} already delivered by another node",
+                    notification.getNotificationId(), notification.getProjectName());
+            return;
+        }
+        if (!coordinator.tryAcquire(webhookKey)) {
+            if (deliveryKey != null) {
+                coordinator.releaseDelivery(deliveryKey);
+            }
+            metrics.increment(NotifierMetrics.RATE_LIMITED, notification.getNotificationId());
+            if (queue.offer(notification, next.getPriority())) {
+                bulkhead.queued(notification.getWebhookUrl());
+            } else {
+                shed(notification, NotifierMetrics.SHED_OVERLOAD);
+            }
+            sleeper.sleep(RATE_LIMIT_BACKOFF_MILLIS);
+            return;
+        }
+
+        long sendStartNanos = System.nanoTime();
+        // Anything thrown on the way counts as a refusal, so the claim and the payload are still let go
+        DeliveryOutcome outcome = DeliveryOutcome.REJECTED;
+        try {
+            outcome = sender.deliver(notification);
+        } finally {
+            settle(notification, next.getPriority(), webhookKey, deliveryKey, outcome,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sendStartNanos));
+        }
+    }
+
+    private void settle(Notification notification, Priority priority, String webhookKey, String deliveryKey,
+                        DeliveryOutcome outcome, long latencyMillis) {
+        boolean sent = outcome == DeliveryOutcome.DELIVERED;
+        audit(notification, webhookKey, sent ? AuditRecord.DELIVERED : AuditRecord.FAILED, latencyMillis);
+        if (sent) {
+            metrics.increment(NotifierMetrics.DELIVERED, notification.getNotificationId());
+            notification.delivered();
+            notification.complete();
+            return;
+        }
+        metrics.increment(NotifierMetrics.DELIVERY_FAILED, notification.getNotificationId());
+        if (deliveryKey != null) {
+            coordinator.releaseDelivery(deliveryKey);
+        }
+        if (outcome == DeliveryOutcome.UNAVAILABLE) {
+            endpointHealth.markUnavailable(notification.getWebhookUrl(), clock.getAsLong());
+            hold(notification, priority);
+        } else {
+            notification.complete();
+        }
+    }
+
+    private void hold(Notification notification, Priority priority) {
+        // Held notifications count against the queue capacity, so a long outage cannot grow them without bound
+        if (heldBack() + queue.size() >= queue.capacity()) {
+            shed(notification, NotifierMetrics.SHED_OVERLOAD);
+        } else if (endpointHealth.hold(notification.getWebhookUrl(), notification, priority)) {
+            metrics.increment(NotifierMetrics.HELD_UNAVAILABLE, notification.getNotificationId());
+        } else if (queue.offer(notification, priority)) {
+            // Back while this worker was delivering
+            bulkhead.queued(notification.getWebhookUrl());
+        } else {
+            shed(notification, NotifierMetrics.SHED_OVERLOAD);
+        }
+    }
+
+    /**
+     * Queues the pending summaries, so they are delivered within the bulkhead, the rate budget and
+     * the quiet hours of their webhook like any other notification.
+     */
+    void flushSummaries() {
+        if (shedSummary.isEmpty()) {
+            return;
+        }
+        long now = clock.getAsLong();
+        for (ShedSummary.Summary summary : shedSummary.drain()) {
+            LOGGER.info("MS Teams Plugin: Queueing summary of {} notifications shed during backlog", summary.getSkippedCount());
+            Notification summaryNotification = Notification.builder()
+                    .projectName("Backlog summary")
+                    .webhookUrl(summary.getWebhookUrl())
+                    .payload(AdaptiveCardsFormat.createShedSummaryPayload(summary.getSkippedCount(), summary.getProjectNames()))
+                    .createdAtMillis(now)
+                    .deadlineMillis(sheddingPolicy.deadlineFor(now))
+                    .onDelivered(() -> metrics.increment(NotifierMetrics.SUMMARIES_SENT))
+                    .summary(true)
+                    .build();
+            long releaseAt = quietHours.releaseTime(summary.getWebhookUrl(), Priority.ROUTINE, now);
+            if (releaseAt > now) {
+                defer(summaryNotification, Priority.ROUTINE, releaseAt);
+            } else {
+                enqueue(summaryNotification, Priority.ROUTINE);
+            }
+        }
+    }
+
+    private void shed(Notification notification, String reason) {
+        metrics.increment(reason, notification.getNotificationId());
+        // A summary shed in turn is not summarised again, or summaries could keep each other going
+        if (!notification.isSummary()) {
+            shedSummary.add(notification);
+        }
+        notification.complete();
+        if (auditJournal.isEnabled()) {
+            // Recorded as e.g. shed.stale
+            audit(notification, ClusterCoordinators.webhookKey(notification.getWebhookUrl()),
+                    reason.substring(reason.indexOf('.') + 1), -1);
+        }
+        LOGGER.info("MS Teams Plugin: [{}] Shed notification for project: {} ({})",
+                notification.getNotificationId(), notification.getProjectName(), reason);
+    }
+
+    private void audit(Notification notification, String webhookKey, String status, long latencyMillis) {
+        if (!auditJournal.isEnabled()) {
+            return;
+        }
+        long now = clock.getAsLong();
+        auditJournal.record(new AuditRecord(now, notification.getCeTaskId(), notification.getProjectKey(),
+                notification.getBranch(), webhookKey, status, latencyMillis,
+                now - notification.getCreatedAtMillis(), notification.getAttempts(), notification.getNotificationId()));
+    }
+
+    /**
+     * Stops accepting notifications and lets the workers deliver what is queued until the timeout,
+     * then stops them.
+     *
+     * @return the notifications still queued, most important first, not yet completed
+     */
+    public List<Notification> shutdown(long timeoutMillis) {
+        List<Thread> running;
+        synchronized (this) {
+            running = new ArrayList<>(workers);
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        try {
+            awaitDrained(running, deadline);
+            if (!running.isEmpty() && System.nanoTime() < deadline) {
+                // Summaries are delivered by the workers too, and kept with the rest if time runs out
+                flushSummaries();
+                awaitDrained(running, deadline);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (this) {
+            stopped = true;
+            workers.clear();
+        }
+        for (Thread worker : running) {
+            worker.interrupt();
+        }
+        for (Thread worker : running) {
+            try {
+                worker.join(WORKER_JOIN_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        // Stopped first, so nothing is released into the queue once it is drained
+        List<Deferred> stillHeld = deferred.stop();
+        List<Notification> undelivered = new ArrayList<>();
+        for (QueuedNotification queued : queue.drainAll()) {
+            undelivered.add(queued.getNotification());
+        }
+        for (Deferred held : stillHeld) {
+            undelivered.add(held.notification);
+        }
+        for (EndpointHealth.Held held : endpointHealth.drainAll()) {
+            undelivered.add(held.getNotification());
+        }
+        return undelivered;
+    }
+
+    private void awaitDrained(List<Thread> running, long deadlineNanos) throws InterruptedException {
+        while (!running.isEmpty() && (queue.size() > 0 || inFlight.get() > 0) && System.nanoTime() < deadlineNanos) {
+            Thread.sleep(DRAIN_POLL_MILLIS);
+        }
+    }
+
+    private synchronized void ensureStarted() {
+        if (stopped || !workers.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::runWorker, "msteams-dispatcher-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        deferred.start();
+    }
+
+    private void runWorker() {
+        while (!stopped && !Thread.currentThread().isInterrupted()) {
+            try {
+                dispatchNext(IDLE_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                LOGGER.error("MS Teams Plugin: Unexpected error in dispatcher worker", e);
+            }
+        }
+    }
+
+    /** Waits before a worker tries again; the simulation counts the time instead of sleeping. */
+    @FunctionalInterface
+    interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    int getWorkerCount() {
+        return workerCount;
+    }
+
+    private static final class Deferred {
+        private final Notification notification;
+        private final Priority priority;
+
+        private Deferred(Notification notification, Priority priority) {
+            this.notification = notification;
+            this.priority = priority;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package io.github.minhhoangvn.dispatch;
+
+import io.github.minhhoangvn.capture.PayloadCapture;
+import io.github.minhhoangvn.client.MSTeamsWebHookClient;
+import io.github.minhhoangvn.settings.NotifierSettings;
+import okhttp3.Response;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Posts a notification to its webhook, logs the outcome and hands the payload to the
+ * {@link PayloadCapture} when capture is on.
+ */
+public class NotificationSender {
+
+    private static final Logger LOGGER = Loggers.get(NotificationSender.class);
+
+    private final MSTeamsWebHookClient client;
+    private final PayloadCapture capture;
+
+    public NotificationSender() {
+        this(new MSTeamsWebHookClient());
+    }
+
+    public NotificationSender(MSTeamsWebHookClient client) {
+        this(client, PayloadCapture.shared());
+    }
+
+    public NotificationSender(MSTeamsWebHookClient client, PayloadCapture capture) {
+        this.client = client;
+        this.capture = capture;
+    }
+
+    /**
+     * @return {@code true} when Teams accepted the notification
+     */
+    public boolean send(Notification notification) {
+        return deliver(notification) == DeliveryOutcome.DELIVERED;
+    }
+
+    /**
+     * Sends the notification and tells a refusal from an endpoint that could not take it. A payload
+     * that cannot be rendered is a refusal too; nothing is posted for it.
+     */
+    public DeliveryOutcome deliver(Notification notification) {
+        String webhookUrl = notification.getWebhookUrl();
+        String id = notification.getNotificationId();
+        LOGGER.info("MS Teams Plugin: [{}] Sending notification to MS Teams for project: {}", id, notification.getProjectName());
+        LOGGER.info("MS Teams Plugin: [{}] Webhook URL: {}", id, NotifierSettings.maskUrl(webhookUrl));
+
+        // Rendered here at the latest, so a renderer failure ends the delivery like any other
+        String payload;
+        try {
+            payload = notification.getPayload();
+        } catch (RuntimeException e) {
+            LOGGER.error("MS Teams Plugin: [{}] Could not render notification for project: {}", id, notification.getProjectName(), e);
+            return DeliveryOutcome.REJECTED;
+        }
+        LOGGER.debug("MS Teams Plugin: [{}] Payload: {}", id, payload);
+
+        long startNanos = System.nanoTime();
+        int statusCode = -1;
+        try (Response response = notification.getWebhookHttpUrl() != null
+                ? client.sendNotify(notification.getWebhookHttpUrl(), payload, id)
+                : client.sendNotify(webhookUrl, payload, id)) {
+            statusCode = response.code();
+            if (response.isSuccessful()) {
+                LOGGER.info("MS Teams Plugin: [{}] Successfully sent notification to MS Teams (HTTP {})", id, response.code());
+                return DeliveryOutcome.DELIVERED;
+            }
+            String responseBody;
+            try {
+                responseBody = response.body() != null ? response.body().string() : "null";
+            } catch (IOException e) {
+                LOGGER.debug("Could not read response body: {}", e.getMessage());
+                responseBody = "Could not read response body";
+            }
+            LOGGER.error("MS Teams Plugin: [{}] Failed to send notification to MS Teams. Response code: {}, body: {}",
+                    id, response.code(), responseBody);
+            return DeliveryOutcome.ofStatus(response.code());
+        } catch (IOException e) {
+            LOGGER.error("MS Teams Plugin: [{}] IO error sending notification to MS Teams", id, e);
+            return DeliveryOutcome.UNAVAILABLE;
+        } catch (Exception e) {
+            LOGGER.error("MS Teams Plugin: [{}] Unexpected error sending notification to MS Teams", id, e);
+        } finally {
+            capture.capture(notification, statusCode, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        }
+        return DeliveryOutcome.REJECTED;
+    }
+}
@@ -0,0 +1,13 @@
+package io.github.minhhoangvn.dispatch;
+
+/**
+ * Delivery classes of the dispatch queue, highest priority first.
+ */
+public enum Priority {
+    /** Quality gate in ERROR, the notifications people act on. */
+    FAILED_GATE,
+    /** Quality gate status changed since the previous analysis of the same project and branch. */
+    STATUS_TRANSITION,
+    /** Passed quality gate without a status change. */
+    ROUTINE
+}
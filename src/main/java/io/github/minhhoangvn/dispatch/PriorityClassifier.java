@@ -0,0 +1,48 @@
+package io.github.minhhoangvn.dispatch;
+
+import org.sonar.api.ce.posttask.QualityGate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Assigns a {@link Priority} to each notification, remembering the last quality gate status
+ * seen per project and branch to detect transitions.
+ */
+public class PriorityClassifier {
+
+    private static final int DEFAULT_MAX_TRACKED_PROJECTS = 10_000;
+
+    private final Map<String, QualityGate.Status> lastStatus;
+
+    public PriorityClassifier() {
+        this(DEFAULT_MAX_TRACKED_PROJECTS);
+    }
+
+    public PriorityClassifier(int maxTrackedProjects) {
+        this.lastStatus = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, QualityGate.Status> eldest) {
+                return size() > maxTrackedProjects;
+            }
+        };
+    }
+
+    public Priority classify(Notification notification) {
+        QualityGate.Status current = notification.getQualityGateStatus();
+        QualityGate.Status previous;
+        synchronized (lastStatus) {
+            previous = current == null
+                    ? lastStatus.get(notification.getProjectBranchKey())
+                    : lastStatus.put(notification.getProjectBranchKey(), current);
+        }
+
+        if (notification.isAnalysisFailed()) {
+            return Priority.FAILED_GATE;
+        }
+        if (previous != null && current != null && previous != current) {
+            return Priority.STATUS_TRANSITION;
+        }
+        return Priority.ROUTINE;
+    }
+}
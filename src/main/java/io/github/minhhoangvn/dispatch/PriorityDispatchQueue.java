@@ -0,0 +1,298 @@
+package io.github.minhhoangvn.dispatch;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Bounded queue with one FIFO lane per {@link Priority}.
+ * <p>
+ * Higher lanes are always served first, except that a lower-lane item which has waited longer
+ * than the starvation threshold is served ahead of them. This keeps routine notifications moving
+ * with bounded latency while failed quality gates jump the backlog.
+ */
+public class PriorityDispatchQueue {
+
+    private final Map<Priority, ArrayDeque<QueuedNotification>> lanes = new EnumMap<>(Priority.class);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final int capacity;
+    private final long starvationMillis;
+    private final LongSupplier clock;
+    private int size;
+
+    public PriorityDispatchQueue(int capacity, long starvationMillis) {
+        this(capacity, starvationMillis, System::currentTimeMillis);
+    }
+
+    PriorityDispatchQueue(int capacity, long starvationMillis, LongSupplier clock) {
+        this.capacity = capacity;
+        this.starvationMillis = starvationMillis;
+        this.clock = clock;
+        for (Priority priority : Priority.values()) {
+            lanes.put(priority, new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Adds the notification to the lane of its priority.
+     *
+     * @return {@code false} when the queue is full
+     */
+    public boolean offer(Notification notification, Priority priority) {
+        lock.lock();
+        try {
+            if (size >= capacity) {
+                return false;
+            }
+            lanes.get(priority).addLast(new QueuedNotification(notification, priority, clock.getAsLong()));
+            size++;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public QueuedNotification take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                notEmpty.await();
+            }
+            return next();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Waits up to the given time for a notification, returning {@code null} on timeout. */
+    public QueuedNotification poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                if (remaining <= 0) {
+                    return null;
+                }
+                remaining = notEmpty.awaitNanos(remaining);
+            }
+            return next();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits up to the given time for a notification the admission check accepts, returning
+     * {@code null} on timeout.
+     * <p>
+     * Candidates are offered to {@code admit} in the order they would be served, under the queue
+     * lock, and the first one accepted is taken; {@code admit} may reserve resources for it, such
+     * as a concurrency permit, since nothing else is taken concurrently. Notifications it rejects
+     * stay queued in place, so one blocked destination does not hold up the others. Call
+     * {@link #wakeUp()} when a rejected notification may have become admissible.
+     */
+    public QueuedNotification poll(long timeout, TimeUnit unit, Predicate<Notification> admit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                QueuedNotification next = size == 0 ? null : nextAdmitted(admit);
+                if (next != null) {
+                    return next;
+                }
+                if (remaining <= 0) {
+                    return null;
+                }
+                remaining = notEmpty.awaitNanos(remaining);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Wakes up waiting consumers, e.g. when a destination they skipped has capacity again. */
+    public void wakeUp() {
+        lock.lock();
+        try {
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Caller holds the lock; same order as next(), skipping what admit rejects
+    private QueuedNotification nextAdmitted(Predicate<Notification> admit) {
+        long starvedBefore = clock.getAsLong() - starvationMillis;
+        List<QueuedNotification> starved = new ArrayList<>();
+        for (Priority priority : Priority.values()) {
+            if (priority == Priority.FAILED_GATE) {
+                continue;
+            }
+            for (QueuedNotification queued : lanes.get(priority)) {
+                if (queued.getEnqueuedAtMillis() > starvedBefore) {
+                    break;
+                }
+                starved.add(queued);
+            }
+        }
+        starved.sort(Comparator.comparingLong(QueuedNotification::getEnqueuedAtMillis));
+        for (QueuedNotification queued : starved) {
+            if (admit.test(queued.getNotification())) {
+                return remove(queued);
+            }
+        }
+
+        for (Priority priority : Priority.values()) {
+            for (QueuedNotification queued : lanes.get(priority)) {
+                if (queued.getEnqueuedAtMillis() <= starvedBefore && priority != Priority.FAILED_GATE) {
+                    // Already offered as a starved candidate
+                    continue;
+                }
+                if (admit.test(queued.getNotification())) {
+                    return remove(queued);
+                }
+            }
+        }
+        return null;
+    }
+
+    private QueuedNotification remove(QueuedNotification queued) {
+        lanes.get(queued.getPriority()).removeFirstOccurrence(queued);
+        size--;
+        return queued;
+    }
+
+    /**
+     * Removes the oldest notification of the lowest lane strictly below the given priority, to make
+     * room for a more important one.
+     *
+     * @return the evicted notification, or {@code null} when there is nothing less important queued
+     */
+    public QueuedNotification evictBelow(Priority priority) {
+        return evictBelow(priority, notification -> true);
+    }
+
+    /**
+     * Like {@link #evictBelow(Priority)}, among the notifications matching the filter only.
+     */
+    public QueuedNotification evictBelow(Priority priority, Predicate<Notification> filter) {
+        lock.lock();
+        try {
+            Priority[] priorities = Priority.values();
+            for (int i = priorities.length - 1; i > priority.ordinal(); i--) {
+                for (QueuedNotification queued : lanes.get(priorities[i])) {
+                    if (filter.test(queued.getNotification())) {
+                        return remove(queued);
+                    }
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Removes and returns everything queued, most important lane first. */
+    public List<QueuedNotification> drainAll() {
+        lock.lock();
+        try {
+            List<QueuedNotification> drained = new ArrayList<>(size);
+            for (Priority priority : Priority.values()) {
+                ArrayDeque<QueuedNotification> lane = lanes.get(priority);
+                drained.addAll(lane);
+                lane.clear();
+            }
+            size = 0;
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size(Priority priority) {
+        lock.lock();
+        try {
+            return lanes.get(priority).size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Caller holds the lock and has checked that the queue is not empty
+    private QueuedNotification next() {
+        QueuedNotification starved = null;
+        long starvedBefore = clock.getAsLong() - starvationMillis;
+        for (Priority priority : Priority.values()) {
+            QueuedNotification head = lanes.get(priority).peekFirst();
+            if (priority != Priority.FAILED_GATE && head != null && head.getEnqueuedAtMillis() <= starvedBefore
+                    && (starved == null || head.getEnqueuedAtMillis() < starved.getEnqueuedAtMillis())) {
+                starved = head;
+            }
+        }
+
+        QueuedNotification next;
+        if (starved != null) {
+            next = lanes.get(starved.getPriority()).pollFirst();
+        } else {
+            next = null;
+            for (Priority priority : Priority.values()) {
+                next = lanes.get(priority).pollFirst();
+                if (next != null) {
+                    break;
+                }
+            }
+        }
+        size--;
+        return next;
+    }
+
+    /**
+     * A notification together with the priority it was queued with.
+     */
+    public static final class QueuedNotification {
+        private final Notification notification;
+        private final Priority priority;
+        private final long enqueuedAtMillis;
+
+        QueuedNotification(Notification notification, Priority priority, long enqueuedAtMillis) {
+            this.notification = notification;
+            this.priority = priority;
+            this.enqueuedAtMillis = enqueuedAtMillis;
+        }
+
+        public Notification getNotification() {
+            return notification;
+        }
+
+        public Priority getPriority() {
+            return priority;
+        }
+
+        public long getEnqueuedAtMillis() {
+            return enqueuedAtMillis;
+        }
+    }
+}
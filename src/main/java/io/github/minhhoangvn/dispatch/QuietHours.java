@@ -0,0 +1,187 @@
+package io.github.minhhoangvn.dispatch;
+
+import io.github.minhhoangvn.settings.NotifierSettings;
+import io.github.minhhoangvn.utils.Constants;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Daily windows during which non-critical notifications are held back, per destination.
+ * <p>
+ * A window such as {@code 22:00-08:00} may wrap past midnight and is read in its own time zone,
+ * so each channel can keep the working hours of its team. Failed quality gates are never held.
+ * Destinations without a window of their own use the default window, if any.
+ */
+public class QuietHours {
+
+    private static final Logger LOGGER = Loggers.get(QuietHours.class);
+    private static final String DISABLED = "off";
+
+    private final Window defaultWindow;
+    private final Map<String, Window> windowsByDestination;
+
+    /**
+     * @param defaultWindow        window for destinations without their own, or {@code null} for none
+     * @param windowsByDestination windows by webhook URL; a {@code null} window turns quiet hours off
+     */
+    public QuietHours(Window defaultWindow, Map<String, Window> windowsByDestination) {
+        this.defaultWindow = defaultWindow;
+        this.windowsByDestination = Collections.unmodifiableMap(new HashMap<>(windowsByDestination));
+    }
+
+    public static QuietHours none() {
+        return new QuietHours(null, Collections.emptyMap());
+    }
+
+    /**
+     * Reads {@code sonar.msteams.quiet.hours} and {@code sonar.msteams.quiet.hours.timezone} for the
+     * default window, and {@code sonar.msteams.quiet.hours.destinations} entries of the form
+     * {@code <webhook URL>=<window>[ <time zone>]} or {@code <webhook URL>=off}. Invalid entries are
+     * logged and ignored, so notifications are never held by mistake.
+     */
+    public static QuietHours fromConfiguration(Configuration configuration) {
+        ZoneId defaultZone = configuration.get(Constants.QUIET_HOURS_TIMEZONE)
+                .filter(StringUtils::isNotBlank)
+                .map(QuietHours::zoneOrDefault)
+                .orElseGet(ZoneId::systemDefault);
+        Window defaultWindow = configuration.get(Constants.QUIET_HOURS)
+                .filter(StringUtils::isNotBlank)
+                .map(spec -> parseOrNull(spec, defaultZone))
+                .orElse(null);
+
+        Map<String, Window> windows = new HashMap<>();
+        for (String entry : configuration.getStringArray(Constants.QUIET_HOURS_DESTINATIONS)) {
+            int separator = entry.lastIndexOf('=');
+            if (separator <= 0) {
+                LOGGER.warn("MS Teams Plugin: Ignoring quiet hours entry without '<webhook URL>=<window>'");
+                continue;
+            }
+            String destination = entry.substring(0, separator).trim();
+            String spec = entry.substring(separator + 1).trim();
+            if (DISABLED.equalsIgnoreCase(spec)) {
+                windows.put(destination, null);
+                continue;
+            }
+            Window window = parseOrNull(spec, defaultZone);
+            if (window != null) {
+                windows.put(destination, window);
+            }
+        }
+        return new QuietHours(defaultWindow, windows);
+    }
+
+    private static ZoneId zoneOrDefault(String zone) {
+        try {
+            return ZoneId.of(zone.trim());
+        } catch (DateTimeException e) {
+            LOGGER.warn("MS Teams Plugin: Unknown quiet hours time zone '{}', using the server time zone", zone);
+            return ZoneId.systemDefault();
+        }
+    }
+
+    private static Window parseOrNull(String spec, ZoneId defaultZone) {
+        try {
+            return Window.parse(spec, defaultZone);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("MS Teams Plugin: Ignoring quiet hours: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * When a notification for the destination may be delivered.
+     *
+     * @return {@code nowMillis} when it may go right away, otherwise the end of the current window
+     */
+    public long releaseTime(String destination, Priority priority, long nowMillis) {
+        if (priority == Priority.FAILED_GATE) {
+            return nowMillis;
+        }
+        Window window = windowFor(destination);
+        return window == null ? nowMillis : window.releaseTime(nowMillis);
+    }
+
+    /** Quiet hours as they apply to the destination, for logs. */
+    public String describe(String destination) {
+        Window window = windowFor(destination);
+        return (window == null ? DISABLED : window.toString()) + " for " + NotifierSettings.maskUrl(destination);
+    }
+
+    private Window windowFor(String destination) {
+        return windowsByDestination.containsKey(destination) ? windowsByDestination.get(destination) : defaultWindow;
+    }
+
+    /**
+     * A daily window in a time zone, from its start inclusive to its end exclusive.
+     */
+    public static final class Window {
+        private final LocalTime start;
+        private final LocalTime end;
+        private final ZoneId zone;
+
+        public Window(LocalTime start, LocalTime end, ZoneId zone) {
+            this.start = start;
+            this.end = end;
+            this.zone = zone;
+        }
+
+        /**
+         * Parses {@code HH:mm-HH:mm}, optionally followed by a time zone such as {@code Europe/Paris}.
+         *
+         * @throws IllegalArgumentException when the window cannot be read
+         */
+        public static Window parse(String spec, ZoneId defaultZone) {
+            String[] parts = spec.trim().split("\\s+", 2);
+            String[] times = parts[0].split("-", -1);
+            if (times.length != 2) {
+                throw new IllegalArgumentException("Quiet hours '" + spec + "' are not of the form HH:mm-HH:mm");
+            }
+            try {
+                ZoneId zone = parts.length > 1 ? ZoneId.of(parts[1]) : defaultZone;
+                return new Window(LocalTime.parse(times[0].trim()), LocalTime.parse(times[1].trim()), zone);
+            } catch (DateTimeException e) {
+                throw new IllegalArgumentException("Quiet hours '" + spec + "' cannot be read: " + e.getMessage(), e);
+            }
+        }
+
+        boolean contains(LocalTime time) {
+            if (start.equals(end)) {
+                return false;
+            }
+            if (start.isBefore(end)) {
+                return !time.isBefore(start) && time.isBefore(end);
+            }
+            // Wraps past midnight
+            return !time.isBefore(start) || time.isBefore(end);
+        }
+
+        long releaseTime(long nowMillis) {
+            ZonedDateTime now = Instant.ofEpochMilli(nowMillis).atZone(zone);
+            LocalTime time = now.toLocalTime();
+            if (!contains(time)) {
+                return nowMillis;
+            }
+            ZonedDateTime release = now.toLocalDate().atTime(end).atZone(zone);
+            if (!time.isBefore(end)) {
+                release = now.toLocalDate().plusDays(1).atTime(end).atZone(zone);
+            }
+            return release.toInstant().toEpochMilli();
+        }
+
+        @Override
+        public String toString() {
+            return start + "-" + end + " " + zone;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package io.github.minhhoangvn.dispatch;
+
+import org.sonar.api.ce.posttask.QualityGate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Record format of the notification backlog on disk.
+ * <p>
+ * A segment starts with a magic number, the format version and the checksum of the compression
+ * dictionary, followed by records of the form {@code length, CRC-32, body}. The body holds the
+ * notification fields and its payload compressed on its own with DEFLATE, primed with a
+ * dictionary made of the Adaptive Card skeleton, so even a single short card shrinks to the parts
+ * that differ between projects. The dictionary belongs to the format version and must not change
+ * without a new version, or saved backlogs could no longer be read after an upgrade.
+ * <p>
+ * Version 2 adds the notification id after the quality gate status; version 1 segments are still
+ * read, their notifications without an id.
+ * <p>
+ * Not thread-safe; one codec per reader or writer.
+ */
+final class SegmentCodec {
+
+    static final int MAGIC = 0x4D53424B;
+    static final int VERSION = 2;
+    private static final int FIRST_VERSION_WITH_ID = 2;
+    static final int HEADER_BYTES = 12;
+    static final int RECORD_HEADER_BYTES = 8;
+    // Far beyond any card; a larger length can only come from a corrupt record
+    static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+
+    static final byte[] DICTIONARY = """
+                                {
+                                    "type": "TextBlock",
+                                    "text": "Quality Gate Conditions",
+                                    "weight": "Bolder",
+                                    "separator": true
+                                },
+                                {
+                                    "type": "FactSet",
+                                    "facts": [
+            {
+                "attachments": [
+                    {
+                        "contentType": "application/vnd.microsoft.card.adaptive",
+                        "content": {
+                            "type": "AdaptiveCard",
+                            "$schema": "http://adaptivecards.io/schemas/adaptive-card.json",
+                            "version": "1.5",
+                            "body": [
+                                {
+                                    "type": "TextBlock",
+                                    "size": "Medium",
+                                    "weight": "Bolder",
+                                    "text": "SonarQube Analysis Result"
+                                },
+                                {
+                                    "type": "ColumnSet",
+                                    "columns": [
+                                        {
+                                            "type": "Column",
+                                            "items": [
+                                                {
+                                                    "type": "Image",
+                                                    "style": "Person",
+                                                    "url": "",
+                                                    "altText": "",
+                                                    "size": "Small"
+                                                }
+                                            ],
+                                            "width": "auto"
+                                        },
+                                        {
+                                            "type": "Column",
+                                            "items": [
+                                                {
+                                                    "type": "TextBlock",
+                                                    "weight": "Bolder",
+                                                    "text": "",
+                                                    "wrap": true
+                                                }
+                                            ],
+                                            "width": "stretch"
+                                        }
+                                    ]
+                                },
+                                {
+                                    "type": "TextBlock",
+                                    "text": " SonarQube Analysis Result",
+                                    "wrap": true,
+                                    "weight": "Bolder",
+                                    "color": "Accent"
+                                },
+                                {
+                                    "type": "FactSet",
+                                    "facts": [
+                                        {
+                                            "title": "Status",
+                                            "value": ""
+                                        },
+                                        {
+                                            "title": "Quality Gate",
+                                            "value": ""
+                                        },
+                                        {
+                                            "title": "New Violations",
+                                            "value": ""
+                                        },
+                                        {
+                                            "title": "New Coverage",
+                                            "value": ""
+                                        },
+                                        {
+                                            "title": "New Duplicated Lines Density",
+                                            "value": ""
+                                        },
+                                        {
+                                            "title": "New Security Hotspots Reviewed",
+                                            "value": ""
+                                        }
+                                    ]
+                                }
+                            ],
+                            "actions": [
+                                {
+                                    "type": "Action.OpenUrl",
+                                    "title": "View Analysis",
+                                    "url": ""
+                                }
+                            ]
+                        },
+                        "contentUrl": null
+                    }
+                ],
+                "type": "message"
+            }
+            """.getBytes(StandardCharsets.UTF_8);
+    static final int DICTIONARY_ID = dictionaryId();
+
+    private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+    private final Inflater inflater = new Inflater();
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private final CRC32 crc = new CRC32();
+    private byte[] buffer = new byte[8192];
+
+    private static int dictionaryId() {
+        Adler32 adler = new Adler32();
+        adler.update(DICTIONARY);
+        return (int) adler.getValue();
+    }
+
+    private long position;
+    private int version = VERSION;
+
+    static void writeHeader(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(DICTIONARY_ID);
+    }
+
+    /**
+     * @throws IOException when the segment is not of this format or uses another dictionary
+     */
+    void readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a notification backlog segment");
+        }
+        int segmentVersion = in.readInt();
+        int dictionaryId = in.readInt();
+        if (segmentVersion < 1 || segmentVersion > VERSION || dictionaryId != DICTIONARY_ID) {
+            throw new IOException("Unsupported notification backlog segment version " + segmentVersion);
+        }
+        version = segmentVersion;
+        position = HEADER_BYTES;
+    }
+
+    /** Offset just past the last record read whole, where a corrupt tail starts. */
+    long position() {
+        return position;
+    }
+
+    /** Writes one record; the payload is rendered here if it was not yet. */
+    void write(Notification notification, DataOutputStream out) throws IOException {
+        body.reset();
+        DataOutputStream fields = new DataOutputStream(body);
+        fields.writeUTF(notification.getWebhookUrl());
+        writeNullable(fields, notification.getCeTaskId());
+        writeNullable(fields, notification.getProjectKey());
+        writeNullable(fields, notification.getProjectName());
+        writeNullable(fields, notification.getBranch());
+        writeNullable(fields, notification.getQualityGateStatus() != null ? notification.getQualityGateStatus().name() : null);
+        writeNullable(fields, notification.getNotificationId());
+        fields.writeLong(notification.getCreatedAtMillis());
+        fields.writeLong(notification.getDeadlineMillis());
+        byte[] payload = notification.getPayload().getBytes(StandardCharsets.UTF_8);
+        fields.writeInt(payload.length);
+        compress(payload, fields);
+        fields.flush();
+
+        crc.reset();
+        crc.update(body.toByteArray(), 0, body.size());
+        out.writeInt(body.size());
+        out.writeInt((int) crc.getValue());
+        body.writeTo(out);
+    }
+
+    private void compress(byte[] payload, DataOutputStream out) throws IOException {
+        deflater.reset();
+        deflater.setDictionary(DICTIONARY);
+        deflater.setInput(payload);
+        deflater.finish();
+        while (!deflater.finished()) {
+            int length = deflater.deflate(buffer);
+            out.write(buffer, 0, length);
+        }
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the notification, or {@code null} at the clean end of the segment
+     * @throws CorruptRecordException when the record is cut short or does not match its checksum
+     */
+    Notification read(DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length <= 0 || length > MAX_RECORD_BYTES) {
+            throw new CorruptRecordException("record length " + length);
+        }
+        byte[] record = new byte[length];
+        try {
+            int expectedCrc = in.readInt();
+            in.readFully(record);
+            crc.reset();
+            crc.update(record);
+            if ((int) crc.getValue() != expectedCrc) {
+                throw new CorruptRecordException("checksum mismatch");
+            }
+        } catch (EOFException e) {
+            throw new CorruptRecordException("record cut short");
+        }
+        Notification notification = decode(record);
+        position += RECORD_HEADER_BYTES + length;
+        return notification;
+    }
+
+    private Notification decode(byte[] record) throws IOException {
+        DataInputStream fields = new DataInputStream(new ByteArrayInputStream(record));
+        String webhookUrl = fields.readUTF();
+        String ceTaskId = readNullable(fields);
+        String projectKey = readNullable(fields);
+        String projectName = readNullable(fields);
+        String branch = readNullable(fields);
+        String status = readNullable(fields);
+        String notificationId = version >= FIRST_VERSION_WITH_ID ? readNullable(fields) : null;
+        long createdAtMillis = fields.readLong();
+        long deadlineMillis = fields.readLong();
+        int payloadLength = fields.readInt();
+        int offset = record.length - fields.available();
+        String payload = decompress(record, offset, payloadLength);
+        return Notification.builder()
+                .webhookUrl(webhookUrl)
+                .payload(payload)
+                .notificationId(notificationId)
+                .ceTaskId(ceTaskId)
+                .projectKey(projectKey)
+                .projectName(projectName)
+                .branch(branch)
+                .qualityGateStatus(status != null ? QualityGate.Status.valueOf(status) : null)
+                .createdAtMillis(createdAtMillis)
+                .deadlineMillis(deadlineMillis)
+                .build();
+    }
+
+    private String decompress(byte[] record, int offset, int payloadLength) throws IOException {
+        if (payloadLength < 0 || payloadLength > MAX_RECORD_BYTES) {
+            throw new CorruptRecordException("payload length " + payloadLength);
+        }
+        byte[] payload = new byte[payloadLength];
+        inflater.reset();
+        inflater.setInput(record, offset, record.length - offset);
+        try {
+            int read = 0;
+            while (read < payloadLength) {
+                int inflated = inflater.inflate(payload, read, payloadLength - read);
+                if (inflated == 0 && inflater.needsDictionary()) {
+                    inflater.setDictionary(DICTIONARY);
+                } else if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new CorruptRecordException("payload shorter than recorded");
+                }
+                read += inflated;
+            }
+        } catch (DataFormatException e) {
+            throw new CorruptRecordException("payload cannot be decompressed: " + e.getMessage());
+        }
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    void close() {
+        deflater.end();
+        inflater.end();
+    }
+
+    /**
+     * A record that cannot be trusted, typically the tail of a segment cut short by a crash.
+     */
+    static final class CorruptRecordException extends IOException {
+        CorruptRecordException(String message) {
+            super(message);
+        }
+    }
+}
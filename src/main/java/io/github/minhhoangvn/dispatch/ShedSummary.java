@@ -0,0 +1,77 @@
+package io.github.minhhoangvn.dispatch;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Folds shed notifications into one pending summary per webhook, so channels still learn which
+ * projects were analysed during a backlog.
+ */
+public class ShedSummary {
+
+    private static final int MAX_PROJECT_NAMES = 20;
+
+    private final Map<String, Pending> pendingByWebhook = new LinkedHashMap<>();
+
+    public synchronized void add(Notification notification) {
+        pendingByWebhook.computeIfAbsent(notification.getWebhookUrl(), url -> new Pending())
+                .add(notification.getProjectName() != null ? notification.getProjectName() : notification.getProjectKey());
+    }
+
+    public synchronized boolean isEmpty() {
+        return pendingByWebhook.isEmpty();
+    }
+
+    /** Returns the pending summaries and starts new ones. */
+    public synchronized List<Summary> drain() {
+        List<Summary> summaries = new ArrayList<>(pendingByWebhook.size());
+        pendingByWebhook.forEach((webhookUrl, pending) ->
+                summaries.add(new Summary(webhookUrl, pending.count, List.copyOf(pending.projectNames))));
+        pendingByWebhook.clear();
+        return summaries;
+    }
+
+    private static final class Pending {
+        private final Set<String> projectNames = new LinkedHashSet<>();
+        private int count;
+
+        private void add(String projectName) {
+            count++;
+            if (projectNames.size() < MAX_PROJECT_NAMES) {
+                projectNames.add(projectName);
+            }
+        }
+    }
+
+    /**
+     * Shed notifications of one webhook.
+     */
+    public static final class Summary {
+        private final String webhookUrl;
+        private final int skippedCount;
+        private final List<String> projectNames;
+
+        Summary(String webhookUrl, int skippedCount, List<String> projectNames) {
+            this.webhookUrl = webhookUrl;
+            this.skippedCount = skippedCount;
+            this.projectNames = projectNames;
+        }
+
+        public String getWebhookUrl() {
+            return webhookUrl;
+        }
+
+        public int getSkippedCount() {
+            return skippedCount;
+        }
+
+        /** Up to the first 20 distinct project names. */
+        public List<String> getProjectNames() {
+            return projectNames;
+        }
+    }
+}
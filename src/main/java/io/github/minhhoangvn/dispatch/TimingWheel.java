@@ -0,0 +1,255 @@
+package io.github.minhhoangvn.dispatch;
+
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Hashed timing wheel holding items until their deadline, then handing them to a handler.
+ * <p>
+ * Time is cut into ticks and each item goes into the bucket of its deadline tick modulo the wheel
+ * size, in a doubly linked list, so scheduling and cancelling are O(1) however many items are
+ * pending. Each tick only looks at one bucket; items due in a later revolution stay there until
+ * their turn. Expiry is at tick granularity and never early.
+ * <p>
+ * One daemon thread advances the wheel once {@link #start()} is called; handlers run on it and
+ * should be quick.
+ */
+public class TimingWheel<T> {
+
+    private static final Logger LOGGER = Loggers.get(TimingWheel.class);
+    private static final long STOP_JOIN_MILLIS = 1_000;
+
+    private final long tickMillis;
+    private final Bucket<T>[] buckets;
+    private final int mask;
+    private final Consumer<T> onExpiry;
+    private final LongSupplier clock;
+    private final String threadName;
+    private long nextTick;
+    private int pending;
+    private Thread ticker;
+    private boolean stopped;
+
+    public TimingWheel(long tickMillis, int wheelSize, Consumer<T> onExpiry, String threadName) {
+        this(tickMillis, wheelSize, onExpiry, System::currentTimeMillis, threadName);
+    }
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tickMillis, int wheelSize, Consumer<T> onExpiry, LongSupplier clock, String threadName) {
+        this.tickMillis = Math.max(1, tickMillis);
+        int size = Integer.highestOneBit(Math.max(2, wheelSize - 1) << 1);
+        this.buckets = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new Bucket<>();
+        }
+        this.mask = size - 1;
+        this.onExpiry = onExpiry;
+        this.clock = clock;
+        this.threadName = threadName;
+        this.nextTick = clock.getAsLong() / this.tickMillis;
+    }
+
+    /**
+     * Holds the item until the deadline; a deadline already past expires on the next tick.
+     *
+     * @throws IllegalStateException when the wheel is stopped
+     */
+    public synchronized Timeout<T> schedule(T item, long deadlineMillis) {
+        if (stopped) {
+            throw new IllegalStateException("Timing wheel is stopped");
+        }
+        long deadlineTick = Math.max(ceilDiv(deadlineMillis, tickMillis), nextTick);
+        Timeout<T> timeout = new Timeout<>(this, item, deadlineMillis, deadlineTick);
+        buckets[(int) (deadlineTick & mask)].add(timeout);
+        pending++;
+        return timeout;
+    }
+
+    /**
+     * Expires everything due up to the given time and hands it to the handler, in no particular
+     * order. Called by the wheel thread, and directly by tests.
+     *
+     * @return the number of items expired
+     */
+    int advanceTo(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        synchronized (this) {
+            long targetTick = nowMillis / tickMillis;
+            // One revolution visits every bucket, however far the clock jumped
+            long lastTick = Math.min(targetTick, nextTick + buckets.length - 1);
+            for (long tick = nextTick; tick <= lastTick; tick++) {
+                buckets[(int) (tick & mask)].expire(targetTick, expired);
+            }
+            nextTick = Math.max(nextTick, targetTick + 1);
+            pending -= expired.size();
+        }
+        for (T item : expired) {
+            try {
+                onExpiry.accept(item);
+            } catch (RuntimeException e) {
+                LOGGER.error("MS Teams Plugin: Unexpected error handling a scheduled item", e);
+            }
+        }
+        return expired.size();
+    }
+
+    public synchronized int pending() {
+        return pending;
+    }
+
+    /** Starts the thread advancing the wheel, unless it runs already or the wheel is stopped. */
+    public synchronized void start() {
+        if (ticker != null || stopped) {
+            return;
+        }
+        ticker = new Thread(this::runTicker, threadName);
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    /**
+     * Stops the wheel thread and empties the wheel without expiring anything.
+     *
+     * @return the items still pending, for the caller to keep
+     */
+    public List<T> stop() {
+        Thread running;
+        List<T> remaining = new ArrayList<>();
+        synchronized (this) {
+            stopped = true;
+            running = ticker;
+            ticker = null;
+            for (Bucket<T> bucket : buckets) {
+                bucket.drainTo(remaining);
+            }
+            pending = 0;
+        }
+        if (running != null) {
+            running.interrupt();
+            try {
+                running.join(STOP_JOIN_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return remaining;
+    }
+
+    private void runTicker() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                long now = clock.getAsLong();
+                advanceTo(now);
+                TimeUnit.MILLISECONDS.sleep(tickMillis - now % tickMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private synchronized boolean cancel(Timeout<T> timeout) {
+        if (timeout.bucket == null) {
+            return false;
+        }
+        timeout.bucket.remove(timeout);
+        pending--;
+        return true;
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return -Math.floorDiv(-value, divisor);
+    }
+
+    /**
+     * An item held by the wheel.
+     */
+    public static final class Timeout<T> {
+        private final TimingWheel<T> wheel;
+        private final T item;
+        private final long deadlineMillis;
+        private final long deadlineTick;
+        // Guarded by the wheel; null once expired, cancelled or drained
+        private Bucket<T> bucket;
+        private Timeout<T> previous;
+        private Timeout<T> next;
+
+        private Timeout(TimingWheel<T> wheel, T item, long deadlineMillis, long deadlineTick) {
+            this.wheel = wheel;
+            this.item = item;
+            this.deadlineMillis = deadlineMillis;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        public long getDeadlineMillis() {
+            return deadlineMillis;
+        }
+
+        /**
+         * @return {@code false} when the item already expired or was cancelled
+         */
+        public boolean cancel() {
+            return wheel.cancel(this);
+        }
+    }
+
+    private static final class Bucket<T> {
+        private Timeout<T> head;
+        private Timeout<T> tail;
+
+        void add(Timeout<T> timeout) {
+            timeout.bucket = this;
+            timeout.previous = tail;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        void remove(Timeout<T> timeout) {
+            if (timeout.previous == null) {
+                head = timeout.next;
+            } else {
+                timeout.previous.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.previous;
+            } else {
+                timeout.next.previous = timeout.previous;
+            }
+            timeout.bucket = null;
+            timeout.previous = null;
+            timeout.next = null;
+        }
+
+        void expire(long targetTick, List<T> expired) {
+            Timeout<T> timeout = head;
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                if (timeout.deadlineTick <= targetTick) {
+                    remove(timeout);
+                    expired.add(timeout.item);
+                }
+                timeout = next;
+            }
+        }
+
+        void drainTo(List<T> items) {
+            while (head != null) {
+                items.add(head.item);
+                remove(head);
+            }
+        }
+    }
+}
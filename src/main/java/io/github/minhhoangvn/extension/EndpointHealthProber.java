@@ -0,0 +1,95 @@
+package io.github.minhhoangvn.extension;
+
+import io.github.minhhoangvn.client.MSTeamsWebHookClient;
+import io.github.minhhoangvn.dispatch.DeliveryOutcome;
+import io.github.minhhoangvn.dispatch.EndpointHealth;
+import io.github.minhhoangvn.dispatch.NotificationDispatcher;
+import io.github.minhhoangvn.settings.NotifierSettings;
+import org.sonar.api.Startable;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Probes the webhooks the dispatcher marked unavailable, with a HEAD request that posts nothing to
+ * the channel, and hands their held notifications back to the dispatcher as soon as one answers,
+ * instead of waiting for the next analysis to find out.
+ * <p>
+ * An answer that is neither a server error nor a throttling response counts as available; the
+ * probe intervals and their back-off are those of the {@link EndpointHealth}.
+ */
+@ComputeEngineSide
+public class EndpointHealthProber implements Startable {
+
+    private static final Logger LOGGER = Loggers.get(EndpointHealthProber.class);
+    private static final long TICK_MILLIS = 1_000;
+
+    private final NotificationDispatcher dispatcher;
+    private final MSTeamsWebHookClient client;
+    private final LongSupplier clock;
+    private ScheduledExecutorService scheduler;
+
+    public EndpointHealthProber(NotificationDispatcher dispatcher) {
+        this(dispatcher, new MSTeamsWebHookClient(), System::currentTimeMillis);
+    }
+
+    EndpointHealthProber(NotificationDispatcher dispatcher, MSTeamsWebHookClient client, LongSupplier clock) {
+        this.dispatcher = dispatcher;
+        this.client = client;
+        this.clock = clock;
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "msteams-health-prober");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::probeDue, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Probes every unavailable webhook whose probe is due.
+     *
+     * @return the number of webhooks found available again
+     */
+    int probeDue() {
+        EndpointHealth health = dispatcher.getEndpointHealth();
+        int recovered = 0;
+        for (String webhookUrl : health.dueForProbe(clock.getAsLong())) {
+            if (isAvailable(webhookUrl)) {
+                long downMillis = clock.getAsLong() - health.unavailableSince(webhookUrl);
+                int released = dispatcher.endpointRecovered(webhookUrl);
+                LOGGER.info("MS Teams Plugin: Webhook {} answered after {} s, {} held notifications queued again",
+                        NotifierSettings.maskUrl(webhookUrl), TimeUnit.MILLISECONDS.toSeconds(downMillis), released);
+                recovered++;
+            } else {
+                health.probeFailed(webhookUrl, clock.getAsLong());
+            }
+        }
+        return recovered;
+    }
+
+    private boolean isAvailable(String webhookUrl) {
+        try {
+            return DeliveryOutcome.ofStatus(client.probe(webhookUrl)) != DeliveryOutcome.UNAVAILABLE;
+        } catch (Exception e) {
+            LOGGER.debug("MS Teams Plugin: Webhook {} is still unavailable: {}", NotifierSettings.maskUrl(webhookUrl), e.getMessage());
+            return false;
+        }
+    }
+}
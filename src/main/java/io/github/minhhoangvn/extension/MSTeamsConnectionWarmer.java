@@ -0,0 +1,98 @@
+package io.github.minhhoangvn.extension;
+
+import io.github.minhhoangvn.client.MSTeamsWebHookClient;
+import io.github.minhhoangvn.utils.Constants;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.Startable;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps DNS entries and pooled connections to the configured webhook hosts warm, so the first
+ * notification after startup or after an idle period does not pay DNS, TCP and TLS setup. Besides
+ * the configured webhook, only those posted to recently are warmed.
+ */
+@ComputeEngineSide
+public class MSTeamsConnectionWarmer implements Startable {
+
+    private static final Logger LOGGER = Loggers.get(MSTeamsConnectionWarmer.class);
+
+    private final Configuration configuration;
+    private final MSTeamsWebHookClient client;
+    private ScheduledExecutorService scheduler;
+
+    public MSTeamsConnectionWarmer(Configuration configuration) {
+        this(configuration, new MSTeamsWebHookClient());
+    }
+
+    MSTeamsConnectionWarmer(Configuration configuration, MSTeamsWebHookClient client) {
+        this.configuration = configuration;
+        this.client = client;
+    }
+
+    @Override
+    public void start() {
+        if (!configuration.getBoolean(Constants.WARMUP_ENABLE).orElse(Constants.DEFAULT_WARMUP_ENABLE)) {
+            LOGGER.info("MS Teams Plugin: Connection warm-up is disabled");
+            return;
+        }
+
+        long dnsTtlSeconds = configuration.getLong(Constants.DNS_CACHE_TTL_SECONDS).orElse(Constants.DEFAULT_DNS_CACHE_TTL_SECONDS);
+        MSTeamsWebHookClient.sharedDns().setTtl(dnsTtlSeconds, TimeUnit.SECONDS);
+
+        long idleSeconds = configuration.getLong(Constants.WARMUP_IDLE_SECONDS).orElse(Constants.DEFAULT_WARMUP_IDLE_SECONDS);
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "msteams-connection-warmer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Runs off the startup thread so server startup is not slowed by DNS or TLS handshakes
+        scheduler.execute(this::warmUpAll);
+        scheduler.scheduleWithFixedDelay(() -> warmUpIfIdle(TimeUnit.SECONDS.toMillis(idleSeconds)),
+                idleSeconds, idleSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    void warmUpIfIdle(long idleMillis) {
+        long idleFor = System.currentTimeMillis() - MSTeamsWebHookClient.lastActivityMillis();
+        if (idleFor >= idleMillis) {
+            warmUpAll();
+        }
+    }
+
+    void warmUpAll() {
+        for (String webhookUrl : webhookUrls()) {
+            try {
+                client.warmUp(webhookUrl);
+                LOGGER.debug("MS Teams Plugin: Warmed up connection to webhook host");
+            } catch (Exception e) {
+                LOGGER.debug("MS Teams Plugin: Connection warm-up failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    Set<String> webhookUrls() {
+        Set<String> urls = new LinkedHashSet<>();
+        configuration.get(Constants.WEBHOOK_URL)
+                .map(String::trim)
+                .filter(StringUtils::isNotEmpty)
+                .ifPresent(urls::add);
+        urls.addAll(MSTeamsWebHookClient.recentWebhooks());
+        return urls;
+    }
+}
@@ -0,0 +1,164 @@
+package io.github.minhhoangvn.extension;
+
+import io.github.minhhoangvn.capture.PayloadCapture;
+import io.github.minhhoangvn.client.AdaptiveTimeouts;
+import io.github.minhhoangvn.client.MSTeamsWebHookClient;
+import io.github.minhhoangvn.client.ProtocolMode;
+import io.github.minhhoangvn.client.StreamBudget;
+import io.github.minhhoangvn.dispatch.BacklogStore;
+import io.github.minhhoangvn.dispatch.Notification;
+import io.github.minhhoangvn.dispatch.NotificationDispatcher;
+import io.github.minhhoangvn.utils.Constants;
+import org.sonar.api.Startable;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Ties the notifier to the Compute Engine lifecycle.
+ * <p>
+ * Starting does no work on the startup thread: dispatcher workers start with the first
+ * notification, and notifications kept from the previous shutdown are handed back to the
+ * dispatcher from a background thread. Stopping lets queued notifications drain until
+ * {@code sonar.msteams.shutdown.drain.ms}, saves the rest for the next start and releases the
+ * HTTP connection pool and threads. The bounds of the adaptive webhook timeouts, the HTTP protocol
+ * and per-host connection budget, and the payload capture file are applied on start.
+ */
+@ComputeEngineSide
+public class MSTeamsNotifierService implements Startable {
+
+    private static final Logger LOGGER = Loggers.get(MSTeamsNotifierService.class);
+    private static final long RESTORE_JOIN_MILLIS = 1_000;
+
+    private final NotificationDispatcher dispatcher;
+    private final BacklogStore backlogStore;
+    private final long drainTimeoutMillis;
+    private final Runnable configureHttpClient;
+    private final Runnable releaseHttpResources;
+    private Thread restoreThread;
+
+    public MSTeamsNotifierService(Configuration configuration, NotificationDispatcher dispatcher) {
+        this(dispatcher,
+                new BacklogStore(backlogFile(configuration)),
+                configuration.getLong(Constants.SHUTDOWN_DRAIN_MS).orElse(Constants.DEFAULT_SHUTDOWN_DRAIN_MS),
+                () -> {
+                    configureTimeouts(configuration, MSTeamsWebHookClient.sharedTimeouts());
+                    configureStreams(configuration, MSTeamsWebHookClient.sharedStreams());
+                    configureCapture(configuration, PayloadCapture.shared());
+                },
+                () -> {
+                    PayloadCapture.shared().close();
+                    MSTeamsWebHookClient.shutdownSharedClient();
+                });
+    }
+
+    MSTeamsNotifierService(NotificationDispatcher dispatcher, BacklogStore backlogStore, long drainTimeoutMillis,
+                           Runnable configureHttpClient, Runnable releaseHttpResources) {
+        this.dispatcher = dispatcher;
+        this.backlogStore = backlogStore;
+        this.drainTimeoutMillis = drainTimeoutMillis;
+        this.configureHttpClient = configureHttpClient;
+        this.releaseHttpResources = releaseHttpResources;
+    }
+
+    static void configureTimeouts(Configuration configuration, AdaptiveTimeouts timeouts) {
+        timeouts.configure(
+                configuration.getLong(Constants.TIMEOUT_MIN_MS).orElse(Constants.DEFAULT_TIMEOUT_MIN_MS),
+                configuration.getLong(Constants.TIMEOUT_MAX_MS).orElse(Constants.DEFAULT_TIMEOUT_MAX_MS),
+                configuration.getDouble(Constants.TIMEOUT_FACTOR).orElse(Constants.DEFAULT_TIMEOUT_FACTOR));
+    }
+
+    static void configureStreams(Configuration configuration, StreamBudget streams) {
+        ProtocolMode mode = ProtocolMode.AUTO;
+        String protocol = configuration.get(Constants.HTTP_PROTOCOL).orElse(Constants.DEFAULT_HTTP_PROTOCOL);
+        try {
+            mode = ProtocolMode.parse(protocol);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("MS Teams Plugin: {}, using auto", e.getMessage());
+        }
+        streams.configure(mode,
+                configuration.getInt(Constants.HTTP_CONNECTIONS_PER_HOST).orElse(Constants.DEFAULT_HTTP_CONNECTIONS_PER_HOST),
+                configuration.getInt(Constants.HTTP_STREAMS_PER_CONNECTION).orElse(Constants.DEFAULT_HTTP_STREAMS_PER_CONNECTION));
+    }
+
+    static void configureCapture(Configuration configuration, PayloadCapture capture) {
+        capture.configure(
+                configuration.get(Constants.CAPTURE_FILE)
+                        .map(Paths::get)
+                        .orElseGet(() -> Paths.get(configuration.get(Constants.SONAR_PATH_DATA)
+                                .orElseGet(() -> System.getProperty("java.io.tmpdir")), Constants.DEFAULT_CAPTURE_FILE_NAME)),
+                configuration.getInt(Constants.CAPTURE_SLOTS).orElse(Constants.DEFAULT_CAPTURE_SLOTS),
+                configuration.getInt(Constants.CAPTURE_SLOT_BYTES).orElse(Constants.DEFAULT_CAPTURE_SLOT_BYTES));
+    }
+
+    static Path backlogFile(Configuration configuration) {
+        return configuration.get(Constants.BACKLOG_FILE)
+                .map(Paths::get)
+                .orElseGet(() -> Paths.get(configuration.get(Constants.SONAR_PATH_DATA)
+                        .orElseGet(() -> System.getProperty("java.io.tmpdir")), Constants.DEFAULT_BACKLOG_FILE_NAME));
+    }
+
+    @Override
+    public synchronized void start() {
+        configureHttpClient.run();
+        if (!backlogStore.exists()) {
+            return;
+        }
+        restoreThread = new Thread(this::restoreBacklog, "msteams-backlog-restore");
+        restoreThread.setDaemon(true);
+        restoreThread.start();
+    }
+
+    void restoreBacklog() {
+        try {
+            int[] queued = {0};
+            int read = backlogStore.replay(notification -> {
+                if (Thread.currentThread().isInterrupted()) {
+                    return false;
+                }
+                if (dispatcher.submit(notification)) {
+                    queued[0]++;
+                }
+                return true;
+            });
+            LOGGER.info("MS Teams Plugin: Requeued {} of {} notifications saved at the last shutdown", queued[0], read);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("MS Teams Plugin: Could not read notifications saved at the last shutdown from {}", backlogStore.getFile(), e);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        try {
+            if (restoreThread != null) {
+                restoreThread.interrupt();
+                restoreThread.join(RESTORE_JOIN_MILLIS);
+                restoreThread = null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<Notification> undelivered = dispatcher.shutdown(drainTimeoutMillis);
+        if (!undelivered.isEmpty()) {
+            try {
+                int saved = backlogStore.save(undelivered);
+                LOGGER.info("MS Teams Plugin: Saved {} undelivered notifications to {} for the next start", saved, backlogStore.getFile());
+            } catch (IOException e) {
+                LOGGER.error("MS Teams Plugin: Could not save {} undelivered notifications to {}", undelivered.size(), backlogStore.getFile(), e);
+            }
+        }
+
+        try {
+            releaseHttpResources.run();
+        } catch (RuntimeException e) {
+            LOGGER.debug("MS Teams Plugin: Could not release HTTP resources: {}", e.getMessage());
+        }
+    }
+}
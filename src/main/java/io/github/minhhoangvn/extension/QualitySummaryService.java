@@ -0,0 +1,159 @@
+package io.github.minhhoangvn.extension;
+
+import io.github.minhhoangvn.dispatch.LazyPayload;
+import io.github.minhhoangvn.dispatch.Notification;
+import io.github.minhhoangvn.dispatch.NotificationDispatcher;
+import io.github.minhhoangvn.dispatch.TimingWheel;
+import io.github.minhhoangvn.summary.QualitySummaryAggregator;
+import io.github.minhhoangvn.summary.SummarySchedule;
+import io.github.minhhoangvn.summary.SummaryStore;
+import io.github.minhhoangvn.summary.TeamSummary;
+import io.github.minhhoangvn.utils.AdaptiveCardsFormat;
+import io.github.minhhoangvn.utils.Constants;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.Startable;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Sends each channel a summary of the quality of its projects on the schedule of
+ * {@code sonar.msteams.summary.schedule}, read from the {@link QualitySummaryAggregator}.
+ * <p>
+ * The accumulators are kept in {@code sonar.msteams.summary.file} across restarts and saved after
+ * every summary, so a period is not lost when the Compute Engine restarts during it.
+ */
+@ComputeEngineSide
+public class QualitySummaryService implements Startable {
+
+    private static final Logger LOGGER = Loggers.get(QualitySummaryService.class);
+    private static final long TICK_MILLIS = 1_000;
+    private static final int WHEEL_SIZE = 64;
+
+    private final NotificationDispatcher dispatcher;
+    private final QualitySummaryAggregator aggregator;
+    private final SummaryStore store;
+    private final SummarySchedule schedule;
+    private final LongSupplier clock;
+    private TimingWheel<Runnable> wheel;
+
+    public QualitySummaryService(Configuration configuration, QualitySummaryAggregator aggregator, NotificationDispatcher dispatcher) {
+        this(dispatcher, aggregator, new SummaryStore(summaryFile(configuration)), schedule(configuration), System::currentTimeMillis);
+    }
+
+    QualitySummaryService(NotificationDispatcher dispatcher, QualitySummaryAggregator aggregator, SummaryStore store,
+                          SummarySchedule schedule, LongSupplier clock) {
+        this.dispatcher = dispatcher;
+        this.aggregator = aggregator;
+        this.store = store;
+        this.schedule = schedule;
+        this.clock = clock;
+    }
+
+    static Path summaryFile(Configuration configuration) {
+        return configuration.get(Constants.SUMMARY_FILE)
+                .map(Paths::get)
+                .orElseGet(() -> Paths.get(configuration.get(Constants.SONAR_PATH_DATA)
+                        .orElseGet(() -> System.getProperty("java.io.tmpdir")), Constants.DEFAULT_SUMMARY_FILE_NAME));
+    }
+
+    /** The configured schedule, or {@code null} when summaries are off or the schedule cannot be read. */
+    static SummarySchedule schedule(Configuration configuration) {
+        String spec = configuration.get(Constants.SUMMARY_SCHEDULE).orElse("");
+        if (StringUtils.isBlank(spec)) {
+            return null;
+        }
+        ZoneId defaultZone = ZoneId.systemDefault();
+        try {
+            defaultZone = configuration.get(Constants.SUMMARY_TIMEZONE).filter(StringUtils::isNotBlank).map(ZoneId::of).orElse(defaultZone);
+        } catch (DateTimeException e) {
+            LOGGER.warn("MS Teams Plugin: Unknown summary time zone, using the server time zone: {}", e.getMessage());
+        }
+        try {
+            return SummarySchedule.parse(spec, defaultZone);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("MS Teams Plugin: No quality summary will be sent: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (schedule == null) {
+            return;
+        }
+        try {
+            int restored = store.load(aggregator);
+            LOGGER.info("MS Teams Plugin: Restored the quality summary of {} projects", restored);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("MS Teams Plugin: Could not read the quality summary from {}", store.getFile(), e);
+        }
+        wheel = new TimingWheel<>(TICK_MILLIS, WHEEL_SIZE, Runnable::run, "msteams-quality-summary");
+        wheel.start();
+        scheduleNext();
+        LOGGER.info("MS Teams Plugin: Quality summary scheduled {}", schedule);
+    }
+
+    private synchronized void scheduleNext() {
+        if (wheel != null) {
+            wheel.schedule(this::sendSummaries, schedule.nextRunAfter(clock.getAsLong()));
+        }
+    }
+
+    /**
+     * Closes the period, hands one summary per channel to the dispatcher and saves the accumulators.
+     *
+     * @return the number of summaries handed over
+     */
+    int sendSummaries() {
+        int sent = 0;
+        try {
+            List<TeamSummary> summaries = aggregator.closePeriod();
+            String period = schedule != null && schedule.isWeekly() ? "Weekly" : "Daily";
+            for (TeamSummary summary : summaries) {
+                Notification notification = Notification.builder()
+                        .projectName("Quality summary")
+                        .webhookUrl(summary.getDestination())
+                        .payload(LazyPayload.of(() -> AdaptiveCardsFormat.createQualitySummaryPayload(summary, period)))
+                        .build();
+                if (dispatcher.submit(notification)) {
+                    sent++;
+                }
+            }
+            LOGGER.info("MS Teams Plugin: Handed over {} of {} quality summaries", sent, summaries.size());
+            save();
+        } catch (RuntimeException e) {
+            LOGGER.error("MS Teams Plugin: Unexpected error sending the quality summary", e);
+        } finally {
+            scheduleNext();
+        }
+        return sent;
+    }
+
+    private void save() {
+        try {
+            store.save(aggregator);
+        } catch (IOException e) {
+            LOGGER.error("MS Teams Plugin: Could not save the quality summary to {}", store.getFile(), e);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (wheel == null) {
+            return;
+        }
+        wheel.stop();
+        wheel = null;
+        save();
+    }
+}
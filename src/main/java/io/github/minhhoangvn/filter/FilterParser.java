@@ -0,0 +1,318 @@
+package io.github.minhhoangvn.filter;
+
+import io.github.minhhoangvn.pipeline.AnalysisSnapshot;
+import io.github.minhhoangvn.pipeline.AnalysisSnapshot.ConditionSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Recursive descent parser turning a filter expression into a predicate tree.
+ * <pre>
+ * expression := and ( "or" and )*
+ * and        := unary ( "and" unary )*
+ * unary      := "not" unary | "(" expression ")" | comparison
+ * comparison := field operator value
+ * </pre>
+ * Everything that can be resolved at compile time is: field accessors, numeric operands and glob
+ * patterns, and metric patterns naming a single metric are matched by equality.
+ */
+class FilterParser {
+
+    private static final String MAIN_BRANCH = "main";
+    private static final String NO_QUALITY_GATE = "NONE";
+    private static final String CONDITION_PREFIX = "condition.";
+    private static final String STATUS_SUFFIX = ".status";
+
+    private final String source;
+    private final List<Token> tokens;
+    private int position;
+
+    FilterParser(String source) {
+        if (source == null || source.isBlank()) {
+            throw new IllegalArgumentException("Filter expression is empty");
+        }
+        this.source = source;
+        this.tokens = tokenize(source);
+    }
+
+    Predicate<AnalysisSnapshot> parse() {
+        Predicate<AnalysisSnapshot> predicate = parseOr();
+        if (peek() != null) {
+            throw error(peek(), "unexpected '" + peek().text + "'");
+        }
+        return predicate;
+    }
+
+    private Predicate<AnalysisSnapshot> parseOr() {
+        Predicate<AnalysisSnapshot> left = parseAnd();
+        while (acceptKeyword("or")) {
+            left = left.or(parseAnd());
+        }
+        return left;
+    }
+
+    private Predicate<AnalysisSnapshot> parseAnd() {
+        Predicate<AnalysisSnapshot> left = parseUnary();
+        while (acceptKeyword("and")) {
+            left = left.and(parseUnary());
+        }
+        return left;
+    }
+
+    private Predicate<AnalysisSnapshot> parseUnary() {
+        if (acceptKeyword("not")) {
+            return parseUnary().negate();
+        }
+        Token token = peek();
+        if (token != null && token.type == TokenType.SYMBOL && token.text.equals("(")) {
+            position++;
+            Predicate<AnalysisSnapshot> inner = parseOr();
+            Token closing = next("')'");
+            if (closing.type != TokenType.SYMBOL || !closing.text.equals(")")) {
+                throw error(closing, "expected ')'");
+            }
+            return inner;
+        }
+        return parseComparison();
+    }
+
+    private Predicate<AnalysisSnapshot> parseComparison() {
+        Token field = next("a field");
+        if (field.type != TokenType.WORD) {
+            throw error(field, "expected a field");
+        }
+        Token operator = next("an operator");
+        if (operator.type != TokenType.SYMBOL && !(operator.type == TokenType.WORD && operator.text.equals("matches"))) {
+            throw error(operator, "expected an operator");
+        }
+        Token value = next("a value");
+        if (value.type == TokenType.SYMBOL) {
+            throw error(value, "expected a value");
+        }
+
+        String name = field.text;
+        if (name.startsWith(CONDITION_PREFIX) && name.length() > CONDITION_PREFIX.length()) {
+            return parseConditionComparison(field, operator, value);
+        }
+        Function<AnalysisSnapshot, String> accessor;
+        switch (name) {
+            case "project":
+                accessor = AnalysisSnapshot::getProjectKey;
+                break;
+            case "projectName":
+                accessor = AnalysisSnapshot::getProjectName;
+                break;
+            case "branch":
+                accessor = analysis -> analysis.getBranch() != null ? analysis.getBranch() : MAIN_BRANCH;
+                break;
+            case "qualityGate":
+                accessor = analysis -> analysis.getQualityGateStatus() != null
+                        ? analysis.getQualityGateStatus().name() : NO_QUALITY_GATE;
+                return compare(accessor, operator, value, true);
+            default:
+                throw error(field, "unknown field '" + name + "'");
+        }
+        return compare(accessor, operator, value, false);
+    }
+
+    private Predicate<AnalysisSnapshot> parseConditionComparison(Token field, Token operator, Token value) {
+        String metric = field.text.substring(CONDITION_PREFIX.length());
+        boolean status = metric.endsWith(STATUS_SUFFIX);
+        if (status) {
+            metric = metric.substring(0, metric.length() - STATUS_SUFFIX.length());
+        }
+        if (metric.isEmpty()) {
+            throw error(field, "missing metric in '" + field.text + "'");
+        }
+        Predicate<String> metricMatcher = glob(metric);
+        Function<ConditionSnapshot, String> accessor = status
+                ? condition -> condition.getStatus() != null ? condition.getStatus().name() : null
+                : ConditionSnapshot::getValue;
+        Predicate<ConditionSnapshot> test = compare(accessor, operator, value, status);
+        return analysis -> {
+            for (ConditionSnapshot condition : analysis.getConditions()) {
+                if (condition.getMetricKey() != null && metricMatcher.test(condition.getMetricKey()) && test.test(condition)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    private <T> Predicate<T> compare(Function<T, String> accessor, Token operator, Token value, boolean ignoreCase) {
+        String expected = ignoreCase ? value.text.toUpperCase(Locale.ROOT) : value.text;
+        Double expectedNumber = parseNumber(expected);
+        switch (operator.text) {
+            case "=":
+                return target -> equals(accessor.apply(target), expected, expectedNumber, ignoreCase);
+            case "!=":
+                return target -> !equals(accessor.apply(target), expected, expectedNumber, ignoreCase);
+            case "matches":
+                Predicate<String> pattern = glob(expected);
+                return target -> {
+                    String actual = accessor.apply(target);
+                    return actual != null && pattern.test(ignoreCase ? actual.toUpperCase(Locale.ROOT) : actual);
+                };
+            case "<":
+                return numeric(accessor, operator, value, difference -> difference < 0);
+            case "<=":
+                return numeric(accessor, operator, value, difference -> difference <= 0);
+            case ">":
+                return numeric(accessor, operator, value, difference -> difference > 0);
+            case ">=":
+                return numeric(accessor, operator, value, difference -> difference >= 0);
+            default:
+                throw error(operator, "unknown operator '" + operator.text + "'");
+        }
+    }
+
+    // Numbers compare by value, so that "80" equals a measured "80.0"
+    private static boolean equals(String actual, String expected, Double expectedNumber, boolean ignoreCase) {
+        if (actual == null) {
+            return false;
+        }
+        if (ignoreCase ? actual.equalsIgnoreCase(expected) : actual.equals(expected)) {
+            return true;
+        }
+        if (expectedNumber == null) {
+            return false;
+        }
+        Double actualNumber = parseNumber(actual);
+        return actualNumber != null && Double.compare(actualNumber, expectedNumber) == 0;
+    }
+
+    private static Double parseNumber(String text) {
+        try {
+            return Double.valueOf(text);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private <T> Predicate<T> numeric(Function<T, String> accessor, Token operator, Token value,
+                                     IntPredicate outcome) {
+        Double expected = parseNumber(value.text);
+        if (expected == null) {
+            throw error(value, "operator '" + operator.text + "' needs a number, got '" + value.text + "'");
+        }
+        double threshold = expected;
+        return target -> {
+            String actual = accessor.apply(target);
+            Double actualNumber = actual != null ? parseNumber(actual) : null;
+            return actualNumber != null && outcome.test(Double.compare(actualNumber, threshold));
+        };
+    }
+
+    private static Predicate<String> glob(String glob) {
+        if (glob.indexOf('*') < 0 && glob.indexOf('?') < 0) {
+            return glob::equals;
+        }
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : glob.toCharArray()) {
+            if (c == '*' || c == '?') {
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '*' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        Pattern pattern = Pattern.compile(regex.toString(), Pattern.DOTALL);
+        return value -> pattern.matcher(value).matches();
+    }
+
+    private boolean acceptKeyword(String keyword) {
+        Token token = peek();
+        if (token != null && token.type == TokenType.WORD && token.text.equals(keyword)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private Token peek() {
+        return position < tokens.size() ? tokens.get(position) : null;
+    }
+
+    private Token next(String expected) {
+        Token token = peek();
+        if (token == null) {
+            throw new IllegalArgumentException("Invalid filter expression '" + source + "': expected "
+                    + expected + " at end of expression");
+        }
+        position++;
+        return token;
+    }
+
+    private IllegalArgumentException error(Token token, String message) {
+        return new IllegalArgumentException("Invalid filter expression '" + source + "' at position "
+                + (token.offset + 1) + ": " + message);
+    }
+
+    private List<Token> tokenize(String text) {
+        List<Token> result = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(' || c == ')') {
+                result.add(new Token(TokenType.SYMBOL, String.valueOf(c), i));
+                i++;
+            } else if (c == '=' || c == '!' || c == '<' || c == '>') {
+                int start = i++;
+                if (i < text.length() && text.charAt(i) == '=') {
+                    i++;
+                } else if (c == '!') {
+                    throw new IllegalArgumentException("Invalid filter expression '" + source + "' at position "
+                            + (start + 1) + ": expected '!='");
+                }
+                result.add(new Token(TokenType.SYMBOL, text.substring(start, i), start));
+            } else if (c == '"' || c == '\'') {
+                int start = i;
+                int end = text.indexOf(c, i + 1);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Invalid filter expression '" + source + "' at position "
+                            + (start + 1) + ": unterminated string");
+                }
+                result.add(new Token(TokenType.STRING, text.substring(start + 1, end), start));
+                i = end + 1;
+            } else {
+                int start = i;
+                while (i < text.length() && !Character.isWhitespace(text.charAt(i)) && "()=!<>\"'".indexOf(text.charAt(i)) < 0) {
+                    i++;
+                }
+                result.add(new Token(TokenType.WORD, text.substring(start, i), start));
+            }
+        }
+        return result;
+    }
+
+    private enum TokenType {
+        WORD, STRING, SYMBOL
+    }
+
+    private static final class Token {
+        private final TokenType type;
+        private final String text;
+        private final int offset;
+
+        private Token(TokenType type, String text, int offset) {
+            this.type = type;
+            this.text = text;
+            this.offset = offset;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package io.github.minhhoangvn.filter;
+
+import io.github.minhhoangvn.utils.Constants;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Tells when a project keeps switching between a passed and a failed quality gate, so its
+ * notifications can be held back until it settles.
+ * <p>
+ * Each project and branch keeps the outcome of its last analyses as bits of a single {@code long},
+ * in a table keyed by a 64-bit hash of the project key and branch, so tracking thousands of
+ * projects costs two arrays and no object per project. A project starts flapping when its status
+ * changed {@code threshold} times within the last {@code window} analyses, and stops once its last
+ * {@code stableRuns} analyses agree. When the table is full it is cleared; histories rebuild within
+ * a few analyses and a flap is at worst noticed late.
+ * <p>
+ * Detection is off until {@code sonar.msteams.flap.threshold} is set, so every analysis is
+ * notified as usual unless flaps are asked to be folded.
+ */
+@ComputeEngineSide
+public class FlapDetector {
+
+    private static final Logger LOGGER = Loggers.get(FlapDetector.class);
+    static final int MAX_WINDOW = 32;
+    static final int DEFAULT_MAX_TRACKED = 10_000;
+
+    // Layout of a state: outcome bits (1 for failed, newest in bit 0), analyses counted, flapping flag
+    private static final long HISTORY_MASK = 0xFFFF_FFFFL;
+    private static final int COUNT_SHIFT = 32;
+    private static final long COUNT_MASK = 0x3FL;
+    private static final long FLAPPING = 1L << 38;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * What to do with the notification of an analysis.
+     */
+    public enum Verdict {
+        /** Not flapping, notify as usual. */
+        NOTIFY,
+        /** Just started flapping, send a single flapping notice instead. */
+        START_FLAPPING,
+        /** Still flapping, hold the notification back. */
+        SUPPRESS,
+        /** Stable again, notify as usual. */
+        STABILIZED
+    }
+
+    private final int window;
+    private final int threshold;
+    private final int stableRuns;
+    private final int maxTracked;
+    private long[] keys;
+    private long[] states;
+    private int size;
+
+    public FlapDetector(Configuration configuration) {
+        this(configuration.getInt(Constants.FLAP_WINDOW).orElse(Constants.DEFAULT_FLAP_WINDOW),
+                configuration.getInt(Constants.FLAP_THRESHOLD).orElse(Constants.DEFAULT_FLAP_THRESHOLD),
+                configuration.getInt(Constants.FLAP_STABLE_RUNS).orElse(Constants.DEFAULT_FLAP_STABLE_RUNS),
+                DEFAULT_MAX_TRACKED);
+    }
+
+    /**
+     * @param window     analyses looked at, at most {@value #MAX_WINDOW}; 0 turns detection off
+     * @param threshold  status changes within the window that make a project flap; 0 turns detection off
+     * @param stableRuns analyses in a row with the same status that end a flap
+     */
+    FlapDetector(int window, int threshold, int stableRuns, int maxTracked) {
+        this.window = Math.min(MAX_WINDOW, Math.max(0, window));
+        this.threshold = Math.max(0, threshold);
+        this.stableRuns = Math.min(this.window, Math.max(1, stableRuns));
+        this.maxTracked = Math.max(1, maxTracked);
+        int capacity = Integer.highestOneBit(Math.max(2, this.maxTracked * 2 - 1)) << 1;
+        this.keys = new long[capacity];
+        this.states = new long[capacity];
+    }
+
+    public boolean isEnabled() {
+        // A window of n analyses holds at most n - 1 changes
+        return threshold > 0 && threshold < window;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /** Records the outcome of an analysis of the project and branch and tells what to notify. */
+    public synchronized Verdict record(String projectKey, String branch, boolean failed) {
+        if (!isEnabled()) {
+            return Verdict.NOTIFY;
+        }
+        int slot = slotOf(key(projectKey, branch));
+        long state = states[slot];
+        int count = (int) Math.min(window, ((state >>> COUNT_SHIFT) & COUNT_MASK) + 1);
+        long history = (((state & HISTORY_MASK) << 1) | (failed ? 1 : 0)) & mask(window);
+        boolean flapping = (state & FLAPPING) != 0;
+
+        Verdict verdict;
+        if (flapping) {
+            flapping = changes(history, stableRuns) != 0;
+            verdict = flapping ? Verdict.SUPPRESS : Verdict.STABILIZED;
+            if (!flapping) {
+                // Forget the flap, or the changes still in the window would start it again
+                history &= mask(stableRuns);
+                count = stableRuns;
+            }
+        } else if (changes(history, count) >= threshold) {
+            flapping = true;
+            verdict = Verdict.START_FLAPPING;
+        } else {
+            verdict = Verdict.NOTIFY;
+        }
+        states[slot] = history | ((long) count << COUNT_SHIFT) | (flapping ? FLAPPING : 0);
+        return verdict;
+    }
+
+    /** Status changes between consecutive analyses among the newest {@code analyses}. */
+    private static int changes(long history, int analyses) {
+        return Long.bitCount((history ^ (history >>> 1)) & mask(analyses - 1));
+    }
+
+    private static long mask(int bits) {
+        return bits <= 0 ? 0 : -1L >>> (64 - bits);
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /** Slot of the key, claiming a free one when the key is new. */
+    private int slotOf(long key) {
+        int mask = keys.length - 1;
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size >= maxTracked) {
+            LOGGER.debug("MS Teams Plugin: Flap detection tracks {} projects, starting over", size);
+            Arrays.fill(keys, 0);
+            Arrays.fill(states, 0);
+            size = 0;
+            slot = (int) (key ^ (key >>> 32)) & mask;
+        }
+        keys[slot] = key;
+        size++;
+        return slot;
+    }
+
+    /** 64-bit FNV-1a hash of the project key and branch; never 0, which marks a free slot. */
+    static long key(String projectKey, String branch) {
+        long hash = FNV_OFFSET;
+        hash = hash(hash, projectKey);
+        hash = (hash ^ 0xFF) * FNV_PRIME;
+        if (branch != null) {
+            hash = hash(hash, branch);
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static long hash(long hash, String value) {
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xFF)) * FNV_PRIME;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.minhhoangvn.filter;
+
+import io.github.minhhoangvn.pipeline.AnalysisSnapshot;
+
+import java.util.function.Predicate;
+
+/**
+ * A compiled filter expression deciding which analyses are notified.
+ * <p>
+ * Expressions compare fields of the analysis with values, combined with {@code and}, {@code or},
+ * {@code not} and parentheses:
+ * <pre>
+ * qualityGate = ERROR
+ * condition.new_coverage &lt; 80 and branch = main
+ * condition.*security_rating*.status = ERROR
+ * project matches "team-x/*" or projectName matches "*Service"
+ * </pre>
+ * Fields are {@code project} (key), {@code projectName}, {@code branch} ({@code main} on the main
+ * branch), {@code qualityGate} (status, {@code NONE} without a quality gate) and
+ * {@code condition.<metric>} or {@code condition.<metric>.status}, where the metric may be a glob
+ * and the comparison holds when any matching condition satisfies it. Operators are {@code =},
+ * {@code !=}, {@code <}, {@code <=}, {@code >}, {@code >=} on numbers and {@code matches} with
+ * {@code *} and {@code ?} wildcards. Names and values are case sensitive, except status values.
+ * <p>
+ * Expressions are compiled once into a predicate tree, so evaluating one against an analysis does
+ * no parsing and no allocation beyond what the predicates themselves need.
+ */
+public final class NotificationFilter {
+
+    private final String expression;
+    private final Predicate<AnalysisSnapshot> predicate;
+
+    NotificationFilter(String expression, Predicate<AnalysisSnapshot> predicate) {
+        this.expression = expression;
+        this.predicate = predicate;
+    }
+
+    /**
+     * Compiles an expression.
+     *
+     * @throws IllegalArgumentException when the expression is not valid, with the position of the error
+     */
+    public static NotificationFilter compile(String expression) {
+        return new NotificationFilter(expression, new FilterParser(expression).parse());
+    }
+
+    public boolean matches(AnalysisSnapshot analysis) {
+        return predicate.test(analysis);
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
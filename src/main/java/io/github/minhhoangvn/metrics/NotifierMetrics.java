@@ -0,0 +1,75 @@
+package io.github.minhhoangvn.metrics;
+
+import org.sonar.api.ce.ComputeEngineSide;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory counters of the notifier, cheap enough to update on every notification.
+ * <p>
+ * A counter may keep an exemplar: the {@link io.github.minhhoangvn.pipeline.NotificationId} of
+ * the last notification that incremented it, to go from a counter to the matching log lines.
+ */
+@ComputeEngineSide
+public class NotifierMetrics {
+
+    public static final String SUBMITTED = "notifications.submitted";
+    public static final String DELIVERED = "notifications.delivered";
+    public static final String DELIVERY_FAILED = "notifications.delivery.failed";
+    public static final String SHED_OVERLOAD = "notifications.shed.overload";
+    public static final String SHED_EVICTED = "notifications.shed.evicted";
+    public static final String SHED_STALE = "notifications.shed.stale";
+    public static final String SHED_BULKHEAD = "notifications.shed.bulkhead";
+    public static final String DEFERRED = "notifications.deferred";
+    public static final String SUMMARIES_SENT = "notifications.summaries.sent";
+    public static final String DEDUPLICATED = "notifications.deduplicated";
+    public static final String RATE_LIMITED = "notifications.rate.limited";
+    public static final String HELD_UNAVAILABLE = "notifications.held.unavailable";
+    public static final String ENDPOINT_RECOVERED = "endpoints.recovered";
+    public static final String AUDIT_DROPPED = "audit.dropped";
+    public static final String AUDIT_WRITE_FAILED = "audit.write.failed";
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, String> exemplars = new ConcurrentHashMap<>();
+
+    public void increment(String name) {
+        add(name, 1);
+    }
+
+    /** Increments the counter and keeps the notification id as its exemplar, when there is one. */
+    public void increment(String name, String notificationId) {
+        add(name, 1);
+        if (notificationId != null) {
+            exemplars.put(name, notificationId);
+        }
+    }
+
+    public void add(String name, long delta) {
+        counters.computeIfAbsent(name, key -> new LongAdder()).add(delta);
+    }
+
+    public long get(String name) {
+        LongAdder counter = counters.get(name);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /** Id of the last notification that incremented the counter, or {@code null} when unknown. */
+    public String exemplar(String name) {
+        return exemplars.get(name);
+    }
+
+    /** Current exemplar of every counter that has one, sorted by name. */
+    public Map<String, String> exemplars() {
+        return new TreeMap<>(exemplars);
+    }
+
+    /** Current value of every counter, sorted by name. */
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        counters.forEach((name, counter) -> snapshot.put(name, counter.sum()));
+        return snapshot;
+    }
+}
@@ -0,0 +1,188 @@
+package io.github.minhhoangvn.pipeline;
+
+import org.sonar.api.ce.posttask.Branch;
+import org.sonar.api.ce.posttask.PostProjectAnalysisTask.ProjectAnalysis;
+import org.sonar.api.ce.posttask.QualityGate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Immutable copy of the parts of a project analysis the notifier uses, taken once per analysis.
+ * <p>
+ * Reading the analysis through the plugin API is not free and some calls throw, such as
+ * {@link QualityGate.Condition#getValue()} on {@code NO_VALUE} conditions. Later stages read this
+ * snapshot instead, where a condition without a value simply has a {@code null} value.
+ */
+public final class AnalysisSnapshot {
+
+    private final String ceTaskId;
+    private final String ceTaskStatus;
+    private final String projectKey;
+    private final String projectName;
+    private final String branch;
+    private final boolean qualityGatePresent;
+    private final String qualityGateName;
+    private final QualityGate.Status qualityGateStatus;
+    private final List<ConditionSnapshot> conditions;
+
+    private AnalysisSnapshot(String ceTaskId, String ceTaskStatus, String projectKey, String projectName, String branch,
+                             boolean qualityGatePresent, String qualityGateName, QualityGate.Status qualityGateStatus,
+                             List<ConditionSnapshot> conditions) {
+        this.ceTaskId = ceTaskId;
+        this.ceTaskStatus = ceTaskStatus;
+        this.projectKey = projectKey;
+        this.projectName = projectName;
+        this.branch = branch;
+        this.qualityGatePresent = qualityGatePresent;
+        this.qualityGateName = qualityGateName;
+        this.qualityGateStatus = qualityGateStatus;
+        this.conditions = conditions;
+    }
+
+    public static AnalysisSnapshot of(ProjectAnalysis analysis) {
+        String ceTaskId = null;
+        String ceTaskStatus = null;
+        if (analysis.getCeTask() != null) {
+            ceTaskId = analysis.getCeTask().getId();
+            ceTaskStatus = analysis.getCeTask().getStatus() != null ? analysis.getCeTask().getStatus().toString() : null;
+        }
+
+        String qualityGateName = null;
+        QualityGate.Status qualityGateStatus = null;
+        List<ConditionSnapshot> conditions = Collections.emptyList();
+        QualityGate qualityGate = analysis.getQualityGate();
+        if (qualityGate != null) {
+            qualityGateName = qualityGate.getName();
+            qualityGateStatus = qualityGate.getStatus();
+            if (qualityGate.getConditions() != null) {
+                conditions = new ArrayList<>(qualityGate.getConditions().size());
+                for (QualityGate.Condition condition : qualityGate.getConditions()) {
+                    conditions.add(ConditionSnapshot.of(condition));
+                }
+                conditions = Collections.unmodifiableList(conditions);
+            }
+        }
+
+        return new AnalysisSnapshot(ceTaskId, ceTaskStatus, analysis.getProject().getKey(), analysis.getProject().getName(),
+                branchName(analysis), qualityGate != null, qualityGateName, qualityGateStatus, conditions);
+    }
+
+    private static String branchName(ProjectAnalysis analysis) {
+        Optional<Branch> branch = analysis.getBranch();
+        if (branch == null || branch.isEmpty() || branch.get().isMain()) {
+            return null;
+        }
+        return branch.get().getName().orElse(null);
+    }
+
+    /** Compute Engine task id, or {@code null} when unknown. */
+    public String getCeTaskId() {
+        return ceTaskId;
+    }
+
+    /** Compute Engine task status, or {@code null} when unknown. */
+    public String getCeTaskStatus() {
+        return ceTaskStatus;
+    }
+
+    public String getProjectKey() {
+        return projectKey;
+    }
+
+    public String getProjectName() {
+        return projectName;
+    }
+
+    /** Branch name, or {@code null} on the main branch. */
+    public String getBranch() {
+        return branch;
+    }
+
+    public boolean hasQualityGate() {
+        return qualityGatePresent;
+    }
+
+    public String getQualityGateName() {
+        return qualityGateName;
+    }
+
+    /** Quality gate status, or {@code null} when the project has no quality gate. */
+    public QualityGate.Status getQualityGateStatus() {
+        return qualityGateStatus;
+    }
+
+    public boolean isQualityGateFailed() {
+        return qualityGateStatus == QualityGate.Status.ERROR;
+    }
+
+    public List<ConditionSnapshot> getConditions() {
+        return conditions;
+    }
+
+    /** Value of the first condition on the metric, or {@code null} when there is none or it has no value. */
+    public String getConditionValue(String metricKey) {
+        for (ConditionSnapshot condition : conditions) {
+            if (metricKey.equals(condition.getMetricKey())) {
+                return condition.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Immutable copy of one quality gate condition.
+     */
+    public static final class ConditionSnapshot {
+        private final String metricKey;
+        private final QualityGate.EvaluationStatus status;
+        private final QualityGate.Operator operator;
+        private final String errorThreshold;
+        private final String value;
+
+        ConditionSnapshot(String metricKey, QualityGate.EvaluationStatus status, QualityGate.Operator operator,
+                          String errorThreshold, String value) {
+            this.metricKey = metricKey;
+            this.status = status;
+            this.operator = operator;
+            this.errorThreshold = errorThreshold;
+            this.value = value;
+        }
+
+        static ConditionSnapshot of(QualityGate.Condition condition) {
+            String value = null;
+            if (condition.getStatus() != QualityGate.EvaluationStatus.NO_VALUE) {
+                try {
+                    value = condition.getValue();
+                } catch (IllegalStateException e) {
+                    // No value for this condition after all
+                }
+            }
+            return new ConditionSnapshot(condition.getMetricKey(), condition.getStatus(), condition.getOperator(),
+                    condition.getErrorThreshold(), value);
+        }
+
+        public String getMetricKey() {
+            return metricKey;
+        }
+
+        public QualityGate.EvaluationStatus getStatus() {
+            return status;
+        }
+
+        public QualityGate.Operator getOperator() {
+            return operator;
+        }
+
+        public String getErrorThreshold() {
+            return errorThreshold;
+        }
+
+        /** Measured value, or {@code null} for {@code NO_VALUE} conditions. */
+        public String getValue() {
+            return value;
+        }
+    }
+}
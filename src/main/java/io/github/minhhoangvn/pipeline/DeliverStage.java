@@ -0,0 +1,62 @@
+package io.github.minhhoangvn.pipeline;
+
+import io.github.minhhoangvn.dispatch.Notification;
+import io.github.minhhoangvn.dispatch.NotificationDispatcher;
+import io.github.minhhoangvn.dispatch.NotificationSender;
+
+/**
+ * Hands the notification to the dispatcher, or sends it right away when there is none.
+ */
+public class DeliverStage implements PipelineStage {
+
+    private final NotificationDispatcher dispatcher;
+    private final NotificationSender sender;
+
+    /**
+     * @param dispatcher dispatcher to queue notifications on, or {@code null} to send synchronously
+     */
+    public DeliverStage(NotificationDispatcher dispatcher, NotificationSender sender) {
+        this.dispatcher = dispatcher;
+        this.sender = sender;
+    }
+
+    @Override
+    public String name() {
+        return "deliver";
+    }
+
+    @Override
+    public boolean process(PipelineContext context) {
+        AnalysisSnapshot snapshot = context.getSnapshot();
+        long createdAtMillis = System.currentTimeMillis();
+        Notification notification = Notification.builder()
+                .createdAtMillis(createdAtMillis)
+                .deadlineMillis(dispatcher != null ? dispatcher.deadlineFor(createdAtMillis) : Long.MAX_VALUE)
+                .notificationId(context.getNotificationId())
+                .ceTaskId(snapshot.getCeTaskId())
+                .projectKey(snapshot.getProjectKey())
+                .projectName(snapshot.getProjectName())
+                .branch(snapshot.getBranch())
+                .qualityGateStatus(snapshot.getQualityGateStatus())
+                .webhookUrl(context.getWebhookUrl())
+                .webhookHttpUrl(context.getWebhookHttpUrl())
+                .payload(context.getPayload())
+                .onDelivered(context.getOnDelivered())
+                .build();
+        context.setNotification(notification);
+
+        if (dispatcher != null) {
+            return dispatcher.submit(notification) || context.stop("shed by the dispatcher");
+        }
+        boolean sent;
+        try {
+            sent = sender.send(notification);
+            if (sent) {
+                notification.delivered();
+            }
+        } finally {
+            notification.complete();
+        }
+        return sent || context.stop("delivery failed");
+    }
+}
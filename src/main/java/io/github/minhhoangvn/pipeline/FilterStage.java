@@ -0,0 +1,27 @@
+package io.github.minhhoangvn.pipeline;
+
+import io.github.minhhoangvn.transition.Trigger;
+
+/**
+ * Drops analyses that should not be notified, before any URL is built or payload rendered.
+ */
+public class FilterStage implements PipelineStage {
+
+    @Override
+    public String name() {
+        return "filter";
+    }
+
+    @Override
+    public boolean process(PipelineContext context) {
+        // A recovery, and the flapping notice whichever way the analysis that started it went, are news even on a pass
+        if (context.isSendOnFailedOnly() && !context.getSnapshot().isQualityGateFailed() && !context.isFlapping()
+                && context.getTrigger() != Trigger.RECOVERED) {
+            return context.stop("analysis passed and 'Send on failed only' is enabled");
+        }
+        if (context.getFilter() != null && !context.getFilter().matches(context.getSnapshot())) {
+            return context.stop("analysis does not match filter '" + context.getFilter() + "'");
+        }
+        return true;
+    }
+}
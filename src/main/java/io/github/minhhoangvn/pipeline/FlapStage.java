@@ -0,0 +1,38 @@
+package io.github.minhhoangvn.pipeline;
+
+import io.github.minhhoangvn.filter.FlapDetector;
+
+/**
+ * Holds back the notifications of a project whose quality gate keeps flipping between passed and
+ * failed, sending one flapping notice in their place until it is stable again.
+ */
+public class FlapStage implements PipelineStage {
+
+    private final FlapDetector detector;
+
+    public FlapStage(FlapDetector detector) {
+        this.detector = detector;
+    }
+
+    @Override
+    public String name() {
+        return "flap";
+    }
+
+    @Override
+    public boolean process(PipelineContext context) {
+        AnalysisSnapshot snapshot = context.getSnapshot();
+        if (snapshot.getQualityGateStatus() == null) {
+            return true;
+        }
+        switch (detector.record(snapshot.getProjectKey(), snapshot.getBranch(), snapshot.isQualityGateFailed())) {
+            case START_FLAPPING:
+                context.markFlapping(detector.getThreshold(), detector.getWindow());
+                return true;
+            case SUPPRESS:
+                return context.stop("quality gate is flapping");
+            default:
+                return true;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package io.github.minhhoangvn.pipeline;
+
+import org.sonar.api.ce.posttask.Analysis;
+import org.sonar.api.ce.posttask.PostProjectAnalysisTask.ProjectAnalysis;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Identifier of the notification of one finished analysis, found in its log lines, metric
+ * exemplars, audit records, captures and in the {@code X-Correlation-Id} header of the request
+ * to Teams: {@code <CE task id>/<analysis key>/<sequence>}, with {@code -} for a part not known.
+ * The sequence tells apart notifications of the same task within a server run.
+ */
+public final class NotificationId {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private NotificationId() {
+        // Utility class - prevent instantiation
+    }
+
+    public static String next(String ceTaskId, String analysisKey) {
+        return (ceTaskId != null ? ceTaskId : "-") + '/' + (analysisKey != null ? analysisKey : "-") + '/'
+                + Long.toString(SEQUENCE.incrementAndGet(), 36);
+    }
+
+    public static String of(ProjectAnalysis analysis) {
+        return next(analysis.getCeTask() != null ? analysis.getCeTask().getId() : null, analysisKey(analysis));
+    }
+
+    /** Key of the analysis, or {@code null} when the analysis is not known. */
+    static String analysisKey(ProjectAnalysis analysis) {
+        Optional<Analysis> details = analysis.getAnalysis();
+        return details != null && details.isPresent() ? details.get().getAnalysisUuid() : null;
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.minhhoangvn.pipeline;
+
+import io.github.minhhoangvn.metrics.NotifierMetrics;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.util.List;
+
+/**
+ * Runs an analysis through its stages, snapshot, filter, route, render and deliver, stopping at
+ * the first stage that says so. Cheap stages come first, so filtered-out analyses are never
+ * rendered.
+ * <p>
+ * Each stage is timed: {@code pipeline.<stage>.calls}, {@code pipeline.<stage>.nanos} and, when it
+ * stopped the pipeline, {@code pipeline.<stage>.stopped} are kept in {@link NotifierMetrics}, the
+ * latter with the {@link NotificationId} as exemplar. Log lines carry the id too.
+ */
+public class NotificationPipeline {
+
+    private static final Logger LOGGER = Loggers.get(NotificationPipeline.class);
+
+    private final List<PipelineStage> stages;
+    private final NotifierMetrics metrics;
+
+    public NotificationPipeline(List<PipelineStage> stages, NotifierMetrics metrics) {
+        this.stages = List.copyOf(stages);
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return {@code true} when every stage ran, {@code false} when a stage stopped the pipeline
+     */
+    public boolean run(PipelineContext context) {
+        for (PipelineStage stage : stages) {
+            long start = System.nanoTime();
+            boolean proceed;
+            try {
+                proceed = stage.process(context);
+            } catch (RuntimeException e) {
+                LOGGER.error("MS Teams Plugin: [{}] Pipeline stage '{}' failed", context.getNotificationId(), stage.name(), e);
+                proceed = context.stop(stage.name() + " failed: " + e.getMessage());
+            }
+            long elapsed = System.nanoTime() - start;
+
+            String prefix = "pipeline." + stage.name();
+            metrics.increment(prefix + ".calls");
+            metrics.add(prefix + ".nanos", elapsed);
+            LOGGER.debug("MS Teams Plugin: [{}] Stage '{}' took {} us", context.getNotificationId(), stage.name(), elapsed / 1_000);
+
+            if (!proceed) {
+                metrics.increment(prefix + ".stopped", context.getNotificationId());
+                LOGGER.info("MS Teams Plugin: [{}] Notification stopped at stage '{}': {}",
+                        context.getNotificationId(), stage.name(), context.getStopReason());
+                return false;
+            }
+        }
+        return true;
+    }
+}
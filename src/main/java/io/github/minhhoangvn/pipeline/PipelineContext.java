@@ -0,0 +1,257 @@
+package io.github.minhhoangvn.pipeline;
+
+import io.github.minhhoangvn.dispatch.LazyPayload;
+import io.github.minhhoangvn.dispatch.Notification;
+import io.github.minhhoangvn.filter.NotificationFilter;
+import io.github.minhhoangvn.transition.Trigger;
+import okhttp3.HttpUrl;
+import org.sonar.api.ce.posttask.PostProjectAnalysisTask.ProjectAnalysis;
+
+/**
+ * State of one analysis on its way through the {@link NotificationPipeline}: the analysis and the
+ * settings it is notified with, then the results of each stage.
+ */
+public class PipelineContext {
+
+    private final ProjectAnalysis analysis;
+    private final String webhookUrl;
+    private final HttpUrl webhookHttpUrl;
+    private final String avatarUrl;
+    private final String teamName;
+    private final String baseUrl;
+    private final boolean sendOnFailedOnly;
+    private final NotificationFilter filter;
+
+    private String notificationId;
+    private AnalysisSnapshot snapshot;
+    private String projectUrl;
+    private LazyPayload payload;
+    private Notification notification;
+    private int flapChanges;
+    private int flapWindow;
+    private Trigger trigger;
+    private Runnable onDelivered;
+    private String stopReason;
+
+    private PipelineContext(Builder builder) {
+        this.analysis = builder.analysis;
+        this.snapshot = builder.snapshot;
+        this.webhookUrl = builder.webhookUrl;
+        this.webhookHttpUrl = builder.webhookHttpUrl;
+        this.avatarUrl = builder.avatarUrl;
+        this.teamName = builder.teamName;
+        this.baseUrl = builder.baseUrl;
+        this.sendOnFailedOnly = builder.sendOnFailedOnly;
+        this.filter = builder.filter;
+        this.notificationId = builder.notificationId;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** Stops the pipeline; returns {@code false} so a stage can {@code return context.stop(...)}. */
+    public boolean stop(String reason) {
+        this.stopReason = reason;
+        return false;
+    }
+
+    /** Why the pipeline stopped early, or {@code null} when it did not. */
+    public String getStopReason() {
+        return stopReason;
+    }
+
+    /** The analysis from the Compute Engine, or {@code null} when started from a snapshot. */
+    public ProjectAnalysis getAnalysis() {
+        return analysis;
+    }
+
+    /** Correlation id of the notification, see {@link NotificationId}; set by the snapshot stage at the latest. */
+    public String getNotificationId() {
+        return notificationId;
+    }
+
+    public void setNotificationId(String notificationId) {
+        this.notificationId = notificationId;
+    }
+
+    public AnalysisSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(AnalysisSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public String getWebhookUrl() {
+        return webhookUrl;
+    }
+
+    /** Webhook URL parsed ahead of time, or {@code null} when it is to be parsed on delivery. */
+    public HttpUrl getWebhookHttpUrl() {
+        return webhookHttpUrl;
+    }
+
+    public String getAvatarUrl() {
+        return avatarUrl;
+    }
+
+    /** Team name shown on the card, or {@code null} for the configured one. */
+    public String getTeamName() {
+        return teamName;
+    }
+
+    /** Base URL of the server, resolved by the settings with their fallbacks. */
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public boolean isSendOnFailedOnly() {
+        return sendOnFailedOnly;
+    }
+
+    /** Filter the analysis must match to be notified, or {@code null} when there is none. */
+    public NotificationFilter getFilter() {
+        return filter;
+    }
+
+    public String getProjectUrl() {
+        return projectUrl;
+    }
+
+    public void setProjectUrl(String projectUrl) {
+        this.projectUrl = projectUrl;
+    }
+
+    public LazyPayload getPayload() {
+        return payload;
+    }
+
+    public void setPayload(LazyPayload payload) {
+        this.payload = payload;
+    }
+
+    public Notification getNotification() {
+        return notification;
+    }
+
+    public void setNotification(Notification notification) {
+        this.notification = notification;
+    }
+
+    /** Whether the analysis is to be notified as the start of a flapping quality gate. */
+    public boolean isFlapping() {
+        return flapChanges > 0;
+    }
+
+    public void markFlapping(int changes, int window) {
+        this.flapChanges = changes;
+        this.flapWindow = window;
+    }
+
+    public int getFlapChanges() {
+        return flapChanges;
+    }
+
+    public int getFlapWindow() {
+        return flapWindow;
+    }
+
+    /** The transition being notified, or {@code null} when transition triggers are off. */
+    public Trigger getTrigger() {
+        return trigger;
+    }
+
+    public void setTrigger(Trigger trigger) {
+        this.trigger = trigger;
+    }
+
+    /** Action to run once Teams accepted the notification, or {@code null} when there is none. */
+    public Runnable getOnDelivered() {
+        return onDelivered;
+    }
+
+    /** Adds an action to run once Teams accepted the notification, after those added before. */
+    public void whenDelivered(Runnable action) {
+        Runnable previous = onDelivered;
+        onDelivered = previous == null ? action : () -> {
+            previous.run();
+            action.run();
+        };
+    }
+
+    public static class Builder {
+        private ProjectAnalysis analysis;
+        private AnalysisSnapshot snapshot;
+        private String webhookUrl;
+        private HttpUrl webhookHttpUrl;
+        private String avatarUrl;
+        private String teamName;
+        private String baseUrl;
+        private boolean sendOnFailedOnly;
+        private NotificationFilter filter;
+        private String notificationId;
+
+        private Builder() {
+        }
+
+        public Builder analysis(ProjectAnalysis analysis) {
+            this.analysis = analysis;
+            return this;
+        }
+
+        /** Starts from an existing snapshot, skipping the analysis, e.g. to measure later stages. */
+        public Builder snapshot(AnalysisSnapshot snapshot) {
+            this.snapshot = snapshot;
+            return this;
+        }
+
+        public Builder webhookUrl(String webhookUrl) {
+            this.webhookUrl = webhookUrl;
+            return this;
+        }
+
+        public Builder webhookHttpUrl(HttpUrl webhookHttpUrl) {
+            this.webhookHttpUrl = webhookHttpUrl;
+            return this;
+        }
+
+        public Builder avatarUrl(String avatarUrl) {
+            this.avatarUrl = avatarUrl;
+            return this;
+        }
+
+        public Builder teamName(String teamName) {
+            this.teamName = teamName;
+            return this;
+        }
+
+        public Builder baseUrl(String baseUrl) {
+            this.baseUrl = baseUrl;
+            return this;
+        }
+
+        public Builder sendOnFailedOnly(boolean sendOnFailedOnly) {
+            this.sendOnFailedOnly = sendOnFailedOnly;
+            return this;
+        }
+
+        public Builder filter(NotificationFilter filter) {
+            this.filter = filter;
+            return this;
+        }
+
+        /** Id generated when the analysis finished, so its earlier log lines carry the same one. */
+        public Builder notificationId(String notificationId) {
+            this.notificationId = notificationId;
+            return this;
+        }
+
+        public PipelineContext build() {
+            if (analysis == null && snapshot == null) {
+                throw new IllegalStateException("Pipeline context requires an analysis or a snapshot");
+            }
+            return new PipelineContext(this);
+        }
+    }
+}
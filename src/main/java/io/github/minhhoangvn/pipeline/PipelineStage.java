@@ -0,0 +1,21 @@
+package io.github.minhhoangvn.pipeline;
+
+/**
+ * One step of the {@link NotificationPipeline}.
+ * <p>
+ * A stage reads what earlier stages put in the context, adds its own result, and either lets the
+ * pipeline continue or stops it with {@link PipelineContext#stop(String)}. Stages that need a
+ * history across analyses, such as the summary, flap and transition stages, keep it in the
+ * component they are given rather than in the stage, so each stage can still be run and measured
+ * on its own.
+ */
+public interface PipelineStage {
+
+    /** Short name, used in logs and in the timing metrics of the stage. */
+    String name();
+
+    /**
+     * @return {@code true} to continue with the next stage, {@code false} to stop the pipeline
+     */
+    boolean process(PipelineContext context);
+}
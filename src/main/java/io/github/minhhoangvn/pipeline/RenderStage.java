@@ -0,0 +1,37 @@
+package io.github.minhhoangvn.pipeline;
+
+import io.github.minhhoangvn.dispatch.LazyPayload;
+import io.github.minhhoangvn.utils.AdaptiveCardsFormat;
+
+/**
+ * Attaches the Adaptive Card payload, rendered from the snapshot only once a destination is
+ * cleared to send it: the analysis card, or the flapping notice when the quality gate just started
+ * flapping.
+ * <p>
+ * Everything the card needs, the team name included, is taken from the context here and captured
+ * by the payload, so a dispatcher thread renders it with the settings of its own analysis.
+ */
+public class RenderStage implements PipelineStage {
+
+    @Override
+    public String name() {
+        return "render";
+    }
+
+    @Override
+    public boolean process(PipelineContext context) {
+        AnalysisSnapshot snapshot = context.getSnapshot();
+        String projectUrl = context.getProjectUrl();
+        String avatarUrl = context.getAvatarUrl();
+        String teamName = context.getTeamName();
+        if (context.isFlapping()) {
+            int changes = context.getFlapChanges();
+            int window = context.getFlapWindow();
+            context.setPayload(LazyPayload.of(() -> AdaptiveCardsFormat.createFlappingPayload(snapshot, projectUrl, changes, window)));
+            return true;
+        }
+        String headline = context.getTrigger() != null ? context.getTrigger().getHeadline() : null;
+        context.setPayload(LazyPayload.of(() -> AdaptiveCardsFormat.createMessageCardJSONPayload(snapshot, projectUrl, avatarUrl, teamName, headline)));
+        return true;
+    }
+}
@@ -0,0 +1,33 @@
+package io.github.minhhoangvn.pipeline;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Decides where the notification goes and where it links to.
+ */
+public class RouteStage implements PipelineStage {
+
+    @Override
+    public String name() {
+        return "route";
+    }
+
+    @Override
+    public boolean process(PipelineContext context) {
+        if (StringUtils.isEmpty(context.getWebhookUrl())) {
+            return context.stop("no webhook URL configured");
+        }
+        context.setProjectUrl(buildProjectUrl(context.getBaseUrl(), context.getSnapshot().getProjectKey()));
+        return true;
+    }
+
+    /** @param baseUrl base URL already resolved by the settings, see {@code NotifierSettings.resolveBaseUrl} */
+    static String buildProjectUrl(String baseUrl, String projectKey) {
+        // Ensure baseUrl doesn't end with slash
+        if (baseUrl.endsWith("/")) {
+            baseUrl = baseUrl.substring(0, baseUrl.length() - 1);
+        }
+
+        return baseUrl + "/dashboard?id=" + projectKey;
+    }
+}
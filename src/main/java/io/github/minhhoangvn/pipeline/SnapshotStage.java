@@ -0,0 +1,27 @@
+package io.github.minhhoangvn.pipeline;
+
+/**
+ * Copies what the notifier needs out of the analysis, once, and gives the notification its id when
+ * the caller did not.
+ */
+public class SnapshotStage implements PipelineStage {
+
+    @Override
+    public String name() {
+        return "snapshot";
+    }
+
+    @Override
+    public boolean process(PipelineContext context) {
+        if (context.getSnapshot() == null) {
+            context.setSnapshot(AnalysisSnapshot.of(context.getAnalysis()));
+        }
+        if (context.getNotificationId() == null) {
+            AnalysisSnapshot snapshot = context.getSnapshot();
+            context.setNotificationId(context.getAnalysis() != null
+                    ? NotificationId.of(context.getAnalysis())
+                    : NotificationId.next(snapshot.getCeTaskId(), null));
+        }
+        return true;
+    }
+}
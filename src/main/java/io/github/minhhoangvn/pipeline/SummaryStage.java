@@ -0,0 +1,26 @@
+package io.github.minhhoangvn.pipeline;
+
+import io.github.minhhoangvn.summary.QualitySummaryAggregator;
+
+/**
+ * Folds the analysis into the quality summary, whether or not it is notified on its own.
+ */
+public class SummaryStage implements PipelineStage {
+
+    private final QualitySummaryAggregator aggregator;
+
+    public SummaryStage(QualitySummaryAggregator aggregator) {
+        this.aggregator = aggregator;
+    }
+
+    @Override
+    public String name() {
+        return "summary";
+    }
+
+    @Override
+    public boolean process(PipelineContext context) {
+        aggregator.record(context.getWebhookUrl(), context.getSnapshot());
+        return true;
+    }
+}
@@ -0,0 +1,39 @@
+package io.github.minhhoangvn.pipeline;
+
+import io.github.minhhoangvn.transition.TransitionTracker;
+import io.github.minhhoangvn.transition.Trigger;
+
+/**
+ * Only lets through analyses that change the quality gate status, or remind of one still failing,
+ * as set by the transition triggers; the others are stopped before anything is rendered. The
+ * status notified is taken as delivered once Teams accepted the card.
+ */
+public class TransitionStage implements PipelineStage {
+
+    private final TransitionTracker tracker;
+
+    public TransitionStage(TransitionTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    public String name() {
+        return "transition";
+    }
+
+    @Override
+    public boolean process(PipelineContext context) {
+        AnalysisSnapshot snapshot = context.getSnapshot();
+        if (snapshot.getQualityGateStatus() == null) {
+            return true;
+        }
+        Trigger trigger = tracker.record(snapshot.getProjectKey(), snapshot.getBranch(), snapshot.isQualityGateFailed());
+        // The flapping notice goes out whatever the status did
+        if (!context.isFlapping() && trigger == null) {
+            return context.stop("no quality gate transition to notify");
+        }
+        context.setTrigger(trigger);
+        context.whenDelivered(() -> tracker.delivered(snapshot.getProjectKey(), snapshot.getBranch(), snapshot.isQualityGateFailed()));
+        return true;
+    }
+}
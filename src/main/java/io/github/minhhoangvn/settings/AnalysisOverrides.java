@@ -0,0 +1,245 @@
+package io.github.minhhoangvn.settings;
+
+import io.github.minhhoangvn.filter.NotificationFilter;
+import io.github.minhhoangvn.utils.Constants;
+import okhttp3.HttpUrl;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Settings overridden for a single analysis through {@code sonar.msteams.*} scanner properties,
+ * e.g. {@code -Dsonar.msteams.webhook.url=...} from a CI pipeline.
+ * <p>
+ * Only the keys in the {@code sonar.msteams.overrides.allowed} allowlist set by an administrator
+ * are taken, and only among {@link #OVERRIDABLE_KEYS}. The scanner properties are read in one pass
+ * when the analysis finishes; an invalid value is logged and the server setting is kept.
+ * <p>
+ * Anyone allowed to scan a project sets these properties, so a webhook URL override must be an
+ * HTTPS URL on one of the hosts the administrator allows in
+ * {@code sonar.msteams.overrides.webhook.hosts}, and an avatar override an HTTP(S) URL.
+ */
+public final class AnalysisOverrides {
+
+    private static final Logger LOGGER = Loggers.get(AnalysisOverrides.class);
+    private static final String PREFIX = "sonar.msteams.";
+
+    /** Keys a scanner property may override, when the administrator allows it. */
+    public static final Set<String> OVERRIDABLE_KEYS = Collections.unmodifiableSet(new LinkedHashSet<>(List.of(
+            Constants.WEBHOOK_URL,
+            Constants.WEBHOOK_MESSAGE_AVATAR,
+            Constants.WEBHOOK_SEND_ON_FAILED,
+            Constants.WEBHOOK_TEAM_NAME,
+            Constants.NOTIFY_FILTER)));
+
+    public static final AnalysisOverrides NONE = new AnalysisOverrides(null, null, null, null, null, null);
+
+    private final String webhookUrl;
+    private final HttpUrl webhookHttpUrl;
+    private final String avatarUrl;
+    private final Boolean sendOnFailedOnly;
+    private final String teamName;
+    private final NotificationFilter filter;
+
+    private AnalysisOverrides(String webhookUrl, HttpUrl webhookHttpUrl, String avatarUrl, Boolean sendOnFailedOnly,
+                              String teamName, NotificationFilter filter) {
+        this.webhookUrl = webhookUrl;
+        this.webhookHttpUrl = webhookHttpUrl;
+        this.avatarUrl = avatarUrl;
+        this.sendOnFailedOnly = sendOnFailedOnly;
+        this.teamName = teamName;
+        this.filter = filter;
+    }
+
+    /**
+     * Reads the overrides of one analysis.
+     *
+     * @param scannerProperties properties passed to the scanner, may be {@code null}
+     * @param allowedKeys       keys the administrator allows to override
+     */
+    public static AnalysisOverrides parse(Map<String, String> scannerProperties, Set<String> allowedKeys) {
+        return parse(scannerProperties, allowedKeys, parseAllowedHosts(Constants.DEFAULT_OVERRIDES_WEBHOOK_HOSTS));
+    }
+
+    /**
+     * Reads the overrides of one analysis.
+     *
+     * @param scannerProperties properties passed to the scanner, may be {@code null}
+     * @param allowedKeys       keys the administrator allows to override
+     * @param allowedHosts      hosts a webhook URL override may point at, see {@link #parseAllowedHosts(String)}
+     */
+    public static AnalysisOverrides parse(Map<String, String> scannerProperties, Set<String> allowedKeys,
+                                          List<String> allowedHosts) {
+        if (allowedKeys.isEmpty() || scannerProperties == null || scannerProperties.isEmpty()) {
+            return NONE;
+        }
+        String webhookUrl = null;
+        HttpUrl webhookHttpUrl = null;
+        String avatarUrl = null;
+        Boolean sendOnFailedOnly = null;
+        String teamName = null;
+        NotificationFilter filter = null;
+        List<String> ignored = null;
+        for (Map.Entry<String, String> entry : scannerProperties.entrySet()) {
+            String key = entry.getKey();
+            String value = entry.getValue();
+            if (!key.startsWith(PREFIX) || StringUtils.isBlank(value)) {
+                continue;
+            }
+            if (!allowedKeys.contains(key)) {
+                if (ignored == null) {
+                    ignored = new ArrayList<>();
+                }
+                ignored.add(key);
+                continue;
+            }
+            value = value.trim();
+            switch (key) {
+                case Constants.WEBHOOK_URL:
+                    HttpUrl parsed = HttpUrl.parse(value);
+                    if (parsed != null && parsed.isHttps() && isAllowedHost(parsed.host(), allowedHosts)) {
+                        webhookUrl = value;
+                        webhookHttpUrl = parsed;
+                    } else {
+                        LOGGER.warn("MS Teams Plugin: Ignoring webhook URL override not on an allowed HTTPS host: {}",
+                                parsed != null ? parsed.host() : NotifierSettings.maskUrl(value));
+                    }
+                    break;
+                case Constants.WEBHOOK_MESSAGE_AVATAR:
+                    HttpUrl avatar = HttpUrl.parse(value);
+                    if (avatar != null) {
+                        avatarUrl = avatar.toString();
+                    } else {
+                        LOGGER.warn("MS Teams Plugin: Ignoring avatar URL override that is not an HTTP(S) URL");
+                    }
+                    break;
+                case Constants.WEBHOOK_SEND_ON_FAILED:
+                    sendOnFailedOnly = Boolean.parseBoolean(value);
+                    break;
+                case Constants.WEBHOOK_TEAM_NAME:
+                    teamName = value;
+                    break;
+                case Constants.NOTIFY_FILTER:
+                    filter = NotifierSettings.compileFilter(value);
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (ignored != null) {
+            LOGGER.warn("MS Teams Plugin: Ignoring scanner properties not allowed to override the server settings: {}", ignored);
+        }
+        if (webhookUrl == null && avatarUrl == null && sendOnFailedOnly == null && teamName == null && filter == null) {
+            return NONE;
+        }
+        return new AnalysisOverrides(webhookUrl, webhookHttpUrl, avatarUrl, sendOnFailedOnly, teamName, filter);
+    }
+
+    /**
+     * Reads an allowlist such as {@code sonar.msteams.webhook.url,sonar.msteams.filter}, keeping
+     * only the keys that can be overridden.
+     */
+    public static Set<String> parseAllowedKeys(String allowlist) {
+        if (StringUtils.isBlank(allowlist)) {
+            return Collections.emptySet();
+        }
+        Set<String> allowed = new LinkedHashSet<>();
+        for (String key : allowlist.split(",")) {
+            String trimmed = key.trim();
+            if (OVERRIDABLE_KEYS.contains(trimmed)) {
+                allowed.add(trimmed);
+            } else if (!trimmed.isEmpty()) {
+                LOGGER.warn("MS Teams Plugin: '{}' cannot be overridden per analysis, ignoring it in the allowlist", trimmed);
+            }
+        }
+        return Collections.unmodifiableSet(allowed);
+    }
+
+    /**
+     * Reads a host allowlist such as {@code *.webhook.office.com,hooks.example.com}, lower-cased.
+     */
+    public static List<String> parseAllowedHosts(String allowlist) {
+        if (StringUtils.isBlank(allowlist)) {
+            return Collections.emptyList();
+        }
+        List<String> hosts = new ArrayList<>();
+        for (String host : allowlist.split(",")) {
+            String trimmed = host.trim().toLowerCase(Locale.ROOT);
+            if (!trimmed.isEmpty()) {
+                hosts.add(trimmed);
+            }
+        }
+        return Collections.unmodifiableList(hosts);
+    }
+
+    // A leading '*.' matches any subdomain, but not the domain itself
+    static boolean isAllowedHost(String host, List<String> allowedHosts) {
+        for (String allowed : allowedHosts) {
+            if (allowed.startsWith("*.") ? host.endsWith(allowed.substring(1)) : host.equals(allowed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        return this == NONE;
+    }
+
+    public String webhookUrlOr(String defaultValue) {
+        return webhookUrl != null ? webhookUrl : defaultValue;
+    }
+
+    /** Parsed webhook URL override, or {@code null} when the webhook is not overridden. */
+    public HttpUrl getWebhookHttpUrl() {
+        return webhookHttpUrl;
+    }
+
+    public String avatarUrlOr(String defaultValue) {
+        return avatarUrl != null ? avatarUrl : defaultValue;
+    }
+
+    public boolean sendOnFailedOnlyOr(boolean defaultValue) {
+        return sendOnFailedOnly != null ? sendOnFailedOnly : defaultValue;
+    }
+
+    public String teamNameOr(String defaultValue) {
+        return teamName != null ? teamName : defaultValue;
+    }
+
+    public NotificationFilter filterOr(NotificationFilter defaultValue) {
+        return filter != null ? filter : defaultValue;
+    }
+
+    @Override
+    public String toString() {
+        if (isEmpty()) {
+            return "none";
+        }
+        List<String> keys = new ArrayList<>();
+        if (webhookUrl != null) {
+            keys.add(Constants.WEBHOOK_URL + "=" + NotifierSettings.maskUrl(webhookUrl));
+        }
+        if (avatarUrl != null) {
+            keys.add(Constants.WEBHOOK_MESSAGE_AVATAR + "=" + avatarUrl);
+        }
+        if (sendOnFailedOnly != null) {
+            keys.add(Constants.WEBHOOK_SEND_ON_FAILED + "=" + sendOnFailedOnly);
+        }
+        if (teamName != null) {
+            keys.add(Constants.WEBHOOK_TEAM_NAME + "=" + teamName);
+        }
+        if (filter != null) {
+            keys.add(Constants.NOTIFY_FILTER + "=" + filter.getExpression());
+        }
+        return String.join(", ", keys);
+    }
+}
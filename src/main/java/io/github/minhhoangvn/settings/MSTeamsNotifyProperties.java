@@ -19,7 +19,13 @@ public class MSTeamsNotifyProperties {
             getWebhookUrlProperty(),
             getWebhookMessageAvatarProperty(),
             getWebhookSendOnFailedProperty(),
-            getWebhookTeamNameProperty()
+            getWebhookTeamNameProperty(),
+            getNotifyFilterProperty(),
+            getQuietHoursProperty(),
+            getSummaryScheduleProperty(),
+            getOverridesAllowedProperty(),
+            getOverridesWebhookHostsProperty(),
+            getCaptureEnableProperty()
         );
     }
 
@@ -77,4 +83,91 @@ public class MSTeamsNotifyProperties {
                 .index(4)
                 .build();
     }
+
+    public static PropertyDefinition getNotifyFilterProperty() {
+        return PropertyDefinition.builder(Constants.NOTIFY_FILTER)
+                .name("Notification Filter")
+                .description("Only notify analyses matching this expression, e.g. "
+                        + "<code>qualityGate = ERROR</code>, "
+                        + "<code>condition.new_coverage &lt; 80 and branch = main</code>, "
+                        + "<code>condition.*security_rating*.status = ERROR</code> or "
+                        + "<code>project matches \"team-x/*\"</code>. "
+                        + "Combine with <code>and</code>, <code>or</code>, <code>not</code> and parentheses. "
+                        + "Leave empty to notify every analysis.")
+                .category(Constants.CATEGORY)
+                .type(PropertyType.TEXT)
+                .defaultValue("")
+                .index(5)
+                .build();
+    }
+
+    public static PropertyDefinition getQuietHoursProperty() {
+        return PropertyDefinition.builder(Constants.QUIET_HOURS)
+                .name("Quiet Hours")
+                .description("Hold notifications other than failed quality gates during this daily window and "
+                        + "send them when it ends, e.g. <code>22:00-08:00</code> or "
+                        + "<code>22:00-08:00 Europe/Paris</code>. Times are in the server time zone unless one is given. "
+                        + "Leave empty to send notifications right away.")
+                .category(Constants.CATEGORY)
+                .type(PropertyType.STRING)
+                .defaultValue("")
+                .index(6)
+                .build();
+    }
+
+    public static PropertyDefinition getSummaryScheduleProperty() {
+        return PropertyDefinition.builder(Constants.SUMMARY_SCHEDULE)
+                .name("Quality Summary")
+                .description("Send each channel a summary of the quality of its projects on this schedule: "
+                        + "<code>daily 09:00</code> or <code>weekly MON 09:00</code>, optionally followed by a time zone "
+                        + "such as <code>Europe/Paris</code>. Only main branch analyses are counted. "
+                        + "Leave empty to send no summary.")
+                .category(Constants.CATEGORY)
+                .type(PropertyType.STRING)
+                .defaultValue("")
+                .index(7)
+                .build();
+    }
+
+    public static PropertyDefinition getOverridesAllowedProperty() {
+        return PropertyDefinition.builder(Constants.OVERRIDES_ALLOWED)
+                .name("Scanner Overrides")
+                .description("Settings a single analysis may override with scanner properties such as "
+                        + "<code>-D" + Constants.WEBHOOK_URL + "=...</code>. Only "
+                        + String.join(", ", AnalysisOverrides.OVERRIDABLE_KEYS) + " can be allowed. "
+                        + "Leave empty to ignore scanner properties.")
+                .category(Constants.CATEGORY)
+                .type(PropertyType.STRING)
+                .multiValues(true)
+                .defaultValue("")
+                .index(8)
+                .build();
+    }
+
+    public static PropertyDefinition getOverridesWebhookHostsProperty() {
+        return PropertyDefinition.builder(Constants.OVERRIDES_WEBHOOK_HOSTS)
+                .name("Scanner Override Webhook Hosts")
+                .description("Hosts a webhook URL given by a scanner property may point at, over HTTPS, when "
+                        + Constants.WEBHOOK_URL + " can be overridden. A leading <code>*.</code> matches any subdomain, "
+                        + "e.g. <code>*.webhook.office.com</code>.")
+                .category(Constants.CATEGORY)
+                .type(PropertyType.STRING)
+                .multiValues(true)
+                .defaultValue(Constants.DEFAULT_OVERRIDES_WEBHOOK_HOSTS)
+                .index(9)
+                .build();
+    }
+
+    public static PropertyDefinition getCaptureEnableProperty() {
+        return PropertyDefinition.builder(Constants.CAPTURE_ENABLE)
+                .name("Capture Payloads")
+                .description("Keep the last cards sent to Microsoft Teams, with the request they were sent in, in a "
+                        + "fixed-size file on the Compute Engine, to investigate cards that render wrong. "
+                        + "Dump the file with <code>java -cp &lt;plugin jar&gt; io.github.minhhoangvn.capture.CaptureFileReader &lt;file&gt;</code>.")
+                .category(Constants.CATEGORY)
+                .type(PropertyType.BOOLEAN)
+                .defaultValue(String.valueOf(Constants.DEFAULT_CAPTURE_ENABLE))
+                .index(10)
+                .build();
+    }
 }
@@ -0,0 +1,362 @@
+package io.github.minhhoangvn.settings;
+
+import io.github.minhhoangvn.filter.NotificationFilter;
+import io.github.minhhoangvn.utils.Constants;
+import okhttp3.HttpUrl;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Notifier settings, loaded, validated and turned into ready-to-use objects once per settings
+ * change rather than once per analysis.
+ * <p>
+ * The first snapshot is built when the component is created, together with the system property
+ * and environment variable fallbacks, which are resolved once as they do not change while the
+ * server runs. Each call to {@link #current()} then only re-reads the SonarQube configuration,
+ * which is plain map lookups. The result is compared with the values the current snapshot was
+ * built from, and only a change triggers validation, URL parsing and logging again.
+ */
+@ComputeEngineSide
+public class NotifierSettings {
+
+    private static final Logger LOGGER = Loggers.get(NotifierSettings.class);
+    private static final String SONAR_URL_ENV = "SONAR_CORE_SERVERBASEURL";
+    private static final String DEFAULT_SONAR_URL = "http://localhost:9000";
+
+    private static final String[] KEYS = {
+            Constants.ENABLE_NOTIFY, Constants.WEBHOOK_URL, Constants.WEBHOOK_MESSAGE_AVATAR,
+            Constants.WEBHOOK_SEND_ON_FAILED, Constants.SONAR_URL, Constants.WEBHOOK_TEAM_NAME,
+            Constants.NOTIFY_FILTER, Constants.OVERRIDES_ALLOWED, Constants.OVERRIDES_WEBHOOK_HOSTS, Constants.CAPTURE_ENABLE};
+
+    private final Configuration configuration;
+    private final Map<String, String> fallbacks;
+    private final String baseUrlFromEnv;
+    private volatile Snapshot current;
+
+    public NotifierSettings(Configuration configuration) {
+        this.configuration = configuration;
+        this.fallbacks = readFallbacks();
+        this.baseUrlFromEnv = StringUtils.trimToNull(System.getenv(SONAR_URL_ENV));
+        this.current = new Snapshot(readRawValues(), baseUrlFromEnv);
+        current.log();
+    }
+
+    /** Settings as of now, rebuilt only when one of the raw values has changed since the last call. */
+    public Snapshot current() {
+        RawValues raw = readRawValues();
+        Snapshot snapshot = current;
+        if (snapshot == null || !snapshot.raw.equals(raw)) {
+            synchronized (this) {
+                snapshot = current;
+                if (snapshot == null || !snapshot.raw.equals(raw)) {
+                    snapshot = new Snapshot(raw, baseUrlFromEnv);
+                    current = snapshot;
+                    snapshot.log();
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    private RawValues readRawValues() {
+        return new RawValues(
+                readBoolean(Constants.ENABLE_NOTIFY),
+                readString(Constants.WEBHOOK_URL),
+                readString(Constants.WEBHOOK_MESSAGE_AVATAR),
+                readBoolean(Constants.WEBHOOK_SEND_ON_FAILED),
+                readString(Constants.SONAR_URL),
+                readString(Constants.WEBHOOK_TEAM_NAME),
+                readString(Constants.NOTIFY_FILTER),
+                readString(Constants.OVERRIDES_ALLOWED),
+                readString(Constants.OVERRIDES_WEBHOOK_HOSTS),
+                readBoolean(Constants.CAPTURE_ENABLE));
+    }
+
+    // Priority: System Properties -> Environment Variables, behind the SonarQube Configuration
+    private static Map<String, String> readFallbacks() {
+        Map<String, String> values = new HashMap<>();
+        for (String key : KEYS) {
+            String value = StringUtils.trimToNull(System.getProperty(key));
+            if (value == null) {
+                value = StringUtils.trimToNull(System.getenv(key.replace(".", "_").toUpperCase(Locale.ROOT)));
+            }
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return Collections.unmodifiableMap(values);
+    }
+
+    private String readString(String key) {
+        try {
+            if (configuration != null) {
+                String value = configuration.get(key).orElse(null);
+                if (StringUtils.isNotBlank(value)) {
+                    return value.trim();
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.debug("Could not access SonarQube configuration for key {}: {}", key, e.getMessage());
+        }
+        return fallbacks.get(key);
+    }
+
+    private String readBoolean(String key) {
+        try {
+            if (configuration != null) {
+                return configuration.getBoolean(key).map(String::valueOf).orElse(null);
+            }
+        } catch (Exception e) {
+            LOGGER.debug("Could not access SonarQube boolean configuration for key {}: {}", key, e.getMessage());
+        }
+        return readString(key);
+    }
+
+    /**
+     * Base URL of the server as the settings resolve it: the configured one, else
+     * {@code SONAR_CORE_SERVERBASEURL}, else {@code http://localhost:9000}. For callers without a snapshot.
+     */
+    public static String resolveBaseUrl(String configured) {
+        return resolveBaseUrl(configured, StringUtils.trimToNull(System.getenv(SONAR_URL_ENV)));
+    }
+
+    private static String resolveBaseUrl(String configured, String fromEnv) {
+        if (StringUtils.isNotEmpty(configured)) {
+            return configured;
+        }
+        return fromEnv != null ? fromEnv : DEFAULT_SONAR_URL;
+    }
+
+    /** Masks a webhook URL, which carries its secret in the path, for logging. */
+    public static String maskUrl(String url) {
+        if (StringUtils.isEmpty(url) || url.length() < 20) {
+            return "[MASKED]";
+        }
+        return url.substring(0, 20) + "..." + url.substring(url.length() - 10);
+    }
+
+    /**
+     * Compiles a filter expression, or returns {@code null} when there is none. An invalid
+     * expression is logged and ignored, so a typo does not silently mute every notification.
+     */
+    public static NotificationFilter compileFilter(String expression) {
+        if (StringUtils.isBlank(expression)) {
+            return null;
+        }
+        try {
+            return NotificationFilter.compile(expression.trim());
+        } catch (IllegalArgumentException e) {
+            LOGGER.error("MS Teams Plugin: {} - notifying every analysis until it is fixed", e.getMessage());
+            return null;
+        }
+    }
+
+    static boolean isValidWebhookUrl(String url) {
+        // Lenient for testing - plain HTTP is accepted for local hosts only
+        return url.startsWith("https://") || url.startsWith("http://localhost") || url.startsWith("http://127.0.0.1");
+    }
+
+    /**
+     * Immutable, validated view of the settings.
+     */
+    public static final class Snapshot {
+        private final RawValues raw;
+        private final boolean enabled;
+        private final String webhookUrl;
+        private final HttpUrl webhookHttpUrl;
+        private final String maskedWebhookUrl;
+        private final String avatarUrl;
+        private final boolean sendOnFailedOnly;
+        private final String baseUrl;
+        private final String teamName;
+        private final NotificationFilter filter;
+        private final Set<String> allowedOverrides;
+        private final List<String> allowedWebhookHosts;
+        private final boolean captureEnabled;
+        private final boolean valid;
+        private final Map<String, String> values;
+
+        private Snapshot(RawValues raw, String baseUrlFromEnv) {
+            this.raw = raw;
+            this.enabled = raw.enabled != null ? Boolean.parseBoolean(raw.enabled) : Constants.DEFAULT_ENABLE_NOTIFY;
+            this.webhookUrl = raw.webhookUrl != null ? raw.webhookUrl : "";
+            this.webhookHttpUrl = isValidWebhookUrl(webhookUrl) ? HttpUrl.parse(webhookUrl) : null;
+            this.maskedWebhookUrl = maskUrl(webhookUrl);
+            this.avatarUrl = raw.avatarUrl != null ? raw.avatarUrl : Constants.DEFAULT_WEBHOOK_MESSAGE_AVATAR;
+            this.sendOnFailedOnly = raw.sendOnFailed != null ? Boolean.parseBoolean(raw.sendOnFailed) : Constants.DEFAULT_WEBHOOK_SEND_ON_FAILED;
+            this.baseUrl = resolveBaseUrl(raw.baseUrl, baseUrlFromEnv);
+            this.teamName = raw.teamName != null ? raw.teamName : Constants.DEFAULT_WEBHOOK_TEAM_NAME;
+            this.filter = compileFilter(raw.filter);
+            this.allowedOverrides = AnalysisOverrides.parseAllowedKeys(raw.allowedOverrides);
+            this.allowedWebhookHosts = AnalysisOverrides.parseAllowedHosts(
+                    raw.allowedWebhookHosts != null ? raw.allowedWebhookHosts : Constants.DEFAULT_OVERRIDES_WEBHOOK_HOSTS);
+            this.captureEnabled = raw.captureEnabled != null ? Boolean.parseBoolean(raw.captureEnabled) : Constants.DEFAULT_CAPTURE_ENABLE;
+            // A disabled plugin needs nothing else, so it is considered valid
+            this.valid = !enabled || webhookHttpUrl != null;
+
+            Map<String, String> map = new HashMap<>();
+            map.put(Constants.ENABLE_NOTIFY, String.valueOf(enabled));
+            if (enabled) {
+                map.put(Constants.WEBHOOK_URL, webhookUrl);
+                if (valid) {
+                    map.put(Constants.WEBHOOK_MESSAGE_AVATAR, avatarUrl);
+                    map.put(Constants.WEBHOOK_SEND_ON_FAILED, String.valueOf(sendOnFailedOnly));
+                    map.put(Constants.SONAR_URL, baseUrl);
+                    map.put(Constants.WEBHOOK_TEAM_NAME, teamName);
+                    if (filter != null) {
+                        map.put(Constants.NOTIFY_FILTER, filter.getExpression());
+                    }
+                }
+            }
+            this.values = Collections.unmodifiableMap(map);
+        }
+
+        private void log() {
+            if (!enabled) {
+                LOGGER.info("MS Teams Plugin: Settings loaded, plugin is disabled");
+                return;
+            }
+            if (StringUtils.isEmpty(webhookUrl)) {
+                LOGGER.error("MS Teams Plugin: Webhook URL is required but not configured. Please set '{}' in Administration > Configuration > Microsoft Teams", Constants.WEBHOOK_URL);
+                return;
+            }
+            if (!valid) {
+                LOGGER.error("MS Teams Plugin: Invalid webhook URL format: {}", maskedWebhookUrl);
+                return;
+            }
+            if (raw.baseUrl == null) {
+                LOGGER.warn("MS Teams Plugin: SonarQube base URL not configured, using: {}", baseUrl);
+            }
+            LOGGER.info("=== MS Teams Plugin: Validated Configuration Summary ===");
+            LOGGER.info("  - Plugin Enabled: {}", enabled);
+            LOGGER.info("  - Webhook URL: {}", maskedWebhookUrl);
+            LOGGER.info("  - Avatar URL: {}", avatarUrl);
+            LOGGER.info("  - Send on Failed Only: {}", sendOnFailedOnly);
+            LOGGER.info("  - SonarQube Base URL: {}", baseUrl);
+            LOGGER.info("  - Team name: '{}'", StringUtils.isEmpty(teamName) ? "[NOT SET - will use 'DevOps Team']" : teamName);
+            LOGGER.info("  - Filter: {}", filter != null ? filter.getExpression() : "[NOT SET - every analysis]");
+            LOGGER.info("  - Scanner overrides: {}", allowedOverrides.isEmpty() ? "[NOT ALLOWED]" : allowedOverrides);
+            if (allowedOverrides.contains(Constants.WEBHOOK_URL)) {
+                LOGGER.info("  - Webhook hosts for overrides: {}", allowedWebhookHosts);
+            }
+            LOGGER.info("  - Payload capture: {}", captureEnabled);
+            LOGGER.info("=== End Configuration Summary ===");
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /** Whether notifications can be sent with these settings; a disabled plugin is valid. */
+        public boolean isValid() {
+            return valid;
+        }
+
+        public String getWebhookUrl() {
+            return webhookUrl;
+        }
+
+        /** Parsed webhook URL, or {@code null} when it is missing or invalid. */
+        public HttpUrl getWebhookHttpUrl() {
+            return webhookHttpUrl;
+        }
+
+        public String getMaskedWebhookUrl() {
+            return maskedWebhookUrl;
+        }
+
+        public String getAvatarUrl() {
+            return avatarUrl;
+        }
+
+        public boolean isSendOnFailedOnly() {
+            return sendOnFailedOnly;
+        }
+
+        public String getBaseUrl() {
+            return baseUrl;
+        }
+
+        public String getTeamName() {
+            return teamName;
+        }
+
+        /** Compiled notification filter, or {@code null} when every analysis is notified. */
+        public NotificationFilter getFilter() {
+            return filter;
+        }
+
+        /** Keys scanner properties may override for a single analysis, see {@link AnalysisOverrides}. */
+        public Set<String> getAllowedOverrides() {
+            return allowedOverrides;
+        }
+
+        /** Hosts a webhook URL override may point at, see {@link AnalysisOverrides#parseAllowedHosts(String)}. */
+        public List<String> getAllowedWebhookHosts() {
+            return allowedWebhookHosts;
+        }
+
+        /** Whether sent payloads are kept in the capture file, see {@code PayloadCapture}. */
+        public boolean isCaptureEnabled() {
+            return captureEnabled;
+        }
+
+        /** The validated values by property key, as published to the post-analysis task. */
+        public Map<String, String> asMap() {
+            return values;
+        }
+    }
+
+    private static final class RawValues {
+        private final String enabled;
+        private final String webhookUrl;
+        private final String avatarUrl;
+        private final String sendOnFailed;
+        private final String baseUrl;
+        private final String teamName;
+        private final String filter;
+        private final String allowedOverrides;
+        private final String allowedWebhookHosts;
+        private final String captureEnabled;
+
+        private RawValues(String enabled, String webhookUrl, String avatarUrl, String sendOnFailed, String baseUrl,
+                          String teamName, String filter, String allowedOverrides, String allowedWebhookHosts,
+                          String captureEnabled) {
+            this.enabled = enabled;
+            this.webhookUrl = webhookUrl;
+            this.avatarUrl = avatarUrl;
+            this.sendOnFailed = sendOnFailed;
+            this.baseUrl = baseUrl;
+            this.teamName = teamName;
+            this.filter = filter;
+            this.allowedOverrides = allowedOverrides;
+            this.allowedWebhookHosts = allowedWebhookHosts;
+            this.captureEnabled = captureEnabled;
+        }
+
+        private Object[] fields() {
+            return new Object[]{enabled, webhookUrl, avatarUrl, sendOnFailed, baseUrl, teamName, filter, allowedOverrides, allowedWebhookHosts, captureEnabled};
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof RawValues && Arrays.equals(fields(), ((RawValues) o).fields());
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(fields());
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package io.github.minhhoangvn.summary;
+
+import io.github.minhhoangvn.pipeline.AnalysisSnapshot;
+import org.sonar.api.ce.posttask.QualityGate;
+
+import java.util.Arrays;
+
+/**
+ * Running state of one project over the current summary period, the same size whatever the
+ * number of analyses: last quality gate status, transitions and, per tracked metric, the value at
+ * the start of the period with the minimum, maximum and last value since.
+ * <p>
+ * Not thread-safe; the {@link QualitySummaryAggregator} guards it.
+ */
+final class ProjectAccumulator {
+
+    /** Metrics followed across analyses, read from the quality gate conditions. */
+    static final String[] TRACKED_METRICS = {"coverage", "new_coverage", "new_violations", "new_duplicated_lines_density"};
+
+    private final String projectKey;
+    private String projectName;
+    private QualityGate.Status lastStatus;
+    private int analyses;
+    private int newlyFailing;
+    private int recovered;
+    private final double[] baseline = nanArray();
+    private final double[] min = nanArray();
+    private final double[] max = nanArray();
+    private final double[] last = nanArray();
+
+    ProjectAccumulator(String projectKey, String projectName) {
+        this.projectKey = projectKey;
+        this.projectName = projectName;
+    }
+
+    private static double[] nanArray() {
+        double[] values = new double[TRACKED_METRICS.length];
+        Arrays.fill(values, Double.NaN);
+        return values;
+    }
+
+    void record(AnalysisSnapshot snapshot) {
+        projectName = snapshot.getProjectName();
+        analyses++;
+        QualityGate.Status status = snapshot.getQualityGateStatus();
+        if (status != null) {
+            if (lastStatus == QualityGate.Status.ERROR && status != QualityGate.Status.ERROR) {
+                recovered++;
+            } else if (lastStatus != null && lastStatus != QualityGate.Status.ERROR && status == QualityGate.Status.ERROR) {
+                newlyFailing++;
+            }
+            lastStatus = status;
+        }
+        for (int i = 0; i < TRACKED_METRICS.length; i++) {
+            double value = parse(snapshot.getConditionValue(TRACKED_METRICS[i]));
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            if (Double.isNaN(baseline[i])) {
+                baseline[i] = value;
+            }
+            min[i] = Double.isNaN(min[i]) ? value : Math.min(min[i], value);
+            max[i] = Double.isNaN(max[i]) ? value : Math.max(max[i], value);
+            last[i] = value;
+        }
+    }
+
+    private static double parse(String value) {
+        if (value == null) {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /** Starts a new period from the current state. */
+    void resetPeriod() {
+        analyses = 0;
+        newlyFailing = 0;
+        recovered = 0;
+        for (int i = 0; i < TRACKED_METRICS.length; i++) {
+            baseline[i] = last[i];
+            min[i] = last[i];
+            max[i] = last[i];
+        }
+    }
+
+    public String getProjectKey() {
+        return projectKey;
+    }
+
+    public String getProjectName() {
+        return projectName;
+    }
+
+    public QualityGate.Status getLastStatus() {
+        return lastStatus;
+    }
+
+    public boolean isFailing() {
+        return lastStatus == QualityGate.Status.ERROR;
+    }
+
+    /** Whether the project went from failed to passed this period and is still passing. */
+    public boolean hasRecovered() {
+        return recovered > 0 && !isFailing();
+    }
+
+    public boolean hasNewlyFailed() {
+        return newlyFailing > 0 && isFailing();
+    }
+
+    /** Whether overall coverage, or new code coverage when overall is not in the gate, dropped this period. */
+    public boolean isCoverageDown() {
+        int index = Double.isNaN(last[0]) ? 1 : 0;
+        return last[index] < baseline[index];
+    }
+
+    public int getAnalyses() {
+        return analyses;
+    }
+
+    /** Last value of the tracked metric, or {@code NaN} when it was never measured. */
+    public double last(String metricKey) {
+        int index = indexOf(metricKey);
+        return index < 0 ? Double.NaN : last[index];
+    }
+
+    public double min(String metricKey) {
+        int index = indexOf(metricKey);
+        return index < 0 ? Double.NaN : min[index];
+    }
+
+    public double max(String metricKey) {
+        int index = indexOf(metricKey);
+        return index < 0 ? Double.NaN : max[index];
+    }
+
+    private static int indexOf(String metricKey) {
+        for (int i = 0; i < TRACKED_METRICS.length; i++) {
+            if (TRACKED_METRICS[i].equals(metricKey)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Used by the SummaryStore
+
+    int getNewlyFailing() {
+        return newlyFailing;
+    }
+
+    int getRecovered() {
+        return recovered;
+    }
+
+    /** Baseline, minimum, maximum and last value of the tracked metric at the index. */
+    double[] metricState(int index) {
+        return new double[]{baseline[index], min[index], max[index], last[index]};
+    }
+
+    void restoreMetric(String metricKey, double[] state) {
+        int index = indexOf(metricKey);
+        if (index < 0 || state.length != 4) {
+            return;
+        }
+        baseline[index] = state[0];
+        min[index] = state[1];
+        max[index] = state[2];
+        last[index] = state[3];
+    }
+
+    void restore(QualityGate.Status lastStatus, int analyses, int newlyFailing, int recovered) {
+        this.lastStatus = lastStatus;
+        this.analyses = analyses;
+        this.newlyFailing = newlyFailing;
+        this.recovered = recovered;
+    }
+}
@@ -0,0 +1,130 @@
+package io.github.minhhoangvn.summary;
+
+import io.github.minhhoangvn.pipeline.AnalysisSnapshot;
+import io.github.minhhoangvn.utils.Constants;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.config.Configuration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Folds every analysis into one accumulator per project and destination as it finishes, so a
+ * periodic summary is read straight from the accumulators, without keeping or scanning history
+ * and without calling the SonarQube API.
+ * <p>
+ * Only main branch analyses count, and nothing is recorded unless a summary schedule is set. Each
+ * destination tracks at most {@value #MAX_PROJECTS_PER_DESTINATION} projects, dropping the least
+ * recently analysed ones.
+ */
+@ComputeEngineSide
+public class QualitySummaryAggregator {
+
+    static final int MAX_PROJECTS_PER_DESTINATION = 10_000;
+
+    private final boolean enabled;
+    private final Map<String, Map<String, ProjectAccumulator>> projectsByDestination = new HashMap<>();
+
+    public QualitySummaryAggregator(Configuration configuration) {
+        this(configuration.get(Constants.SUMMARY_SCHEDULE).filter(StringUtils::isNotBlank).isPresent());
+    }
+
+    QualitySummaryAggregator(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized void record(String destination, AnalysisSnapshot snapshot) {
+        if (!enabled || destination == null || snapshot.getBranch() != null) {
+            return;
+        }
+        projectsFor(destination)
+                .computeIfAbsent(snapshot.getProjectKey(), key -> new ProjectAccumulator(key, snapshot.getProjectName()))
+                .record(snapshot);
+    }
+
+    private Map<String, ProjectAccumulator> projectsFor(String destination) {
+        return projectsByDestination.computeIfAbsent(destination, key -> new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ProjectAccumulator> eldest) {
+                return size() > MAX_PROJECTS_PER_DESTINATION;
+            }
+        });
+    }
+
+    public synchronized boolean isEmpty() {
+        return projectsByDestination.isEmpty();
+    }
+
+    /**
+     * Summarises the period of every destination and starts the next one.
+     *
+     * @return one summary per destination that had projects, in no particular order
+     */
+    public synchronized List<TeamSummary> closePeriod() {
+        List<TeamSummary> summaries = new ArrayList<>(projectsByDestination.size());
+        for (Map.Entry<String, Map<String, ProjectAccumulator>> entry : projectsByDestination.entrySet()) {
+            summaries.add(summarize(entry.getKey(), entry.getValue()));
+            for (ProjectAccumulator project : entry.getValue().values()) {
+                project.resetPeriod();
+            }
+        }
+        return summaries;
+    }
+
+    private static TeamSummary summarize(String destination, Map<String, ProjectAccumulator> projects) {
+        int analyses = 0;
+        List<String> failing = new ArrayList<>();
+        List<String> newlyFailing = new ArrayList<>();
+        List<String> recovered = new ArrayList<>();
+        List<String> coverageDown = new ArrayList<>();
+        for (ProjectAccumulator project : projects.values()) {
+            analyses += project.getAnalyses();
+            addIf(project.isFailing(), failing, project);
+            addIf(project.hasNewlyFailed(), newlyFailing, project);
+            addIf(project.hasRecovered(), recovered, project);
+            addIf(project.isCoverageDown(), coverageDown, project);
+        }
+        return new TeamSummary(destination, projects.size(), analyses,
+                sorted(failing), sorted(newlyFailing), sorted(recovered), sorted(coverageDown));
+    }
+
+    private static void addIf(boolean condition, List<String> names, ProjectAccumulator project) {
+        if (condition) {
+            names.add(project.getProjectName() != null ? project.getProjectName() : project.getProjectKey());
+        }
+    }
+
+    private static List<String> sorted(List<String> names) {
+        Collections.sort(names);
+        return names;
+    }
+
+    // Used by the SummaryStore
+
+    /** Hands every accumulator to the action, with recording held off meanwhile. */
+    synchronized void forEach(BiConsumer<String, ProjectAccumulator> action) {
+        projectsByDestination.forEach((destination, projects) -> projects.values().forEach(project -> action.accept(destination, project)));
+    }
+
+    synchronized int size() {
+        int size = 0;
+        for (Map<String, ProjectAccumulator> projects : projectsByDestination.values()) {
+            size += projects.size();
+        }
+        return size;
+    }
+
+    synchronized void restore(String destination, ProjectAccumulator project) {
+        projectsFor(destination).put(project.getProjectKey(), project);
+    }
+}
@@ -0,0 +1,89 @@
+package io.github.minhhoangvn.summary;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+
+/**
+ * When the quality summary goes out: every day, or one day a week, at a local time.
+ * <p>
+ * Written as {@code daily 09:00} or {@code weekly MON 09:00}, optionally followed by a time zone
+ * such as {@code Europe/Paris}.
+ */
+public final class SummarySchedule {
+
+    private final DayOfWeek dayOfWeek;
+    private final LocalTime time;
+    private final ZoneId zone;
+
+    private SummarySchedule(DayOfWeek dayOfWeek, LocalTime time, ZoneId zone) {
+        this.dayOfWeek = dayOfWeek;
+        this.time = time;
+        this.zone = zone;
+    }
+
+    public static SummarySchedule daily(LocalTime time, ZoneId zone) {
+        return new SummarySchedule(null, time, zone);
+    }
+
+    public static SummarySchedule weekly(DayOfWeek dayOfWeek, LocalTime time, ZoneId zone) {
+        return new SummarySchedule(dayOfWeek, time, zone);
+    }
+
+    /**
+     * @throws IllegalArgumentException when the schedule cannot be read
+     */
+    public static SummarySchedule parse(String spec, ZoneId defaultZone) {
+        String[] parts = spec.trim().split("\\s+");
+        try {
+            if (parts.length >= 2 && parts.length <= 3 && "daily".equalsIgnoreCase(parts[0])) {
+                return daily(LocalTime.parse(parts[1]), parts.length == 3 ? ZoneId.of(parts[2]) : defaultZone);
+            }
+            if (parts.length >= 3 && parts.length <= 4 && "weekly".equalsIgnoreCase(parts[0])) {
+                return weekly(dayOfWeek(parts[1]), LocalTime.parse(parts[2]), parts.length == 4 ? ZoneId.of(parts[3]) : defaultZone);
+            }
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Summary schedule '" + spec + "' cannot be read: " + e.getMessage(), e);
+        }
+        throw new IllegalArgumentException("Summary schedule '" + spec + "' is not of the form 'daily HH:mm' or 'weekly DAY HH:mm'");
+    }
+
+    private static DayOfWeek dayOfWeek(String day) {
+        String upper = day.toUpperCase(Locale.ROOT);
+        for (DayOfWeek candidate : DayOfWeek.values()) {
+            if (candidate.name().startsWith(upper) && upper.length() >= 3) {
+                return candidate;
+            }
+        }
+        throw new DateTimeException("Unknown day of week '" + day + "'");
+    }
+
+    public boolean isWeekly() {
+        return dayOfWeek != null;
+    }
+
+    /** First time the summary is due strictly after the given time. */
+    public long nextRunAfter(long nowMillis) {
+        ZonedDateTime now = Instant.ofEpochMilli(nowMillis).atZone(zone);
+        ZonedDateTime next = now.toLocalDate().atTime(time).atZone(zone);
+        if (dayOfWeek != null) {
+            next = next.with(TemporalAdjusters.nextOrSame(dayOfWeek));
+        }
+        if (!next.isAfter(now)) {
+            next = dayOfWeek != null
+                    ? now.toLocalDate().plusDays(1).with(TemporalAdjusters.nextOrSame(dayOfWeek)).atTime(time).atZone(zone)
+                    : now.toLocalDate().plusDays(1).atTime(time).atZone(zone);
+        }
+        return next.toInstant().toEpochMilli();
+    }
+
+    @Override
+    public String toString() {
+        return (dayOfWeek != null ? "weekly " + dayOfWeek : "daily") + " " + time + " " + zone;
+    }
+}
@@ -0,0 +1,164 @@
+package io.github.minhhoangvn.summary;
+
+import org.sonar.api.ce.posttask.QualityGate;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+
+/**
+ * Keeps the project accumulators of a {@link QualitySummaryAggregator} in a compact binary file
+ * across restarts: a fixed-size record per project, with no history.
+ * <p>
+ * The file holds webhook URLs, so it is written readable by its owner only where the file system
+ * supports it. A file of another format version is ignored.
+ */
+public class SummaryStore {
+
+    private static final Logger LOGGER = Loggers.get(SummaryStore.class);
+    private static final int MAGIC = 0x4D535153;
+    private static final int VERSION = 1;
+
+    private final Path file;
+
+    public SummaryStore(Path file) {
+        this.file = file;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Writes every accumulator of the aggregator, replacing the previous file.
+     *
+     * @return the number of projects saved
+     */
+    public int save(QualitySummaryAggregator aggregator) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        int[] saved = {0};
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        try {
+            aggregator.forEach((destination, project) -> {
+                try {
+                    out.writeBoolean(true);
+                    writeProject(out, destination, project);
+                    saved[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.writeBoolean(false);
+        out.flush();
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream stream = Files.newOutputStream(temp)) {
+            restrictToOwner(temp);
+            bytes.writeTo(stream);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return saved[0];
+    }
+
+    private static void writeProject(DataOutputStream out, String destination, ProjectAccumulator project) throws IOException {
+        out.writeUTF(destination);
+        out.writeUTF(project.getProjectKey());
+        out.writeUTF(project.getProjectName() != null ? project.getProjectName() : "");
+        out.writeUTF(project.getLastStatus() != null ? project.getLastStatus().name() : "");
+        out.writeInt(project.getAnalyses());
+        out.writeInt(project.getNewlyFailing());
+        out.writeInt(project.getRecovered());
+        out.writeByte(ProjectAccumulator.TRACKED_METRICS.length);
+        for (int i = 0; i < ProjectAccumulator.TRACKED_METRICS.length; i++) {
+            out.writeUTF(ProjectAccumulator.TRACKED_METRICS[i]);
+            for (double value : project.metricState(i)) {
+                out.writeDouble(value);
+            }
+        }
+    }
+
+    /**
+     * Reads the saved accumulators into the aggregator.
+     *
+     * @return the number of projects restored
+     */
+    public int load(QualitySummaryAggregator aggregator) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        int restored = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                LOGGER.warn("MS Teams Plugin: Ignoring quality summary file {} of an unknown format", file);
+                return 0;
+            }
+            while (in.readBoolean()) {
+                readProject(in, aggregator);
+                restored++;
+            }
+        } catch (EOFException e) {
+            LOGGER.warn("MS Teams Plugin: Quality summary file {} is truncated, restored {} projects", file, restored);
+        }
+        return restored;
+    }
+
+    private static void readProject(DataInputStream in, QualitySummaryAggregator aggregator) throws IOException {
+        String destination = in.readUTF();
+        String projectKey = in.readUTF();
+        String projectName = in.readUTF();
+        String status = in.readUTF();
+        int analyses = in.readInt();
+        int newlyFailing = in.readInt();
+        int recovered = in.readInt();
+        ProjectAccumulator project = new ProjectAccumulator(projectKey, projectName.isEmpty() ? null : projectName);
+        project.restore(parseStatus(status), analyses, newlyFailing, recovered);
+        int metrics = in.readUnsignedByte();
+        for (int i = 0; i < metrics; i++) {
+            String metricKey = in.readUTF();
+            double[] state = new double[4];
+            for (int j = 0; j < state.length; j++) {
+                state[j] = in.readDouble();
+            }
+            project.restoreMetric(metricKey, state);
+        }
+        aggregator.restore(destination, project);
+    }
+
+    private static QualityGate.Status parseStatus(String status) {
+        if (status.isEmpty()) {
+            return null;
+        }
+        try {
+            return QualityGate.Status.valueOf(status);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void restrictToOwner(Path path) {
+        try {
+            Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException | IOException e) {
+            LOGGER.debug("MS Teams Plugin: Could not restrict permissions of {}: {}", path, e.getMessage());
+        }
+    }
+}
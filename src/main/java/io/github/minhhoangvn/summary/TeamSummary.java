@@ -0,0 +1,72 @@
+package io.github.minhhoangvn.summary;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Quality of the projects notified to one destination over a summary period, taken from the
+ * project accumulators when the period ends.
+ */
+public final class TeamSummary {
+
+    private final String destination;
+    private final int projects;
+    private final int analyses;
+    private final List<String> failing;
+    private final List<String> newlyFailing;
+    private final List<String> recovered;
+    private final List<String> coverageDown;
+
+    TeamSummary(String destination, int projects, int analyses, List<String> failing, List<String> newlyFailing,
+                List<String> recovered, List<String> coverageDown) {
+        this.destination = destination;
+        this.projects = projects;
+        this.analyses = analyses;
+        this.failing = Collections.unmodifiableList(failing);
+        this.newlyFailing = Collections.unmodifiableList(newlyFailing);
+        this.recovered = Collections.unmodifiableList(recovered);
+        this.coverageDown = Collections.unmodifiableList(coverageDown);
+    }
+
+    /** Webhook URL the summary goes to. */
+    public String getDestination() {
+        return destination;
+    }
+
+    /** Projects tracked for the destination. */
+    public int getProjects() {
+        return projects;
+    }
+
+    /** Analyses recorded during the period. */
+    public int getAnalyses() {
+        return analyses;
+    }
+
+    /** Names of the projects whose last quality gate failed, sorted. */
+    public List<String> getFailing() {
+        return failing;
+    }
+
+    /** Names of the projects that started failing during the period, sorted. */
+    public List<String> getNewlyFailing() {
+        return newlyFailing;
+    }
+
+    /** Names of the projects that went from failed to passed during the period, sorted. */
+    public List<String> getRecovered() {
+        return recovered;
+    }
+
+    /** Names of the projects whose coverage dropped during the period, sorted. */
+    public List<String> getCoverageDown() {
+        return coverageDown;
+    }
+
+    /** One line overview, e.g. {@code 12 projects failing, coverage down on 4, 3 recovered}. */
+    public String getHeadline() {
+        return failing.size() + (failing.size() == 1 ? " project" : " projects") + " failing, "
+                + "coverage down on " + coverageDown.size() + ", "
+                + recovered.size() + " recovered";
+    }
+}
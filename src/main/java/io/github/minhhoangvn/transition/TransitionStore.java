@@ -0,0 +1,91 @@
+package io.github.minhhoangvn.transition;
+
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Keeps the quality gate statuses of a {@link TransitionTracker} in a binary file across restarts:
+ * project key and branch, status and time of the last notification, from the least to the most
+ * recently analysed. A file of another format version is ignored.
+ */
+public class TransitionStore {
+
+    private static final Logger LOGGER = Loggers.get(TransitionStore.class);
+    private static final int MAGIC = 0x4D535452;
+    private static final int VERSION = 1;
+
+    private final Path file;
+
+    public TransitionStore(Path file) {
+        this.file = file;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Writes every status of the tracker, replacing the previous file.
+     *
+     * @return the number of statuses saved
+     */
+    public int save(TransitionTracker tracker) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        int[] saved = {0};
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            tracker.forEach((key, failing, notifiedAt) -> {
+                out.writeBoolean(true);
+                out.writeUTF(key);
+                out.writeBoolean(failing);
+                out.writeLong(notifiedAt);
+                saved[0]++;
+            });
+            out.writeBoolean(false);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return saved[0];
+    }
+
+    /**
+     * Reads the saved statuses into the tracker.
+     *
+     * @return the number of statuses restored
+     */
+    public int load(TransitionTracker tracker) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        int restored = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                LOGGER.warn("MS Teams Plugin: Ignoring quality gate status file {} of an unknown format", file);
+                return 0;
+            }
+            while (in.readBoolean()) {
+                String key = in.readUTF();
+                boolean failing = in.readBoolean();
+                long notifiedAt = in.readLong();
+                tracker.restore(key, failing, notifiedAt);
+                restored++;
+            }
+        } catch (EOFException e) {
+            LOGGER.warn("MS Teams Plugin: Quality gate status file {} is truncated, restored {} projects", file, restored);
+        }
+        return restored;
+    }
+}
@@ -0,0 +1,245 @@
+package io.github.minhhoangvn.transition;
+
+import io.github.minhhoangvn.utils.Constants;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.Startable;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers the last quality gate status delivered for each project and branch, so only the
+ * {@link Trigger triggers} set in {@code sonar.msteams.triggers} are notified: a gate that starts
+ * failing, one that recovers, and reminders of one still failing at most once per
+ * {@code sonar.msteams.reminder.interval.ms}. Analyses that leave the status as it was are not
+ * notified at all.
+ * <p>
+ * A status to notify only counts once Teams accepted its card, see {@link #delivered}, so a
+ * transition filtered, shed or failed on the way is notified again on the next analysis.
+ * <p>
+ * Nothing is tracked unless a trigger is set. At most {@value #MAX_TRACKED} projects and branches
+ * are tracked, dropping the least recently analysed ones. The statuses are kept in
+ * {@code sonar.msteams.transitions.file}, written every {@value #SAVE_INTERVAL_MILLIS} ms when they
+ * changed and on stop.
+ */
+@ComputeEngineSide
+public class TransitionTracker implements Startable {
+
+    private static final Logger LOGGER = Loggers.get(TransitionTracker.class);
+    static final int MAX_TRACKED = 10_000;
+    static final long SAVE_INTERVAL_MILLIS = 10_000;
+
+    private final Set<Trigger> triggers;
+    private final long reminderIntervalMillis;
+    private final TransitionStore store;
+    private final LongSupplier clock;
+    private final Map<String, State> states = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, State> eldest) {
+            return size() > MAX_TRACKED;
+        }
+    };
+    private boolean changed;
+    private ScheduledExecutorService saver;
+
+    public TransitionTracker(Configuration configuration) {
+        this(triggers(configuration.getStringArray(Constants.TRIGGERS)),
+                configuration.getLong(Constants.REMINDER_INTERVAL_MS).orElse(Constants.DEFAULT_REMINDER_INTERVAL_MS),
+                new TransitionStore(transitionsFile(configuration)), System::currentTimeMillis);
+    }
+
+    /**
+     * @param store where statuses are kept across restarts, or {@code null} to keep them in memory only
+     */
+    TransitionTracker(Set<Trigger> triggers, long reminderIntervalMillis, TransitionStore store, LongSupplier clock) {
+        this.triggers = triggers.isEmpty() ? EnumSet.noneOf(Trigger.class) : EnumSet.copyOf(triggers);
+        this.reminderIntervalMillis = Math.max(0, reminderIntervalMillis);
+        this.store = store;
+        this.clock = clock;
+    }
+
+    static Set<Trigger> triggers(String[] values) {
+        Set<Trigger> triggers = EnumSet.noneOf(Trigger.class);
+        for (String value : values) {
+            if (StringUtils.isBlank(value)) {
+                continue;
+            }
+            try {
+                triggers.add(Trigger.parse(value));
+            } catch (IllegalArgumentException e) {
+                LOGGER.warn("MS Teams Plugin: Ignoring trigger: {}", e.getMessage());
+            }
+        }
+        return triggers;
+    }
+
+    static Path transitionsFile(Configuration configuration) {
+        return configuration.get(Constants.TRANSITIONS_FILE)
+                .map(Paths::get)
+                .orElseGet(() -> Paths.get(configuration.get(Constants.SONAR_PATH_DATA)
+                        .orElseGet(() -> System.getProperty("java.io.tmpdir")), Constants.DEFAULT_TRANSITIONS_FILE_NAME));
+    }
+
+    public boolean isEnabled() {
+        return !triggers.isEmpty();
+    }
+
+    /**
+     * Compares the quality gate status of an analysis with the last one delivered. A status that is
+     * not to be notified is taken as it is; one to notify waits for {@link #delivered}.
+     *
+     * @return the trigger to notify, or {@code null} when the analysis is not to be notified
+     */
+    public synchronized Trigger record(String projectKey, String branch, boolean failed) {
+        if (!isEnabled()) {
+            return null;
+        }
+        String key = key(projectKey, branch);
+        long now = clock.getAsLong();
+        State state = states.get(key);
+        // A project seen for the first time counts as passing, so a first failure is a new one
+        boolean lastFailing = state != null && state.failing;
+        long lastNotifiedAt = state != null ? state.notifiedAt : now;
+        Trigger trigger;
+        if (failed == lastFailing) {
+            boolean remind = failed && now - lastNotifiedAt >= reminderIntervalMillis;
+            trigger = remind ? Trigger.STILL_FAILING : null;
+        } else {
+            trigger = failed ? Trigger.NEWLY_FAILING : Trigger.RECOVERED;
+        }
+        if (trigger != null && triggers.contains(trigger)) {
+            return trigger;
+        }
+        if (state == null) {
+            states.put(key, new State(failed, now));
+            changed = true;
+        } else if (state.failing != failed) {
+            state.failing = failed;
+            changed = true;
+        }
+        return null;
+    }
+
+    /**
+     * Takes the status of an analysis as delivered, once Teams accepted its card.
+     */
+    public synchronized void delivered(String projectKey, String branch, boolean failed) {
+        if (!isEnabled()) {
+            return;
+        }
+        String key = key(projectKey, branch);
+        long now = clock.getAsLong();
+        State state = states.get(key);
+        if (state == null) {
+            states.put(key, new State(failed, now));
+        } else {
+            state.failing = failed;
+            state.notifiedAt = now;
+        }
+        changed = true;
+    }
+
+    static String key(String projectKey, String branch) {
+        return branch == null ? projectKey : projectKey + '\0' + branch;
+    }
+
+    @Override
+    public void start() {
+        if (!isEnabled() || store == null) {
+            return;
+        }
+        try {
+            int restored = store.load(this);
+            LOGGER.info("MS Teams Plugin: Restored the quality gate status of {} projects for triggers {}", restored, triggers);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("MS Teams Plugin: Could not read quality gate statuses from {}", store.getFile(), e);
+        }
+        saver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "msteams-transitions-save");
+            thread.setDaemon(true);
+            return thread;
+        });
+        saver.scheduleWithFixedDelay(this::saveIfChanged, SAVE_INTERVAL_MILLIS, SAVE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (!isEnabled() || store == null) {
+            return;
+        }
+        if (saver != null) {
+            saver.shutdownNow();
+            saver = null;
+        }
+        saveIfChanged();
+    }
+
+    /**
+     * Writes the statuses when they changed since the last write, so a crash loses little.
+     *
+     * @return {@code true} when the file was written
+     */
+    boolean saveIfChanged() {
+        synchronized (this) {
+            if (!changed || store == null) {
+                return false;
+            }
+            changed = false;
+        }
+        try {
+            store.save(this);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                changed = true;
+            }
+            LOGGER.error("MS Teams Plugin: Could not save quality gate statuses to {}", store.getFile(), e);
+            return false;
+        }
+    }
+
+    // Used by the TransitionStore
+
+    /** Hands every status to the visitor, from the least to the most recently analysed. */
+    synchronized void forEach(StateVisitor visitor) throws IOException {
+        for (Map.Entry<String, State> entry : states.entrySet()) {
+            visitor.visit(entry.getKey(), entry.getValue().failing, entry.getValue().notifiedAt);
+        }
+    }
+
+    synchronized int size() {
+        return states.size();
+    }
+
+    synchronized void restore(String key, boolean failing, long notifiedAt) {
+        states.put(key, new State(failing, notifiedAt));
+    }
+
+    interface StateVisitor {
+        void visit(String key, boolean failing, long notifiedAt) throws IOException;
+    }
+
+    private static final class State {
+        private boolean failing;
+        // Last time a trigger was notified, or the first analysis
+        private long notifiedAt;
+
+        private State(boolean failing, long notifiedAt) {
+            this.failing = failing;
+            this.notifiedAt = notifiedAt;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.minhhoangvn.transition;
+
+import java.util.Locale;
+
+/**
+ * Change of quality gate status that is notified when transition triggers are on.
+ */
+public enum Trigger {
+    /** Passed, or never seen, and now failed. */
+    NEWLY_FAILING("newly-failing", "Quality Gate Newly Failing"),
+    /** Failed and now passed. */
+    RECOVERED("recovered", "Quality Gate Recovered"),
+    /** Failed again, at most once per reminder interval. */
+    STILL_FAILING("still-failing", "Quality Gate Still Failing");
+
+    private final String key;
+    private final String headline;
+
+    Trigger(String key, String headline) {
+        this.key = key;
+        this.headline = headline;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /** Title of the card sent for the trigger. */
+    public String getHeadline() {
+        return headline;
+    }
+
+    /**
+     * Reads a trigger such as {@code newly-failing}, ignoring case and accepting {@code _} for {@code -}.
+     *
+     * @throws IllegalArgumentException when no trigger has that name
+     */
+    public static Trigger parse(String value) {
+        String key = value.trim().toLowerCase(Locale.ROOT).replace('_', '-');
+        for (Trigger trigger : values()) {
+            if (trigger.key.equals(key)) {
+                return trigger;
+            }
+        }
+        throw new IllegalArgumentException("Unknown trigger '" + value.trim() + "', expected newly-failing, recovered or still-failing");
+    }
+}
@@ -1,18 +1,39 @@
 package io.github.minhhoangvn.utils;
 
+import io.github.minhhoangvn.pipeline.AnalysisSnapshot;
+import io.github.minhhoangvn.summary.TeamSummary;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.ce.posttask.PostProjectAnalysisTask.ProjectAnalysis;
-import org.sonar.api.ce.posttask.QualityGate;
 import org.sonar.api.config.Configuration;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 public class AdaptiveCardsFormat {
 
+    /** Team name shown when none is configured. */
+    public static final String FALLBACK_TEAM_NAME = "DevOps Team";
+
     private static final Logger LOGGER = Loggers.get(AdaptiveCardsFormat.class);
+    // Shown as headline facts, so left out of the conditions
+    private static final Set<String> HEADLINE_METRICS = Set.of(
+            "new_violations", "new_coverage", "new_duplicated_lines_density", "new_security_hotspots_reviewed");
+    private static final String CONDITIONS_HEADER = ",\n"
+            + "                    {\n"
+            + "                        \"type\": \"TextBlock\",\n"
+            + "                        \"text\": \"Quality Gate Conditions\",\n"
+            + "                        \"weight\": \"Bolder\",\n"
+            + "                        \"separator\": true\n"
+            + "                    },\n"
+            + "                    {\n"
+            + "                        \"type\": \"FactSet\",\n"
+            + "                        \"facts\": [";
+    private static final String CONDITIONS_FOOTER = "\n"
+            + "                        ]\n"
+            + "                    }";
     private static Configuration configuration;
 
     private AdaptiveCardsFormat() {
@@ -34,12 +55,30 @@ public class AdaptiveCardsFormat {
         if (analysis == null) {
             throw new IllegalArgumentException("ProjectAnalysis cannot be null");
         }
+        return createMessageCardJSONPayload(AnalysisSnapshot.of(analysis), projectUrl, imageUrl);
+    }
+
+    public static String createMessageCardJSONPayload(AnalysisSnapshot analysis, String projectUrl, String imageUrl) {
+        return createMessageCardJSONPayload(analysis, projectUrl, imageUrl, null);
+    }
+
+    public static String createMessageCardJSONPayload(AnalysisSnapshot analysis, String projectUrl, String imageUrl, String teamName) {
+        return createMessageCardJSONPayload(analysis, projectUrl, imageUrl, teamName, null);
+    }
 
+    /**
+     * @param teamName team name shown on the card, or {@code null} for the configured one
+     * @param headline title of the card, or {@code null} for the default one
+     */
+    public static String createMessageCardJSONPayload(AnalysisSnapshot analysis, String projectUrl, String imageUrl, String teamName,
+                                                      String headline) {
         // Use default image URL if provided imageUrl is null or empty
         String finalImageUrl = StringUtils.isEmpty(imageUrl) ? Constants.DEFAULT_WEBHOOK_MESSAGE_AVATAR : imageUrl;
-        String teamName = getTeamNameFromConfig();
+        String finalTeamName = StringUtils.isEmpty(teamName) ? getTeamNameFromConfig() : teamName;
         
-        return createAdaptiveCardTemplate(analysis, projectUrl, finalImageUrl, teamName);
+        String finalHeadline = StringUtils.isEmpty(headline) ? "SonarQube Analysis Result" : headline;
+
+        return createAdaptiveCardTemplate(analysis, projectUrl, finalImageUrl, finalTeamName, finalHeadline);
     }
 
     public static String getTeamNameFromConfig() {
@@ -56,18 +95,20 @@ public class AdaptiveCardsFormat {
         } else {
             LOGGER.warn("AdaptiveCardsFormat.getTeamNameFromConfig() - configuration is null!");
         }
-        LOGGER.info("Returning fallback team name: 'DevOps Team'");
-        return "DevOps Team"; // fallback if configuration is not available or empty
+        LOGGER.info("Returning fallback team name: '{}'", FALLBACK_TEAM_NAME);
+        return FALLBACK_TEAM_NAME; // fallback if configuration is not available or empty
     }
 
-    private static String createAdaptiveCardTemplate(ProjectAnalysis analysis, String projectUrl, String imageUrl, String teamName) {
-        String projectName = analysis.getProject().getName();
+    private static String createAdaptiveCardTemplate(AnalysisSnapshot analysis, String projectUrl, String imageUrl, String teamName,
+                                                     String headline) {
+        String projectName = analysis.getProjectName();
         String status = getAnalysisStatus(analysis);
         String qualityGate = getQualityGateInfo(analysis);
         String newViolations = getMetricValue(analysis, "new_violations");
         String newCoverage = getMetricValue(analysis, "new_coverage");
         String newDuplicatedLinesDensity = getMetricValue(analysis, "new_duplicated_lines_density");
         String newSecurityHotspotsReviewed = getMetricValue(analysis, "new_security_hotspots_reviewed");
+        String conditions = getConditionsSection(analysis);
 
         return String.format("""
             {
@@ -83,7 +124,7 @@ public class AdaptiveCardsFormat {
                                     "type": "TextBlock",
                                     "size": "Medium",
                                     "weight": "Bolder",
-                                    "text": "SonarQube Analysis Result"
+                                    "text": "%s"
                                 },
                                 {
                                     "type": "ColumnSet",
@@ -150,7 +191,7 @@ public class AdaptiveCardsFormat {
                                             "value": "%s"
                                         }
                                     ]
-                                }
+                                }%s
                             ],
                             "actions": [
                                 {
@@ -166,52 +207,294 @@ public class AdaptiveCardsFormat {
                 "type": "message"
             }
             """,
-            imageUrl,           // %s - Image URL in the Image element
-            teamName,           // %s - Team name as altText
-            teamName,           // %s - Team name in TextBlock
-            projectName,        // %s - Project name in the TextBlock 
+            escapeJson(headline),       // %s - Title of the card
+            escapeJson(imageUrl),       // %s - Image URL in the Image element
+            escapeJson(teamName),       // %s - Team name as altText
+            escapeJson(teamName),       // %s - Team name in TextBlock
+            escapeJson(projectName),    // %s - Project name in the TextBlock
             status,             // %s - Status value in FactSet
-            qualityGate,        // %s - Quality Gate value in FactSet
+            escapeJson(qualityGate),    // %s - Quality Gate value in FactSet
             newViolations,      // %s - New Violations value in FactSet
             newCoverage,        // %s - New Coverage value in FactSet
             newDuplicatedLinesDensity,      // %s - New Duplicated Lines Density value in FactSet
             newSecurityHotspotsReviewed,    // %s - New Security Hotspots Reviewed value in FactSet
-            projectUrl          // %s - Project URL in Action.OpenUrl
+            conditions,         // %s - Every quality gate condition, if any
+            escapeJson(projectUrl)      // %s - Project URL in Action.OpenUrl
         );
     }
 
-    private static String getQualityGateInfo(ProjectAnalysis analysis) {
-        if (analysis.getQualityGate() == null) {
+    /**
+     * Card sent after a backlog, listing the routine notifications that were shed instead of delivered late.
+     */
+    public static String createShedSummaryPayload(int skippedCount, List<String> projectNames) {
+        return String.format("""
+            {
+                "attachments": [
+                    {
+                        "contentType": "application/vnd.microsoft.card.adaptive",
+                        "content": {
+                            "type": "AdaptiveCard",
+                            "$schema": "http://adaptivecards.io/schemas/adaptive-card.json",
+                            "version": "1.5",
+                            "body": [
+                                {
+                                    "type": "TextBlock",
+                                    "size": "Medium",
+                                    "weight": "Bolder",
+                                    "text": "SonarQube Notifications Summary"
+                                },
+                                {
+                                    "type": "TextBlock",
+                                    "text": "%d notifications were skipped while delivery was backlogged",
+                                    "wrap": true
+                                },
+                                {
+                                    "type": "FactSet",
+                                    "facts": [
+                                        {
+                                            "title": "Projects",
+                                            "value": "%s"
+                                        }
+                                    ]
+                                }
+                            ]
+                        },
+                        "contentUrl": null
+                    }
+                ],
+                "type": "message"
+            }
+            """,
+            skippedCount,                                       // %d - Number of shed notifications
+            escapeJson(String.join(", ", projectNames))       // %s - Shed project names
+        );
+    }
+
+    /**
+     * Card sent in place of the analysis card when a project starts flapping; its next analyses are
+     * not notified until the quality gate is stable again.
+     */
+    public static String createFlappingPayload(AnalysisSnapshot analysis, String projectUrl, int changes, int window) {
+        String projectName = analysis.getProjectName() != null ? analysis.getProjectName() : analysis.getProjectKey();
+        return String.format("""
+            {
+                "attachments": [
+                    {
+                        "contentType": "application/vnd.microsoft.card.adaptive",
+                        "content": {
+                            "type": "AdaptiveCard",
+                            "$schema": "http://adaptivecards.io/schemas/adaptive-card.json",
+                            "version": "1.5",
+                            "body": [
+                                {
+                                    "type": "TextBlock",
+                                    "size": "Medium",
+                                    "weight": "Bolder",
+                                    "text": "%s Quality Gate Is Flapping",
+                                    "color": "Warning"
+                                },
+                                {
+                                    "type": "TextBlock",
+                                    "text": "The quality gate changed %d times in the last %d analyses. Further analyses are not notified until it is stable.",
+                                    "wrap": true
+                                },
+                                {
+                                    "type": "FactSet",
+                                    "facts": [
+                                        {
+                                            "title": "Branch",
+                                            "value": "%s"
+                                        },
+                                        {
+                                            "title": "Latest Status",
+                                            "value": "%s"
+                                        }
+                                    ]
+                                }
+                            ],
+                            "actions": [
+                                {
+                                    "type": "Action.OpenUrl",
+                                    "title": "View Analysis",
+                                    "url": "%s"
+                                }
+                            ]
+                        },
+                        "contentUrl": null
+                    }
+                ],
+                "type": "message"
+            }
+            """,
+            escapeJson(projectName),                                                // %s - Project name in the title
+            changes,                                                                // %d - Status changes
+            window,                                                                 // %d - Analyses looked at
+            escapeJson(analysis.getBranch() != null ? analysis.getBranch() : "main"), // %s - Branch
+            analysis.getQualityGateStatus(),                                        // %s - Latest quality gate status
+            projectUrl                                                              // %s - Project URL in Action.OpenUrl
+        );
+    }
+
+    /**
+     * Card sent at the end of a summary period, with the quality of the projects notified to a channel.
+     *
+     * @param period {@code Daily} or {@code Weekly}
+     */
+    public static String createQualitySummaryPayload(TeamSummary summary, String period) {
+        return String.format("""
+            {
+                "attachments": [
+                    {
+                        "contentType": "application/vnd.microsoft.card.adaptive",
+                        "content": {
+                            "type": "AdaptiveCard",
+                            "$schema": "http://adaptivecards.io/schemas/adaptive-card.json",
+                            "version": "1.5",
+                            "body": [
+                                {
+                                    "type": "TextBlock",
+                                    "size": "Medium",
+                                    "weight": "Bolder",
+                                    "text": "SonarQube %s Quality Summary"
+                                },
+                                {
+                                    "type": "TextBlock",
+                                    "text": "%s",
+                                    "wrap": true
+                                },
+                                {
+                                    "type": "FactSet",
+                                    "facts": [
+                                        {
+                                            "title": "Projects",
+                                            "value": "%d"
+                                        },
+                                        {
+                                            "title": "Analyses",
+                                            "value": "%d"
+                                        },
+                                        {
+                                            "title": "Failing",
+                                            "value": "%s"
+                                        },
+                                        {
+                                            "title": "Newly failing",
+                                            "value": "%s"
+                                        },
+                                        {
+                                            "title": "Recovered",
+                                            "value": "%s"
+                                        },
+                                        {
+                                            "title": "Coverage down",
+                                            "value": "%s"
+                                        }
+                                    ]
+                                }
+                            ]
+                        },
+                        "contentUrl": null
+                    }
+                ],
+                "type": "message"
+            }
+            """,
+            escapeJson(period),                                 // %s - Summary period
+            escapeJson(summary.getHeadline()),                  // %s - Headline
+            summary.getProjects(),                              // %d - Projects tracked
+            summary.getAnalyses(),                              // %d - Analyses in the period
+            escapeJson(namesOrNone(summary.getFailing())),      // %s - Failing projects
+            escapeJson(namesOrNone(summary.getNewlyFailing())), // %s - Newly failing projects
+            escapeJson(namesOrNone(summary.getRecovered())),    // %s - Recovered projects
+            escapeJson(namesOrNone(summary.getCoverageDown()))  // %s - Projects with coverage down
+        );
+    }
+
+    private static String namesOrNone(List<String> names) {
+        return names.isEmpty() ? "None" : String.join(", ", names);
+    }
+
+    /** Escapes a value for use inside a JSON string literal of the templates. */
+    public static String escapeJson(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder escaped = new StringBuilder(value.length() + 8);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': escaped.append("\\\""); break;
+                case '\\': escaped.append("\\\\"); break;
+                case '\n': escaped.append("\\n"); break;
+                case '\r': escaped.append("\\r"); break;
+                case '\t': escaped.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        escaped.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        escaped.append(c);
+                    }
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static String getQualityGateInfo(AnalysisSnapshot analysis) {
+        if (!analysis.hasQualityGate()) {
             return "N/A";
         }
         
-        QualityGate qualityGate = analysis.getQualityGate();
-        String name = qualityGate.getName() != null ? qualityGate.getName() : "Unknown";
-        String status = qualityGate.getStatus() != null ? qualityGate.getStatus().toString() : "UNKNOWN";
+        String name = analysis.getQualityGateName() != null ? analysis.getQualityGateName() : "Unknown";
+        String status = analysis.getQualityGateStatus() != null ? analysis.getQualityGateStatus().toString() : "UNKNOWN";
         
         return String.format("%s (%s)", name, status);
     }
 
-    private static String getAnalysisStatus(ProjectAnalysis analysis) {
-        if (analysis.getCeTask() == null || analysis.getCeTask().getStatus() == null) {
-            return "UNKNOWN";
-        }
-        return analysis.getCeTask().getStatus().toString();
+    private static String getAnalysisStatus(AnalysisSnapshot analysis) {
+        return analysis.getCeTaskStatus() != null ? analysis.getCeTaskStatus() : "UNKNOWN";
     }
 
-    private static String getMetricValue(ProjectAnalysis analysis, String metricKey) {
-        if (analysis.getQualityGate() == null || analysis.getQualityGate().getConditions() == null) {
-            return "N/A";
+    /**
+     * One fact per quality gate condition, e.g. {@code Security Rating on New Code: C (> A) ERROR},
+     * appended after the headline facts. Names and units come from the {@link MetricCatalog}.
+     * Conditions on the metrics of the headline facts are not repeated.
+     */
+    private static String getConditionsSection(AnalysisSnapshot analysis) {
+        List<AnalysisSnapshot.ConditionSnapshot> conditions = new ArrayList<>(analysis.getConditions().size());
+        for (AnalysisSnapshot.ConditionSnapshot condition : analysis.getConditions()) {
+            if (!HEADLINE_METRICS.contains(condition.getMetricKey())) {
+                conditions.add(condition);
+            }
         }
+        if (conditions.isEmpty()) {
+            return "";
+        }
+        StringBuilder section = new StringBuilder(CONDITIONS_HEADER.length() + conditions.size() * 160);
+        section.append(CONDITIONS_HEADER);
+        for (int i = 0; i < conditions.size(); i++) {
+            AnalysisSnapshot.ConditionSnapshot condition = conditions.get(i);
+            MetricCatalog.Entry metric = MetricCatalog.get(condition.getMetricKey());
+            StringBuilder value = new StringBuilder(48).append(metric.format(condition.getValue()));
+            if (condition.getErrorThreshold() != null) {
+                value.append(" (").append(MetricCatalog.operatorSymbol(condition.getOperator()))
+                        .append(' ').append(metric.format(condition.getErrorThreshold())).append(')');
+            }
+            if (condition.getStatus() != null) {
+                value.append(' ').append(condition.getStatus().name());
+            }
+            section.append(i == 0 ? "\n" : ",\n")
+                    .append("                            {\n")
+                    .append("                                \"title\": \"").append(escapeJson(metric.getDisplayName())).append("\",\n")
+                    .append("                                \"value\": \"").append(escapeJson(value.toString())).append("\"\n")
+                    .append("                            }");
+        }
+        section.append(CONDITIONS_FOOTER);
+        return section.toString();
+    }
 
-        Map<String, String> metrics = analysis.getQualityGate().getConditions().stream()
-                .filter(condition -> condition.getMetricKey() != null)
-                .collect(Collectors.toMap(
-                        QualityGate.Condition::getMetricKey,
-                        condition -> condition.getValue() != null ? condition.getValue() : "N/A",
-                        (existing, replacement) -> existing
-                ));
-
-        return metrics.getOrDefault(metricKey, "N/A");
+    private static String getMetricValue(AnalysisSnapshot analysis, String metricKey) {
+        // Conditions without a value, such as NO_VALUE ones, are shown as N/A
+        String value = analysis.getConditionValue(metricKey);
+        return value != null ? value : "N/A";
     }
 }
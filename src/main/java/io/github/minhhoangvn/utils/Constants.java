@@ -7,7 +7,75 @@ public class Constants {
     public static final String WEBHOOK_MESSAGE_AVATAR = "sonar.msteams.avatar.url";
     public static final String WEBHOOK_SEND_ON_FAILED = "sonar.msteams.send.on.failed";
     public static final String WEBHOOK_TEAM_NAME = "sonar.msteams.teamName";
+    public static final String NOTIFY_FILTER = "sonar.msteams.filter";
+    public static final String QUIET_HOURS = "sonar.msteams.quiet.hours";
+    public static final String SUMMARY_SCHEDULE = "sonar.msteams.summary.schedule";
+    public static final String TRIGGERS = "sonar.msteams.triggers";
+    public static final String OVERRIDES_ALLOWED = "sonar.msteams.overrides.allowed";
+    public static final String OVERRIDES_WEBHOOK_HOSTS = "sonar.msteams.overrides.webhook.hosts";
+    public static final String CAPTURE_ENABLE = "sonar.msteams.capture.enable";
     public static final String SONAR_URL = "sonar.core.serverBaseURL";
+
+    // Connection tuning (set in sonar.properties, not exposed in the UI)
+    public static final String DNS_CACHE_TTL_SECONDS = "sonar.msteams.dns.cache.ttl.seconds";
+    public static final String WARMUP_ENABLE = "sonar.msteams.warmup.enable";
+    public static final String WARMUP_IDLE_SECONDS = "sonar.msteams.warmup.idle.seconds";
+    public static final String TIMEOUT_MIN_MS = "sonar.msteams.timeout.min.ms";
+    public static final String TIMEOUT_MAX_MS = "sonar.msteams.timeout.max.ms";
+    public static final String TIMEOUT_FACTOR = "sonar.msteams.timeout.factor";
+    public static final String HTTP_PROTOCOL = "sonar.msteams.http.protocol";
+    public static final String HTTP_CONNECTIONS_PER_HOST = "sonar.msteams.http.connections.per.host";
+    public static final String HTTP_STREAMS_PER_CONNECTION = "sonar.msteams.http.streams.per.connection";
+    public static final String DISPATCH_THREADS = "sonar.msteams.dispatch.threads";
+    public static final String DISPATCH_QUEUE_CAPACITY = "sonar.msteams.dispatch.queue.capacity";
+    public static final String DISPATCH_STARVATION_MS = "sonar.msteams.dispatch.starvation.ms";
+    public static final String BULKHEAD_CONCURRENCY = "sonar.msteams.bulkhead.concurrency";
+    public static final String BULKHEAD_QUEUE_SHARE = "sonar.msteams.bulkhead.queue.share";
+    public static final String QUIET_HOURS_TIMEZONE = "sonar.msteams.quiet.hours.timezone";
+    public static final String QUIET_HOURS_DESTINATIONS = "sonar.msteams.quiet.hours.destinations";
+    public static final String SHED_HIGH_WATERMARK = "sonar.msteams.shed.high.watermark";
+    public static final String SHED_MAX_AGE_MS = "sonar.msteams.shed.max.age.ms";
+    public static final String SHUTDOWN_DRAIN_MS = "sonar.msteams.shutdown.drain.ms";
+    public static final String HEALTH_PROBE_INTERVAL_MS = "sonar.msteams.health.probe.interval.ms";
+    public static final String HEALTH_PROBE_MAX_INTERVAL_MS = "sonar.msteams.health.probe.max.interval.ms";
+    public static final String FLAP_WINDOW = "sonar.msteams.flap.window";
+    public static final String FLAP_THRESHOLD = "sonar.msteams.flap.threshold";
+    public static final String FLAP_STABLE_RUNS = "sonar.msteams.flap.stable.runs";
+    public static final String REMINDER_INTERVAL_MS = "sonar.msteams.reminder.interval.ms";
+    public static final String TRANSITIONS_FILE = "sonar.msteams.transitions.file";
+    public static final String BACKLOG_FILE = "sonar.msteams.backlog.file";
+    public static final String SUMMARY_TIMEZONE = "sonar.msteams.summary.timezone";
+    public static final String SUMMARY_FILE = "sonar.msteams.summary.file";
+    public static final String SONAR_PATH_DATA = "sonar.path.data";
+    public static final String SONAR_PATH_LOGS = "sonar.path.logs";
+
+    // Delivery audit journal (set in sonar.properties, not exposed in the UI)
+    public static final String AUDIT_ENABLE = "sonar.msteams.audit.enable";
+    public static final String AUDIT_DIR = "sonar.msteams.audit.dir";
+    public static final String AUDIT_MAX_FILE_BYTES = "sonar.msteams.audit.max.file.bytes";
+    public static final String AUDIT_ROLL_INTERVAL_MS = "sonar.msteams.audit.roll.interval.ms";
+    public static final String AUDIT_RETENTION_DAYS = "sonar.msteams.audit.retention.days";
+    public static final String AUDIT_QUEUE_CAPACITY = "sonar.msteams.audit.queue.capacity";
+    public static final String AUDIT_FLUSH_MS = "sonar.msteams.audit.flush.ms";
+
+    // Payload capture ring file (set in sonar.properties, not exposed in the UI)
+    public static final String CAPTURE_FILE = "sonar.msteams.capture.file";
+    public static final String CAPTURE_SLOTS = "sonar.msteams.capture.slots";
+    public static final String CAPTURE_SLOT_BYTES = "sonar.msteams.capture.slot.bytes";
+
+    // Cluster coordination (Data Center Edition)
+    public static final String CLUSTER_MODE = "sonar.msteams.cluster.mode";
+    public static final String CLUSTER_FILE = "sonar.msteams.cluster.file";
+    public static final String CLUSTER_JDBC_URL = "sonar.msteams.cluster.jdbc.url";
+    public static final String CLUSTER_JDBC_USERNAME = "sonar.msteams.cluster.jdbc.username";
+    public static final String CLUSTER_JDBC_PASSWORD = "sonar.msteams.cluster.jdbc.password";
+    public static final String CLUSTER_JDBC_DRIVER = "sonar.msteams.cluster.jdbc.driver";
+    public static final String CLUSTER_RATE_LIMIT = "sonar.msteams.cluster.rate.limit";
+    public static final String CLUSTER_RATE_WINDOW_MS = "sonar.msteams.cluster.rate.window.ms";
+    public static final String CLUSTER_CLAIM_TTL_MS = "sonar.msteams.cluster.claim.ttl.ms";
+    public static final String SONAR_JDBC_URL = "sonar.jdbc.url";
+    public static final String SONAR_JDBC_USERNAME = "sonar.jdbc.username";
+    public static final String SONAR_JDBC_PASSWORD = "sonar.jdbc.password";
     
     // Default webhook message avatar (generic SonarQube logo)
     public static final String DEFAULT_WEBHOOK_MESSAGE_AVATAR = "https://docs.sonarqube.org/latest/images/sonarqube-logo.svg";
@@ -16,6 +84,62 @@ public class Constants {
     public static final boolean DEFAULT_ENABLE_NOTIFY = true;
     public static final boolean DEFAULT_WEBHOOK_SEND_ON_FAILED = false;
     public static final String DEFAULT_WEBHOOK_TEAM_NAME = "";
+    public static final long DEFAULT_DNS_CACHE_TTL_SECONDS = 300;
+    public static final boolean DEFAULT_WARMUP_ENABLE = true;
+    // Slightly below the 5 minute keep-alive of the connection pool
+    public static final long DEFAULT_WARMUP_IDLE_SECONDS = 240;
+    public static final long DEFAULT_TIMEOUT_MIN_MS = 1_000;
+    public static final long DEFAULT_TIMEOUT_MAX_MS = 30_000;
+    public static final double DEFAULT_TIMEOUT_FACTOR = 3.0;
+    public static final String DEFAULT_HTTP_PROTOCOL = "auto";
+    public static final int DEFAULT_HTTP_CONNECTIONS_PER_HOST = 2;
+    // The lowest maximum of concurrent streams RFC 9113 recommends servers to allow
+    public static final int DEFAULT_HTTP_STREAMS_PER_CONNECTION = 100;
+    public static final int DEFAULT_DISPATCH_THREADS = 2;
+    public static final int DEFAULT_DISPATCH_QUEUE_CAPACITY = 10_000;
+    // Lower-priority notifications older than this are served ahead of newer failed gates
+    public static final long DEFAULT_DISPATCH_STARVATION_MS = 60_000;
+    // Deliveries in progress per webhook; 0 allows every dispatch thread, a lower limit keeps other webhooks moving
+    public static final int DEFAULT_BULKHEAD_CONCURRENCY = 0;
+    // Fraction of the dispatch queue a single webhook may fill; the whole queue unless lowered
+    public static final double DEFAULT_BULKHEAD_QUEUE_SHARE = 1.0;
+    public static final double DEFAULT_SHED_HIGH_WATERMARK = 0.8;
+    public static final long DEFAULT_SHED_MAX_AGE_MS = 30 * 60_000L;
+    // Time given to queued notifications on shutdown before the rest is saved for the next start
+    public static final long DEFAULT_SHUTDOWN_DRAIN_MS = 10_000;
+    // First probe of an unavailable webhook, doubling after each failed probe up to the maximum
+    public static final long DEFAULT_HEALTH_PROBE_INTERVAL_MS = 2_000;
+    public static final long DEFAULT_HEALTH_PROBE_MAX_INTERVAL_MS = 60_000;
+    // Flap detection is off unless a threshold is set; 4 within the last ten analyses is a good start.
+    // Three equal analyses in a row end a flap
+    public static final int DEFAULT_FLAP_WINDOW = 10;
+    public static final int DEFAULT_FLAP_THRESHOLD = 0;
+    public static final int DEFAULT_FLAP_STABLE_RUNS = 3;
+    // A project still failing is reminded once a day
+    public static final long DEFAULT_REMINDER_INTERVAL_MS = 24 * 60 * 60_000L;
+    // Name kept from the former properties format, so a backlog saved before an upgrade is found
+    public static final String DEFAULT_BACKLOG_FILE_NAME = "msteams-backlog.properties";
+    public static final String DEFAULT_SUMMARY_FILE_NAME = "msteams-summary.bin";
+    public static final String DEFAULT_TRANSITIONS_FILE_NAME = "msteams-transitions.bin";
+    public static final boolean DEFAULT_AUDIT_ENABLE = false;
+    public static final long DEFAULT_AUDIT_MAX_FILE_BYTES = 10L * 1024 * 1024;
+    public static final long DEFAULT_AUDIT_ROLL_INTERVAL_MS = 24 * 60 * 60_000L;
+    public static final int DEFAULT_AUDIT_RETENTION_DAYS = 30;
+    // Records waiting for the writer; beyond this they are dropped rather than blocking deliveries
+    public static final int DEFAULT_AUDIT_QUEUE_CAPACITY = 10_000;
+    public static final long DEFAULT_AUDIT_FLUSH_MS = 1_000;
+    // Webhook URL overrides may only point at Teams incoming webhooks unless the administrator allows more
+    public static final String DEFAULT_OVERRIDES_WEBHOOK_HOSTS = "*.webhook.office.com";
+    public static final boolean DEFAULT_CAPTURE_ENABLE = false;
+    public static final String DEFAULT_CAPTURE_FILE_NAME = "msteams-capture.ring";
+    public static final int DEFAULT_CAPTURE_SLOTS = 64;
+    // Larger payloads are truncated in the capture
+    public static final int DEFAULT_CAPTURE_SLOT_BYTES = 64 * 1024;
+    public static final String DEFAULT_CLUSTER_MODE = "none";
+    // Deliveries per webhook and window across the cluster; 0 means unlimited
+    public static final int DEFAULT_CLUSTER_RATE_LIMIT = 0;
+    public static final long DEFAULT_CLUSTER_RATE_WINDOW_MS = 60_000;
+    public static final long DEFAULT_CLUSTER_CLAIM_TTL_MS = 24 * 60 * 60_000L;
     
     private Constants() {
         // Utility class - prevent instantiation
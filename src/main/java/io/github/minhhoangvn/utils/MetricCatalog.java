@@ -0,0 +1,177 @@
+package io.github.minhhoangvn.utils;
+
+import org.sonar.api.ce.posttask.QualityGate;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.measures.Metric;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Display name, value type and unit of every metric a quality gate condition can use.
+ * <p>
+ * The catalog is built once from {@link CoreMetrics}, so rendering a condition is a table lookup.
+ * Metrics of other plugins are not in {@link CoreMetrics}; their entry is derived from the key on
+ * first use and kept, so each metric key maps to one shared entry either way.
+ */
+public final class MetricCatalog {
+
+    private static final String NO_VALUE = "N/A";
+    private static final int MINUTES_PER_HOUR = 60;
+    // SonarQube counts technical debt in 8 hour days
+    private static final int MINUTES_PER_DAY = 8 * MINUTES_PER_HOUR;
+
+    private static final Map<String, Entry> CORE_METRICS = loadCoreMetrics();
+    private static final Map<String, Entry> OTHER_METRICS = new ConcurrentHashMap<>();
+    private static final Map<QualityGate.Operator, String> OPERATOR_SYMBOLS = operatorSymbols();
+
+    private MetricCatalog() {
+        // Utility class
+    }
+
+    private static Map<String, Entry> loadCoreMetrics() {
+        Map<String, Entry> entries = new HashMap<>();
+        for (Metric<?> metric : CoreMetrics.getMetrics()) {
+            entries.put(metric.getKey(), new Entry(metric.getKey(), metric.getName(), metric.getType()));
+        }
+        return Collections.unmodifiableMap(entries);
+    }
+
+    private static Map<QualityGate.Operator, String> operatorSymbols() {
+        Map<QualityGate.Operator, String> symbols = new EnumMap<>(QualityGate.Operator.class);
+        for (QualityGate.Operator operator : QualityGate.Operator.values()) {
+            switch (operator.name()) {
+                case "GREATER_THAN":
+                    symbols.put(operator, ">");
+                    break;
+                case "LESS_THAN":
+                    symbols.put(operator, "<");
+                    break;
+                case "EQUALS":
+                    symbols.put(operator, "=");
+                    break;
+                case "NOT_EQUALS":
+                    symbols.put(operator, "!=");
+                    break;
+                default:
+                    symbols.put(operator, operator.name());
+            }
+        }
+        return symbols;
+    }
+
+    /** Entry of the metric, derived from its key when it is not a core metric. */
+    public static Entry get(String metricKey) {
+        Entry entry = CORE_METRICS.get(metricKey);
+        if (entry != null) {
+            return entry;
+        }
+        return OTHER_METRICS.computeIfAbsent(metricKey,
+                key -> new Entry(key, StringUtils.convertSnakeToTitle(key), Metric.ValueType.FLOAT));
+    }
+
+    /** Symbol of the operator, e.g. {@code <}, or an empty string when there is none. */
+    public static String operatorSymbol(QualityGate.Operator operator) {
+        return operator != null ? OPERATOR_SYMBOLS.get(operator) : "";
+    }
+
+    /**
+     * One metric of the catalog.
+     */
+    public static final class Entry {
+        private final String key;
+        private final String displayName;
+        private final Metric.ValueType type;
+        private final String unit;
+
+        private Entry(String key, String displayName, Metric.ValueType type) {
+            this.key = key;
+            this.displayName = displayName != null ? displayName : StringUtils.convertSnakeToTitle(key);
+            this.type = type != null ? type : Metric.ValueType.FLOAT;
+            this.unit = unitOf(this.type);
+        }
+
+        private static String unitOf(Metric.ValueType type) {
+            switch (type) {
+                case PERCENT:
+                    return "%";
+                case MILLISEC:
+                    return "ms";
+                case WORK_DUR:
+                    return "min";
+                default:
+                    return "";
+            }
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        public Metric.ValueType getType() {
+            return type;
+        }
+
+        /** Unit appended to values, such as {@code %}, or an empty string. */
+        public String getUnit() {
+            return unit;
+        }
+
+        public boolean isRating() {
+            return type == Metric.ValueType.RATING;
+        }
+
+        /**
+         * Formats a measure or threshold of this metric for display: ratings as letters, durations
+         * in days, hours and minutes, and other values with their unit. {@code null} shows as N/A.
+         */
+        public String format(String value) {
+            if (value == null || value.isEmpty()) {
+                return NO_VALUE;
+            }
+            switch (type) {
+                case RATING:
+                    return RatingMapper.getRating(value);
+                case WORK_DUR:
+                    return formatDuration(value);
+                case PERCENT:
+                case MILLISEC:
+                    return value + unit;
+                default:
+                    return value;
+            }
+        }
+
+        private static String formatDuration(String minutesValue) {
+            long minutes;
+            try {
+                minutes = Math.round(Double.parseDouble(minutesValue));
+            } catch (NumberFormatException e) {
+                return minutesValue;
+            }
+            if (minutes < MINUTES_PER_HOUR) {
+                return minutes + "min";
+            }
+            StringBuilder formatted = new StringBuilder();
+            if (minutes >= MINUTES_PER_DAY) {
+                formatted.append(minutes / MINUTES_PER_DAY).append('d');
+                minutes %= MINUTES_PER_DAY;
+            }
+            if (minutes >= MINUTES_PER_HOUR) {
+                formatted.append(formatted.length() > 0 ? " " : "").append(minutes / MINUTES_PER_HOUR).append('h');
+                minutes %= MINUTES_PER_HOUR;
+            }
+            if (minutes > 0) {
+                formatted.append(' ').append(minutes).append("min");
+            }
+            return formatted.toString();
+        }
+    }
+}
@@ -12,10 +12,16 @@ public class RatingMapper {
         mapper.put("2", "B");
         mapper.put("3", "C");
         mapper.put("4", "D");
+        mapper.put("5", "E");
         mapper.put("NO_VALUE", "0"); // Handle metric with no value
     }
 
     public static String getRating(String inputKey) {
-        return mapper.getOrDefault(inputKey, inputKey);
+        String rating = mapper.get(inputKey);
+        // Measures report ratings as decimals, e.g. "2.0"
+        if (rating == null && inputKey != null && inputKey.endsWith(".0")) {
+            rating = mapper.get(inputKey.substring(0, inputKey.length() - 2));
+        }
+        return rating != null ? rating : inputKey;
     }
 }
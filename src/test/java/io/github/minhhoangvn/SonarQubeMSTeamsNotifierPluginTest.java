@@ -4,6 +4,7 @@ import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
 import io.github.minhhoangvn.extension.MSTeamsPreProjectAnalysisTask;
 import io.github.minhhoangvn.extension.MSTeamsPostProjectAnalysisTask;
+import io.github.minhhoangvn.settings.NotifierSettings;
 import io.github.minhhoangvn.utils.Constants;
 import org.sonar.api.ce.posttask.PostProjectAnalysisTask.Context;
 import org.sonar.api.ce.posttask.PostProjectAnalysisTask.ProjectAnalysis;
@@ -51,7 +52,7 @@ public class SonarQubeMSTeamsNotifierPluginTest {
         mockConfiguration = mock(Configuration.class);
         
         // Create both tasks
-        preAnalysisTask = new MSTeamsPreProjectAnalysisTask(mockConfiguration);
+        preAnalysisTask = new MSTeamsPreProjectAnalysisTask(new NotifierSettings(mockConfiguration));
         postAnalysisTask = new MSTeamsPostProjectAnalysisTask();
         
         setupMockObjects();
@@ -0,0 +1,124 @@
+package io.github.minhhoangvn.audit;
+
+import io.github.minhhoangvn.metrics.NotifierMetrics;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+public class AuditJournalTest {
+
+    private static final long ONE_DAY = TimeUnit.DAYS.toMillis(1);
+
+    private Path directory;
+    private NotifierMetrics metrics;
+    private RollingAuditFile file;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("msteams-audit");
+        metrics = new NotifierMetrics();
+        file = new RollingAuditFile(directory, "msteams-audit", 1024 * 1024, ONE_DAY, 30 * ONE_DAY, () -> 0L);
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testFlush_WritesOneJsonLinePerRecord() throws IOException {
+        // Arrange
+        AuditJournal journal = new AuditJournal(file, metrics, 100, 1_000);
+        journal.record(record("billing", AuditRecord.DELIVERED, 120));
+        journal.record(record("say \"hi\"", AuditRecord.FAILED, -1));
+
+        // Act
+        int written = journal.flush();
+        journal.stop();
+
+        // Assert
+        Assert.assertEquals(written, 2);
+        Assert.assertEquals(journal.pending(), 0);
+        List<String> lines = Files.readAllLines(file.getActiveFile());
+        Assert.assertEquals(lines.get(0), "{\"ts\":\"1970-01-01T00:00:01Z\",\"ceTaskId\":\"AX-1\",\"project\":\"billing\","
+                + "\"destination\":\"5e1f\",\"status\":\"delivered\",\"latencyMs\":120,\"ageMs\":300,\"attempts\":1}");
+        Assert.assertTrue(lines.get(1).contains("\"project\":\"say \\\"hi\\\"\""));
+        Assert.assertFalse(lines.get(1).contains("latencyMs"));
+    }
+
+    @Test
+    public void testFlush_WritesNotificationIdWhenKnown() throws IOException {
+        // Arrange
+        AuditJournal journal = new AuditJournal(file, metrics, 100, 1_000);
+        journal.record(new AuditRecord(1_000, "AX-1", "billing", null, "5e1f", AuditRecord.DELIVERED, 120, 300, 1, "AX-1/AY-1/1"));
+
+        // Act
+        journal.flush();
+        journal.stop();
+
+        // Assert
+        Assert.assertTrue(Files.readAllLines(file.getActiveFile()).get(0)
+                .startsWith("{\"ts\":\"1970-01-01T00:00:01Z\",\"notificationId\":\"AX-1/AY-1/1\",\"ceTaskId\":\"AX-1\""));
+    }
+
+    @Test
+    public void testRecord_WhenQueueIsFull_DropsWithoutBlocking() {
+        // Arrange - No writer thread, as if the disk were stuck
+        AuditJournal journal = new AuditJournal(file, metrics, 2, 1_000);
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            journal.record(record("project-" + i, AuditRecord.DELIVERED, 10));
+        }
+
+        // Assert
+        Assert.assertEquals(journal.pending(), 2);
+        Assert.assertEquals(metrics.get(NotifierMetrics.AUDIT_DROPPED), 3);
+    }
+
+    @Test
+    public void testStart_WriterThreadFlushesOnItsOwn() throws Exception {
+        // Arrange
+        AuditJournal journal = new AuditJournal(file, metrics, 100, 10);
+        journal.start();
+
+        // Act
+        journal.record(record("billing", AuditRecord.DELIVERED, 10));
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (journal.pending() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        journal.stop();
+
+        // Assert
+        Assert.assertEquals(Files.readAllLines(file.getActiveFile()).size(), 1);
+    }
+
+    @Test
+    public void testDisabled_RecordsNothing() {
+        // Arrange
+        AuditJournal journal = AuditJournal.disabled();
+
+        // Act
+        journal.record(record("billing", AuditRecord.DELIVERED, 10));
+
+        // Assert
+        Assert.assertFalse(journal.isEnabled());
+        Assert.assertEquals(journal.pending(), 0);
+    }
+
+    private static AuditRecord record(String projectKey, String status, long latencyMillis) {
+        return new AuditRecord(1_000, "AX-1", projectKey, null, "5e1f", status, latencyMillis, 300, 1);
+    }
+}
@@ -0,0 +1,109 @@
+package io.github.minhhoangvn.audit;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class RollingAuditFileTest {
+
+    private static final long ONE_HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long NOW = TimeUnit.DAYS.toMillis(20_000);
+
+    private Path directory;
+    private AtomicLong clock;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("msteams-audit");
+        clock = new AtomicLong(NOW);
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testWrite_OverSizeLimit_RollsToNewFile() throws IOException {
+        // Arrange
+        RollingAuditFile file = new RollingAuditFile(directory, "audit", 10, ONE_HOUR, 24 * ONE_HOUR, clock::get);
+
+        // Act
+        file.write(bytes("first-line\n"));
+        file.write(bytes("second\n"));
+        file.close();
+
+        // Assert
+        Assert.assertEquals(Files.readString(file.getActiveFile()), "second\n");
+        List<Path> rolled = rolledFiles();
+        Assert.assertEquals(rolled.size(), 1);
+        Assert.assertEquals(Files.readString(rolled.get(0)), "first-line\n");
+    }
+
+    @Test
+    public void testWrite_AfterRollInterval_RollsToNewFile() throws IOException {
+        // Arrange
+        RollingAuditFile file = new RollingAuditFile(directory, "audit", 1024, ONE_HOUR, 24 * ONE_HOUR, clock::get);
+        file.write(bytes("a\n"));
+
+        // Act
+        clock.addAndGet(ONE_HOUR);
+        file.write(bytes("b\n"));
+        file.write(bytes("c\n"));
+        file.close();
+
+        // Assert
+        Assert.assertEquals(Files.readString(file.getActiveFile()), "b\nc\n");
+        Assert.assertEquals(rolledFiles().size(), 1);
+    }
+
+    @Test
+    public void testRoll_DeletesFilesPastRetention() throws IOException {
+        // Arrange
+        RollingAuditFile file = new RollingAuditFile(directory, "audit", 4, ONE_HOUR, 24 * ONE_HOUR, clock::get);
+        Path expired = Files.writeString(directory.resolve("audit-20240101-000000-000.ndjson"), "old\n");
+        Files.setLastModifiedTime(expired, FileTime.fromMillis(NOW - 25 * ONE_HOUR));
+        Path kept = Files.writeString(directory.resolve("audit-20240102-000000-000.ndjson"), "recent\n");
+        Files.setLastModifiedTime(kept, FileTime.fromMillis(NOW - ONE_HOUR));
+        Path unrelated = Files.writeString(directory.resolve("other.log"), "x\n");
+        Files.setLastModifiedTime(unrelated, FileTime.fromMillis(0));
+
+        // Act
+        file.write(bytes("one\n"));
+        file.write(bytes("two\n"));
+        file.close();
+
+        // Assert
+        Assert.assertFalse(Files.exists(expired));
+        Assert.assertTrue(Files.exists(kept));
+        Assert.assertTrue(Files.exists(unrelated));
+        Assert.assertEquals(rolledFiles().size(), 2);
+    }
+
+    private List<Path> rolledFiles() throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.filter(path -> path.getFileName().toString().matches("audit-.*\\.ndjson"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,129 @@
+package io.github.minhhoangvn.capture;
+
+import io.github.minhhoangvn.dispatch.Notification;
+import org.sonar.api.ce.posttask.QualityGate;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class PayloadCaptureTest {
+
+    private static final String WEBHOOK_URL = "https://example.webhook.office.com/webhookb2/secret-token";
+
+    private Path directory;
+    private Path file;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("msteams-capture");
+        file = directory.resolve("capture.ring");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testCapture_WhenOff_DoesNotCreateFile() {
+        // Arrange
+        PayloadCapture capture = new PayloadCapture(file, 4, 4096);
+
+        // Act
+        capture.capture(notification("billing", "{\"card\":1}"), 200, 12);
+
+        // Assert
+        Assert.assertFalse(Files.exists(file));
+    }
+
+    @Test
+    public void testCapture_KeepsLastPayloadsOldestFirst() throws IOException {
+        // Arrange
+        PayloadCapture capture = new PayloadCapture(file, 3, 4096);
+        capture.setEnabled(true);
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            capture.capture(notification("project-" + i, "{\"card\":" + i + "}"), 200, i);
+        }
+        capture.close();
+
+        // Assert
+        List<CaptureFileReader.CapturedPayload> captured = CaptureFileReader.read(file);
+        Assert.assertEquals(captured.size(), 3);
+        Assert.assertEquals(captured.get(0).getSequence(), 2);
+        Assert.assertEquals(captured.get(0).getPayload(), "{\"card\":2}");
+        Assert.assertEquals(captured.get(2).getPayload(), "{\"card\":4}");
+        Assert.assertEquals(captured.get(2).getStatusCode(), 200);
+        Assert.assertEquals(captured.get(2).getLatencyMillis(), 4);
+        Assert.assertTrue(captured.get(2).getMetadata().contains("\"project\":\"project-4\""));
+        Assert.assertTrue(captured.get(2).getMetadata().contains("\"qualityGate\":\"ERROR\""));
+        Assert.assertFalse(captured.get(2).getMetadata().contains("secret-token"));
+    }
+
+    @Test
+    public void testCapture_AfterRestart_ContinuesTheRing() throws IOException {
+        // Arrange
+        PayloadCapture before = new PayloadCapture(file, 2, 4096);
+        before.setEnabled(true);
+        before.capture(notification("billing", "{\"before\":true}"), 200, 1);
+        before.close();
+        PayloadCapture after = new PayloadCapture(file, 2, 4096);
+        after.setEnabled(true);
+
+        // Act
+        after.capture(notification("billing", "{\"after\":true}"), 400, 1);
+        after.close();
+
+        // Assert
+        List<CaptureFileReader.CapturedPayload> captured = CaptureFileReader.read(file);
+        Assert.assertEquals(captured.size(), 2);
+        Assert.assertEquals(captured.get(0).getPayload(), "{\"before\":true}");
+        Assert.assertEquals(captured.get(1).getStatusCode(), 400);
+    }
+
+    @Test
+    public void testCapture_LargePayloadIsTruncatedAndDumped() throws IOException {
+        // Arrange
+        PayloadCapture capture = new PayloadCapture(file, 2, 1024);
+        capture.setEnabled(true);
+        String large = "x".repeat(5_000);
+
+        // Act
+        capture.capture(notification("billing", large), -1, 30_000);
+        capture.close();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CaptureFileReader.dump(file, new PrintStream(out, true, StandardCharsets.UTF_8));
+
+        // Assert
+        CaptureFileReader.CapturedPayload captured = CaptureFileReader.read(file).get(0);
+        Assert.assertTrue(captured.isTruncated());
+        Assert.assertTrue(captured.getPayload().length() < 1024);
+        Assert.assertTrue(out.toString(StandardCharsets.UTF_8).contains("HTTP -1 in 30000 ms"));
+        Assert.assertEquals(Files.size(file), 24 + 2 * 1024);
+    }
+
+    private static Notification notification(String projectKey, String payload) {
+        return Notification.builder()
+                .ceTaskId("AX-" + projectKey)
+                .projectKey(projectKey)
+                .projectName(projectKey)
+                .qualityGateStatus(QualityGate.Status.ERROR)
+                .webhookUrl(WEBHOOK_URL)
+                .payload(payload)
+                .build();
+    }
+}
@@ -0,0 +1,102 @@
+package io.github.minhhoangvn.client;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class AdaptiveTimeoutsTest {
+
+    private static final String ENDPOINT = "https://example.webhook.office.com/webhook";
+    private static final long MIN_MS = 1_000;
+    private static final long MAX_MS = 30_000;
+
+    private AdaptiveTimeouts timeouts;
+
+    @BeforeMethod
+    public void setUp() {
+        timeouts = new AdaptiveTimeouts(MIN_MS, MAX_MS, 3.0);
+    }
+
+    @Test
+    public void testTimeoutMillis_WithoutEnoughSamples_UsesUpperBound() {
+        // Arrange
+        for (int i = 0; i < AdaptiveTimeouts.MIN_SAMPLES - 1; i++) {
+            timeouts.record(ENDPOINT, 300);
+        }
+
+        // Act & Assert
+        Assert.assertEquals(timeouts.timeoutMillis(ENDPOINT), MAX_MS);
+        Assert.assertEquals(timeouts.timeoutMillis("https://unknown.example.com"), MAX_MS);
+    }
+
+    @Test
+    public void testTimeoutMillis_FastEndpoint_IsP99TimesFactor() {
+        // Arrange - 99 quick responses and one slower one
+        for (int i = 0; i < 99; i++) {
+            timeouts.record(ENDPOINT, 300);
+        }
+        timeouts.record(ENDPOINT, 500);
+
+        // Act & Assert
+        Assert.assertEquals(timeouts.p99Millis(ENDPOINT), 300);
+        Assert.assertEquals(timeouts.timeoutMillis(ENDPOINT), 1_000);
+    }
+
+    @Test
+    public void testTimeoutMillis_IsClampedToBounds() {
+        // Arrange
+        AdaptiveTimeouts slow = new AdaptiveTimeouts(MIN_MS, MAX_MS, 3.0);
+        for (int i = 0; i < AdaptiveTimeouts.MIN_SAMPLES; i++) {
+            timeouts.record(ENDPOINT, 10);
+            slow.record(ENDPOINT, 20_000);
+        }
+
+        // Act & Assert
+        Assert.assertEquals(timeouts.timeoutMillis(ENDPOINT), MIN_MS);
+        Assert.assertEquals(slow.timeoutMillis(ENDPOINT), MAX_MS);
+    }
+
+    @Test
+    public void testP99Millis_FullWindow_IsSecondLargestSample() {
+        // Arrange
+        for (int i = 0; i < AdaptiveTimeouts.WINDOW_SIZE - 2; i++) {
+            timeouts.record(ENDPOINT, 100 + i % 7);
+        }
+        timeouts.record(ENDPOINT, 9_000);
+        timeouts.record(ENDPOINT, 7_000);
+
+        // Act & Assert
+        Assert.assertEquals(timeouts.p99Millis(ENDPOINT), 7_000);
+    }
+
+    @Test
+    public void testP99Millis_FollowsSamplesRecordedAfterItWasRead() {
+        // Arrange
+        for (int i = 0; i < 50; i++) {
+            timeouts.record(ENDPOINT, 200);
+        }
+        long before = timeouts.p99Millis(ENDPOINT);
+
+        // Act
+        timeouts.record(ENDPOINT, 4_000);
+
+        // Assert
+        Assert.assertEquals(before, 200);
+        Assert.assertEquals(timeouts.p99Millis(ENDPOINT), 4_000);
+    }
+
+    @Test
+    public void testRecord_OnlyRecentLatenciesCount() {
+        // Arrange - A slow period followed by a full window of fast responses
+        for (int i = 0; i < AdaptiveTimeouts.WINDOW_SIZE; i++) {
+            timeouts.record(ENDPOINT, 5_000);
+        }
+        for (int i = 0; i < AdaptiveTimeouts.WINDOW_SIZE; i++) {
+            timeouts.record(ENDPOINT, 800);
+        }
+
+        // Act & Assert
+        Assert.assertEquals(timeouts.p99Millis(ENDPOINT), 800);
+        Assert.assertEquals(timeouts.timeoutMillis(ENDPOINT), 2_400);
+    }
+}
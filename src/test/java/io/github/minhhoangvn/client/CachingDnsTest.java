@@ -0,0 +1,98 @@
+package io.github.minhhoangvn.client;
+
+import okhttp3.Dns;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CachingDnsTest {
+
+    private static final long TTL = 1_000;
+    private static final long GRACE = 500;
+
+    private AtomicLong clock;
+    private AtomicInteger lookups;
+    private boolean failLookups;
+    private CachingDns dns;
+
+    @BeforeMethod
+    public void setUp() {
+        clock = new AtomicLong(0);
+        lookups = new AtomicInteger();
+        failLookups = false;
+        Dns delegate = hostname -> {
+            lookups.incrementAndGet();
+            if (failLookups) {
+                throw new UnknownHostException(hostname);
+            }
+            return List.of(InetAddress.getByAddress(hostname, new byte[]{10, 0, 0, 1}));
+        };
+        dns = new CachingDns(delegate, TTL, GRACE, clock::get);
+    }
+
+    @Test
+    public void testLookup_WithinTtl_UsesCache() throws UnknownHostException {
+        // Act
+        List<InetAddress> first = dns.lookup("example.webhook.office.com");
+        clock.set(TTL - 1);
+        List<InetAddress> second = dns.lookup("example.webhook.office.com");
+
+        // Assert
+        Assert.assertEquals(lookups.get(), 1);
+        Assert.assertEquals(second, first);
+    }
+
+    @Test
+    public void testLookup_AfterTtl_ResolvesAgain() throws UnknownHostException {
+        // Act
+        dns.lookup("example.webhook.office.com");
+        clock.set(TTL);
+        dns.lookup("example.webhook.office.com");
+
+        // Assert
+        Assert.assertEquals(lookups.get(), 2);
+    }
+
+    @Test
+    public void testLookup_FailureWithinGrace_ServesStaleAddresses() throws UnknownHostException {
+        // Arrange
+        List<InetAddress> cached = dns.lookup("example.webhook.office.com");
+        failLookups = true;
+        clock.set(TTL + GRACE - 1);
+
+        // Act
+        List<InetAddress> result = dns.lookup("example.webhook.office.com");
+
+        // Assert
+        Assert.assertEquals(result, cached);
+    }
+
+    @Test(expectedExceptions = UnknownHostException.class)
+    public void testLookup_FailureAfterGrace_Throws() throws UnknownHostException {
+        // Arrange
+        dns.lookup("example.webhook.office.com");
+        failLookups = true;
+        clock.set(TTL + GRACE);
+
+        // Act
+        dns.lookup("example.webhook.office.com");
+    }
+
+    @Test
+    public void testRefresh_BypassesCache() throws UnknownHostException {
+        // Act
+        dns.lookup("example.webhook.office.com");
+        dns.refresh("example.webhook.office.com");
+        dns.lookup("example.webhook.office.com");
+
+        // Assert
+        Assert.assertEquals(lookups.get(), 2);
+        Assert.assertEquals(dns.size(), 1);
+    }
+}
@@ -2,6 +2,10 @@ package io.github.minhhoangvn.client;
 
 import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.Response;
 import org.testng.Assert;
 import org.testng.annotations.AfterMethod;
@@ -10,6 +14,12 @@ import org.testng.annotations.Test;
 
 import java.io.IOException;
 import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 
@@ -61,6 +71,20 @@ public class MSTeamsWebHookClientTest {
                 .withRequestBody(equalTo(payload)));
     }
 
+    @Test
+    public void testSendNotify_WithNotificationId_SendsCorrelationHeader() throws IOException {
+        // Arrange
+        wireMockServer.stubFor(post(urlEqualTo("/webhook")).willReturn(aResponse().withStatus(200)));
+
+        // Act
+        try (Response response = client.sendNotify(webhookUrl, createTestPayload(), "AX-task-1/AX-analysis-1/1")) {
+            // Assert
+            Assert.assertTrue(response.isSuccessful());
+        }
+        wireMockServer.verify(postRequestedFor(urlEqualTo("/webhook"))
+                .withHeader(MSTeamsWebHookClient.CORRELATION_ID_HEADER, equalTo("AX-task-1/AX-analysis-1/1")));
+    }
+
     @Test
     public void testSendNotify_BadRequest() throws IOException {
         // Arrange
@@ -143,6 +167,141 @@ public class MSTeamsWebHookClientTest {
         }
     }
 
+    @Test
+    public void testWarmUp_OpensConnectionWithoutPosting() throws IOException {
+        // Arrange
+        wireMockServer.stubFor(any(urlEqualTo("/webhook"))
+                .willReturn(aResponse()
+                        .withStatus(405)));
+
+        // Act
+        client.warmUp(webhookUrl);
+
+        // Assert - Only a HEAD request reaches the endpoint, nothing is posted to the channel
+        wireMockServer.verify(0, postRequestedFor(urlEqualTo("/webhook")));
+        Assert.assertEquals(wireMockServer.getAllServeEvents().size(), 1);
+        Assert.assertEquals(wireMockServer.getAllServeEvents().get(0).getRequest().getMethod(), RequestMethod.HEAD);
+    }
+
+    @Test
+    public void testSendNotify_RemembersWebhookForWarmUp() throws IOException {
+        // Arrange
+        wireMockServer.stubFor(post(urlEqualTo("/webhook"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withBody("1")));
+
+        // Act
+        try (Response response = client.sendNotify(webhookUrl, createTestPayload())) {
+            Assert.assertTrue(response.isSuccessful());
+        }
+
+        // Assert
+        Assert.assertTrue(MSTeamsWebHookClient.recentWebhooks().contains(webhookUrl));
+        Assert.assertTrue(MSTeamsWebHookClient.lastActivityMillis() > 0);
+    }
+
+    @Test
+    public void testRecentWebhooks_AreBoundedAndExpire() {
+        // Arrange
+        MSTeamsWebHookClient.forgetWebhooks();
+        long now = 10 * MSTeamsWebHookClient.RECENT_WEBHOOK_MILLIS;
+        MSTeamsWebHookClient.rememberWebhook("https://example.webhook.office.com/stale", now - MSTeamsWebHookClient.RECENT_WEBHOOK_MILLIS);
+        for (int i = 0; i <= MSTeamsWebHookClient.MAX_RECENT_WEBHOOKS; i++) {
+            MSTeamsWebHookClient.rememberWebhook("https://example.webhook.office.com/hook-" + i, now - 1_000 + i);
+        }
+
+        // Act
+        List<String> recent = new ArrayList<>(MSTeamsWebHookClient.recentWebhooks(now));
+        MSTeamsWebHookClient.forgetWebhooks();
+
+        // Assert - The stale and the least recently used webhooks are gone, the newest comes first
+        Assert.assertEquals(recent.size(), MSTeamsWebHookClient.MAX_RECENT_WEBHOOKS);
+        Assert.assertEquals(recent.get(0), "https://example.webhook.office.com/hook-" + MSTeamsWebHookClient.MAX_RECENT_WEBHOOKS);
+        Assert.assertFalse(recent.contains("https://example.webhook.office.com/hook-0"));
+        Assert.assertFalse(recent.contains("https://example.webhook.office.com/stale"));
+    }
+
+    @Test
+    public void testSendNotify_H2c_MultiplexesBurstOverOneConnection() throws Exception {
+        // Arrange - The stand-in accepts HTTP/2 without TLS on its HTTP port
+        wireMockServer.stubFor(post(urlEqualTo("/webhook"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withFixedDelay(200)
+                        .withBody("1")));
+        ConnectionPool pool = new ConnectionPool(5, 5, TimeUnit.MINUTES);
+        OkHttpClient http = new OkHttpClient.Builder().connectionPool(pool).build();
+        MSTeamsWebHookClient h2cClient = new MSTeamsWebHookClient(http,
+                new AdaptiveTimeouts(1_000, 30_000, 3.0), new StreamBudget(ProtocolMode.H2C, 1, 100));
+        ExecutorService burst = Executors.newFixedThreadPool(10);
+
+        // Act
+        List<Future<Protocol>> protocols = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            protocols.add(burst.submit(() -> {
+                try (Response response = h2cClient.sendNotify(webhookUrl, createTestPayload())) {
+                    Assert.assertTrue(response.isSuccessful());
+                    return response.protocol();
+                }
+            }));
+        }
+
+        // Assert
+        for (Future<Protocol> protocol : protocols) {
+            Assert.assertEquals(protocol.get(10, TimeUnit.SECONDS), Protocol.H2_PRIOR_KNOWLEDGE);
+        }
+        burst.shutdown();
+        Assert.assertEquals(pool.connectionCount(), 1);
+        wireMockServer.verify(10, postRequestedFor(urlEqualTo("/webhook")));
+    }
+
+    @Test
+    public void testSendNotify_Http1Mode_DoesNotOfferHttp2() throws IOException {
+        // Arrange
+        wireMockServer.stubFor(post(urlEqualTo("/webhook"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withBody("1")));
+        MSTeamsWebHookClient http1Client = new MSTeamsWebHookClient(new OkHttpClient(),
+                new AdaptiveTimeouts(1_000, 30_000, 3.0), new StreamBudget(ProtocolMode.HTTP1, 1, 100));
+
+        // Act
+        try (Response response = http1Client.sendNotify(webhookUrl, createTestPayload())) {
+            // Assert
+            Assert.assertEquals(response.protocol(), Protocol.HTTP_1_1);
+        }
+    }
+
+    @Test
+    public void testSendNotify_TimeWaitingForPermit_IsNotRecordedAsLatency() throws Exception {
+        // Arrange - Another call holds the only permit of the host for a while
+        wireMockServer.stubFor(post(urlEqualTo("/webhook"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withBody("1")));
+        AdaptiveTimeouts timeouts = new AdaptiveTimeouts(1_000, 30_000, 3.0);
+        StreamBudget streams = new StreamBudget(ProtocolMode.HTTP1, 1, 1);
+        MSTeamsWebHookClient queuedClient = new MSTeamsWebHookClient(new OkHttpClient(), timeouts, streams);
+        ExecutorService sender = Executors.newSingleThreadExecutor();
+
+        // Act
+        Future<Integer> status;
+        try (StreamBudget.Permit held = streams.acquire("localhost", 1_000)) {
+            status = sender.submit(() -> {
+                try (Response response = queuedClient.sendNotify(webhookUrl, createTestPayload())) {
+                    return response.code();
+                }
+            });
+            Thread.sleep(500);
+        }
+
+        // Assert
+        Assert.assertEquals(status.get(10, TimeUnit.SECONDS).intValue(), 200);
+        sender.shutdown();
+        Assert.assertTrue(timeouts.p99Millis(webhookUrl) < 500, "recorded " + timeouts.p99Millis(webhookUrl) + " ms");
+    }
+
     private String createTestPayload() {
         return "{\n" +
                 "    \"type\": \"AdaptiveCard\",\n" +
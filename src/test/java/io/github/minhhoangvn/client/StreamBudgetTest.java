@@ -0,0 +1,133 @@
+package io.github.minhhoangvn.client;
+
+import okhttp3.HttpUrl;
+import okhttp3.Protocol;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class StreamBudgetTest {
+
+    private static final String HOST = "example.webhook.office.com";
+
+    @Test
+    public void testLimit_BeforeAnyResponse_IsOneCallPerConnection() {
+        // Arrange
+        StreamBudget budget = new StreamBudget(ProtocolMode.AUTO, 2, 100);
+
+        // Act & Assert
+        Assert.assertEquals(budget.limit(HOST), 2);
+    }
+
+    @Test
+    public void testLimit_Http2Host_MultiplexesStreams() throws IOException {
+        // Arrange
+        StreamBudget budget = new StreamBudget(ProtocolMode.AUTO, 2, 100);
+
+        // Act
+        try (StreamBudget.Permit permit = budget.acquire(HOST, 100)) {
+            permit.onResponse(Protocol.HTTP_2);
+        }
+
+        // Assert
+        Assert.assertEquals(budget.limit(HOST), 200);
+        Assert.assertEquals(budget.inFlight(HOST), 0);
+    }
+
+    @Test
+    public void testLimit_HostFallingBackToHttp1_ShrinksAgain() throws IOException {
+        // Arrange
+        StreamBudget budget = new StreamBudget(ProtocolMode.AUTO, 2, 100);
+        try (StreamBudget.Permit permit = budget.acquire(HOST, 100)) {
+            permit.onResponse(Protocol.H2_PRIOR_KNOWLEDGE);
+        }
+
+        // Act
+        try (StreamBudget.Permit permit = budget.acquire(HOST, 100)) {
+            permit.onResponse(Protocol.HTTP_1_1);
+        }
+
+        // Assert
+        Assert.assertEquals(budget.limit(HOST), 2);
+    }
+
+    @Test(expectedExceptions = SocketTimeoutException.class)
+    public void testAcquire_BudgetExhausted_TimesOut() throws IOException {
+        // Arrange
+        StreamBudget budget = new StreamBudget(ProtocolMode.HTTP1, 1, 100);
+        budget.acquire(HOST, 100);
+
+        // Act
+        budget.acquire(HOST, 50);
+    }
+
+    @Test
+    public void testAcquire_WaitsForReleasedPermit() throws Exception {
+        // Arrange
+        StreamBudget budget = new StreamBudget(ProtocolMode.HTTP1, 1, 100);
+        StreamBudget.Permit first = budget.acquire(HOST, 100);
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try (StreamBudget.Permit ignored = budget.acquire(HOST, 5_000)) {
+                acquired.countDown();
+            } catch (IOException e) {
+                // The latch stays closed and the assertion below fails
+            }
+        });
+        waiter.start();
+
+        // Act
+        Assert.assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        first.close();
+        first.close();
+
+        // Assert - Closing twice releases once
+        Assert.assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        waiter.join(5_000);
+        Assert.assertEquals(budget.inFlight(HOST), 0);
+    }
+
+    @Test
+    public void testAcquire_OtherHostsAreNotBlocked() throws IOException {
+        // Arrange
+        StreamBudget budget = new StreamBudget(ProtocolMode.HTTP1, 1, 100);
+        budget.acquire(HOST, 100);
+
+        // Act
+        try (StreamBudget.Permit permit = budget.acquire("other.webhook.office.com", 50)) {
+            // Assert
+            Assert.assertEquals(budget.inFlight("other.webhook.office.com"), 1);
+        }
+    }
+
+    @Test
+    public void testProtocolsFor_FollowsMode() {
+        // Arrange
+        HttpUrl cleartext = HttpUrl.get("http://localhost:8080/webhook");
+        HttpUrl secure = HttpUrl.get("https://example.webhook.office.com/webhook");
+
+        // Act & Assert
+        Assert.assertEquals(ProtocolMode.AUTO.protocolsFor(secure), List.of(Protocol.HTTP_2, Protocol.HTTP_1_1));
+        Assert.assertEquals(ProtocolMode.HTTP1.protocolsFor(secure), List.of(Protocol.HTTP_1_1));
+        Assert.assertEquals(ProtocolMode.H2C.protocolsFor(cleartext), List.of(Protocol.H2_PRIOR_KNOWLEDGE));
+        Assert.assertEquals(ProtocolMode.H2C.protocolsFor(secure), List.of(Protocol.HTTP_2, Protocol.HTTP_1_1));
+    }
+
+    @Test
+    public void testParse_IgnoresCase() {
+        // Act & Assert
+        Assert.assertEquals(ProtocolMode.parse(" H2c "), ProtocolMode.H2C);
+        Assert.assertEquals(ProtocolMode.parse("http1"), ProtocolMode.HTTP1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testParse_UnknownMode_Throws() {
+        // Act
+        ProtocolMode.parse("http3");
+    }
+}
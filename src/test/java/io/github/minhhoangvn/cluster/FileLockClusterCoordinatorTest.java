@@ -0,0 +1,107 @@
+package io.github.minhhoangvn.cluster;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class FileLockClusterCoordinatorTest {
+
+    private static final long WINDOW_MS = 60_000;
+    private static final long CLAIM_TTL_MS = 10_000;
+
+    private Path stateFile;
+    private AtomicLong clock;
+    private FileLockClusterCoordinator nodeA;
+    private FileLockClusterCoordinator nodeB;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        stateFile = Files.createTempFile("msteams-cluster", ".properties");
+        clock = new AtomicLong(0);
+        nodeA = new FileLockClusterCoordinator(stateFile, 2, WINDOW_MS, CLAIM_TTL_MS, clock::get);
+        nodeB = new FileLockClusterCoordinator(stateFile, 2, WINDOW_MS, CLAIM_TTL_MS, clock::get);
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(stateFile);
+    }
+
+    @Test
+    public void testClaimDelivery_IsExclusiveAcrossNodes() {
+        Assert.assertTrue(nodeA.claimDelivery("hook:task-1"));
+        Assert.assertFalse(nodeB.claimDelivery("hook:task-1"));
+        Assert.assertTrue(nodeB.claimDelivery("hook:task-2"));
+    }
+
+    @Test
+    public void testClaimDelivery_ReleasedOrExpiredClaimCanBeTakenOver() {
+        // Arrange
+        nodeA.claimDelivery("hook:task-1");
+        nodeA.claimDelivery("hook:task-2");
+
+        // Act
+        nodeA.releaseDelivery("hook:task-1");
+        clock.set(CLAIM_TTL_MS);
+
+        // Assert
+        Assert.assertTrue(nodeB.claimDelivery("hook:task-1"));
+        Assert.assertTrue(nodeB.claimDelivery("hook:task-2"));
+    }
+
+    @Test
+    public void testTryAcquire_BudgetIsSharedAndResetsPerWindow() {
+        Assert.assertTrue(nodeA.tryAcquire("hook"));
+        Assert.assertTrue(nodeB.tryAcquire("hook"));
+        Assert.assertFalse(nodeA.tryAcquire("hook"));
+        Assert.assertTrue(nodeA.tryAcquire("other-hook"));
+
+        clock.set(WINDOW_MS);
+        Assert.assertTrue(nodeB.tryAcquire("hook"));
+    }
+
+    @Test
+    public void testClaimDelivery_ConcurrentThreadsOfOneJvm_EachKeyClaimedOnce() throws Exception {
+        // Arrange - Two dispatch workers, one through each instance
+        int keys = 300;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService workers = Executors.newFixedThreadPool(2);
+        List<Future<Integer>> granted = new ArrayList<>();
+
+        // Act
+        try {
+            for (FileLockClusterCoordinator node : List.of(nodeA, nodeB)) {
+                Callable<Integer> claimAll = () -> {
+                    start.await();
+                    int claimed = 0;
+                    for (int i = 0; i < keys; i++) {
+                        if (node.claimDelivery("hook:task-" + i)) {
+                            claimed++;
+                        }
+                    }
+                    return claimed;
+                };
+                granted.add(workers.submit(claimAll));
+            }
+            start.countDown();
+
+            // Assert
+            Assert.assertEquals(granted.get(0).get() + granted.get(1).get(), keys);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package io.github.minhhoangvn.cluster;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs two coordinators, standing in for two Compute Engine nodes, against one embedded H2 database.
+ */
+public class JdbcClusterCoordinatorTest {
+
+    private static final long WINDOW_MS = 60_000;
+    private static final long CLAIM_TTL_MS = 10_000;
+    private static final AtomicInteger DATABASE_COUNTER = new AtomicInteger();
+
+    private AtomicLong clock;
+    private JdbcClusterCoordinator nodeA;
+    private JdbcClusterCoordinator nodeB;
+
+    @BeforeMethod
+    public void setUp() {
+        String url = "jdbc:h2:mem:msteams" + DATABASE_COUNTER.incrementAndGet() + ";DB_CLOSE_DELAY=-1";
+        clock = new AtomicLong(0);
+        nodeA = new JdbcClusterCoordinator(url, "sa", "", "node-a", 2, WINDOW_MS, CLAIM_TTL_MS, clock::get);
+        nodeB = new JdbcClusterCoordinator(url, "sa", "", "node-b", 2, WINDOW_MS, CLAIM_TTL_MS, clock::get);
+    }
+
+    @Test
+    public void testClaimDelivery_IsExclusiveAcrossNodes() {
+        Assert.assertTrue(nodeA.claimDelivery("hook:task-1"));
+        Assert.assertFalse(nodeB.claimDelivery("hook:task-1"));
+        Assert.assertFalse(nodeA.claimDelivery("hook:task-1"));
+    }
+
+    @Test
+    public void testReleaseDelivery_OnlyReleasesOwnClaim() {
+        // Arrange
+        nodeA.claimDelivery("hook:task-1");
+
+        // Act
+        nodeB.releaseDelivery("hook:task-1");
+        boolean claimedAfterForeignRelease = nodeB.claimDelivery("hook:task-1");
+        nodeA.releaseDelivery("hook:task-1");
+        boolean claimedAfterOwnerRelease = nodeB.claimDelivery("hook:task-1");
+
+        // Assert
+        Assert.assertFalse(claimedAfterForeignRelease);
+        Assert.assertTrue(claimedAfterOwnerRelease);
+    }
+
+    @Test
+    public void testClaimDelivery_ExpiredClaimCanBeTakenOver() {
+        // Arrange
+        nodeA.claimDelivery("hook:task-1");
+
+        // Act
+        clock.set(CLAIM_TTL_MS);
+
+        // Assert
+        Assert.assertTrue(nodeB.claimDelivery("hook:task-1"));
+        Assert.assertFalse(nodeA.claimDelivery("hook:task-1"));
+    }
+
+    @Test
+    public void testTryAcquire_BudgetIsSharedAndResetsPerWindow() {
+        Assert.assertTrue(nodeA.tryAcquire("hook"));
+        Assert.assertTrue(nodeB.tryAcquire("hook"));
+        Assert.assertFalse(nodeA.tryAcquire("hook"));
+        Assert.assertFalse(nodeB.tryAcquire("hook"));
+        Assert.assertTrue(nodeB.tryAcquire("other-hook"));
+
+        clock.set(WINDOW_MS);
+        Assert.assertTrue(nodeA.tryAcquire("hook"));
+    }
+
+    @Test
+    public void testCoordinator_FailsOpenWhenDatabaseIsUnreachable() {
+        // Arrange
+        JdbcClusterCoordinator unreachable = new JdbcClusterCoordinator(
+                "jdbc:unknown:nowhere", null, null, "node-c", 1, WINDOW_MS, CLAIM_TTL_MS, clock::get);
+
+        // Act & Assert
+        Assert.assertTrue(unreachable.claimDelivery("hook:task-1"));
+        Assert.assertTrue(unreachable.tryAcquire("hook"));
+        Assert.assertTrue(unreachable.tryAcquire("hook"));
+    }
+
+    @Test
+    public void testCoordinator_ReusesConnectionAcrossCalls() {
+        // Arrange
+        String url = "jdbc:h2:mem:msteams" + DATABASE_COUNTER.incrementAndGet();
+        JdbcClusterCoordinator coordinator = new JdbcClusterCoordinator(
+                url, "sa", "", "node-c", 2, WINDOW_MS, CLAIM_TTL_MS, clock::get);
+
+        // Act: without DB_CLOSE_DELAY the in-memory database only lives as long as a connection is open
+        coordinator.claimDelivery("hook:task-1");
+
+        // Assert
+        Assert.assertFalse(coordinator.claimDelivery("hook:task-1"));
+    }
+
+    @Test
+    public void testLoadDriver_DerivesClassFromUrl() throws SQLException {
+        // Act & Assert
+        Assert.assertEquals(JdbcClusterCoordinator.driverClassFor("jdbc:postgresql://db/sonar"), "org.postgresql.Driver");
+        Assert.assertEquals(JdbcClusterCoordinator.driverClassFor("jdbc:sqlserver://db;databaseName=sonar"),
+                "com.microsoft.sqlserver.jdbc.SQLServerDriver");
+        Assert.assertNull(JdbcClusterCoordinator.driverClassFor("jdbc:unknown:nowhere"));
+        Assert.assertEquals(JdbcClusterCoordinator.loadDriver(null, "jdbc:h2:mem:driver").getClass().getName(), "org.h2.Driver");
+    }
+
+    @Test(expectedExceptions = SQLException.class)
+    public void testLoadDriver_MissingClass_Throws() throws SQLException {
+        JdbcClusterCoordinator.loadDriver("com.example.MissingDriver", "jdbc:postgresql://db/sonar");
+    }
+}
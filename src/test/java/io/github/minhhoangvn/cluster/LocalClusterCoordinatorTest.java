@@ -0,0 +1,56 @@
+package io.github.minhhoangvn.cluster;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class LocalClusterCoordinatorTest {
+
+    private static final long WINDOW_MS = 60_000;
+    private static final long CLAIM_TTL_MS = 10_000;
+
+    private AtomicLong clock;
+    private LocalClusterCoordinator coordinator;
+
+    @BeforeMethod
+    public void setUp() {
+        clock = new AtomicLong(0);
+        coordinator = new LocalClusterCoordinator(2, WINDOW_MS, CLAIM_TTL_MS, clock::get);
+    }
+
+    @Test
+    public void testClaimDelivery_LiveClaimIsExclusiveUntilReleased() {
+        Assert.assertTrue(coordinator.claimDelivery("hook:task-1"));
+        Assert.assertFalse(coordinator.claimDelivery("hook:task-1"));
+        Assert.assertTrue(coordinator.claimDelivery("hook:task-2"));
+
+        coordinator.releaseDelivery("hook:task-1");
+        Assert.assertTrue(coordinator.claimDelivery("hook:task-1"));
+    }
+
+    @Test
+    public void testClaimDelivery_ExpiredClaimIsReplacedBeforeThePurge() {
+        // Arrange
+        coordinator.claimDelivery("hook:task-1");
+
+        // Act - Past the claim TTL but well before the next purge of expired claims
+        clock.set(CLAIM_TTL_MS);
+        boolean reclaimed = coordinator.claimDelivery("hook:task-1");
+
+        // Assert
+        Assert.assertTrue(reclaimed);
+        Assert.assertFalse(coordinator.claimDelivery("hook:task-1"));
+    }
+
+    @Test
+    public void testTryAcquire_BudgetResetsPerWindow() {
+        Assert.assertTrue(coordinator.tryAcquire("hook"));
+        Assert.assertTrue(coordinator.tryAcquire("hook"));
+        Assert.assertFalse(coordinator.tryAcquire("hook"));
+
+        clock.set(WINDOW_MS);
+        Assert.assertTrue(coordinator.tryAcquire("hook"));
+    }
+}
@@ -0,0 +1,287 @@
+package io.github.minhhoangvn.dispatch;
+
+import io.github.minhhoangvn.utils.AdaptiveCardsFormat;
+import org.sonar.api.ce.posttask.QualityGate;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+public class BacklogStoreTest {
+
+    private static final String WEBHOOK_URL = "https://example.webhook.office.com/webhook";
+
+    private Path directory;
+    private BacklogStore store;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("msteams-backlog");
+        store = new BacklogStore(directory.resolve("backlog.properties"));
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(store.getFile());
+        Files.deleteIfExists(tempFile());
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    public void testSaveAndLoad_RoundTripsRenderedNotifications() throws IOException {
+        // Arrange
+        LazyPayload payload = LazyPayload.of(() -> "{\"text\":\"failed\"}");
+        Notification notification = Notification.builder()
+                .notificationId("AX-task-1/AX-analysis-1/1")
+                .ceTaskId("AX-task-1")
+                .projectKey("team-x/billing")
+                .projectName("Billing")
+                .branch("feature/login")
+                .qualityGateStatus(QualityGate.Status.ERROR)
+                .webhookUrl(WEBHOOK_URL)
+                .payload(payload)
+                .createdAtMillis(1_000)
+                .deadlineMillis(61_000)
+                .build();
+
+        // Act
+        int saved = store.save(List.of(notification));
+        List<Notification> loaded = store.load();
+
+        // Assert
+        Assert.assertEquals(saved, 1);
+        Assert.assertTrue(payload.isReleased());
+        Assert.assertFalse(store.exists());
+        Assert.assertEquals(loaded.size(), 1);
+        Notification restored = loaded.get(0);
+        Assert.assertEquals(restored.getPayload(), "{\"text\":\"failed\"}");
+        Assert.assertEquals(restored.getNotificationId(), "AX-task-1/AX-analysis-1/1");
+        Assert.assertEquals(restored.getCeTaskId(), "AX-task-1");
+        Assert.assertEquals(restored.getProjectBranchKey(), "team-x/billing:feature/login");
+        Assert.assertEquals(restored.getQualityGateStatus(), QualityGate.Status.ERROR);
+        Assert.assertEquals(restored.getWebhookUrl(), WEBHOOK_URL);
+        Assert.assertEquals(restored.getCreatedAtMillis(), 1_000);
+        Assert.assertEquals(restored.getDeadlineMillis(), 61_000);
+    }
+
+    @Test
+    public void testSave_SkipsNotificationsThatCannotBeRendered() throws IOException {
+        // Arrange
+        Notification broken = Notification.builder()
+                .projectName("broken")
+                .webhookUrl(WEBHOOK_URL)
+                .payload(LazyPayload.of(() -> {
+                    throw new IllegalStateException("boom");
+                }))
+                .build();
+        Notification fine = Notification.builder()
+                .projectName("fine")
+                .webhookUrl(WEBHOOK_URL)
+                .payload("{}")
+                .build();
+
+        // Act
+        int saved = store.save(List.of(broken, fine));
+
+        // Assert
+        Assert.assertEquals(saved, 1);
+        Assert.assertEquals(store.load().get(0).getProjectName(), "fine");
+    }
+
+    @Test
+    public void testLoad_WithoutFile_ReturnsNothing() throws IOException {
+        Assert.assertTrue(store.load().isEmpty());
+    }
+
+    @Test
+    public void testSave_CompressesCards() throws IOException {
+        // Arrange
+        List<Notification> notifications = new ArrayList<>();
+        long rawBytes = 0;
+        for (int i = 0; i < 1_000; i++) {
+            String payload = AdaptiveCardsFormat.createShedSummaryPayload(i, List.of("Billing " + i, "Payments " + i));
+            rawBytes += payload.getBytes(StandardCharsets.UTF_8).length;
+            notifications.add(notification("project-" + i, payload));
+        }
+
+        // Act
+        store.save(notifications);
+
+        // Assert - Well under a quarter of the rendered cards, and every card comes back intact
+        Assert.assertTrue(Files.size(store.getFile()) < rawBytes / 4, Files.size(store.getFile()) + " of " + rawBytes);
+        List<Notification> loaded = store.load();
+        Assert.assertEquals(loaded.size(), 1_000);
+        Assert.assertEquals(loaded.get(999).getPayload(),
+                AdaptiveCardsFormat.createShedSummaryPayload(999, List.of("Billing 999", "Payments 999")));
+    }
+
+    @Test
+    public void testLoad_SaveCutShortByCrash_ReplaysCompleteRecords() throws IOException {
+        // Arrange - What a server dying halfway through writing the third record leaves behind
+        store.save(List.of(notification("first", "{\"n\":1}"), notification("second", "{\"n\":2}"),
+                notification("third", "{\"n\":3}")));
+        byte[] bytes = Files.readAllBytes(store.getFile());
+        Files.write(tempFile(), Arrays.copyOf(bytes, bytes.length - 5));
+        Files.delete(store.getFile());
+
+        // Act
+        List<Notification> loaded = store.load();
+
+        // Assert
+        Assert.assertEquals(loaded.size(), 2);
+        Assert.assertEquals(loaded.get(1).getPayload(), "{\"n\":2}");
+        Assert.assertFalse(store.exists());
+    }
+
+    @Test
+    public void testLoad_CorruptRecord_StopsAtLastGoodRecord() throws IOException {
+        // Arrange
+        store.save(List.of(notification("first", "{\"n\":1}"), notification("second", "{\"n\":2}")));
+        byte[] bytes = Files.readAllBytes(store.getFile());
+        bytes[bytes.length - 3] ^= 0x55;
+        Files.write(store.getFile(), bytes);
+
+        // Act
+        List<Notification> loaded = store.load();
+
+        // Assert
+        Assert.assertEquals(loaded.size(), 1);
+        Assert.assertEquals(loaded.get(0).getProjectName(), "first");
+    }
+
+    @Test
+    public void testReplay_ConsumerStops_KeepsNotificationsNotHandedOver() throws IOException {
+        // Arrange
+        store.save(List.of(notification("first", "{}"), notification("second", "{}"), notification("third", "{}")));
+        List<String> seen = new ArrayList<>();
+
+        // Act
+        int replayed = store.replay(notification -> {
+            seen.add(notification.getProjectName());
+            return seen.size() < 2;
+        });
+
+        // Assert
+        Assert.assertEquals(replayed, 1);
+        Assert.assertEquals(seen, List.of("first", "second"));
+        Assert.assertTrue(store.exists());
+        Assert.assertEquals(store.load().stream().map(Notification::getProjectName).collect(Collectors.toList()),
+                List.of("second", "third"));
+        Assert.assertFalse(store.exists());
+    }
+
+    @Test
+    public void testSave_AfterReplayStoppedEarly_KeepsRemainderAhead() throws IOException {
+        // Arrange - A shutdown interrupting the restore of the previous backlog
+        store.save(List.of(notification("old-1", "{}"), notification("old-2", "{}")));
+        store.replay(notification -> false);
+
+        // Act
+        int saved = store.save(List.of(notification("new", "{}")));
+
+        // Assert
+        Assert.assertEquals(saved, 3);
+        Assert.assertEquals(store.load().stream().map(Notification::getProjectName).collect(Collectors.toList()),
+                List.of("old-1", "old-2", "new"));
+    }
+
+    @Test
+    public void testReplay_ConsumerStopsBeforeCorruptTail_KeepsOnlyGoodRecords() throws IOException {
+        // Arrange
+        store.save(List.of(notification("first", "{\"n\":1}"), notification("second", "{\"n\":2}"),
+                notification("third", "{\"n\":3}")));
+        byte[] bytes = Files.readAllBytes(store.getFile());
+        bytes[bytes.length - 3] ^= 0x55;
+        Files.write(store.getFile(), bytes);
+
+        // Act
+        store.replay(notification -> false);
+
+        // Assert - The corrupt third record is cut off
+        Assert.assertEquals(store.load().stream().map(Notification::getProjectName).collect(Collectors.toList()),
+                List.of("first", "second"));
+    }
+
+    @Test
+    public void testReplay_UnsupportedVersion_KeepsFile() throws IOException {
+        // Arrange - A backlog written by a newer plugin version
+        store.save(List.of(notification("first", "{}")));
+        byte[] bytes = Files.readAllBytes(store.getFile());
+        bytes[Integer.BYTES + 3] = 99;
+        Files.write(store.getFile(), bytes);
+
+        // Act
+        Assert.assertThrows(IOException.class, () -> store.replay(notification -> true));
+
+        // Assert
+        Assert.assertTrue(Arrays.equals(Files.readAllBytes(store.getFile()), bytes));
+    }
+
+    @Test
+    public void testReplay_ConsumerThrows_KeepsNotificationsNotHandedOver() throws IOException {
+        // Arrange
+        store.save(List.of(notification("first", "{}"), notification("second", "{}"), notification("third", "{}")));
+        List<String> seen = new ArrayList<>();
+
+        // Act
+        Assert.assertThrows(IllegalStateException.class, () -> store.replay(notification -> {
+            seen.add(notification.getProjectName());
+            if (seen.size() == 2) {
+                throw new IllegalStateException("queue closed");
+            }
+            return true;
+        }));
+
+        // Assert
+        Assert.assertEquals(seen, List.of("first", "second"));
+        Assert.assertEquals(store.load().stream().map(Notification::getProjectName).collect(Collectors.toList()),
+                List.of("second", "third"));
+    }
+
+    @Test
+    public void testLoad_PropertiesBacklogFromPreviousVersion_IsRead() throws IOException {
+        // Arrange
+        Properties properties = new Properties();
+        properties.setProperty("count", "1");
+        properties.setProperty("0.webhookUrl", WEBHOOK_URL);
+        properties.setProperty("0.payload", "{\"text\":\"failed\"}");
+        properties.setProperty("0.projectName", "Billing");
+        properties.setProperty("0.qualityGateStatus", "ERROR");
+        properties.setProperty("0.createdAtMillis", "1000");
+        properties.setProperty("0.deadlineMillis", "61000");
+        try (OutputStream out = Files.newOutputStream(store.getFile())) {
+            properties.store(out, null);
+        }
+
+        // Act
+        List<Notification> loaded = store.load();
+
+        // Assert
+        Assert.assertEquals(loaded.size(), 1);
+        Assert.assertEquals(loaded.get(0).getPayload(), "{\"text\":\"failed\"}");
+        Assert.assertEquals(loaded.get(0).getQualityGateStatus(), QualityGate.Status.ERROR);
+    }
+
+    private Path tempFile() {
+        return store.getFile().resolveSibling(store.getFile().getFileName() + ".tmp");
+    }
+
+    private static Notification notification(String projectName, String payload) {
+        return Notification.builder()
+                .projectName(projectName)
+                .webhookUrl(WEBHOOK_URL)
+                .payload(payload)
+                .build();
+    }
+}
@@ -0,0 +1,498 @@
+package io.github.minhhoangvn.dispatch;
+
+import io.github.minhhoangvn.audit.AuditJournal;
+import io.github.minhhoangvn.audit.AuditRecord;
+import io.github.minhhoangvn.cluster.ClusterCoordinator;
+import io.github.minhhoangvn.cluster.LocalClusterCoordinator;
+import io.github.minhhoangvn.metrics.NotifierMetrics;
+import io.github.minhhoangvn.utils.Constants;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.ce.posttask.QualityGate;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Discrete-event simulation of notification delivery, to see before onboarding many projects
+ * whether the webhooks will throttle and how deep the queue will get.
+ * <p>
+ * A stream of analyses, synthetic or read back from the audit journal, goes through the real
+ * {@link NotificationDispatcher}, tuned by the same settings as the server: priorities, quiet
+ * hours, load shedding, bulkheads, the rate limit and holding notifications for a webhook that
+ * answers 429 until a probe succeeds. Webhooks are replaced by {@link SimulatedEndpoint models}.
+ * Everything runs on one thread against a simulated clock, events in time order, so hours of
+ * traffic take seconds and a run with the same seed always gives the same report.
+ * <p>
+ * Dispatch threads are modelled as workers busy for the duration of each call; a webhook call
+ * does not overlap another call on the same worker, and the per-webhook bulkhead concurrency is
+ * not modelled beyond that. It is a tool for the people tuning the plugin and does not ship with
+ * it; run this class from the test classpath with a properties file to simulate from the command line.
+ */
+public final class DispatchSimulation {
+
+    private static final Logger LOGGER = Loggers.get(DispatchSimulation.class);
+    /** Webhook of the notifications read from the audit journal, followed by the destination hash. */
+    public static final String SIMULATED_WEBHOOK = "https://simulated.webhook.office.com/";
+    // Same as the prober, which is also when quiet hours are released
+    private static final long TICK_MILLIS = 1_000;
+    private static final Pattern JSON_FIELD = Pattern.compile("\"(\\w+)\":(?:\"((?:[^\"\\\\]|\\\\.)*)\"|(-?\\d+))");
+
+    private final Configuration configuration;
+    private final List<Arrival> arrivals;
+    private final Map<String, SimulatedEndpoint> endpoints;
+    private final SimulatedEndpoint defaultEndpoint;
+    private final Random random;
+    private final long drainLimitMillis;
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+    private final List<Long> latencies = new ArrayList<>();
+    private long now;
+    private long sequence;
+    private long busyMillis;
+    private boolean ran;
+
+    private DispatchSimulation(Builder builder) {
+        this.configuration = builder.configuration;
+        this.arrivals = new ArrayList<>(builder.arrivals);
+        this.arrivals.sort(Comparator.comparingLong(Arrival::getAtMillis));
+        this.endpoints = new HashMap<>(builder.endpoints);
+        this.defaultEndpoint = builder.defaultEndpoint;
+        this.random = new Random(builder.seed);
+        this.drainLimitMillis = builder.drainLimitMillis;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Runs the simulation until every notification is delivered or dropped, or until the drain
+     * limit passed the last arrival. A simulation runs once; the endpoint models keep their state.
+     */
+    public synchronized SimulationReport run() {
+        if (ran) {
+            throw new IllegalStateException("Simulation already ran");
+        }
+        ran = true;
+        long start = arrivals.isEmpty() ? 0 : arrivals.get(0).getAtMillis();
+        long horizon = (arrivals.isEmpty() ? start : arrivals.get(arrivals.size() - 1).getAtMillis()) + drainLimitMillis;
+        now = start;
+
+        NotifierMetrics metrics = new NotifierMetrics();
+        ClusterCoordinator coordinator = new LocalClusterCoordinator(
+                configuration.getInt(Constants.CLUSTER_RATE_LIMIT).orElse(Constants.DEFAULT_CLUSTER_RATE_LIMIT),
+                configuration.getLong(Constants.CLUSTER_RATE_WINDOW_MS).orElse(Constants.DEFAULT_CLUSTER_RATE_WINDOW_MS),
+                configuration.getLong(Constants.CLUSTER_CLAIM_TTL_MS).orElse(Constants.DEFAULT_CLUSTER_CLAIM_TTL_MS),
+                () -> now);
+        NotificationDispatcher dispatcher = new NotificationDispatcher(configuration, metrics, AuditJournal.disabled(),
+                new ModelledSender(), coordinator, () -> now, millis -> busyMillis += millis);
+        EndpointHealth health = dispatcher.getEndpointHealth();
+
+        for (int i = 0; i < arrivals.size(); i++) {
+            schedule(arrivals.get(i).getAtMillis(), EventType.ARRIVAL, i);
+        }
+        schedule(start + TICK_MILLIS, EventType.TICK, 0);
+        int workers = dispatcher.getWorkerCount();
+        int idle = workers;
+        int arrived = 0;
+        int maxQueueDepth = 0;
+        int maxHeld = 0;
+
+        while (!events.isEmpty() && events.peek().atMillis <= horizon) {
+            Event event = events.poll();
+            now = event.atMillis;
+            boolean progress = true;
+            switch (event.type) {
+                case ARRIVAL:
+                    dispatcher.enqueue(arrivals.get(event.index).toNotification(dispatcher.deadlineFor(now)));
+                    arrived++;
+                    break;
+                case WORKER:
+                    int pendingBefore = dispatcher.pending();
+                    int heldBefore = health.held();
+                    busyMillis = 0;
+                    try {
+                        dispatcher.dispatchNext(0);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Simulation interrupted", e);
+                    }
+                    progress = busyMillis > 0 || dispatcher.pending() != pendingBefore || health.held() != heldBefore;
+                    if (busyMillis > 0) {
+                        schedule(now + busyMillis, EventType.WORKER, 0);
+                    } else {
+                        idle++;
+                    }
+                    break;
+                case TICK:
+                    dispatcher.releaseDeferred();
+                    probeDue(dispatcher, health);
+                    if (arrived < arrivals.size() || idle < workers || dispatcher.pending() > 0 || health.held() > 0
+                            || dispatcher.deferred() > 0) {
+                        schedule(now + TICK_MILLIS, EventType.TICK, 0);
+                    }
+                    break;
+                default:
+                    break;
+            }
+            maxQueueDepth = Math.max(maxQueueDepth, dispatcher.pending());
+            maxHeld = Math.max(maxHeld, health.held());
+            // A worker that found nothing it could take waits for something else to happen
+            while (progress && idle > 0 && dispatcher.pending() > 0) {
+                idle--;
+                schedule(now, EventType.WORKER, 0);
+            }
+        }
+
+        int undelivered = dispatcher.pending() + health.held() + dispatcher.deferred();
+        long throttled = 0;
+        Set<SimulatedEndpoint> models = new HashSet<>(endpoints.values());
+        models.add(defaultEndpoint);
+        for (SimulatedEndpoint model : models) {
+            throttled += model.getThrottled();
+        }
+        long[] delivered = latencies.stream().mapToLong(Long::longValue).toArray();
+        return new SimulationReport(arrivals.size(), now - start, maxQueueDepth, maxHeld, throttled, undelivered,
+                metrics.snapshot(), delivered);
+    }
+
+    // As the EndpointHealthProber does, on the simulated clock
+    private void probeDue(NotificationDispatcher dispatcher, EndpointHealth health) {
+        for (String webhookUrl : health.dueForProbe(now)) {
+            if (DeliveryOutcome.ofStatus(endpointFor(webhookUrl).probe(now)) != DeliveryOutcome.UNAVAILABLE) {
+                dispatcher.endpointRecovered(webhookUrl);
+            } else {
+                health.probeFailed(webhookUrl, now);
+            }
+        }
+    }
+
+    private void schedule(long atMillis, EventType type, int index) {
+        events.add(new Event(atMillis, sequence++, type, index));
+    }
+
+    private SimulatedEndpoint endpointFor(String webhookUrl) {
+        return endpoints.getOrDefault(webhookUrl, defaultEndpoint);
+    }
+
+    /**
+     * Analyses arriving at random, on average every {@code meanIntervalMillis}, each for one of
+     * {@code projects} projects. Each project always notifies the same webhook, taken in turn
+     * from {@code webhookUrls}.
+     */
+    public static List<Arrival> syntheticArrivals(int count, long meanIntervalMillis, int projects, List<String> webhookUrls,
+                                                  double failedShare, long seed) {
+        if (webhookUrls.isEmpty()) {
+            throw new IllegalArgumentException("At least one webhook is needed");
+        }
+        Random random = new Random(seed);
+        List<Arrival> arrivals = new ArrayList<>(count);
+        long at = 0;
+        for (int i = 0; i < count; i++) {
+            at += (long) (-meanIntervalMillis * Math.log(1 - random.nextDouble()));
+            int project = random.nextInt(Math.max(1, projects));
+            QualityGate.Status status = random.nextDouble() < failedShare ? QualityGate.Status.ERROR : QualityGate.Status.OK;
+            arrivals.add(new Arrival(at, "project-" + project, null, webhookUrls.get(project % webhookUrls.size()), status));
+        }
+        return arrivals;
+    }
+
+    /**
+     * Reads back the analyses of an audit journal file, or of every journal file of a directory,
+     * at the time they were created. Each destination becomes a webhook under
+     * {@link #SIMULATED_WEBHOOK}. The journal does not keep quality gate statuses, so every
+     * analysis is routine.
+     */
+    public static List<Arrival> readAuditJournal(Path path) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> children = Files.list(path)) {
+                children.filter(child -> child.getFileName().toString().endsWith(".ndjson")).sorted().forEach(files::add);
+            }
+        } else {
+            files.add(path);
+        }
+        List<Arrival> arrivals = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (Path file : files) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Arrival arrival = parseAuditLine(line, seen);
+                    if (arrival != null) {
+                        arrivals.add(arrival);
+                    }
+                }
+            }
+        }
+        arrivals.sort(Comparator.comparingLong(Arrival::getAtMillis));
+        return arrivals;
+    }
+
+    // One arrival per analysis and destination, though a notification held for a while has several records
+    private static Arrival parseAuditLine(String line, Set<String> seen) {
+        Map<String, String> fields = new HashMap<>();
+        Matcher matcher = JSON_FIELD.matcher(line);
+        while (matcher.find()) {
+            fields.put(matcher.group(1), matcher.group(2) != null ? matcher.group(2) : matcher.group(3));
+        }
+        String destination = fields.get("destination");
+        if (fields.get("ts") == null || destination == null || AuditRecord.DEDUPLICATED.equals(fields.get("status"))) {
+            return null;
+        }
+        String ceTaskId = fields.get("ceTaskId");
+        if (ceTaskId != null && !seen.add(ceTaskId + ":" + destination)) {
+            return null;
+        }
+        try {
+            long createdAt = Instant.parse(fields.get("ts")).toEpochMilli() - Long.parseLong(fields.getOrDefault("ageMs", "0"));
+            return new Arrival(createdAt, fields.get("project"), fields.get("branch"), SIMULATED_WEBHOOK + destination, null);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Simulates from the command line, e.g. {@code mvn test-compile exec:java -Dexec.classpathScope=test
+     * -Dexec.mainClass=io.github.minhhoangvn.dispatch.DispatchSimulation -Dexec.args="<properties> [audit journal]"}.
+     * <p>
+     * The properties file holds the {@code sonar.msteams.*} settings to try and the model, under
+     * {@code simulation.*}: {@code analyses}, {@code interval.ms}, {@code projects}, {@code webhooks},
+     * {@code failed.share} and {@code seed} for the synthetic stream, ignored when a journal is
+     * given, then {@code latency.ms}, {@code latency.tail.ms}, {@code throttle.limit},
+     * {@code throttle.window.ms}, {@code retry.after.ms} and {@code drain.limit.ms}.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            throw new IllegalArgumentException("Usage: DispatchSimulation <properties file> [audit journal file or directory]");
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(Paths.get(args[0]))) {
+            properties.load(in);
+        }
+        Configuration configuration = new PropertiesConfiguration(properties);
+        List<Arrival> arrivals;
+        if (args.length == 2) {
+            arrivals = readAuditJournal(Paths.get(args[1]));
+        } else {
+            List<String> webhooks = new ArrayList<>();
+            for (int i = 0; i < configuration.getInt("simulation.webhooks").orElse(1); i++) {
+                webhooks.add(SIMULATED_WEBHOOK + i);
+            }
+            arrivals = syntheticArrivals(configuration.getInt("simulation.analyses").orElse(1_000),
+                    configuration.getLong("simulation.interval.ms").orElse(1_000L),
+                    configuration.getInt("simulation.projects").orElse(100), webhooks,
+                    configuration.getDouble("simulation.failed.share").orElse(0.2),
+                    configuration.getLong("simulation.seed").orElse(1L));
+        }
+        SimulationReport report = builder()
+                .configuration(configuration)
+                .arrivals(arrivals)
+                .defaultEndpoint(new SimulatedEndpoint(
+                        configuration.getLong("simulation.latency.ms").orElse(300L),
+                        configuration.getLong("simulation.latency.tail.ms").orElse(200L),
+                        configuration.getInt("simulation.throttle.limit").orElse(4),
+                        configuration.getLong("simulation.throttle.window.ms").orElse(1_000L),
+                        configuration.getLong("simulation.retry.after.ms").orElse(5_000L)))
+                .seed(configuration.getLong("simulation.seed").orElse(1L))
+                .drainLimitMillis(configuration.getLong("simulation.drain.limit.ms").orElse(Builder.DEFAULT_DRAIN_LIMIT_MILLIS))
+                .build()
+                .run();
+        LOGGER.info("{}", report);
+    }
+
+    /**
+     * An analysis finishing at a given time.
+     */
+    public static final class Arrival {
+        private final long atMillis;
+        private final String projectKey;
+        private final String branch;
+        private final String webhookUrl;
+        private final QualityGate.Status qualityGateStatus;
+
+        /**
+         * @param qualityGateStatus status of the quality gate, or {@code null} when not known
+         */
+        public Arrival(long atMillis, String projectKey, String branch, String webhookUrl, QualityGate.Status qualityGateStatus) {
+            this.atMillis = atMillis;
+            this.projectKey = projectKey;
+            this.branch = branch;
+            this.webhookUrl = webhookUrl;
+            this.qualityGateStatus = qualityGateStatus;
+        }
+
+        public long getAtMillis() {
+            return atMillis;
+        }
+
+        public String getProjectKey() {
+            return projectKey;
+        }
+
+        public String getWebhookUrl() {
+            return webhookUrl;
+        }
+
+        private Notification toNotification(long deadlineMillis) {
+            return Notification.builder()
+                    .projectKey(projectKey)
+                    .projectName(projectKey)
+                    .branch(branch)
+                    .qualityGateStatus(qualityGateStatus)
+                    .webhookUrl(webhookUrl)
+                    .payload("{}")
+                    .createdAtMillis(atMillis)
+                    .deadlineMillis(deadlineMillis)
+                    .build();
+        }
+    }
+
+    public static final class Builder {
+        static final long DEFAULT_DRAIN_LIMIT_MILLIS = 24 * 60 * 60_000L;
+
+        private Configuration configuration;
+        private final List<Arrival> arrivals = new ArrayList<>();
+        private final Map<String, SimulatedEndpoint> endpoints = new HashMap<>();
+        private SimulatedEndpoint defaultEndpoint = SimulatedEndpoint.unlimited(0);
+        private long seed = 1;
+        private long drainLimitMillis = DEFAULT_DRAIN_LIMIT_MILLIS;
+
+        private Builder() {
+        }
+
+        /** Settings of the dispatcher, as in {@code sonar.properties}. */
+        public Builder configuration(Configuration configuration) {
+            this.configuration = configuration;
+            return this;
+        }
+
+        public Builder arrivals(List<Arrival> arrivals) {
+            this.arrivals.addAll(arrivals);
+            return this;
+        }
+
+        /** Model of one webhook. */
+        public Builder endpoint(String webhookUrl, SimulatedEndpoint endpoint) {
+            this.endpoints.put(webhookUrl, endpoint);
+            return this;
+        }
+
+        /** Model of the webhooks without one of their own. */
+        public Builder defaultEndpoint(SimulatedEndpoint endpoint) {
+            this.defaultEndpoint = endpoint;
+            return this;
+        }
+
+        /** Seed of the call latencies. */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /** How long after the last arrival notifications still undelivered are given up on. */
+        public Builder drainLimitMillis(long drainLimitMillis) {
+            this.drainLimitMillis = drainLimitMillis;
+            return this;
+        }
+
+        public DispatchSimulation build() {
+            if (configuration == null) {
+                throw new IllegalStateException("Simulation requires a configuration");
+            }
+            return new DispatchSimulation(this);
+        }
+    }
+
+    // Posts to the endpoint models instead of Teams, keeping the worker busy for the call
+    private final class ModelledSender extends NotificationSender {
+        private ModelledSender() {
+            super(null, null);
+        }
+
+        @Override
+        public DeliveryOutcome deliver(Notification notification) {
+            SimulatedEndpoint endpoint = endpointFor(notification.getWebhookUrl());
+            long latency = endpoint.latency(random);
+            busyMillis += latency;
+            DeliveryOutcome outcome = DeliveryOutcome.ofStatus(endpoint.post(now));
+            // Backlog summaries have no project and are not part of the latency
+            if (outcome == DeliveryOutcome.DELIVERED && notification.getProjectKey() != null) {
+                latencies.add(now + latency - notification.getCreatedAtMillis());
+            }
+            return outcome;
+        }
+    }
+
+    private enum EventType {
+        ARRIVAL,
+        WORKER,
+        TICK
+    }
+
+    // Ordered by time, then by scheduling order, so runs are repeatable
+    private static final class Event implements Comparable<Event> {
+        private final long atMillis;
+        private final long sequence;
+        private final EventType type;
+        private final int index;
+
+        private Event(long atMillis, long sequence, EventType type, int index) {
+            this.atMillis = atMillis;
+            this.sequence = sequence;
+            this.type = type;
+            this.index = index;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            int byTime = Long.compare(atMillis, other.atMillis);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private static final class PropertiesConfiguration implements Configuration {
+        private final Properties properties;
+
+        private PropertiesConfiguration(Properties properties) {
+            this.properties = properties;
+        }
+
+        @Override
+        public Optional<String> get(String key) {
+            return Optional.ofNullable(properties.getProperty(key)).filter(StringUtils::isNotBlank).map(String::trim);
+        }
+
+        @Override
+        public boolean hasKey(String key) {
+            return get(key).isPresent();
+        }
+
+        @Override
+        public String[] getStringArray(String key) {
+            return get(key).map(value -> value.split(",")).orElse(new String[0]);
+        }
+    }
+}
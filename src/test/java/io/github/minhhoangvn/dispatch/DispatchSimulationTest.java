@@ -0,0 +1,155 @@
+package io.github.minhhoangvn.dispatch;
+
+import io.github.minhhoangvn.metrics.NotifierMetrics;
+import io.github.minhhoangvn.utils.Constants;
+import org.sonar.api.config.Configuration;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class DispatchSimulationTest {
+
+    private static final String WEBHOOK_URL = "https://example.webhook.office.com/webhook";
+
+    @Test
+    public void testRun_LightLoad_EverythingDeliveredAtEndpointLatency() {
+        // Arrange
+        List<DispatchSimulation.Arrival> arrivals = DispatchSimulation.syntheticArrivals(200, 5_000, 20, List.of(WEBHOOK_URL), 0.2, 7);
+
+        // Act
+        SimulationReport report = DispatchSimulation.builder()
+                .configuration(new MapConfiguration())
+                .arrivals(arrivals)
+                .defaultEndpoint(SimulatedEndpoint.unlimited(300))
+                .build()
+                .run();
+
+        // Assert
+        Assert.assertEquals(report.getDelivered(), 200);
+        Assert.assertEquals(report.getShed(), 0);
+        Assert.assertEquals(report.getUndelivered(), 0);
+        Assert.assertEquals(report.latencyPercentile(50), 300);
+        Assert.assertTrue(report.getMaxQueueDepth() <= 2, "depth " + report.getMaxQueueDepth());
+    }
+
+    @Test
+    public void testRun_BurstAboveThrottle_HeldUntilProbeSucceedsThenDelivered() {
+        // Arrange: 100 analyses within 10 seconds against a connector taking 4 calls a second
+        List<DispatchSimulation.Arrival> arrivals = DispatchSimulation.syntheticArrivals(100, 100, 50, List.of(WEBHOOK_URL), 0.0, 3);
+
+        // Act
+        SimulationReport report = DispatchSimulation.builder()
+                .configuration(new MapConfiguration().with(Constants.DISPATCH_THREADS, "8"))
+                .arrivals(arrivals)
+                .endpoint(WEBHOOK_URL, new SimulatedEndpoint(100, 50, 4, 1_000, 5_000))
+                .build()
+                .run();
+
+        // Assert
+        Assert.assertTrue(report.getThrottled() > 0);
+        Assert.assertTrue(report.metric(NotifierMetrics.HELD_UNAVAILABLE) > 0);
+        Assert.assertTrue(report.getMaxHeld() > 0);
+        Assert.assertEquals(report.getDelivered() + report.getShed() + report.getUndelivered(), 100);
+        Assert.assertTrue(report.latencyPercentile(99) >= 5_000, report.toString());
+    }
+
+    @Test
+    public void testRun_QueueTooSmallForBurst_ShedsRoutineNotifications() {
+        // Arrange
+        List<DispatchSimulation.Arrival> arrivals = DispatchSimulation.syntheticArrivals(500, 10, 100, List.of(WEBHOOK_URL), 0.1, 5);
+
+        // Act
+        SimulationReport report = DispatchSimulation.builder()
+                .configuration(new MapConfiguration().with(Constants.DISPATCH_QUEUE_CAPACITY, "50"))
+                .arrivals(arrivals)
+                .defaultEndpoint(SimulatedEndpoint.unlimited(500))
+                .build()
+                .run();
+
+        // Assert
+        Assert.assertTrue(report.getShed() > 0, report.toString());
+        Assert.assertTrue(report.getMaxQueueDepth() <= 50);
+        Assert.assertEquals(report.getDelivered() + report.getShed(), 500);
+    }
+
+    @Test
+    public void testRun_SameSeed_SameReport() {
+        // Arrange
+        List<DispatchSimulation.Arrival> arrivals = DispatchSimulation.syntheticArrivals(300, 200, 30, List.of(WEBHOOK_URL), 0.3, 11);
+
+        // Act
+        String first = simulate(arrivals).toString();
+        String second = simulate(arrivals).toString();
+
+        // Assert
+        Assert.assertEquals(second, first);
+    }
+
+    @Test
+    public void testReadAuditJournal_OneArrivalPerAnalysisAtCreationTime() throws IOException {
+        // Arrange
+        Path journal = Files.createTempFile("msteams-audit", ".ndjson");
+        Files.write(journal, List.of(
+                "{\"ts\":\"2026-03-01T10:00:05Z\",\"ceTaskId\":\"AX-1\",\"project\":\"billing\",\"destination\":\"abc\",\"status\":\"failed\",\"latencyMs\":120,\"ageMs\":5000,\"attempts\":1}",
+                "{\"ts\":\"2026-03-01T10:01:00Z\",\"ceTaskId\":\"AX-1\",\"project\":\"billing\",\"destination\":\"abc\",\"status\":\"delivered\",\"latencyMs\":90,\"ageMs\":60000,\"attempts\":2}",
+                "{\"ts\":\"2026-03-01T10:00:03Z\",\"ceTaskId\":\"AX-2\",\"project\":\"orders\",\"branch\":\"main\",\"destination\":\"def\",\"status\":\"delivered\",\"latencyMs\":80,\"ageMs\":1000,\"attempts\":1}",
+                "{\"ts\":\"2026-03-01T10:00:04Z\",\"ceTaskId\":\"AX-2\",\"project\":\"orders\",\"destination\":\"ghi\",\"status\":\"deduplicated\",\"ageMs\":1000,\"attempts\":1}"),
+                StandardCharsets.UTF_8);
+
+        try {
+            // Act
+            List<DispatchSimulation.Arrival> arrivals = DispatchSimulation.readAuditJournal(journal);
+
+            // Assert
+            Assert.assertEquals(arrivals.size(), 2);
+            Assert.assertEquals(arrivals.get(0).getProjectKey(), "billing");
+            Assert.assertEquals(arrivals.get(0).getAtMillis(), java.time.Instant.parse("2026-03-01T10:00:00Z").toEpochMilli());
+            Assert.assertEquals(arrivals.get(0).getWebhookUrl(), DispatchSimulation.SIMULATED_WEBHOOK + "abc");
+            Assert.assertEquals(arrivals.get(1).getProjectKey(), "orders");
+        } finally {
+            Files.deleteIfExists(journal);
+        }
+    }
+
+    private static SimulationReport simulate(List<DispatchSimulation.Arrival> arrivals) {
+        return DispatchSimulation.builder()
+                .configuration(new MapConfiguration().with(Constants.CLUSTER_RATE_LIMIT, "20"))
+                .arrivals(arrivals)
+                .defaultEndpoint(new SimulatedEndpoint(150, 300, 4, 1_000, 2_000))
+                .seed(42)
+                .build()
+                .run();
+    }
+
+    private static final class MapConfiguration implements Configuration {
+        private final Map<String, String> values = new HashMap<>();
+
+        MapConfiguration with(String key, String value) {
+            values.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Optional<String> get(String key) {
+            return Optional.ofNullable(values.get(key));
+        }
+
+        @Override
+        public boolean hasKey(String key) {
+            return values.containsKey(key);
+        }
+
+        @Override
+        public String[] getStringArray(String key) {
+            return get(key).map(value -> value.split(",")).orElse(new String[0]);
+        }
+    }
+}
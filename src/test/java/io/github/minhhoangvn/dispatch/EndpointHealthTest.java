@@ -0,0 +1,93 @@
+package io.github.minhhoangvn.dispatch;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+public class EndpointHealthTest {
+
+    private static final String WEBHOOK_URL = "https://example.webhook.office.com/webhook";
+
+    private EndpointHealth health;
+
+    @BeforeMethod
+    public void setUp() {
+        health = new EndpointHealth(2_000, 10_000);
+    }
+
+    @Test
+    public void testDueForProbe_BacksOffUpToMaximum() {
+        // Arrange
+        health.markUnavailable(WEBHOOK_URL, 0);
+
+        // Act & Assert - 2 s, then 4 s, 8 s and 10 s after each failed probe
+        Assert.assertTrue(health.dueForProbe(1_999).isEmpty());
+        Assert.assertEquals(health.dueForProbe(2_000), List.of(WEBHOOK_URL));
+        health.probeFailed(WEBHOOK_URL, 2_000);
+        Assert.assertTrue(health.dueForProbe(5_999).isEmpty());
+        Assert.assertEquals(health.dueForProbe(6_000), List.of(WEBHOOK_URL));
+        health.probeFailed(WEBHOOK_URL, 6_000);
+        health.probeFailed(WEBHOOK_URL, 14_000);
+        Assert.assertTrue(health.dueForProbe(23_999).isEmpty());
+        Assert.assertEquals(health.dueForProbe(24_000), List.of(WEBHOOK_URL));
+    }
+
+    @Test
+    public void testMarkAvailable_ReturnsHeldInOrder() {
+        // Arrange
+        health.markUnavailable(WEBHOOK_URL, 0);
+        health.hold(WEBHOOK_URL, notification("first"), Priority.FAILED_GATE);
+        health.hold(WEBHOOK_URL, notification("second"), Priority.ROUTINE);
+
+        // Act
+        List<EndpointHealth.Held> held = health.markAvailable(WEBHOOK_URL);
+
+        // Assert
+        Assert.assertEquals(held.size(), 2);
+        Assert.assertEquals(held.get(0).getNotification().getProjectKey(), "first");
+        Assert.assertEquals(held.get(1).getPriority(), Priority.ROUTINE);
+        Assert.assertTrue(health.isAvailable(WEBHOOK_URL));
+        Assert.assertEquals(health.unavailableSince(WEBHOOK_URL), -1);
+    }
+
+    @Test
+    public void testHold_EndpointAvailable_Refuses() {
+        // Act & Assert
+        Assert.assertFalse(health.hold(WEBHOOK_URL, notification("late"), Priority.FAILED_GATE));
+        Assert.assertEquals(health.held(), 0);
+    }
+
+    @Test
+    public void testMarkUnavailable_Twice_KeepsFirstOutage() {
+        // Arrange
+        health.markUnavailable(WEBHOOK_URL, 1_000);
+        health.hold(WEBHOOK_URL, notification("held"), Priority.FAILED_GATE);
+
+        // Act
+        health.markUnavailable(WEBHOOK_URL, 5_000);
+
+        // Assert
+        Assert.assertEquals(health.unavailableSince(WEBHOOK_URL), 1_000);
+        Assert.assertEquals(health.held(), 1);
+    }
+
+    @Test
+    public void testOfStatus_ClassifiesResponses() {
+        // Act & Assert
+        Assert.assertEquals(DeliveryOutcome.ofStatus(200), DeliveryOutcome.DELIVERED);
+        Assert.assertEquals(DeliveryOutcome.ofStatus(400), DeliveryOutcome.REJECTED);
+        Assert.assertEquals(DeliveryOutcome.ofStatus(405), DeliveryOutcome.REJECTED);
+        Assert.assertEquals(DeliveryOutcome.ofStatus(429), DeliveryOutcome.UNAVAILABLE);
+        Assert.assertEquals(DeliveryOutcome.ofStatus(503), DeliveryOutcome.UNAVAILABLE);
+    }
+
+    private static Notification notification(String projectKey) {
+        return Notification.builder()
+                .projectKey(projectKey)
+                .webhookUrl(WEBHOOK_URL)
+                .payload("{}")
+                .build();
+    }
+}
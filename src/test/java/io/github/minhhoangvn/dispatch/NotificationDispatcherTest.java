@@ -0,0 +1,548 @@
+package io.github.minhhoangvn.dispatch;
+
+import io.github.minhhoangvn.audit.AuditJournal;
+import io.github.minhhoangvn.cluster.LocalClusterCoordinator;
+import io.github.minhhoangvn.metrics.NotifierMetrics;
+import io.github.minhhoangvn.utils.Constants;
+import org.sonar.api.ce.posttask.QualityGate;
+import org.sonar.api.config.Configuration;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class NotificationDispatcherTest {
+
+    private static final String WEBHOOK_URL = "https://example.webhook.office.com/webhook";
+    private static final String OTHER_WEBHOOK_URL = "https://example.webhook.office.com/other-webhook";
+    private static final long MAX_AGE_MS = 1_000;
+    private static final int RATE_LIMIT = 2;
+    private static final int QUEUE_CAPACITY = 4;
+    private static final long EIGHT_AM = 8 * 60 * 60_000L;
+
+    private AtomicLong clock;
+    private Bulkhead bulkhead;
+    private QuietHours quietHours;
+    private AuditJournal auditJournal;
+    private EndpointHealth endpointHealth;
+    private RecordingSender sender;
+    private NotifierMetrics metrics;
+    private NotificationDispatcher dispatcher;
+
+    @BeforeMethod
+    public void setUp() {
+        clock = new AtomicLong(0);
+        sender = new RecordingSender();
+        metrics = new NotifierMetrics();
+        bulkhead = new Bulkhead(1, QUEUE_CAPACITY);
+        quietHours = QuietHours.none();
+        auditJournal = AuditJournal.disabled();
+        endpointHealth = new EndpointHealth(2_000, 60_000);
+        dispatcher = newDispatcher(bulkhead);
+    }
+
+    @Test
+    public void testSubmit_AboveHighWatermark_ShedsRoutineButKeepsFailures() {
+        // Arrange - High watermark is 2 of 4
+        submitWithoutWorkers("routine-1", QualityGate.Status.OK);
+        submitWithoutWorkers("routine-2", QualityGate.Status.OK);
+
+        // Act
+        boolean routineQueued = submitWithoutWorkers("routine-3", QualityGate.Status.OK);
+        boolean failedQueued = submitWithoutWorkers("failed", QualityGate.Status.ERROR);
+
+        // Assert
+        Assert.assertFalse(routineQueued);
+        Assert.assertTrue(failedQueued);
+        Assert.assertEquals(metrics.get(NotifierMetrics.SHED_OVERLOAD), 1);
+        Assert.assertEquals(dispatcher.pending(), 3);
+    }
+
+    @Test
+    public void testSubmit_WhenFull_EvictsRoutineForFailedGate() {
+        // Arrange
+        submitWithoutWorkers("routine", QualityGate.Status.OK);
+        for (int i = 0; i < 3; i++) {
+            submitWithoutWorkers("failed-" + i, QualityGate.Status.ERROR);
+        }
+
+        // Act
+        boolean queued = submitWithoutWorkers("failed-3", QualityGate.Status.ERROR);
+
+        // Assert
+        Assert.assertTrue(queued);
+        Assert.assertEquals(metrics.get(NotifierMetrics.SHED_EVICTED), 1);
+        Assert.assertEquals(dispatcher.pending(), 4);
+    }
+
+    @Test
+    public void testDispatchNext_StaleRoutineIsFoldedIntoSummary() throws InterruptedException {
+        // Arrange
+        submitWithoutWorkers("stale", QualityGate.Status.OK);
+        clock.set(MAX_AGE_MS + 1);
+
+        // Act - Shed, then the summary is queued once idle, then delivered
+        dispatcher.dispatchNext(0);
+        dispatcher.dispatchNext(0);
+        dispatcher.dispatchNext(0);
+
+        // Assert - The stale card is not delivered, one summary card is
+        Assert.assertEquals(metrics.get(NotifierMetrics.SHED_STALE), 1);
+        Assert.assertEquals(sender.sent.size(), 1);
+        Assert.assertTrue(sender.payloads.get(0).contains("1 notifications were skipped"));
+        Assert.assertTrue(sender.payloads.get(0).contains("stale"));
+        Assert.assertEquals(metrics.get(NotifierMetrics.SUMMARIES_SENT), 1);
+    }
+
+    @Test
+    public void testFlushSummaries_SummaryDrawsOnRateBudgetOfItsWebhook() throws InterruptedException {
+        // Arrange - The budget is used up by two failed gates
+        submitWithoutWorkers("stale", QualityGate.Status.OK);
+        clock.set(MAX_AGE_MS + 1);
+        submitWithoutWorkers("failed-1", QualityGate.Status.ERROR);
+        submitWithoutWorkers("failed-2", QualityGate.Status.ERROR);
+        for (int i = 0; i < 4; i++) {
+            dispatcher.dispatchNext(0);
+        }
+
+        // Act
+        dispatcher.dispatchNext(0);
+
+        // Assert - The summary waits in the queue like any other notification over budget
+        Assert.assertEquals(sender.sent.size(), RATE_LIMIT);
+        Assert.assertEquals(metrics.get(NotifierMetrics.RATE_LIMITED), 1);
+        Assert.assertEquals(metrics.get(NotifierMetrics.SUMMARIES_SENT), 0);
+        Assert.assertEquals(dispatcher.pending(), 1);
+    }
+
+    @Test
+    public void testDispatchNext_StaleFailedGateIsStillDelivered() throws InterruptedException {
+        // Arrange
+        submitWithoutWorkers("failed", QualityGate.Status.ERROR);
+        clock.set(MAX_AGE_MS + 1);
+
+        // Act
+        dispatcher.dispatchNext(0);
+
+        // Assert
+        Assert.assertEquals(sender.sent.size(), 1);
+        Assert.assertEquals(metrics.get(NotifierMetrics.DELIVERED), 1);
+    }
+
+    @Test
+    public void testDispatchNext_SameAnalysisIsDeliveredOnce() throws InterruptedException {
+        // Arrange - A retry of the same Compute Engine task
+        submitWithoutWorkers("failed", QualityGate.Status.ERROR, "AX-task-1");
+        submitWithoutWorkers("failed", QualityGate.Status.ERROR, "AX-task-1");
+
+        // Act
+        dispatcher.dispatchNext(0);
+        dispatcher.dispatchNext(0);
+
+        // Assert
+        Assert.assertEquals(sender.sent.size(), 1);
+        Assert.assertEquals(metrics.get(NotifierMetrics.DEDUPLICATED), 1);
+    }
+
+    @Test
+    public void testDispatchNext_RecordsEveryOutcomeInAuditJournal() throws Exception {
+        // Arrange
+        Path directory = Files.createTempDirectory("msteams-audit");
+        Configuration configuration = mock(Configuration.class);
+        when(configuration.getBoolean(Constants.AUDIT_ENABLE)).thenReturn(Optional.of(true));
+        when(configuration.get(Constants.AUDIT_DIR)).thenReturn(Optional.of(directory.toString()));
+        auditJournal = new AuditJournal(configuration, metrics);
+        dispatcher = newDispatcher(bulkhead);
+        submitWithoutWorkers("stale", QualityGate.Status.OK);
+        submitWithoutWorkers("failed", QualityGate.Status.ERROR, "AX-task-1");
+        submitWithoutWorkers("failed", QualityGate.Status.ERROR, "AX-task-1");
+        clock.set(MAX_AGE_MS + 1);
+
+        // Act
+        dispatcher.dispatchNext(0);
+        dispatcher.dispatchNext(0);
+        dispatcher.dispatchNext(0);
+        auditJournal.stop();
+
+        // Assert - Lines in order of outcome, without the webhook URL
+        List<String> lines = Files.readAllLines(directory.resolve("msteams-audit.ndjson"));
+        Assert.assertEquals(lines.size(), 3);
+        Assert.assertTrue(lines.get(0).contains("\"ceTaskId\":\"AX-task-1\""));
+        Assert.assertTrue(lines.get(0).contains("\"status\":\"delivered\""));
+        Assert.assertTrue(lines.get(0).contains("\"attempts\":1"));
+        Assert.assertTrue(lines.get(0).contains("\"latencyMs\":"));
+        Assert.assertTrue(lines.get(1).contains("\"status\":\"deduplicated\""));
+        Assert.assertTrue(lines.get(2).contains("\"status\":\"shed.stale\""));
+        Assert.assertTrue(lines.get(2).contains("\"ageMs\":" + (MAX_AGE_MS + 1)));
+        for (String line : lines) {
+            Assert.assertFalse(line.contains(WEBHOOK_URL));
+        }
+        Files.delete(directory.resolve("msteams-audit.ndjson"));
+        Files.delete(directory);
+    }
+
+    @Test
+    public void testDispatchNext_OverBudget_RequeuesNotification() throws InterruptedException {
+        // Arrange
+        for (int i = 0; i <= RATE_LIMIT; i++) {
+            submitWithoutWorkers("failed-" + i, QualityGate.Status.ERROR);
+        }
+
+        // Act
+        for (int i = 0; i <= RATE_LIMIT; i++) {
+            dispatcher.dispatchNext(0);
+        }
+
+        // Assert
+        Assert.assertEquals(sender.sent.size(), RATE_LIMIT);
+        Assert.assertEquals(metrics.get(NotifierMetrics.RATE_LIMITED), 1);
+        Assert.assertEquals(dispatcher.pending(), 1);
+    }
+
+    @Test
+    public void testDispatchNext_RendersSharedPayloadOnceAndReleasesIt() throws InterruptedException {
+        // Arrange - One card for two destinations
+        AtomicInteger renders = new AtomicInteger();
+        LazyPayload payload = LazyPayload.of(() -> "{\"render\":" + renders.incrementAndGet() + "}");
+        dispatcher.enqueue(notification("failed", QualityGate.Status.ERROR, null, WEBHOOK_URL, payload));
+        dispatcher.enqueue(notification("failed", QualityGate.Status.ERROR, null, OTHER_WEBHOOK_URL, payload));
+
+        // Act
+        dispatcher.dispatchNext(0);
+        boolean releasedAfterFirst = payload.isReleased();
+        dispatcher.dispatchNext(0);
+
+        // Assert
+        Assert.assertEquals(sender.payloads, List.of("{\"render\":1}", "{\"render\":1}"));
+        Assert.assertEquals(renders.get(), 1);
+        Assert.assertFalse(releasedAfterFirst);
+        Assert.assertTrue(payload.isReleased());
+    }
+
+    @Test
+    public void testDispatchNext_ShedOrDuplicateNotificationsAreNeverRendered() throws InterruptedException {
+        // Arrange
+        LazyPayload stalePayload = LazyPayload.of(() -> "{}");
+        LazyPayload duplicatePayload = LazyPayload.of(() -> "{}");
+        dispatcher.enqueue(notification("stale", QualityGate.Status.OK, null, WEBHOOK_URL, stalePayload));
+        clock.set(MAX_AGE_MS + 1);
+        submitWithoutWorkers("failed", QualityGate.Status.ERROR, "AX-task-1");
+        dispatcher.enqueue(notification("failed", QualityGate.Status.ERROR, "AX-task-1", WEBHOOK_URL, duplicatePayload));
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            dispatcher.dispatchNext(0);
+        }
+
+        // Assert
+        Assert.assertEquals(metrics.get(NotifierMetrics.SHED_STALE), 1);
+        Assert.assertEquals(metrics.get(NotifierMetrics.DEDUPLICATED), 1);
+        Assert.assertFalse(stalePayload.isRendered());
+        Assert.assertFalse(duplicatePayload.isRendered());
+        Assert.assertTrue(stalePayload.isReleased());
+        Assert.assertTrue(duplicatePayload.isReleased());
+    }
+
+    @Test
+    public void testBulkhead_Defaults_LetOneWebhookUseEveryWorkerAndTheWholeQueue() {
+        // Arrange
+        Configuration configuration = mock(Configuration.class);
+        when(configuration.getInt(Constants.BULKHEAD_CONCURRENCY)).thenReturn(Optional.empty());
+        when(configuration.getDouble(Constants.BULKHEAD_QUEUE_SHARE)).thenReturn(Optional.empty());
+        when(configuration.getInt(Constants.DISPATCH_THREADS)).thenReturn(Optional.of(2));
+        when(configuration.getInt(Constants.DISPATCH_QUEUE_CAPACITY)).thenReturn(Optional.of(QUEUE_CAPACITY));
+
+        // Act
+        Bulkhead defaults = NotificationDispatcher.bulkhead(configuration);
+        for (int i = 0; i < QUEUE_CAPACITY - 1; i++) {
+            defaults.queued(WEBHOOK_URL);
+        }
+
+        // Assert
+        Assert.assertTrue(defaults.hasQueueRoom(WEBHOOK_URL));
+        Assert.assertTrue(defaults.tryStart(WEBHOOK_URL));
+        Assert.assertTrue(defaults.tryStart(WEBHOOK_URL));
+        Assert.assertFalse(defaults.tryStart(WEBHOOK_URL));
+    }
+
+    @Test
+    public void testSubmit_WebhookOverItsQueueShare_OnlyShedsItsOwnNotifications() {
+        // Arrange - Each webhook may fill half of the queue
+        bulkhead = new Bulkhead(1, QUEUE_CAPACITY / 2);
+        dispatcher = newDispatcher(bulkhead);
+        for (int i = 0; i < QUEUE_CAPACITY / 2; i++) {
+            submitWithoutWorkers("failed-" + i, QualityGate.Status.ERROR);
+        }
+
+        // Act
+        boolean sameWebhookQueued = submitWithoutWorkers("failed-3", QualityGate.Status.ERROR);
+        boolean otherWebhookQueued = dispatcher.enqueue(notification("other", QualityGate.Status.ERROR, null,
+                OTHER_WEBHOOK_URL, LazyPayload.ofRendered("{}")));
+
+        // Assert
+        Assert.assertFalse(sameWebhookQueued);
+        Assert.assertTrue(otherWebhookQueued);
+        Assert.assertEquals(metrics.get(NotifierMetrics.SHED_BULKHEAD), 1);
+        Assert.assertEquals(bulkhead.queuedCount(WEBHOOK_URL), QUEUE_CAPACITY / 2);
+    }
+
+    @Test
+    public void testDispatchNext_BusyWebhookIsSkippedForOtherWebhooks() throws InterruptedException {
+        // Arrange - A worker is stuck delivering to the first webhook
+        Assert.assertTrue(bulkhead.tryStart(WEBHOOK_URL));
+        submitWithoutWorkers("failed", QualityGate.Status.ERROR);
+        dispatcher.enqueue(notification("other", QualityGate.Status.OK, null, OTHER_WEBHOOK_URL, LazyPayload.ofRendered("{}")));
+
+        // Act
+        dispatcher.dispatchNext(0);
+        dispatcher.dispatchNext(0);
+
+        // Assert - The routine notification of the other webhook goes first, the failed one waits
+        Assert.assertEquals(sender.sent.size(), 1);
+        Assert.assertEquals(sender.sent.get(0).getProjectKey(), "other");
+        Assert.assertEquals(dispatcher.pending(), 1);
+
+        // Act - The stuck delivery finishes
+        bulkhead.finished(WEBHOOK_URL);
+        dispatcher.dispatchNext(0);
+
+        // Assert
+        Assert.assertEquals(sender.sent.size(), 2);
+        Assert.assertEquals(bulkhead.inFlight(WEBHOOK_URL), 0);
+    }
+
+    @Test
+    public void testShutdown_ReturnsUndeliveredMostImportantFirstAndRejectsNewOnes() {
+        // Arrange
+        submitWithoutWorkers("routine", QualityGate.Status.OK);
+        submitWithoutWorkers("failed", QualityGate.Status.ERROR);
+
+        // Act
+        List<Notification> undelivered = dispatcher.shutdown(0);
+        boolean queuedAfterShutdown = dispatcher.submit(notification("late", QualityGate.Status.ERROR, null,
+                WEBHOOK_URL, LazyPayload.ofRendered("{}")));
+
+        // Assert
+        Assert.assertEquals(undelivered.size(), 2);
+        Assert.assertEquals(undelivered.get(0).getProjectKey(), "failed");
+        Assert.assertFalse(queuedAfterShutdown);
+        Assert.assertEquals(dispatcher.pending(), 0);
+    }
+
+    @Test
+    public void testSubmit_DuringQuietHours_HoldsRoutineUntilTheyEnd() throws InterruptedException {
+        // Arrange - The clock starts at midnight UTC
+        quietHours = new QuietHours(QuietHours.Window.parse("22:00-08:00", ZoneOffset.UTC), Map.of());
+        dispatcher = newDispatcher(bulkhead);
+
+        // Act
+        boolean routineAccepted = submitWithoutWorkers("routine", QualityGate.Status.OK);
+        boolean failedAccepted = submitWithoutWorkers("failed", QualityGate.Status.ERROR);
+        int pendingDuringQuietHours = dispatcher.pending();
+        clock.set(EIGHT_AM - 1);
+        int releasedEarly = dispatcher.releaseDeferred();
+        clock.set(EIGHT_AM);
+        int released = dispatcher.releaseDeferred();
+        dispatcher.dispatchNext(0);
+        dispatcher.dispatchNext(0);
+
+        // Assert - Only the routine notification waited, and it is not stale when released
+        Assert.assertTrue(routineAccepted);
+        Assert.assertTrue(failedAccepted);
+        Assert.assertEquals(pendingDuringQuietHours, 1);
+        Assert.assertEquals(releasedEarly, 0);
+        Assert.assertEquals(released, 1);
+        Assert.assertEquals(metrics.get(NotifierMetrics.DEFERRED), 1);
+        Assert.assertEquals(metrics.get(NotifierMetrics.SHED_STALE), 0);
+        Assert.assertEquals(sender.sent.size(), 2);
+        Assert.assertEquals(sender.sent.get(1).getProjectKey(), "routine");
+    }
+
+    @Test
+    public void testSubmit_DuringQuietHours_HeldNotificationsCountAgainstCapacity() {
+        // Arrange
+        quietHours = new QuietHours(QuietHours.Window.parse("22:00-08:00", ZoneOffset.UTC), Map.of());
+        dispatcher = newDispatcher(bulkhead);
+        for (int i = 0; i < QUEUE_CAPACITY; i++) {
+            submitWithoutWorkers("routine-" + i, QualityGate.Status.OK);
+        }
+
+        // Act
+        boolean accepted = submitWithoutWorkers("one-too-many", QualityGate.Status.OK);
+
+        // Assert
+        Assert.assertFalse(accepted);
+        Assert.assertEquals(dispatcher.deferred(), QUEUE_CAPACITY);
+        Assert.assertEquals(metrics.get(NotifierMetrics.SHED_OVERLOAD), 1);
+    }
+
+    @Test
+    public void testShutdown_ReturnsNotificationsHeldForQuietHours() {
+        // Arrange
+        quietHours = new QuietHours(null, Map.of(WEBHOOK_URL, QuietHours.Window.parse("00:00-08:00", ZoneOffset.UTC)));
+        dispatcher = newDispatcher(bulkhead);
+        submitWithoutWorkers("held", QualityGate.Status.OK);
+
+        // Act
+        List<Notification> undelivered = dispatcher.shutdown(0);
+
+        // Assert
+        Assert.assertEquals(undelivered.size(), 1);
+        Assert.assertEquals(undelivered.get(0).getProjectKey(), "held");
+        Assert.assertEquals(undelivered.get(0).getDeadlineMillis(), EIGHT_AM + MAX_AGE_MS);
+        Assert.assertEquals(dispatcher.deferred(), 0);
+    }
+
+    @Test
+    public void testDeliver_EndpointUnavailable_HoldsNotificationsUntilItRecovers() throws InterruptedException {
+        // Arrange
+        sender.outcome = DeliveryOutcome.UNAVAILABLE;
+        submitWithoutWorkers("first", QualityGate.Status.ERROR);
+        dispatcher.dispatchNext(0);
+        submitWithoutWorkers("second", QualityGate.Status.ERROR);
+        dispatcher.dispatchNext(0);
+        sender.outcome = DeliveryOutcome.DELIVERED;
+        // Past the rate limit window, which the failed attempt drew on
+        clock.addAndGet(60_000);
+
+        // Act
+        int released = dispatcher.endpointRecovered(WEBHOOK_URL);
+        dispatcher.dispatchNext(0);
+        dispatcher.dispatchNext(0);
+
+        // Assert - The second notification was held without being attempted against the failing webhook
+        Assert.assertEquals(released, 2);
+        Assert.assertEquals(sender.sent.size(), 3);
+        Assert.assertEquals(sender.sent.get(1).getProjectKey(), "first");
+        Assert.assertEquals(sender.sent.get(2).getProjectKey(), "second");
+        Assert.assertEquals(sender.payloads.get(2), "{}");
+        Assert.assertEquals(metrics.get(NotifierMetrics.HELD_UNAVAILABLE), 2);
+        Assert.assertEquals(metrics.get(NotifierMetrics.DELIVERED), 2);
+        Assert.assertTrue(endpointHealth.isAvailable(WEBHOOK_URL));
+    }
+
+    @Test
+    public void testDeliver_Rejected_DoesNotHoldNotification() throws InterruptedException {
+        // Arrange
+        sender.outcome = DeliveryOutcome.REJECTED;
+        submitWithoutWorkers("bad-card", QualityGate.Status.ERROR);
+
+        // Act
+        dispatcher.dispatchNext(0);
+
+        // Assert
+        Assert.assertTrue(endpointHealth.isAvailable(WEBHOOK_URL));
+        Assert.assertEquals(endpointHealth.held(), 0);
+        Assert.assertEquals(metrics.get(NotifierMetrics.DELIVERY_FAILED), 1);
+    }
+
+    @Test
+    public void testDeliver_RenderingFails_CountsFailureAndReleasesClaim() throws InterruptedException {
+        // Arrange
+        LazyPayload broken = LazyPayload.of(() -> {
+            throw new IllegalStateException("no card");
+        });
+        dispatcher.enqueue(notification("broken", QualityGate.Status.ERROR, "AX-task-1", WEBHOOK_URL, broken));
+
+        // Act
+        try {
+            dispatcher.dispatchNext(0);
+            Assert.fail("Expected the renderer failure to reach the worker");
+        } catch (IllegalStateException expected) {
+            // Logged by the worker
+        }
+        submitWithoutWorkers("broken", QualityGate.Status.ERROR, "AX-task-1");
+        dispatcher.dispatchNext(0);
+
+        // Assert - The second attempt of the task is not taken for a duplicate
+        Assert.assertEquals(metrics.get(NotifierMetrics.DELIVERY_FAILED), 1);
+        Assert.assertEquals(metrics.get(NotifierMetrics.DEDUPLICATED), 0);
+        Assert.assertEquals(metrics.get(NotifierMetrics.DELIVERED), 1);
+        Assert.assertTrue(broken.isReleased());
+    }
+
+    @Test
+    public void testShutdown_ReturnsNotificationsHeldForUnavailableEndpoint() throws InterruptedException {
+        // Arrange
+        sender.outcome = DeliveryOutcome.UNAVAILABLE;
+        submitWithoutWorkers("held", QualityGate.Status.ERROR);
+        dispatcher.dispatchNext(0);
+
+        // Act
+        List<Notification> undelivered = dispatcher.shutdown(0);
+
+        // Assert
+        Assert.assertEquals(undelivered.size(), 1);
+        Assert.assertEquals(undelivered.get(0).getPayload(), "{}");
+        Assert.assertEquals(endpointHealth.held(), 0);
+    }
+
+    private NotificationDispatcher newDispatcher(Bulkhead bulkhead) {
+        return new NotificationDispatcher(
+                new PriorityDispatchQueue(QUEUE_CAPACITY, 60_000, clock::get),
+                new PriorityClassifier(),
+                new LoadSheddingPolicy(0.5, MAX_AGE_MS),
+                sender,
+                metrics,
+                new LocalClusterCoordinator(RATE_LIMIT, 60_000, 60_000, clock::get),
+                bulkhead,
+                quietHours,
+                auditJournal,
+                endpointHealth,
+                clock::get,
+                Thread::sleep,
+                1);
+    }
+
+    private boolean submitWithoutWorkers(String projectKey, QualityGate.Status status) {
+        return submitWithoutWorkers(projectKey, status, null);
+    }
+
+    // Enqueues without starting worker threads, so nothing races the assertions
+    private boolean submitWithoutWorkers(String projectKey, QualityGate.Status status, String ceTaskId) {
+        return dispatcher.enqueue(notification(projectKey, status, ceTaskId, WEBHOOK_URL, LazyPayload.ofRendered("{}")));
+    }
+
+    private Notification notification(String projectKey, QualityGate.Status status, String ceTaskId,
+                                      String webhookUrl, LazyPayload payload) {
+        return Notification.builder()
+                .ceTaskId(ceTaskId)
+                .projectKey(projectKey)
+                .projectName(projectKey)
+                .qualityGateStatus(status)
+                .webhookUrl(webhookUrl)
+                .payload(payload)
+                .createdAtMillis(clock.get())
+                .deadlineMillis(dispatcher.deadlineFor(clock.get()))
+                .build();
+    }
+
+    private static class RecordingSender extends NotificationSender {
+        private final List<Notification> sent = new ArrayList<>();
+        private final List<String> payloads = new ArrayList<>();
+        private DeliveryOutcome outcome = DeliveryOutcome.DELIVERED;
+
+        RecordingSender() {
+            super(null);
+        }
+
+        @Override
+        public DeliveryOutcome deliver(Notification notification) {
+            sent.add(notification);
+            payloads.add(notification.getPayload());
+            return outcome;
+        }
+    }
+}
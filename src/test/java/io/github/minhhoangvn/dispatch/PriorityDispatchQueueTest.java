@@ -0,0 +1,116 @@
+package io.github.minhhoangvn.dispatch;
+
+import org.sonar.api.ce.posttask.QualityGate;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class PriorityDispatchQueueTest {
+
+    private static final long STARVATION_MS = 1_000;
+
+    private AtomicLong clock;
+    private PriorityDispatchQueue queue;
+
+    @BeforeMethod
+    public void setUp() {
+        clock = new AtomicLong(0);
+        queue = new PriorityDispatchQueue(3, STARVATION_MS, clock::get);
+    }
+
+    @Test
+    public void testTake_ServesFailedGatesBeforeRoutine() throws InterruptedException {
+        // Arrange
+        queue.offer(notification("routine", QualityGate.Status.OK), Priority.ROUTINE);
+        queue.offer(notification("transition", QualityGate.Status.OK), Priority.STATUS_TRANSITION);
+        queue.offer(notification("failed", QualityGate.Status.ERROR), Priority.FAILED_GATE);
+
+        // Act & Assert
+        Assert.assertEquals(queue.take().getNotification().getProjectKey(), "failed");
+        Assert.assertEquals(queue.take().getNotification().getProjectKey(), "transition");
+        Assert.assertEquals(queue.take().getNotification().getProjectKey(), "routine");
+        Assert.assertEquals(queue.size(), 0);
+    }
+
+    @Test
+    public void testTake_StarvedRoutineIsServedAheadOfNewerFailures() throws InterruptedException {
+        // Arrange
+        queue.offer(notification("routine", QualityGate.Status.OK), Priority.ROUTINE);
+        clock.set(STARVATION_MS);
+        queue.offer(notification("failed", QualityGate.Status.ERROR), Priority.FAILED_GATE);
+
+        // Act & Assert
+        Assert.assertEquals(queue.take().getNotification().getProjectKey(), "routine");
+        Assert.assertEquals(queue.take().getNotification().getProjectKey(), "failed");
+    }
+
+    @Test
+    public void testOffer_WhenFull_RejectsNotification() {
+        // Arrange
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(queue.offer(notification("p" + i, QualityGate.Status.OK), Priority.ROUTINE));
+        }
+
+        // Act & Assert
+        Assert.assertFalse(queue.offer(notification("overflow", QualityGate.Status.ERROR), Priority.FAILED_GATE));
+        Assert.assertEquals(queue.size(Priority.ROUTINE), 3);
+    }
+
+    @Test
+    public void testEvictBelow_RemovesOldestOfLowestLane() {
+        // Arrange
+        queue.offer(notification("transition", QualityGate.Status.OK), Priority.STATUS_TRANSITION);
+        queue.offer(notification("routine-1", QualityGate.Status.OK), Priority.ROUTINE);
+        queue.offer(notification("routine-2", QualityGate.Status.OK), Priority.ROUTINE);
+
+        // Act & Assert
+        Assert.assertEquals(queue.evictBelow(Priority.FAILED_GATE).getNotification().getProjectKey(), "routine-1");
+        Assert.assertNull(queue.evictBelow(Priority.ROUTINE));
+        Assert.assertEquals(queue.size(), 2);
+    }
+
+    @Test
+    public void testPoll_SkipsNotificationsNotAdmitted() throws InterruptedException {
+        // Arrange
+        queue.offer(notification("busy", QualityGate.Status.ERROR), Priority.FAILED_GATE);
+        queue.offer(notification("idle", QualityGate.Status.OK), Priority.ROUTINE);
+
+        // Act
+        PriorityDispatchQueue.QueuedNotification next = queue.poll(0, TimeUnit.MILLISECONDS,
+                notification -> !"busy".equals(notification.getProjectKey()));
+
+        // Assert
+        Assert.assertEquals(next.getNotification().getProjectKey(), "idle");
+        Assert.assertEquals(queue.size(Priority.FAILED_GATE), 1);
+    }
+
+    @Test
+    public void testPoll_WhenEmpty_ReturnsNullAfterTimeout() throws InterruptedException {
+        Assert.assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testClassifier_DetectsTransitions() {
+        // Arrange
+        PriorityClassifier classifier = new PriorityClassifier(10);
+
+        // Act & Assert
+        Assert.assertEquals(classifier.classify(notification("p", QualityGate.Status.OK)), Priority.ROUTINE);
+        Assert.assertEquals(classifier.classify(notification("p", QualityGate.Status.ERROR)), Priority.FAILED_GATE);
+        Assert.assertEquals(classifier.classify(notification("p", QualityGate.Status.OK)), Priority.STATUS_TRANSITION);
+        Assert.assertEquals(classifier.classify(notification("p", QualityGate.Status.OK)), Priority.ROUTINE);
+    }
+
+    private Notification notification(String projectKey, QualityGate.Status status) {
+        return Notification.builder()
+                .projectKey(projectKey)
+                .projectName(projectKey)
+                .qualityGateStatus(status)
+                .webhookUrl("https://example.webhook.office.com/webhook")
+                .payload("{}")
+                .build();
+    }
+}
@@ -0,0 +1,77 @@
+package io.github.minhhoangvn.dispatch;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+public class QuietHoursTest {
+
+    private static final String WEBHOOK_URL = "https://example.webhook.office.com/webhook";
+    private static final String OTHER_WEBHOOK_URL = "https://example.webhook.office.com/other-webhook";
+    private static final ZoneId PARIS = ZoneId.of("Europe/Paris");
+
+    @Test
+    public void testReleaseTime_OvernightWindow_ReleasesAtEightNextMorning() {
+        // Arrange
+        QuietHours quietHours = new QuietHours(QuietHours.Window.parse("22:00-08:00 Europe/Paris", ZoneOffset.UTC), Map.of());
+        long lateEvening = millis(2024, 3, 4, 23, 15, PARIS);
+
+        // Act
+        long releaseAt = quietHours.releaseTime(WEBHOOK_URL, Priority.ROUTINE, lateEvening);
+
+        // Assert
+        Assert.assertEquals(releaseAt, millis(2024, 3, 5, 8, 0, PARIS));
+    }
+
+    @Test
+    public void testReleaseTime_EarlyMorning_ReleasesSameDay() {
+        // Arrange
+        QuietHours quietHours = new QuietHours(QuietHours.Window.parse("22:00-08:00", PARIS), Map.of());
+
+        // Act & Assert
+        Assert.assertEquals(quietHours.releaseTime(WEBHOOK_URL, Priority.STATUS_TRANSITION, millis(2024, 3, 5, 6, 30, PARIS)),
+                millis(2024, 3, 5, 8, 0, PARIS));
+    }
+
+    @Test
+    public void testReleaseTime_OutsideWindowOrFailedGate_IsNow() {
+        // Arrange
+        QuietHours quietHours = new QuietHours(QuietHours.Window.parse("22:00-08:00", PARIS), Map.of());
+        long midday = millis(2024, 3, 5, 12, 0, PARIS);
+        long midnight = millis(2024, 3, 5, 0, 0, PARIS);
+
+        // Act & Assert
+        Assert.assertEquals(quietHours.releaseTime(WEBHOOK_URL, Priority.ROUTINE, midday), midday);
+        Assert.assertEquals(quietHours.releaseTime(WEBHOOK_URL, Priority.FAILED_GATE, midnight), midnight);
+    }
+
+    @Test
+    public void testReleaseTime_DestinationWindowOverridesDefault() {
+        // Arrange - The other webhook has quiet hours turned off
+        Map<String, QuietHours.Window> windows = new HashMap<>();
+        windows.put(WEBHOOK_URL, QuietHours.Window.parse("18:00-09:00 America/New_York", PARIS));
+        windows.put(OTHER_WEBHOOK_URL, null);
+        QuietHours quietHours = new QuietHours(QuietHours.Window.parse("22:00-08:00", PARIS), windows);
+        long parisEvening = millis(2024, 3, 5, 23, 0, PARIS);
+
+        // Act & Assert
+        Assert.assertEquals(quietHours.releaseTime(WEBHOOK_URL, Priority.ROUTINE, parisEvening), parisEvening);
+        Assert.assertEquals(quietHours.releaseTime(OTHER_WEBHOOK_URL, Priority.ROUTINE, parisEvening), parisEvening);
+        Assert.assertEquals(quietHours.releaseTime("https://example.com/third", Priority.ROUTINE, parisEvening),
+                millis(2024, 3, 6, 8, 0, PARIS));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testParse_InvalidWindow_Throws() {
+        QuietHours.Window.parse("after dinner", PARIS);
+    }
+
+    private static long millis(int year, int month, int day, int hour, int minute, ZoneId zone) {
+        return ZonedDateTime.of(year, month, day, hour, minute, 0, 0, zone).toInstant().toEpochMilli();
+    }
+}
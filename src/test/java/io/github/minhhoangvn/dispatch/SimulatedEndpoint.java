@@ -0,0 +1,85 @@
+package io.github.minhhoangvn.dispatch;
+
+import java.util.Random;
+
+/**
+ * Model of a Teams webhook for the {@link DispatchSimulation}: how long a call takes and when the
+ * connector throttles.
+ * <p>
+ * Latency is a fixed part plus an exponentially distributed tail, so most calls are close to the
+ * fixed part and a few are much slower. Beyond {@code throttleLimit} calls in a fixed window of
+ * {@code throttleWindowMillis}, the endpoint answers 429 to everything, probes included, for
+ * {@code retryAfterMillis}.
+ */
+public final class SimulatedEndpoint {
+
+    private final long baseLatencyMillis;
+    private final long tailLatencyMillis;
+    private final int throttleLimit;
+    private final long throttleWindowMillis;
+    private final long retryAfterMillis;
+    private long windowStart = Long.MIN_VALUE;
+    private int callsInWindow;
+    private long throttledUntil = Long.MIN_VALUE;
+    private long throttled;
+
+    /**
+     * @param baseLatencyMillis    shortest call
+     * @param tailLatencyMillis    mean of the time added to the shortest call
+     * @param throttleLimit        calls accepted per window; 0 never throttles
+     * @param throttleWindowMillis length of the window
+     * @param retryAfterMillis     time throttled once the limit is exceeded
+     */
+    public SimulatedEndpoint(long baseLatencyMillis, long tailLatencyMillis, int throttleLimit, long throttleWindowMillis,
+                             long retryAfterMillis) {
+        this.baseLatencyMillis = Math.max(0, baseLatencyMillis);
+        this.tailLatencyMillis = Math.max(0, tailLatencyMillis);
+        this.throttleLimit = Math.max(0, throttleLimit);
+        this.throttleWindowMillis = Math.max(1, throttleWindowMillis);
+        this.retryAfterMillis = Math.max(0, retryAfterMillis);
+    }
+
+    /** Endpoint that answers every call after the given latency and never throttles. */
+    public static SimulatedEndpoint unlimited(long latencyMillis) {
+        return new SimulatedEndpoint(latencyMillis, 0, 0, 1, 0);
+    }
+
+    /** Samples the duration of a call. */
+    long latency(Random random) {
+        if (tailLatencyMillis == 0) {
+            return baseLatencyMillis;
+        }
+        return baseLatencyMillis + (long) (-tailLatencyMillis * Math.log(1 - random.nextDouble()));
+    }
+
+    /** HTTP status of a notification posted at the given time, counting it against the throttle. */
+    int post(long nowMillis) {
+        if (nowMillis < throttledUntil) {
+            throttled++;
+            return 429;
+        }
+        if (throttleLimit > 0) {
+            long window = nowMillis - Math.floorMod(nowMillis, throttleWindowMillis);
+            if (window != windowStart) {
+                windowStart = window;
+                callsInWindow = 0;
+            }
+            if (++callsInWindow > throttleLimit) {
+                throttledUntil = nowMillis + retryAfterMillis;
+                throttled++;
+                return 429;
+            }
+        }
+        return 200;
+    }
+
+    /** HTTP status of a probe at the given time; probes do not count against the throttle. */
+    int probe(long nowMillis) {
+        return nowMillis < throttledUntil ? 429 : 200;
+    }
+
+    /** Calls answered with 429 so far. */
+    long getThrottled() {
+        return throttled;
+    }
+}
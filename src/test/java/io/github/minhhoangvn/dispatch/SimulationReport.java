@@ -0,0 +1,109 @@
+package io.github.minhhoangvn.dispatch;
+
+import io.github.minhhoangvn.metrics.NotifierMetrics;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Outcome of a {@link DispatchSimulation}: what happened to the notifications, how deep the
+ * queue got and how long delivery took, from the creation of a notification to the end of the
+ * call that delivered it.
+ */
+public final class SimulationReport {
+
+    private final int arrivals;
+    private final long simulatedMillis;
+    private final int maxQueueDepth;
+    private final int maxHeld;
+    private final long throttled;
+    private final int undelivered;
+    private final Map<String, Long> metrics;
+    private final long[] latencies;
+
+    SimulationReport(int arrivals, long simulatedMillis, int maxQueueDepth, int maxHeld, long throttled, int undelivered,
+                     Map<String, Long> metrics, long[] latencies) {
+        this.arrivals = arrivals;
+        this.simulatedMillis = simulatedMillis;
+        this.maxQueueDepth = maxQueueDepth;
+        this.maxHeld = maxHeld;
+        this.throttled = throttled;
+        this.undelivered = undelivered;
+        this.metrics = metrics;
+        this.latencies = latencies.clone();
+        Arrays.sort(this.latencies);
+    }
+
+    public int getArrivals() {
+        return arrivals;
+    }
+
+    /** Simulated time from the first arrival until the last notification was settled. */
+    public long getSimulatedMillis() {
+        return simulatedMillis;
+    }
+
+    public long getDelivered() {
+        return latencies.length;
+    }
+
+    /** Notifications dropped by load shedding, for any reason. */
+    public long getShed() {
+        return metric(NotifierMetrics.SHED_OVERLOAD) + metric(NotifierMetrics.SHED_EVICTED)
+                + metric(NotifierMetrics.SHED_STALE) + metric(NotifierMetrics.SHED_BULKHEAD);
+    }
+
+    /** Calls the modelled endpoints answered with 429. */
+    public long getThrottled() {
+        return throttled;
+    }
+
+    /** Notifications still queued, deferred or held when the simulation gave up on them. */
+    public int getUndelivered() {
+        return undelivered;
+    }
+
+    /** Largest number of notifications waiting in the dispatch queue at once. */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    /** Largest number of notifications held for unavailable webhooks at once. */
+    public int getMaxHeld() {
+        return maxHeld;
+    }
+
+    /** Value of a dispatcher metric at the end, such as {@link NotifierMetrics#RATE_LIMITED}. */
+    public long metric(String name) {
+        return metrics.getOrDefault(name, 0L);
+    }
+
+    /**
+     * Delivery latency at the given percentile, from 0 to 100.
+     *
+     * @return the latency in milliseconds, or {@code -1} when nothing was delivered
+     */
+    public long latencyPercentile(double percentile) {
+        if (latencies.length == 0) {
+            return -1;
+        }
+        int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+        return latencies[Math.min(latencies.length - 1, Math.max(0, index))];
+    }
+
+    @Override
+    public String toString() {
+        return "Simulated " + Duration.ofMillis(simulatedMillis) + " for " + arrivals + " analyses\n"
+                + "  delivered:       " + getDelivered() + "\n"
+                + "  shed:            " + getShed() + " (overload " + metric(NotifierMetrics.SHED_OVERLOAD)
+                + ", evicted " + metric(NotifierMetrics.SHED_EVICTED) + ", stale " + metric(NotifierMetrics.SHED_STALE)
+                + ", bulkhead " + metric(NotifierMetrics.SHED_BULKHEAD) + ")\n"
+                + "  undelivered:     " + undelivered + "\n"
+                + "  throttled (429): " + throttled + ", held " + metric(NotifierMetrics.HELD_UNAVAILABLE) + " times"
+                + ", rate limited " + metric(NotifierMetrics.RATE_LIMITED) + "\n"
+                + "  max queue depth: " + maxQueueDepth + ", max held " + maxHeld + "\n"
+                + "  latency ms:      p50 " + latencyPercentile(50) + ", p95 " + latencyPercentile(95)
+                + ", p99 " + latencyPercentile(99) + ", max " + latencyPercentile(100);
+    }
+}
@@ -0,0 +1,108 @@
+package io.github.minhhoangvn.dispatch;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TimingWheelTest {
+
+    private static final long TICK_MS = 100;
+    private static final int WHEEL_SIZE = 8;
+
+    private AtomicLong clock;
+    private List<String> expired;
+    private TimingWheel<String> wheel;
+
+    @BeforeMethod
+    public void setUp() {
+        clock = new AtomicLong(0);
+        expired = new ArrayList<>();
+        wheel = new TimingWheel<>(TICK_MS, WHEEL_SIZE, expired::add, clock::get, "test-wheel");
+    }
+
+    @Test
+    public void testAdvanceTo_ExpiresItemsAtTheirDeadlineNotBefore() {
+        // Arrange
+        wheel.schedule("soon", 250);
+        wheel.schedule("later", 500);
+
+        // Act & Assert
+        Assert.assertEquals(wheel.advanceTo(299), 0);
+        Assert.assertEquals(wheel.advanceTo(300), 1);
+        Assert.assertEquals(expired, List.of("soon"));
+        Assert.assertEquals(wheel.pending(), 1);
+    }
+
+    @Test
+    public void testAdvanceTo_ItemsBeyondOneRevolutionWaitForTheirRound() {
+        // Arrange - Same bucket, one revolution apart
+        wheel.schedule("first", 200);
+        wheel.schedule("next round", 200 + TICK_MS * WHEEL_SIZE);
+
+        // Act
+        wheel.advanceTo(200);
+        List<String> afterFirstRound = new ArrayList<>(expired);
+        wheel.advanceTo(200 + TICK_MS * WHEEL_SIZE);
+
+        // Assert
+        Assert.assertEquals(afterFirstRound, List.of("first"));
+        Assert.assertEquals(expired, List.of("first", "next round"));
+    }
+
+    @Test
+    public void testAdvanceTo_ClockJumpExpiresEverythingDue() {
+        // Arrange
+        for (int i = 1; i <= 20; i++) {
+            wheel.schedule("item-" + i, i * 150L);
+        }
+
+        // Act
+        int count = wheel.advanceTo(100_000);
+
+        // Assert
+        Assert.assertEquals(count, 20);
+        Assert.assertEquals(wheel.pending(), 0);
+    }
+
+    @Test
+    public void testCancel_RemovesItemOnce() {
+        // Arrange
+        TimingWheel.Timeout<String> timeout = wheel.schedule("cancelled", 200);
+        wheel.schedule("kept", 200);
+
+        // Act
+        boolean cancelled = timeout.cancel();
+        boolean cancelledAgain = timeout.cancel();
+        wheel.advanceTo(200);
+
+        // Assert
+        Assert.assertTrue(cancelled);
+        Assert.assertFalse(cancelledAgain);
+        Assert.assertEquals(expired, List.of("kept"));
+    }
+
+    @Test
+    public void testStop_ReturnsPendingItemsWithoutExpiringThem() {
+        // Arrange
+        wheel.schedule("a", 1_000);
+        wheel.schedule("b", 60_000);
+
+        // Act
+        List<String> remaining = wheel.stop();
+
+        // Assert
+        Assert.assertEquals(remaining.size(), 2);
+        Assert.assertTrue(expired.isEmpty());
+        Assert.assertEquals(wheel.pending(), 0);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testSchedule_AfterStop_Throws() {
+        wheel.stop();
+        wheel.schedule("late", 100);
+    }
+}
@@ -0,0 +1,238 @@
+package io.github.minhhoangvn.extension;
+
+import io.github.minhhoangvn.dispatch.Notification;
+import io.github.minhhoangvn.dispatch.NotificationSender;
+import io.github.minhhoangvn.metrics.NotifierMetrics;
+import io.github.minhhoangvn.pipeline.AnalysisSnapshot;
+import io.github.minhhoangvn.utils.AdaptiveCardsFormat;
+import io.github.minhhoangvn.utils.Constants;
+import org.sonar.api.ce.posttask.CeTask;
+import org.sonar.api.ce.posttask.PostProjectAnalysisTask.Context;
+import org.sonar.api.ce.posttask.PostProjectAnalysisTask.ProjectAnalysis;
+import org.sonar.api.ce.posttask.Project;
+import org.sonar.api.ce.posttask.QualityGate;
+import org.sonar.api.ce.posttask.ScannerContext;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * Guards the bytes allocated for one notification against the budgets checked in to
+ * {@code allocation-budgets.properties}.
+ * <p>
+ * The analyses are plain proxies rather than mocks, so mock bookkeeping is not counted. Each
+ * measurement is the average of {@value #MEASURED_RUNS} calls after {@value #WARM_UP_RUNS} warm-up
+ * calls. When a change legitimately needs more, raise the budget in the same commit.
+ */
+public class AllocationBudgetTest {
+
+    private static final String BUDGETS = "/allocation-budgets.properties";
+    private static final String WEBHOOK_URL = "https://example.webhook.office.com/webhook";
+    private static final String PROJECT_URL = "https://sonarqube.example.com/dashboard?id=team-x/billing";
+    private static final int WARM_UP_RUNS = 2_000;
+    private static final int MEASURED_RUNS = 200;
+
+    private com.sun.management.ThreadMXBean threads;
+    private Properties budgets;
+    private CountingSender sender;
+
+    @BeforeClass
+    public void setUpClass() throws IOException {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            throw new SkipException("Per-thread allocation counters are not available on this JVM");
+        }
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            throw new SkipException("Per-thread allocation counters are not supported on this JVM");
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        budgets = new Properties();
+        try (InputStream in = AllocationBudgetTest.class.getResourceAsStream(BUDGETS)) {
+            Assert.assertNotNull(in, "Missing " + BUDGETS);
+            budgets.load(in);
+        }
+    }
+
+    @BeforeMethod
+    public void setUp() {
+        MSTeamsPreProjectAnalysisTask.clearValidatedConfig();
+        sender = new CountingSender();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        MSTeamsPreProjectAnalysisTask.clearValidatedConfig();
+    }
+
+    @Test
+    public void testCreateMessageCardJSONPayload_PassedGate_StaysWithinBudget() {
+        // Arrange
+        AnalysisSnapshot snapshot = AnalysisSnapshot.of(analysis(QualityGate.Status.OK, passedConditions()));
+
+        // Act
+        long bytes = allocatedPerCall(() -> AdaptiveCardsFormat.createMessageCardJSONPayload(
+                snapshot, PROJECT_URL, Constants.DEFAULT_WEBHOOK_MESSAGE_AVATAR));
+
+        // Assert
+        assertWithinBudget("render.passed", bytes);
+    }
+
+    @Test
+    public void testCreateMessageCardJSONPayload_FailedGate_StaysWithinBudget() {
+        // Arrange
+        AnalysisSnapshot snapshot = AnalysisSnapshot.of(analysis(QualityGate.Status.ERROR, failedConditions()));
+
+        // Act
+        long bytes = allocatedPerCall(() -> AdaptiveCardsFormat.createMessageCardJSONPayload(
+                snapshot, PROJECT_URL, Constants.DEFAULT_WEBHOOK_MESSAGE_AVATAR));
+
+        // Assert
+        assertWithinBudget("render.failed", bytes);
+    }
+
+    @Test
+    public void testFinished_PassedGate_StaysWithinBudget() {
+        // Arrange
+        MSTeamsPostProjectAnalysisTask task = new MSTeamsPostProjectAnalysisTask(null, sender, new NotifierMetrics(), null, null, null);
+        Context context = context(analysis(QualityGate.Status.OK, passedConditions()));
+
+        // Act
+        long bytes = allocatedPerCall(() -> task.finished(context));
+
+        // Assert
+        Assert.assertEquals(sender.sent, WARM_UP_RUNS + MEASURED_RUNS);
+        assertWithinBudget("finished.passed", bytes);
+    }
+
+    @Test
+    public void testFinished_FailedGate_StaysWithinBudget() {
+        // Arrange
+        MSTeamsPostProjectAnalysisTask task = new MSTeamsPostProjectAnalysisTask(null, sender, new NotifierMetrics(), null, null, null);
+        Context context = context(analysis(QualityGate.Status.ERROR, failedConditions()));
+
+        // Act
+        long bytes = allocatedPerCall(() -> task.finished(context));
+
+        // Assert
+        Assert.assertEquals(sender.sent, WARM_UP_RUNS + MEASURED_RUNS);
+        assertWithinBudget("finished.failed", bytes);
+    }
+
+    private long allocatedPerCall(Runnable call) {
+        for (int i = 0; i < WARM_UP_RUNS; i++) {
+            call.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            call.run();
+        }
+        return (threads.getThreadAllocatedBytes(threadId) - before) / MEASURED_RUNS;
+    }
+
+    private void assertWithinBudget(String name, long bytes) {
+        String budget = budgets.getProperty(name);
+        Assert.assertNotNull(budget, "No allocation budget for " + name);
+        Assert.assertTrue(bytes <= Long.parseLong(budget.trim()),
+                name + " allocated " + bytes + " bytes per call, budget is " + budget.trim());
+    }
+
+    private static List<QualityGate.Condition> passedConditions() {
+        List<QualityGate.Condition> conditions = new ArrayList<>();
+        conditions.add(condition("new_violations", QualityGate.EvaluationStatus.OK, QualityGate.Operator.GREATER_THAN, "0", "0"));
+        conditions.add(condition("new_coverage", QualityGate.EvaluationStatus.OK, QualityGate.Operator.LESS_THAN, "80", "91.4"));
+        conditions.add(condition("new_duplicated_lines_density", QualityGate.EvaluationStatus.OK, QualityGate.Operator.GREATER_THAN, "3", "0.8"));
+        conditions.add(condition("new_security_hotspots_reviewed", QualityGate.EvaluationStatus.OK, QualityGate.Operator.LESS_THAN, "100", "100.0"));
+        return conditions;
+    }
+
+    private static List<QualityGate.Condition> failedConditions() {
+        List<QualityGate.Condition> conditions = passedConditions();
+        conditions.set(0, condition("new_violations", QualityGate.EvaluationStatus.ERROR, QualityGate.Operator.GREATER_THAN, "0", "12"));
+        conditions.set(1, condition("new_coverage", QualityGate.EvaluationStatus.ERROR, QualityGate.Operator.LESS_THAN, "80", "72.5"));
+        conditions.add(condition("new_reliability_rating", QualityGate.EvaluationStatus.ERROR, QualityGate.Operator.GREATER_THAN, "1", "3"));
+        conditions.add(condition("new_security_rating", QualityGate.EvaluationStatus.OK, QualityGate.Operator.GREATER_THAN, "1", "1"));
+        conditions.add(condition("new_technical_debt", QualityGate.EvaluationStatus.ERROR, QualityGate.Operator.GREATER_THAN, "60", "545"));
+        conditions.add(condition("custom_plugin_metric", QualityGate.EvaluationStatus.NO_VALUE, QualityGate.Operator.GREATER_THAN, "5", null));
+        return conditions;
+    }
+
+    private static ProjectAnalysis analysis(QualityGate.Status status, List<QualityGate.Condition> conditions) {
+        return fake(ProjectAnalysis.class, Map.of(
+                "getCeTask", fake(CeTask.class, Map.of("getId", "AX-task-1", "getStatus", CeTask.Status.SUCCESS)),
+                "getProject", fake(Project.class, Map.of("getKey", "team-x/billing", "getName", "Billing")),
+                "getQualityGate", fake(QualityGate.class, Map.of(
+                        "getName", "Sonar way", "getStatus", status, "getConditions", conditions)),
+                "getScannerContext", fake(ScannerContext.class, Map.of("getProperties", Map.of(
+                        Constants.ENABLE_NOTIFY, "true",
+                        Constants.WEBHOOK_URL, WEBHOOK_URL,
+                        Constants.SONAR_URL, "https://sonarqube.example.com")))));
+    }
+
+    private static Context context(ProjectAnalysis analysis) {
+        return fake(Context.class, Map.of("getProjectAnalysis", analysis));
+    }
+
+    private static QualityGate.Condition condition(String metricKey, QualityGate.EvaluationStatus status,
+                                                   QualityGate.Operator operator, String threshold, String value) {
+        Map<String, Object> answers = new HashMap<String, Object>(Map.of(
+                "getMetricKey", metricKey, "getStatus", status, "getOperator", operator, "getErrorThreshold", threshold));
+        if (value != null) {
+            answers.put("getValue", value);
+        }
+        return fake(QualityGate.Condition.class, answers);
+    }
+
+    // Answers by method name; anything else is empty, false or null
+    private static <T> T fake(Class<T> type, Map<String, Object> answers) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return type.getSimpleName();
+                default:
+                    break;
+            }
+            if (answers.containsKey(method.getName())) {
+                return answers.get(method.getName());
+            }
+            if (method.getReturnType() == Optional.class) {
+                return Optional.empty();
+            }
+            return method.getReturnType() == boolean.class ? Boolean.FALSE : null;
+        }));
+    }
+
+    private static class CountingSender extends NotificationSender {
+        private int sent;
+
+        CountingSender() {
+            super(null);
+        }
+
+        @Override
+        public boolean send(Notification notification) {
+            notification.getPayload();
+            sent++;
+            return true;
+        }
+    }
+}
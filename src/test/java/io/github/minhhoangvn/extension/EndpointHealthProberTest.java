@@ -0,0 +1,119 @@
+package io.github.minhhoangvn.extension;
+
+import io.github.minhhoangvn.client.MSTeamsWebHookClient;
+import io.github.minhhoangvn.dispatch.EndpointHealth;
+import io.github.minhhoangvn.dispatch.NotificationDispatcher;
+import io.github.minhhoangvn.metrics.NotifierMetrics;
+import io.github.minhhoangvn.utils.Constants;
+import okhttp3.OkHttpClient;
+import org.sonar.api.config.Configuration;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class EndpointHealthProberTest {
+
+    private static final String WEBHOOK_URL = "https://example.webhook.office.com/webhook";
+
+    private AtomicLong clock;
+    private ProbingClient client;
+    private NotifierMetrics metrics;
+    private NotificationDispatcher dispatcher;
+    private EndpointHealthProber prober;
+
+    @BeforeMethod
+    public void setUp() {
+        clock = new AtomicLong(0);
+        client = new ProbingClient();
+        metrics = new NotifierMetrics();
+        Configuration configuration = mock(Configuration.class);
+        when(configuration.getStringArray(Constants.QUIET_HOURS_DESTINATIONS)).thenReturn(new String[0]);
+        dispatcher = new NotificationDispatcher(configuration, metrics);
+        prober = new EndpointHealthProber(dispatcher, client, clock::get);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        dispatcher.shutdown(0);
+    }
+
+    @Test
+    public void testProbeDue_OnlyProbesUnavailableEndpointsWhenDue() {
+        // Arrange
+        EndpointHealth health = dispatcher.getEndpointHealth();
+        health.markUnavailable(WEBHOOK_URL, 0);
+
+        // Act
+        int recoveredEarly = prober.probeDue();
+        clock.set(Constants.DEFAULT_HEALTH_PROBE_INTERVAL_MS);
+        int recovered = prober.probeDue();
+
+        // Assert
+        Assert.assertEquals(recoveredEarly, 0);
+        Assert.assertEquals(recovered, 1);
+        Assert.assertEquals(client.probed, List.of(WEBHOOK_URL));
+        Assert.assertTrue(health.isAvailable(WEBHOOK_URL));
+        Assert.assertEquals(metrics.get(NotifierMetrics.ENDPOINT_RECOVERED), 1);
+    }
+
+    @Test
+    public void testProbeDue_ServerErrorOrNoAnswer_KeepsEndpointUnavailableAndBacksOff() {
+        // Arrange
+        EndpointHealth health = dispatcher.getEndpointHealth();
+        health.markUnavailable(WEBHOOK_URL, 0);
+        clock.set(Constants.DEFAULT_HEALTH_PROBE_INTERVAL_MS);
+        client.status = 503;
+
+        // Act
+        int recovered = prober.probeDue();
+        client.status = -1;
+        clock.addAndGet(Constants.DEFAULT_HEALTH_PROBE_INTERVAL_MS);
+        int probedTooSoon = client.probed.size();
+        prober.probeDue();
+
+        // Assert - The second probe waits for the doubled interval
+        Assert.assertEquals(recovered, 0);
+        Assert.assertFalse(health.isAvailable(WEBHOOK_URL));
+        Assert.assertEquals(probedTooSoon, 1);
+        Assert.assertEquals(client.probed.size(), 1);
+    }
+
+    @Test
+    public void testProbeDue_MethodNotAllowed_CountsAsAvailable() {
+        // Arrange - A HEAD request is refused by the webhook, but the endpoint answers
+        dispatcher.getEndpointHealth().markUnavailable(WEBHOOK_URL, 0);
+        clock.set(Constants.DEFAULT_HEALTH_PROBE_INTERVAL_MS);
+        client.status = 405;
+
+        // Act & Assert
+        Assert.assertEquals(prober.probeDue(), 1);
+    }
+
+    private static class ProbingClient extends MSTeamsWebHookClient {
+        private final List<String> probed = new ArrayList<>();
+        private int status = 200;
+
+        ProbingClient() {
+            super(new OkHttpClient());
+        }
+
+        @Override
+        public int probe(String webhookUrl) throws IOException {
+            probed.add(webhookUrl);
+            if (status < 0) {
+                throw new ConnectException("Connection refused");
+            }
+            return status;
+        }
+    }
+}
@@ -162,6 +162,8 @@ public class MSTeamsPreProjectAnalysisTaskTest {
         when(mockConfiguration.get(Constants.WEBHOOK_MESSAGE_AVATAR)).thenReturn(Optional.empty());
         when(mockConfiguration.getBoolean(Constants.WEBHOOK_SEND_ON_FAILED)).thenReturn(Optional.empty());
         when(mockConfiguration.get(Constants.SONAR_URL)).thenReturn(Optional.empty());
+        // Fallbacks are resolved when the settings are created
+        preAnalysisTask = new MSTeamsPreProjectAnalysisTask(mockConfiguration);
 
         // Act
         preAnalysisTask.finished(context);
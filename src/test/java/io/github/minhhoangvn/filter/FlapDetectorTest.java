@@ -0,0 +1,132 @@
+package io.github.minhhoangvn.filter;
+
+import io.github.minhhoangvn.filter.FlapDetector.Verdict;
+import org.sonar.api.config.Configuration;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FlapDetectorTest {
+
+    @Test
+    public void testRecord_SteadyFailures_AlwaysNotified() {
+        // Arrange
+        FlapDetector detector = new FlapDetector(10, 4, 3, 100);
+
+        // Act & Assert
+        for (int i = 0; i < 20; i++) {
+            Assert.assertEquals(detector.record("billing", null, true), Verdict.NOTIFY);
+        }
+    }
+
+    @Test
+    public void testRecord_OscillatingStatus_StartsFlappingOnceThenSuppresses() {
+        // Arrange
+        FlapDetector detector = new FlapDetector(10, 4, 3, 100);
+
+        // Act: passed, failed, passed, failed makes three changes, the next pass the fourth
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(detector.record("billing", null, i % 2 == 1), Verdict.NOTIFY);
+        }
+        Verdict start = detector.record("billing", null, false);
+        Verdict next = detector.record("billing", null, true);
+
+        // Assert
+        Assert.assertEquals(start, Verdict.START_FLAPPING);
+        Assert.assertEquals(next, Verdict.SUPPRESS);
+    }
+
+    @Test
+    public void testRecord_FlappingProject_StabilizesAfterStableRuns() {
+        // Arrange
+        FlapDetector detector = new FlapDetector(10, 4, 3, 100);
+        for (int i = 0; i < 5; i++) {
+            detector.record("billing", null, i % 2 == 1);
+        }
+
+        // Act
+        Verdict first = detector.record("billing", null, true);
+        Verdict second = detector.record("billing", null, true);
+        Verdict third = detector.record("billing", null, true);
+        Verdict after = detector.record("billing", null, true);
+
+        // Assert
+        Assert.assertEquals(first, Verdict.SUPPRESS);
+        Assert.assertEquals(second, Verdict.SUPPRESS);
+        Assert.assertEquals(third, Verdict.STABILIZED);
+        Assert.assertEquals(after, Verdict.NOTIFY);
+    }
+
+    @Test
+    public void testRecord_ChangesSpreadBeyondWindow_NotFlapping() {
+        // Arrange
+        FlapDetector detector = new FlapDetector(6, 3, 2, 100);
+
+        // Act & Assert: one change every four analyses never puts three in a window of six
+        for (int i = 0; i < 40; i++) {
+            Assert.assertEquals(detector.record("billing", null, (i / 4) % 2 == 1), Verdict.NOTIFY, "analysis " + i);
+        }
+    }
+
+    @Test
+    public void testRecord_BranchesTrackedSeparately() {
+        // Arrange
+        FlapDetector detector = new FlapDetector(10, 2, 2, 100);
+
+        // Act
+        detector.record("billing", "main", false);
+        detector.record("billing", "feature", true);
+        detector.record("billing", "main", true);
+        Verdict feature = detector.record("billing", "feature", false);
+        Verdict main = detector.record("billing", "main", false);
+
+        // Assert
+        Assert.assertEquals(feature, Verdict.NOTIFY);
+        Assert.assertEquals(main, Verdict.START_FLAPPING);
+        Assert.assertEquals(detector.size(), 2);
+    }
+
+    @Test
+    public void testRecord_TableFull_StartsOverInsteadOfGrowing() {
+        // Arrange
+        FlapDetector detector = new FlapDetector(10, 4, 3, 8);
+
+        // Act
+        for (int i = 0; i < 20; i++) {
+            detector.record("project-" + i, null, false);
+        }
+
+        // Assert
+        Assert.assertTrue(detector.size() <= 8, "size " + detector.size());
+    }
+
+    @Test
+    public void testRecord_Disabled_AlwaysNotifies() {
+        // Arrange
+        FlapDetector detector = new FlapDetector(10, 0, 3, 100);
+
+        // Act & Assert
+        Assert.assertFalse(detector.isEnabled());
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(detector.record("billing", null, i % 2 == 0), Verdict.NOTIFY);
+        }
+    }
+
+    @Test
+    public void testConstructor_DefaultSettings_DetectionIsOff() {
+        // Arrange
+        Configuration configuration = mock(Configuration.class);
+        when(configuration.getInt(anyString())).thenReturn(Optional.empty());
+
+        // Act
+        FlapDetector detector = new FlapDetector(configuration);
+
+        // Assert
+        Assert.assertFalse(detector.isEnabled());
+    }
+}
@@ -0,0 +1,138 @@
+package io.github.minhhoangvn.filter;
+
+import io.github.minhhoangvn.pipeline.AnalysisSnapshot;
+import org.sonar.api.ce.posttask.Branch;
+import org.sonar.api.ce.posttask.CeTask;
+import org.sonar.api.ce.posttask.PostProjectAnalysisTask.ProjectAnalysis;
+import org.sonar.api.ce.posttask.Project;
+import org.sonar.api.ce.posttask.QualityGate;
+import org.sonar.api.ce.posttask.QualityGate.Condition;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class NotificationFilterTest {
+
+    private ProjectAnalysis projectAnalysis;
+    private Project project;
+    private QualityGate qualityGate;
+
+    @BeforeMethod
+    public void setUp() {
+        projectAnalysis = mock(ProjectAnalysis.class);
+        project = mock(Project.class);
+        CeTask ceTask = mock(CeTask.class);
+        qualityGate = mock(QualityGate.class);
+        when(projectAnalysis.getProject()).thenReturn(project);
+        when(projectAnalysis.getCeTask()).thenReturn(ceTask);
+        when(projectAnalysis.getQualityGate()).thenReturn(qualityGate);
+        when(project.getKey()).thenReturn("team-x/billing");
+        when(project.getName()).thenReturn("Billing Service");
+        when(qualityGate.getStatus()).thenReturn(QualityGate.Status.ERROR);
+
+        Condition coverage = condition("new_coverage", "72.5", QualityGate.EvaluationStatus.ERROR);
+        Condition securityRating = condition("new_security_rating", "3", QualityGate.EvaluationStatus.ERROR);
+        Condition duplications = condition("new_duplicated_lines_density", "1.0", QualityGate.EvaluationStatus.OK);
+        when(qualityGate.getConditions()).thenReturn(Arrays.asList(coverage, securityRating, duplications));
+    }
+
+    @Test
+    public void testMatches_FieldComparisons() {
+        // Arrange
+        AnalysisSnapshot analysis = AnalysisSnapshot.of(projectAnalysis);
+
+        // Act & Assert
+        Assert.assertTrue(matches("qualityGate = ERROR", analysis));
+        Assert.assertTrue(matches("qualityGate = error", analysis));
+        Assert.assertFalse(matches("qualityGate != ERROR", analysis));
+        Assert.assertTrue(matches("branch = main", analysis));
+        Assert.assertTrue(matches("project matches \"team-x/*\"", analysis));
+        Assert.assertFalse(matches("project matches 'team-y/*'", analysis));
+        Assert.assertTrue(matches("projectName matches \"* Service\"", analysis));
+    }
+
+    @Test
+    public void testMatches_ConditionComparisons() {
+        // Arrange
+        AnalysisSnapshot analysis = AnalysisSnapshot.of(projectAnalysis);
+
+        // Act & Assert
+        Assert.assertTrue(matches("condition.new_coverage < 80", analysis));
+        Assert.assertFalse(matches("condition.new_coverage >= 80", analysis));
+        Assert.assertTrue(matches("condition.new_duplicated_lines_density = 1", analysis));
+        Assert.assertTrue(matches("condition.*security_rating*.status = ERROR", analysis));
+        Assert.assertFalse(matches("condition.*reliability_rating*.status = ERROR", analysis));
+        Assert.assertFalse(matches("condition.unknown_metric < 100", analysis));
+    }
+
+    @Test
+    public void testMatches_BooleanOperatorsAndPrecedence() {
+        // Arrange
+        AnalysisSnapshot analysis = AnalysisSnapshot.of(projectAnalysis);
+
+        // Act & Assert
+        Assert.assertTrue(matches("condition.new_coverage < 80 and branch = main", analysis));
+        Assert.assertTrue(matches("qualityGate = OK or project matches team-x/*", analysis));
+        Assert.assertTrue(matches("qualityGate = OK and branch = dev or branch = main", analysis));
+        Assert.assertFalse(matches("qualityGate = OK and (branch = dev or branch = main)", analysis));
+        Assert.assertFalse(matches("not qualityGate = ERROR", analysis));
+    }
+
+    @Test
+    public void testMatches_FeatureBranchWithoutQualityGate() {
+        // Arrange
+        Branch branch = mock(Branch.class);
+        when(branch.isMain()).thenReturn(false);
+        when(branch.getName()).thenReturn(Optional.of("feature/login"));
+        when(projectAnalysis.getBranch()).thenReturn(Optional.of(branch));
+        when(projectAnalysis.getQualityGate()).thenReturn(null);
+        AnalysisSnapshot analysis = AnalysisSnapshot.of(projectAnalysis);
+
+        // Act & Assert
+        Assert.assertTrue(matches("branch matches feature/*", analysis));
+        Assert.assertTrue(matches("qualityGate = NONE", analysis));
+        Assert.assertFalse(matches("condition.new_coverage < 80", analysis));
+    }
+
+    @Test
+    public void testCompile_InvalidExpressions_ReportPosition() {
+        String[] invalid = {
+                "",
+                "qualityGate",
+                "qualityGate = ERROR and",
+                "unknown = 1",
+                "condition.new_coverage < high",
+                "(branch = main",
+                "branch = main)",
+                "project matches \"team-x/*",
+                "branch ! main"
+        };
+        for (String expression : invalid) {
+            try {
+                NotificationFilter.compile(expression);
+                Assert.fail("Expected '" + expression + "' to be rejected");
+            } catch (IllegalArgumentException e) {
+                Assert.assertTrue(e.getMessage().startsWith(expression.isEmpty()
+                        ? "Filter expression is empty" : "Invalid filter expression"), e.getMessage());
+            }
+        }
+    }
+
+    private static boolean matches(String expression, AnalysisSnapshot analysis) {
+        return NotificationFilter.compile(expression).matches(analysis);
+    }
+
+    private static Condition condition(String metricKey, String value, QualityGate.EvaluationStatus status) {
+        Condition condition = mock(Condition.class);
+        when(condition.getMetricKey()).thenReturn(metricKey);
+        when(condition.getValue()).thenReturn(value);
+        when(condition.getStatus()).thenReturn(status);
+        return condition;
+    }
+}
@@ -0,0 +1,308 @@
+package io.github.minhhoangvn.pipeline;
+
+import io.github.minhhoangvn.dispatch.Notification;
+import io.github.minhhoangvn.dispatch.NotificationSender;
+import io.github.minhhoangvn.filter.FlapDetector;
+import io.github.minhhoangvn.filter.NotificationFilter;
+import io.github.minhhoangvn.metrics.NotifierMetrics;
+import io.github.minhhoangvn.transition.TransitionTracker;
+import io.github.minhhoangvn.utils.AdaptiveCardsFormat;
+import io.github.minhhoangvn.utils.Constants;
+import org.sonar.api.ce.posttask.CeTask;
+import org.sonar.api.ce.posttask.PostProjectAnalysisTask.ProjectAnalysis;
+import org.sonar.api.ce.posttask.Project;
+import org.sonar.api.ce.posttask.QualityGate;
+import org.sonar.api.config.Configuration;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class NotificationPipelineTest {
+
+    private static final String WEBHOOK_URL = "https://example.webhook.office.com/webhook";
+
+    private ProjectAnalysis projectAnalysis;
+    private QualityGate qualityGate;
+    private NotifierMetrics metrics;
+    private RecordingSender sender;
+    private CountingStage renderCounter;
+    private NotificationPipeline pipeline;
+
+    @BeforeMethod
+    public void setUp() {
+        projectAnalysis = mock(ProjectAnalysis.class);
+        Project project = mock(Project.class);
+        CeTask ceTask = mock(CeTask.class);
+        qualityGate = mock(QualityGate.class);
+        when(projectAnalysis.getProject()).thenReturn(project);
+        when(projectAnalysis.getCeTask()).thenReturn(ceTask);
+        when(projectAnalysis.getQualityGate()).thenReturn(qualityGate);
+        when(project.getName()).thenReturn("Test Project");
+        when(project.getKey()).thenReturn("test-project-key");
+        when(ceTask.getStatus()).thenReturn(CeTask.Status.SUCCESS);
+        when(qualityGate.getName()).thenReturn("Sonar way");
+        when(qualityGate.getConditions()).thenReturn(Collections.emptyList());
+
+        metrics = new NotifierMetrics();
+        sender = new RecordingSender();
+        renderCounter = new CountingStage();
+        pipeline = new NotificationPipeline(List.of(
+                new SnapshotStage(),
+                new FilterStage(),
+                new RouteStage(),
+                renderCounter,
+                new RenderStage(),
+                new DeliverStage(null, sender)), metrics);
+    }
+
+    @Test
+    public void testRun_PassedGateWithSendOnFailedOnly_StopsBeforeRendering() {
+        // Arrange
+        when(qualityGate.getStatus()).thenReturn(QualityGate.Status.OK);
+
+        // Act
+        boolean delivered = pipeline.run(context(true));
+
+        // Assert
+        Assert.assertFalse(delivered);
+        Assert.assertEquals(renderCounter.calls, 0);
+        Assert.assertEquals(metrics.get("pipeline.filter.stopped"), 1);
+        Assert.assertTrue(sender.sent.isEmpty());
+    }
+
+    @Test
+    public void testRun_FailedGate_RunsEveryStageAndRecordsTimings() {
+        // Arrange
+        when(qualityGate.getStatus()).thenReturn(QualityGate.Status.ERROR);
+
+        // Act
+        boolean delivered = pipeline.run(context(true));
+
+        // Assert
+        Assert.assertTrue(delivered);
+        Assert.assertEquals(sender.sent.size(), 1);
+        Assert.assertTrue(sender.payloads.get(0).contains("Test Project SonarQube Analysis Result"));
+        for (String stage : new String[]{"snapshot", "filter", "route", "render", "deliver"}) {
+            Assert.assertEquals(metrics.get("pipeline." + stage + ".calls"), 1, stage);
+        }
+    }
+
+    @Test
+    public void testRun_FailedGate_NotificationCarriesIdOfCeTask() {
+        // Arrange
+        when(qualityGate.getStatus()).thenReturn(QualityGate.Status.ERROR);
+        when(projectAnalysis.getCeTask().getId()).thenReturn("AY-task-1");
+        PipelineContext context = context(true);
+
+        // Act
+        pipeline.run(context);
+
+        // Assert
+        String id = context.getNotificationId();
+        Assert.assertTrue(id.startsWith("AY-task-1/"), id);
+        Assert.assertEquals(sender.sent.get(0).getNotificationId(), id);
+    }
+
+    @Test
+    public void testRun_IdGivenByCaller_KeptAndRecordedAsExemplarWhenStopped() {
+        // Arrange
+        when(qualityGate.getStatus()).thenReturn(QualityGate.Status.OK);
+        PipelineContext context = PipelineContext.builder()
+                .analysis(projectAnalysis)
+                .notificationId("AY-task-2/-/1")
+                .webhookUrl(WEBHOOK_URL)
+                .sendOnFailedOnly(true)
+                .build();
+
+        // Act
+        pipeline.run(context);
+
+        // Assert
+        Assert.assertEquals(context.getNotificationId(), "AY-task-2/-/1");
+        Assert.assertEquals(metrics.exemplar("pipeline.filter.stopped"), "AY-task-2/-/1");
+        Assert.assertNull(metrics.exemplar("pipeline.filter.calls"));
+    }
+
+    @Test
+    public void testRun_AnalysisNotMatchingFilter_StopsBeforeRendering() {
+        // Arrange
+        when(qualityGate.getStatus()).thenReturn(QualityGate.Status.ERROR);
+        PipelineContext context = PipelineContext.builder()
+                .analysis(projectAnalysis)
+                .webhookUrl(WEBHOOK_URL)
+                .filter(NotificationFilter.compile("project matches \"team-x/*\""))
+                .build();
+
+        // Act
+        boolean delivered = pipeline.run(context);
+
+        // Assert
+        Assert.assertFalse(delivered);
+        Assert.assertEquals(renderCounter.calls, 0);
+        Assert.assertTrue(context.getStopReason().contains("team-x/*"));
+    }
+
+    @Test
+    public void testRun_FailingStage_StopsPipeline() {
+        // Arrange
+        when(qualityGate.getStatus()).thenReturn(QualityGate.Status.OK);
+        NotificationPipeline failing = new NotificationPipeline(List.of(new SnapshotStage(), new PipelineStage() {
+            @Override
+            public String name() {
+                return "broken";
+            }
+
+            @Override
+            public boolean process(PipelineContext context) {
+                throw new IllegalStateException("boom");
+            }
+        }, new DeliverStage(null, sender)), metrics);
+
+        // Act
+        PipelineContext context = context(false);
+        boolean delivered = failing.run(context);
+
+        // Assert
+        Assert.assertFalse(delivered);
+        Assert.assertTrue(context.getStopReason().contains("boom"));
+        Assert.assertTrue(sender.sent.isEmpty());
+    }
+
+    @Test
+    public void testRun_FlappingGate_SendsOneFlappingCardThenHoldsBack() {
+        // Arrange
+        Configuration configuration = mock(Configuration.class);
+        when(configuration.getInt(Constants.FLAP_WINDOW)).thenReturn(Optional.of(10));
+        when(configuration.getInt(Constants.FLAP_THRESHOLD)).thenReturn(Optional.of(2));
+        when(configuration.getInt(Constants.FLAP_STABLE_RUNS)).thenReturn(Optional.of(2));
+        NotificationPipeline flapping = new NotificationPipeline(List.of(
+                new SnapshotStage(),
+                new FlapStage(new FlapDetector(configuration)),
+                new FilterStage(),
+                new RouteStage(),
+                new RenderStage(),
+                new DeliverStage(null, sender)), metrics);
+        List<Boolean> delivered = new ArrayList<>();
+
+        // Act: passed, failed, passed, failed
+        for (int i = 0; i < 4; i++) {
+            when(qualityGate.getStatus()).thenReturn(i % 2 == 0 ? QualityGate.Status.OK : QualityGate.Status.ERROR);
+            delivered.add(flapping.run(context(false)));
+        }
+
+        // Assert
+        Assert.assertEquals(delivered, List.of(true, true, true, false));
+        Assert.assertEquals(sender.sent.size(), 3);
+        Assert.assertTrue(sender.payloads.get(2).contains("Test Project Quality Gate Is Flapping"));
+        Assert.assertTrue(sender.payloads.get(2).contains("changed 2 times in the last 10 analyses"));
+        Assert.assertEquals(metrics.get("pipeline.flap.stopped"), 1);
+    }
+
+    @Test
+    public void testRun_TransitionTriggers_OnlyChangesRendered() {
+        // Arrange
+        Configuration configuration = mock(Configuration.class);
+        when(configuration.getStringArray(Constants.TRIGGERS)).thenReturn(new String[]{"newly-failing", "recovered"});
+        when(configuration.getLong(Constants.REMINDER_INTERVAL_MS)).thenReturn(Optional.empty());
+        when(configuration.get(Constants.TRANSITIONS_FILE)).thenReturn(Optional.empty());
+        when(configuration.get(Constants.SONAR_PATH_DATA)).thenReturn(Optional.empty());
+        NotificationPipeline transitions = new NotificationPipeline(List.of(
+                new SnapshotStage(),
+                new TransitionStage(new TransitionTracker(configuration)),
+                new FilterStage(),
+                new RouteStage(),
+                renderCounter,
+                new RenderStage(),
+                new DeliverStage(null, sender)), metrics);
+        QualityGate.Status[] statuses = {QualityGate.Status.ERROR, QualityGate.Status.ERROR, QualityGate.Status.OK, QualityGate.Status.OK};
+
+        // Act
+        for (QualityGate.Status status : statuses) {
+            when(qualityGate.getStatus()).thenReturn(status);
+            transitions.run(context(true));
+        }
+
+        // Assert: the recovery gets past 'Send on failed only'
+        Assert.assertEquals(renderCounter.calls, 2);
+        Assert.assertTrue(sender.payloads.get(0).contains("Quality Gate Newly Failing"));
+        Assert.assertTrue(sender.payloads.get(1).contains("Quality Gate Recovered"));
+        Assert.assertEquals(metrics.get("pipeline.transition.stopped"), 2);
+    }
+
+    @Test
+    public void testRender_StaticConfigurationReplacedBeforeRendering_KeepsTeamNameOfAnalysis() {
+        // Arrange
+        when(qualityGate.getStatus()).thenReturn(QualityGate.Status.ERROR);
+        PipelineContext context = PipelineContext.builder()
+                .analysis(projectAnalysis)
+                .webhookUrl(WEBHOOK_URL)
+                .teamName("Platform Team")
+                .build();
+        new SnapshotStage().process(context);
+        new RenderStage().process(context);
+        Configuration otherAnalysis = mock(Configuration.class);
+        when(otherAnalysis.get(Constants.WEBHOOK_TEAM_NAME)).thenReturn(Optional.of("Other Team"));
+
+        // Act
+        String payload;
+        AdaptiveCardsFormat.setConfiguration(otherAnalysis);
+        try {
+            payload = context.getPayload().get();
+        } finally {
+            AdaptiveCardsFormat.setConfiguration(null);
+        }
+
+        // Assert
+        Assert.assertTrue(payload.contains("Platform Team"));
+        Assert.assertFalse(payload.contains("Other Team"));
+    }
+
+    private PipelineContext context(boolean sendOnFailedOnly) {
+        return PipelineContext.builder()
+                .analysis(projectAnalysis)
+                .webhookUrl(WEBHOOK_URL)
+                .baseUrl("https://sonar.example.com")
+                .sendOnFailedOnly(sendOnFailedOnly)
+                .build();
+    }
+
+    private static class CountingStage implements PipelineStage {
+        private int calls;
+
+        @Override
+        public String name() {
+            return "count";
+        }
+
+        @Override
+        public boolean process(PipelineContext context) {
+            calls++;
+            return true;
+        }
+    }
+
+    private static class RecordingSender extends NotificationSender {
+        private final List<Notification> sent = new ArrayList<>();
+        private final List<String> payloads = new ArrayList<>();
+
+        RecordingSender() {
+            super(null);
+        }
+
+        // Payloads are released once delivery completes, so they are captured while sending
+        @Override
+        public boolean send(Notification notification) {
+            sent.add(notification);
+            payloads.add(notification.getPayload());
+            return true;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package io.github.minhhoangvn.settings;
+
+import io.github.minhhoangvn.utils.Constants;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class AnalysisOverridesTest {
+
+    private static final String WEBHOOK_URL = "https://example.webhook.office.com/webhookb2/server-token";
+    private static final String CI_WEBHOOK_URL = "https://example.webhook.office.com/webhookb2/ci-token";
+
+    @Test
+    public void testParse_AllowedKeys_OverrideServerSettings() {
+        // Arrange
+        Map<String, String> properties = new HashMap<>();
+        properties.put(Constants.WEBHOOK_URL, CI_WEBHOOK_URL);
+        properties.put(Constants.NOTIFY_FILTER, "qualityGate = ERROR");
+        properties.put(Constants.WEBHOOK_TEAM_NAME, " Payments ");
+        properties.put("sonar.projectKey", "billing");
+        Set<String> allowed = AnalysisOverrides.parseAllowedKeys(
+                Constants.WEBHOOK_URL + "," + Constants.NOTIFY_FILTER + "," + Constants.WEBHOOK_TEAM_NAME);
+
+        // Act
+        AnalysisOverrides overrides = AnalysisOverrides.parse(properties, allowed);
+
+        // Assert
+        Assert.assertFalse(overrides.isEmpty());
+        Assert.assertEquals(overrides.webhookUrlOr(WEBHOOK_URL), CI_WEBHOOK_URL);
+        Assert.assertNotNull(overrides.getWebhookHttpUrl());
+        Assert.assertEquals(overrides.filterOr(null).getExpression(), "qualityGate = ERROR");
+        Assert.assertEquals(overrides.teamNameOr(null), "Payments");
+        Assert.assertTrue(overrides.sendOnFailedOnlyOr(true));
+        Assert.assertFalse(overrides.toString().contains(CI_WEBHOOK_URL));
+    }
+
+    @Test
+    public void testParse_KeysOutsideAllowlist_AreIgnored() {
+        // Arrange
+        Map<String, String> properties = new HashMap<>();
+        properties.put(Constants.WEBHOOK_URL, CI_WEBHOOK_URL);
+        properties.put(Constants.WEBHOOK_SEND_ON_FAILED, "true");
+
+        // Act
+        AnalysisOverrides overrides = AnalysisOverrides.parse(properties, Set.of(Constants.WEBHOOK_SEND_ON_FAILED));
+
+        // Assert
+        Assert.assertEquals(overrides.webhookUrlOr(WEBHOOK_URL), WEBHOOK_URL);
+        Assert.assertNull(overrides.getWebhookHttpUrl());
+        Assert.assertTrue(overrides.sendOnFailedOnlyOr(false));
+    }
+
+    @Test
+    public void testParse_InvalidValues_KeepServerSettings() {
+        // Arrange
+        Map<String, String> properties = new HashMap<>();
+        properties.put(Constants.WEBHOOK_URL, "http://attacker.example.com/hook");
+        properties.put(Constants.NOTIFY_FILTER, "coverage <");
+        Set<String> allowed = Set.of(Constants.WEBHOOK_URL, Constants.NOTIFY_FILTER);
+
+        // Act
+        AnalysisOverrides overrides = AnalysisOverrides.parse(properties, allowed);
+
+        // Assert
+        Assert.assertSame(overrides, AnalysisOverrides.NONE);
+    }
+
+    @Test
+    public void testParse_NothingAllowed_ReturnsNone() {
+        // Act & Assert
+        Assert.assertSame(AnalysisOverrides.parse(Map.of(Constants.WEBHOOK_URL, CI_WEBHOOK_URL), Set.of()), AnalysisOverrides.NONE);
+        Assert.assertSame(AnalysisOverrides.parse(null, Set.of(Constants.WEBHOOK_URL)), AnalysisOverrides.NONE);
+    }
+
+    @Test
+    public void testParseAllowedKeys_KeepsOnlyOverridableKeys() {
+        // Act
+        Set<String> allowed = AnalysisOverrides.parseAllowedKeys(
+                " " + Constants.WEBHOOK_URL + " ," + Constants.ENABLE_NOTIFY + "," + Constants.OVERRIDES_ALLOWED + ",");
+
+        // Assert
+        Assert.assertEquals(allowed, Set.of(Constants.WEBHOOK_URL));
+        Assert.assertTrue(AnalysisOverrides.parseAllowedKeys("").isEmpty());
+    }
+
+    @Test
+    public void testParse_WebhookHostOutsideAllowlist_KeepsServerWebhook() {
+        // Arrange
+        Set<String> allowed = Set.of(Constants.WEBHOOK_URL);
+        List<String> hosts = AnalysisOverrides.parseAllowedHosts(Constants.DEFAULT_OVERRIDES_WEBHOOK_HOSTS);
+
+        // Act
+        AnalysisOverrides internal = AnalysisOverrides.parse(
+                Map.of(Constants.WEBHOOK_URL, "https://metadata.internal/hook"), allowed, hosts);
+        AnalysisOverrides lookalike = AnalysisOverrides.parse(
+                Map.of(Constants.WEBHOOK_URL, "https://webhook.office.com.evil.example/hook"), allowed, hosts);
+        AnalysisOverrides plainHttp = AnalysisOverrides.parse(
+                Map.of(Constants.WEBHOOK_URL, "http://example.webhook.office.com/hook"), allowed, hosts);
+
+        // Assert
+        Assert.assertSame(internal, AnalysisOverrides.NONE);
+        Assert.assertSame(lookalike, AnalysisOverrides.NONE);
+        Assert.assertSame(plainHttp, AnalysisOverrides.NONE);
+    }
+
+    @Test
+    public void testParse_CustomWebhookHosts_AcceptExactAndWildcardHosts() {
+        // Arrange
+        Set<String> allowed = Set.of(Constants.WEBHOOK_URL);
+        List<String> hosts = AnalysisOverrides.parseAllowedHosts(" teams.example.com , *.relay.example.com ,");
+
+        // Act
+        AnalysisOverrides exact = AnalysisOverrides.parse(
+                Map.of(Constants.WEBHOOK_URL, "https://teams.example.com/hook"), allowed, hosts);
+        AnalysisOverrides wildcard = AnalysisOverrides.parse(
+                Map.of(Constants.WEBHOOK_URL, "https://eu.relay.example.com/hook"), allowed, hosts);
+        AnalysisOverrides office = AnalysisOverrides.parse(Map.of(Constants.WEBHOOK_URL, CI_WEBHOOK_URL), allowed, hosts);
+
+        // Assert
+        Assert.assertEquals(hosts, List.of("teams.example.com", "*.relay.example.com"));
+        Assert.assertEquals(exact.webhookUrlOr(WEBHOOK_URL), "https://teams.example.com/hook");
+        Assert.assertEquals(wildcard.webhookUrlOr(WEBHOOK_URL), "https://eu.relay.example.com/hook");
+        Assert.assertSame(office, AnalysisOverrides.NONE);
+    }
+
+    @Test
+    public void testParse_AvatarThatIsNotAUrl_IsIgnored() {
+        // Arrange
+        Set<String> allowed = Set.of(Constants.WEBHOOK_MESSAGE_AVATAR);
+
+        // Act
+        AnalysisOverrides broken = AnalysisOverrides.parse(
+                Map.of(Constants.WEBHOOK_MESSAGE_AVATAR, "x\", \"injected\": \"y"), allowed);
+        AnalysisOverrides valid = AnalysisOverrides.parse(
+                Map.of(Constants.WEBHOOK_MESSAGE_AVATAR, "https://cdn.example.com/logo.png"), allowed);
+
+        // Assert
+        Assert.assertSame(broken, AnalysisOverrides.NONE);
+        Assert.assertEquals(valid.avatarUrlOr(null), "https://cdn.example.com/logo.png");
+    }
+}
@@ -0,0 +1,200 @@
+package io.github.minhhoangvn.settings;
+
+import io.github.minhhoangvn.utils.Constants;
+import org.sonar.api.config.Configuration;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+public class NotifierSettingsTest {
+
+    private static final String WEBHOOK_URL = "https://example.webhook.office.com/webhookb2/secret-token";
+
+    private Map<String, String> values;
+    private NotifierSettings settings;
+
+    @BeforeMethod
+    public void setUp() {
+        values = new HashMap<>();
+        values.put(Constants.ENABLE_NOTIFY, "true");
+        values.put(Constants.WEBHOOK_URL, WEBHOOK_URL);
+        values.put(Constants.SONAR_URL, "https://sonar.example.com");
+        settings = new NotifierSettings(new MapConfiguration(values));
+    }
+
+    @Test
+    public void testCurrent_UnchangedSettings_ReusesSnapshot() {
+        // Act
+        NotifierSettings.Snapshot first = settings.current();
+        NotifierSettings.Snapshot second = settings.current();
+
+        // Assert
+        Assert.assertSame(second, first);
+        Assert.assertTrue(first.isValid());
+        Assert.assertNotNull(first.getWebhookHttpUrl());
+        Assert.assertEquals(first.getBaseUrl(), "https://sonar.example.com");
+        Assert.assertFalse(first.getMaskedWebhookUrl().contains("secret-token"));
+    }
+
+    @Test
+    public void testCurrent_ChangedSettings_RebuildsSnapshot() {
+        // Arrange
+        NotifierSettings.Snapshot first = settings.current();
+
+        // Act
+        values.put(Constants.WEBHOOK_TEAM_NAME, "Platform Team");
+        NotifierSettings.Snapshot second = settings.current();
+
+        // Assert
+        Assert.assertNotSame(second, first);
+        Assert.assertEquals(second.getTeamName(), "Platform Team");
+        Assert.assertEquals(second.asMap().get(Constants.WEBHOOK_TEAM_NAME), "Platform Team");
+    }
+
+    @Test
+    public void testCurrent_InvalidWebhookUrl_IsNotValid() {
+        // Arrange
+        values.put(Constants.WEBHOOK_URL, "invalid-url");
+
+        // Act
+        NotifierSettings.Snapshot snapshot = settings.current();
+
+        // Assert
+        Assert.assertFalse(snapshot.isValid());
+        Assert.assertNull(snapshot.getWebhookHttpUrl());
+        Assert.assertFalse(snapshot.asMap().containsKey(Constants.SONAR_URL));
+    }
+
+    @Test
+    public void testCurrent_DisabledPlugin_IsValidWithoutWebhook() {
+        // Arrange
+        values.put(Constants.ENABLE_NOTIFY, "false");
+        values.remove(Constants.WEBHOOK_URL);
+
+        // Act
+        NotifierSettings.Snapshot snapshot = settings.current();
+
+        // Assert
+        Assert.assertTrue(snapshot.isValid());
+        Assert.assertFalse(snapshot.isEnabled());
+        Assert.assertEquals(snapshot.asMap().size(), 1);
+    }
+
+    @Test
+    public void testCurrent_FilterExpression_CompiledOncePerChange() {
+        // Arrange
+        values.put(Constants.NOTIFY_FILTER, "qualityGate = ERROR");
+
+        // Act
+        NotifierSettings.Snapshot first = settings.current();
+        NotifierSettings.Snapshot second = settings.current();
+
+        // Assert
+        Assert.assertNotNull(first.getFilter());
+        Assert.assertSame(second.getFilter(), first.getFilter());
+        Assert.assertEquals(first.asMap().get(Constants.NOTIFY_FILTER), "qualityGate = ERROR");
+    }
+
+    @Test
+    public void testCurrent_InvalidFilterExpression_NotifiesEverything() {
+        // Arrange
+        values.put(Constants.NOTIFY_FILTER, "qualityGate ERROR");
+
+        // Act
+        NotifierSettings.Snapshot snapshot = settings.current();
+
+        // Assert
+        Assert.assertTrue(snapshot.isValid());
+        Assert.assertNull(snapshot.getFilter());
+    }
+
+    @Test
+    public void testCurrent_OverrideAllowlist_IsReadOnceWithSettings() {
+        // Arrange
+        values.put(Constants.OVERRIDES_ALLOWED, Constants.WEBHOOK_URL + "," + Constants.SONAR_URL);
+
+        // Act
+        NotifierSettings.Snapshot snapshot = settings.current();
+
+        // Assert - The base URL cannot be overridden per analysis
+        Assert.assertEquals(snapshot.getAllowedOverrides(), Set.of(Constants.WEBHOOK_URL));
+        Assert.assertSame(settings.current().getAllowedOverrides(), snapshot.getAllowedOverrides());
+    }
+
+    @Test
+    public void testCurrent_SystemPropertySetAfterStartup_IsNotRead() {
+        // Arrange
+        values.remove(Constants.WEBHOOK_TEAM_NAME);
+        NotifierSettings.Snapshot first = settings.current();
+
+        // Act
+        System.setProperty(Constants.WEBHOOK_TEAM_NAME, "Platform Team");
+        NotifierSettings.Snapshot second;
+        try {
+            second = settings.current();
+        } finally {
+            System.clearProperty(Constants.WEBHOOK_TEAM_NAME);
+        }
+
+        // Assert
+        Assert.assertSame(second, first);
+        Assert.assertEquals(second.getTeamName(), Constants.DEFAULT_WEBHOOK_TEAM_NAME);
+    }
+
+    @Test
+    public void testCurrent_SystemPropertySetBeforeStartup_IsUsedAsFallback() {
+        // Arrange
+        System.setProperty(Constants.WEBHOOK_TEAM_NAME, "Platform Team");
+        try {
+            settings = new NotifierSettings(new MapConfiguration(values));
+        } finally {
+            System.clearProperty(Constants.WEBHOOK_TEAM_NAME);
+        }
+
+        // Act
+        NotifierSettings.Snapshot snapshot = settings.current();
+
+        // Assert
+        Assert.assertEquals(snapshot.getTeamName(), "Platform Team");
+    }
+
+    @Test
+    public void testResolveBaseUrl_MatchesSnapshot() {
+        // Arrange
+        values.remove(Constants.SONAR_URL);
+        settings = new NotifierSettings(new MapConfiguration(values));
+
+        // Act & Assert
+        Assert.assertEquals(NotifierSettings.resolveBaseUrl(null), settings.current().getBaseUrl());
+        Assert.assertEquals(NotifierSettings.resolveBaseUrl(""), settings.current().getBaseUrl());
+        Assert.assertEquals(NotifierSettings.resolveBaseUrl("https://sonar.example.com"), "https://sonar.example.com");
+    }
+
+    private static class MapConfiguration implements Configuration {
+        private final Map<String, String> values;
+
+        MapConfiguration(Map<String, String> values) {
+            this.values = values;
+        }
+
+        @Override
+        public Optional<String> get(String key) {
+            return Optional.ofNullable(values.get(key));
+        }
+
+        @Override
+        public boolean hasKey(String key) {
+            return values.containsKey(key);
+        }
+
+        @Override
+        public String[] getStringArray(String key) {
+            return get(key).map(value -> value.split(",")).orElse(new String[0]);
+        }
+    }
+}
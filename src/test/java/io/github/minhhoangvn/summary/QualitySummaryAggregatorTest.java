@@ -0,0 +1,132 @@
+package io.github.minhhoangvn.summary;
+
+import io.github.minhhoangvn.pipeline.AnalysisSnapshot;
+import org.sonar.api.ce.posttask.Branch;
+import org.sonar.api.ce.posttask.PostProjectAnalysisTask.ProjectAnalysis;
+import org.sonar.api.ce.posttask.Project;
+import org.sonar.api.ce.posttask.QualityGate;
+import org.sonar.api.ce.posttask.QualityGate.Condition;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class QualitySummaryAggregatorTest {
+
+    private static final String WEBHOOK_URL = "https://example.webhook.office.com/webhook";
+    private static final String OTHER_WEBHOOK_URL = "https://example.webhook.office.com/other-webhook";
+
+    private QualitySummaryAggregator aggregator;
+
+    @BeforeMethod
+    public void setUp() {
+        aggregator = new QualitySummaryAggregator(true);
+    }
+
+    @Test
+    public void testClosePeriod_SummarisesTransitionsAndCoverage() {
+        // Arrange
+        aggregator.record(WEBHOOK_URL, snapshot("billing", "Billing", QualityGate.Status.OK, "80.0"));
+        aggregator.record(WEBHOOK_URL, snapshot("billing", "Billing", QualityGate.Status.ERROR, "78.5"));
+        aggregator.record(WEBHOOK_URL, snapshot("orders", "Orders", QualityGate.Status.ERROR, "60.0"));
+        aggregator.record(WEBHOOK_URL, snapshot("orders", "Orders", QualityGate.Status.OK, "65.0"));
+        aggregator.record(WEBHOOK_URL, snapshot("search", "Search", QualityGate.Status.ERROR, "50.0"));
+
+        // Act
+        List<TeamSummary> summaries = aggregator.closePeriod();
+
+        // Assert
+        Assert.assertEquals(summaries.size(), 1);
+        TeamSummary summary = summaries.get(0);
+        Assert.assertEquals(summary.getDestination(), WEBHOOK_URL);
+        Assert.assertEquals(summary.getProjects(), 3);
+        Assert.assertEquals(summary.getAnalyses(), 5);
+        Assert.assertEquals(summary.getFailing(), List.of("Billing", "Search"));
+        Assert.assertEquals(summary.getNewlyFailing(), List.of("Billing"));
+        Assert.assertEquals(summary.getRecovered(), List.of("Orders"));
+        Assert.assertEquals(summary.getCoverageDown(), List.of("Billing"));
+        Assert.assertEquals(summary.getHeadline(), "2 projects failing, coverage down on 1, 1 recovered");
+    }
+
+    @Test
+    public void testClosePeriod_StartsNextPeriodFromLastState() {
+        // Arrange
+        aggregator.record(WEBHOOK_URL, snapshot("billing", "Billing", QualityGate.Status.OK, "80.0"));
+        aggregator.record(WEBHOOK_URL, snapshot("billing", "Billing", QualityGate.Status.ERROR, "70.0"));
+        aggregator.closePeriod();
+
+        // Act - Same values in the next period: still failing, but nothing new
+        aggregator.record(WEBHOOK_URL, snapshot("billing", "Billing", QualityGate.Status.ERROR, "70.0"));
+        TeamSummary summary = aggregator.closePeriod().get(0);
+
+        // Assert
+        Assert.assertEquals(summary.getAnalyses(), 1);
+        Assert.assertEquals(summary.getFailing(), List.of("Billing"));
+        Assert.assertTrue(summary.getNewlyFailing().isEmpty());
+        Assert.assertTrue(summary.getCoverageDown().isEmpty());
+    }
+
+    @Test
+    public void testRecord_KeepsDestinationsApartAndIgnoresBranches() {
+        // Arrange
+        aggregator.record(WEBHOOK_URL, snapshot("billing", "Billing", QualityGate.Status.OK, "80.0"));
+        aggregator.record(OTHER_WEBHOOK_URL, snapshot("orders", "Orders", QualityGate.Status.ERROR, "60.0"));
+        AnalysisSnapshot branch = snapshot("billing", "Billing", QualityGate.Status.ERROR, "10.0", "feature/login");
+
+        // Act
+        aggregator.record(WEBHOOK_URL, branch);
+        aggregator.record(null, snapshot("orders", "Orders", QualityGate.Status.OK, "60.0"));
+
+        // Assert
+        Assert.assertEquals(aggregator.size(), 2);
+        for (TeamSummary summary : aggregator.closePeriod()) {
+            Assert.assertEquals(summary.getAnalyses(), 1);
+            Assert.assertEquals(summary.getFailing(), summary.getDestination().equals(WEBHOOK_URL) ? List.of() : List.of("Orders"));
+        }
+    }
+
+    @Test
+    public void testRecord_WhenDisabled_RecordsNothing() {
+        // Arrange
+        QualitySummaryAggregator disabled = new QualitySummaryAggregator(false);
+
+        // Act
+        disabled.record(WEBHOOK_URL, snapshot("billing", "Billing", QualityGate.Status.OK, "80.0"));
+
+        // Assert
+        Assert.assertTrue(disabled.isEmpty());
+        Assert.assertTrue(disabled.closePeriod().isEmpty());
+    }
+
+    static AnalysisSnapshot snapshot(String key, String name, QualityGate.Status status, String coverage) {
+        return snapshot(key, name, status, coverage, null);
+    }
+
+    static AnalysisSnapshot snapshot(String key, String name, QualityGate.Status status, String coverage, String branchName) {
+        ProjectAnalysis analysis = mock(ProjectAnalysis.class);
+        Project project = mock(Project.class);
+        QualityGate qualityGate = mock(QualityGate.class);
+        Condition condition = mock(Condition.class);
+        when(analysis.getProject()).thenReturn(project);
+        when(analysis.getQualityGate()).thenReturn(qualityGate);
+        when(project.getKey()).thenReturn(key);
+        when(project.getName()).thenReturn(name);
+        when(qualityGate.getStatus()).thenReturn(status);
+        when(qualityGate.getConditions()).thenReturn(List.of(condition));
+        when(condition.getMetricKey()).thenReturn("coverage");
+        when(condition.getValue()).thenReturn(coverage);
+        when(condition.getStatus()).thenReturn(QualityGate.EvaluationStatus.OK);
+        if (branchName != null) {
+            Branch branch = mock(Branch.class);
+            when(branch.isMain()).thenReturn(false);
+            when(branch.getName()).thenReturn(Optional.of(branchName));
+            when(analysis.getBranch()).thenReturn(Optional.of(branch));
+        }
+        return AnalysisSnapshot.of(analysis);
+    }
+}
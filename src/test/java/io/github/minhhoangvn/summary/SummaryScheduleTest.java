@@ -0,0 +1,46 @@
+package io.github.minhhoangvn.summary;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+public class SummaryScheduleTest {
+
+    private static final ZoneId PARIS = ZoneId.of("Europe/Paris");
+
+    @Test
+    public void testNextRunAfter_Daily_IsTodayOrTomorrow() {
+        // Arrange
+        SummarySchedule schedule = SummarySchedule.parse("daily 09:00", PARIS);
+
+        // Act & Assert
+        Assert.assertEquals(schedule.nextRunAfter(millis(2024, 3, 5, 8, 30, PARIS)), millis(2024, 3, 5, 9, 0, PARIS));
+        Assert.assertEquals(schedule.nextRunAfter(millis(2024, 3, 5, 9, 0, PARIS)), millis(2024, 3, 6, 9, 0, PARIS));
+    }
+
+    @Test
+    public void testNextRunAfter_Weekly_IsNextMatchingDay() {
+        // Arrange - 2024-03-04 is a Monday
+        SummarySchedule schedule = SummarySchedule.parse("weekly mon 09:00 Europe/Paris", ZoneOffset.UTC);
+
+        // Act & Assert
+        Assert.assertTrue(schedule.isWeekly());
+        Assert.assertEquals(schedule.nextRunAfter(millis(2024, 3, 4, 8, 0, PARIS)), millis(2024, 3, 4, 9, 0, PARIS));
+        Assert.assertEquals(schedule.nextRunAfter(millis(2024, 3, 4, 10, 0, PARIS)), millis(2024, 3, 11, 9, 0, PARIS));
+        Assert.assertEquals(schedule.nextRunAfter(millis(2024, 3, 7, 10, 0, PARIS)), millis(2024, 3, 11, 9, 0, PARIS));
+    }
+
+    @Test
+    public void testParse_InvalidSchedule_Throws() {
+        Assert.assertThrows(IllegalArgumentException.class, () -> SummarySchedule.parse("hourly", PARIS));
+        Assert.assertThrows(IllegalArgumentException.class, () -> SummarySchedule.parse("daily 25:00", PARIS));
+        Assert.assertThrows(IllegalArgumentException.class, () -> SummarySchedule.parse("weekly XYZ 09:00", PARIS));
+    }
+
+    private static long millis(int year, int month, int day, int hour, int minute, ZoneId zone) {
+        return ZonedDateTime.of(year, month, day, hour, minute, 0, 0, zone).toInstant().toEpochMilli();
+    }
+}
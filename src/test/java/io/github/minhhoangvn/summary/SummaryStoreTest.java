@@ -0,0 +1,92 @@
+package io.github.minhhoangvn.summary;
+
+import org.sonar.api.ce.posttask.QualityGate;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static io.github.minhhoangvn.summary.QualitySummaryAggregatorTest.snapshot;
+
+public class SummaryStoreTest {
+
+    private static final String WEBHOOK_URL = "https://example.webhook.office.com/webhook";
+
+    private Path directory;
+    private SummaryStore store;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("msteams-summary");
+        store = new SummaryStore(directory.resolve("msteams-summary.bin"));
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testSaveAndLoad_ContinuesThePeriod() throws IOException {
+        // Arrange
+        QualitySummaryAggregator aggregator = new QualitySummaryAggregator(true);
+        aggregator.record(WEBHOOK_URL, snapshot("billing", "Billing", QualityGate.Status.OK, "80.0"));
+        aggregator.record(WEBHOOK_URL, snapshot("billing", "Billing", QualityGate.Status.ERROR, "75.0"));
+        aggregator.record(WEBHOOK_URL, snapshot("orders", "Orders", QualityGate.Status.OK, "60.0"));
+        QualitySummaryAggregator restored = new QualitySummaryAggregator(true);
+
+        // Act
+        int saved = store.save(aggregator);
+        int loaded = store.load(restored);
+        restored.record(WEBHOOK_URL, snapshot("orders", "Orders", QualityGate.Status.ERROR, "61.0"));
+
+        // Assert
+        Assert.assertEquals(saved, 2);
+        Assert.assertEquals(loaded, 2);
+        TeamSummary summary = restored.closePeriod().get(0);
+        Assert.assertEquals(summary.getAnalyses(), 4);
+        Assert.assertEquals(summary.getNewlyFailing(), List.of("Billing", "Orders"));
+        Assert.assertEquals(summary.getCoverageDown(), List.of("Billing"));
+    }
+
+    @Test
+    public void testLoad_MissingOrForeignFile_RestoresNothing() throws IOException {
+        // Arrange
+        QualitySummaryAggregator aggregator = new QualitySummaryAggregator(true);
+
+        // Act & Assert
+        Assert.assertEquals(store.load(aggregator), 0);
+        Files.write(store.getFile(), "not a summary".getBytes());
+        Assert.assertEquals(store.load(aggregator), 0);
+        Assert.assertTrue(aggregator.isEmpty());
+    }
+
+    @Test
+    public void testLoad_TruncatedFile_RestoresCompleteRecords() throws IOException {
+        // Arrange
+        QualitySummaryAggregator aggregator = new QualitySummaryAggregator(true);
+        aggregator.record(WEBHOOK_URL, snapshot("billing", "Billing", QualityGate.Status.OK, "80.0"));
+        aggregator.record(WEBHOOK_URL, snapshot("orders", "Orders", QualityGate.Status.OK, "60.0"));
+        store.save(aggregator);
+        byte[] bytes = Files.readAllBytes(store.getFile());
+        Files.write(store.getFile(), Arrays.copyOf(bytes, bytes.length - 20));
+        QualitySummaryAggregator restored = new QualitySummaryAggregator(true);
+
+        // Act
+        int loaded = store.load(restored);
+
+        // Assert
+        Assert.assertEquals(loaded, 1);
+        Assert.assertEquals(restored.size(), 1);
+    }
+}
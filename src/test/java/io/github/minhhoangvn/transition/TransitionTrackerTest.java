@@ -0,0 +1,199 @@
+package io.github.minhhoangvn.transition;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+public class TransitionTrackerTest {
+
+    private static final long HOUR = 60 * 60_000L;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private Path directory;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("msteams-transitions");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testRecord_SteadyStatus_NotNotified() {
+        // Arrange
+        TransitionTracker tracker = tracker(EnumSet.of(Trigger.NEWLY_FAILING, Trigger.RECOVERED));
+
+        // Act & Assert
+        Assert.assertNull(notify(tracker, "billing", null, false));
+        Assert.assertNull(notify(tracker, "billing", null, false));
+        Assert.assertEquals(notify(tracker, "billing", null, true), Trigger.NEWLY_FAILING);
+        Assert.assertNull(notify(tracker, "billing", null, true));
+        Assert.assertEquals(notify(tracker, "billing", null, false), Trigger.RECOVERED);
+        Assert.assertNull(notify(tracker, "billing", null, false));
+    }
+
+    @Test
+    public void testRecord_FirstAnalysisFailed_NewlyFailing() {
+        // Arrange
+        TransitionTracker tracker = tracker(EnumSet.of(Trigger.NEWLY_FAILING));
+
+        // Act
+        Trigger trigger = tracker.record("billing", "main", true);
+
+        // Assert
+        Assert.assertEquals(trigger, Trigger.NEWLY_FAILING);
+    }
+
+    @Test
+    public void testRecord_StillFailing_RemindedOncePerInterval() {
+        // Arrange
+        TransitionTracker tracker = tracker(EnumSet.allOf(Trigger.class));
+        notify(tracker, "billing", null, true);
+
+        // Act
+        clock.addAndGet(HOUR);
+        Trigger tooEarly = notify(tracker, "billing", null, true);
+        clock.addAndGet(23 * HOUR);
+        Trigger reminder = notify(tracker, "billing", null, true);
+        clock.addAndGet(HOUR);
+        Trigger afterReminder = notify(tracker, "billing", null, true);
+
+        // Assert
+        Assert.assertNull(tooEarly);
+        Assert.assertEquals(reminder, Trigger.STILL_FAILING);
+        Assert.assertNull(afterReminder);
+    }
+
+    @Test
+    public void testRecord_TriggerNotSet_StatusStillTracked() {
+        // Arrange
+        TransitionTracker tracker = tracker(EnumSet.of(Trigger.RECOVERED));
+
+        // Act
+        Trigger failing = tracker.record("billing", null, true);
+        Trigger recovered = tracker.record("billing", null, false);
+
+        // Assert
+        Assert.assertNull(failing);
+        Assert.assertEquals(recovered, Trigger.RECOVERED);
+    }
+
+    @Test
+    public void testRecord_BranchesTrackedSeparately() {
+        // Arrange
+        TransitionTracker tracker = tracker(EnumSet.of(Trigger.NEWLY_FAILING));
+        notify(tracker, "billing", null, true);
+
+        // Act
+        Trigger branch = notify(tracker, "billing", "feature", true);
+
+        // Assert
+        Assert.assertEquals(branch, Trigger.NEWLY_FAILING);
+        Assert.assertEquals(tracker.size(), 2);
+    }
+
+    @Test
+    public void testSaveAndLoad_KeepsStatusesAcrossRestarts() throws IOException {
+        // Arrange
+        TransitionStore store = new TransitionStore(directory.resolve("msteams-transitions.bin"));
+        TransitionTracker tracker = new TransitionTracker(EnumSet.allOf(Trigger.class), 24 * HOUR, store, clock::get);
+        notify(tracker, "billing", null, true);
+        notify(tracker, "orders", "main", false);
+        tracker.stop();
+        TransitionTracker restarted = new TransitionTracker(EnumSet.allOf(Trigger.class), 24 * HOUR, store, clock::get);
+
+        // Act
+        restarted.start();
+
+        // Assert
+        Assert.assertEquals(restarted.size(), 2);
+        Assert.assertNull(restarted.record("billing", null, true));
+        Assert.assertEquals(restarted.record("orders", "main", true), Trigger.NEWLY_FAILING);
+    }
+
+    @Test
+    public void testRecord_TransitionNotDelivered_NotifiedAgain() {
+        // Arrange - The first card was filtered, shed or failed on the way
+        TransitionTracker tracker = tracker(EnumSet.allOf(Trigger.class));
+        tracker.record("billing", null, true);
+
+        // Act
+        clock.addAndGet(HOUR);
+        Trigger again = tracker.record("billing", null, true);
+        tracker.delivered("billing", null, true);
+        Trigger afterDelivery = tracker.record("billing", null, true);
+
+        // Assert
+        Assert.assertEquals(again, Trigger.NEWLY_FAILING);
+        Assert.assertNull(afterDelivery);
+    }
+
+    @Test
+    public void testSaveIfChanged_WritesOnlyAfterChanges() throws IOException {
+        // Arrange
+        TransitionStore store = new TransitionStore(directory.resolve("msteams-transitions.bin"));
+        TransitionTracker tracker = new TransitionTracker(EnumSet.allOf(Trigger.class), 24 * HOUR, store, clock::get);
+        tracker.record("billing", null, true);
+
+        // Act
+        boolean savedPending = tracker.saveIfChanged();
+        tracker.delivered("billing", null, true);
+        boolean savedDelivered = tracker.saveIfChanged();
+        boolean savedAgain = tracker.saveIfChanged();
+
+        // Assert - Written without a stop, as a crash would leave it
+        Assert.assertFalse(savedPending);
+        Assert.assertTrue(savedDelivered);
+        Assert.assertFalse(savedAgain);
+        TransitionTracker restarted = new TransitionTracker(EnumSet.allOf(Trigger.class), 24 * HOUR, store, clock::get);
+        Assert.assertEquals(store.load(restarted), 1);
+    }
+
+    @Test
+    public void testTriggers_UnknownNamesIgnored() {
+        // Act
+        Set<Trigger> triggers = TransitionTracker.triggers(new String[]{"newly_failing", " Recovered ", "sometimes", ""});
+
+        // Assert
+        Assert.assertEquals(triggers, EnumSet.of(Trigger.NEWLY_FAILING, Trigger.RECOVERED));
+    }
+
+    @Test
+    public void testRecord_NoTrigger_Disabled() {
+        // Arrange
+        TransitionTracker tracker = tracker(EnumSet.noneOf(Trigger.class));
+
+        // Act & Assert
+        Assert.assertFalse(tracker.isEnabled());
+        Assert.assertNull(tracker.record("billing", null, true));
+        Assert.assertEquals(tracker.size(), 0);
+    }
+
+    // Records the analysis and delivers whatever it triggers
+    private static Trigger notify(TransitionTracker tracker, String projectKey, String branch, boolean failed) {
+        Trigger trigger = tracker.record(projectKey, branch, failed);
+        if (trigger != null) {
+            tracker.delivered(projectKey, branch, failed);
+        }
+        return trigger;
+    }
+
+    private TransitionTracker tracker(Set<Trigger> triggers) {
+        return new TransitionTracker(triggers, 24 * HOUR, null, clock::get);
+    }
+}
@@ -1,5 +1,6 @@
 package io.github.minhhoangvn.utils;
 
+import io.github.minhhoangvn.pipeline.AnalysisSnapshot;
 import org.sonar.api.ce.posttask.PostProjectAnalysisTask.ProjectAnalysis;
 import org.sonar.api.ce.posttask.Project;
 import org.sonar.api.ce.posttask.CeTask;
@@ -91,6 +92,54 @@ public class AdaptiveCardsFormatTest {
         Assert.assertTrue(result.contains("\"value\": \"80.5\""));
     }
 
+    @Test
+    public void testCreateMessageCardJSONPayload_RendersConditionsNotInHeadlineFacts() {
+        // Arrange
+        Condition coverage = mock(Condition.class);
+        when(coverage.getMetricKey()).thenReturn("new_coverage");
+        when(coverage.getValue()).thenReturn("72.5");
+        when(coverage.getStatus()).thenReturn(QualityGate.EvaluationStatus.ERROR);
+        when(coverage.getOperator()).thenReturn(QualityGate.Operator.LESS_THAN);
+        when(coverage.getErrorThreshold()).thenReturn("80");
+
+        Condition securityRating = mock(Condition.class);
+        when(securityRating.getMetricKey()).thenReturn("new_security_rating");
+        when(securityRating.getValue()).thenReturn("3");
+        when(securityRating.getStatus()).thenReturn(QualityGate.EvaluationStatus.ERROR);
+        when(securityRating.getOperator()).thenReturn(QualityGate.Operator.GREATER_THAN);
+        when(securityRating.getErrorThreshold()).thenReturn("1");
+
+        when(qualityGate.getConditions()).thenReturn(Arrays.asList(coverage, securityRating));
+
+        // Act
+        String result = AdaptiveCardsFormat.createMessageCardJSONPayload(projectAnalysis, "http://sonarqube.example.com");
+
+        // Assert - Coverage is a headline fact, so it is shown once
+        Assert.assertTrue(result.contains("\"text\": \"Quality Gate Conditions\""));
+        Assert.assertTrue(result.contains("\"title\": \"" + MetricCatalog.get("new_security_rating").getDisplayName() + "\""));
+        Assert.assertTrue(result.contains("\"value\": \"C (> A) ERROR\""));
+        Assert.assertTrue(result.contains("\"value\": \"72.5\""));
+        Assert.assertFalse(result.contains("\"title\": \"" + MetricCatalog.get("new_coverage").getDisplayName() + "\""));
+        Assert.assertFalse(result.contains("72.5% (< 80%)"));
+    }
+
+    @Test
+    public void testCreateMessageCardJSONPayload_OnlyHeadlineConditions_NoConditionsSection() {
+        // Arrange
+        Condition coverage = mock(Condition.class);
+        when(coverage.getMetricKey()).thenReturn("new_coverage");
+        when(coverage.getValue()).thenReturn("72.5");
+        when(coverage.getStatus()).thenReturn(QualityGate.EvaluationStatus.ERROR);
+        when(qualityGate.getConditions()).thenReturn(Collections.singletonList(coverage));
+
+        // Act
+        String result = AdaptiveCardsFormat.createMessageCardJSONPayload(projectAnalysis, "http://sonarqube.example.com");
+
+        // Assert
+        Assert.assertFalse(result.contains("Quality Gate Conditions"));
+        Assert.assertTrue(result.contains("\"value\": \"72.5\""));
+    }
+
     @Test
     public void testCreateMessageCardJSONPayload_WithFailedQualityGate() {
         // Arrange
@@ -148,6 +197,23 @@ public class AdaptiveCardsFormatTest {
         Assert.assertTrue(result.contains("\"text\": \"DevOps Team\""));
     }
 
+    @Test
+    public void testCreateMessageCardJSONPayload_TeamNameWithQuotes_IsEscaped() {
+        // Arrange
+        when(qualityGate.getConditions()).thenReturn(Collections.emptyList());
+        when(project.getName()).thenReturn("Billing \"v2\"");
+        String projectUrl = "http://sonarqube.example.com/dashboard?id=test-project-key";
+
+        // Act
+        String result = AdaptiveCardsFormat.createMessageCardJSONPayload(AnalysisSnapshot.of(projectAnalysis), projectUrl,
+                null, "Ops\", \"type\": \"Injected");
+
+        // Assert
+        Assert.assertTrue(result.contains("\"text\": \"Ops\\\", \\\"type\\\": \\\"Injected\""));
+        Assert.assertTrue(result.contains("\"text\": \"Billing \\\"v2\\\" SonarQube Analysis Result\""));
+        Assert.assertFalse(result.contains("\"type\": \"Injected\""));
+    }
+
     @Test
     public void testCreateMessageCardJSONPayload_WithAllFactsPresent() {
         // Arrange
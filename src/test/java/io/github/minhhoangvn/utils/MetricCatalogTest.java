@@ -0,0 +1,50 @@
+package io.github.minhhoangvn.utils;
+
+import org.sonar.api.ce.posttask.QualityGate;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.measures.Metric;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class MetricCatalogTest {
+
+    @Test
+    public void testGet_CoreMetric_UsesCoreMetricsDefinition() {
+        // Act
+        MetricCatalog.Entry entry = MetricCatalog.get(CoreMetrics.NEW_COVERAGE.getKey());
+
+        // Assert
+        Assert.assertEquals(entry.getDisplayName(), CoreMetrics.NEW_COVERAGE.getName());
+        Assert.assertEquals(entry.getType(), Metric.ValueType.PERCENT);
+        Assert.assertEquals(entry.getUnit(), "%");
+        Assert.assertSame(MetricCatalog.get(CoreMetrics.NEW_COVERAGE.getKey()), entry);
+    }
+
+    @Test
+    public void testGet_UnknownMetric_DerivesNameFromKeyOnce() {
+        // Act
+        MetricCatalog.Entry entry = MetricCatalog.get("custom_plugin_metric");
+
+        // Assert
+        Assert.assertEquals(entry.getDisplayName(), "Custom Plugin Metric");
+        Assert.assertSame(MetricCatalog.get("custom_plugin_metric"), entry);
+    }
+
+    @Test
+    public void testFormat_ByValueType() {
+        Assert.assertEquals(MetricCatalog.get(CoreMetrics.NEW_COVERAGE.getKey()).format("80.5"), "80.5%");
+        Assert.assertEquals(MetricCatalog.get(CoreMetrics.NEW_SECURITY_RATING.getKey()).format("3"), "C");
+        Assert.assertEquals(MetricCatalog.get(CoreMetrics.NEW_SECURITY_RATING.getKey()).format("5.0"), "E");
+        Assert.assertEquals(MetricCatalog.get(CoreMetrics.NEW_TECHNICAL_DEBT.getKey()).format("605"), "1d 2h 5min");
+        Assert.assertEquals(MetricCatalog.get(CoreMetrics.NEW_TECHNICAL_DEBT.getKey()).format("30"), "30min");
+        Assert.assertEquals(MetricCatalog.get(CoreMetrics.NEW_VIOLATIONS.getKey()).format("5"), "5");
+        Assert.assertEquals(MetricCatalog.get(CoreMetrics.NEW_VIOLATIONS.getKey()).format(null), "N/A");
+    }
+
+    @Test
+    public void testOperatorSymbol() {
+        Assert.assertEquals(MetricCatalog.operatorSymbol(QualityGate.Operator.LESS_THAN), "<");
+        Assert.assertEquals(MetricCatalog.operatorSymbol(QualityGate.Operator.GREATER_THAN), ">");
+        Assert.assertEquals(MetricCatalog.operatorSymbol(null), "");
+    }
+}